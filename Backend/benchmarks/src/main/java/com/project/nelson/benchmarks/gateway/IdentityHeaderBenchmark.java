@@ -0,0 +1,72 @@
+package com.project.nelson.benchmarks.gateway;
+
+import com.project.nelson.identity.IdentityDecoder;
+import com.project.nelson.identity.IdentityEncoder;
+import com.project.nelson.identity.IdentityKey;
+import com.project.nelson.identity.IdentityView;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Coste por petición, en el servicio aguas abajo, de leer la identidad que
+ * propaga el gateway.
+ *
+ * {@code legacyHeaders} reproduce la lectura de las cabeceras de texto
+ * ({@code X-Roles} partido por comas en un conjunto) sin ninguna
+ * verificación. {@code identityHeader} verifica el HMAC de {@code X-Identity}
+ * y consulta un rol sobre una vista reutilizada (sin asignaciones);
+ * {@code identityHeaderPerRequest} asigna la vista por petición, como hace
+ * {@code IdentityHeaderFilter}. Con {@code -prof gc} se compara la tasa de
+ * asignación.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IdentityHeaderBenchmark {
+
+  private String usuario;
+  private String roles;
+  private String email;
+  private String identity;
+  private IdentityDecoder decoder;
+  private IdentityView view;
+
+  @Setup
+  public void setup() {
+    IdentityKey key = IdentityKey.of(1, "benchmark-identity-secret-32-bytes!!");
+    usuario = "admin";
+    roles = "ROLE_USER,ROLE_ADMIN";
+    email = "admin@correo.com";
+    identity = new IdentityEncoder(key).encode(usuario, email, List.of("ROLE_USER", "ROLE_ADMIN"),
+      "2b1f8e4a-6c0d-4f7e-9a52-3d1c7b9e0f11", System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+    decoder = new IdentityDecoder(key);
+    view = new IdentityView();
+  }
+
+  @Benchmark
+  public boolean legacyHeaders() {
+    Set<String> parsed = new HashSet<>(Arrays.asList(roles.split(",")));
+    return usuario.equals("admin") && parsed.contains("ROLE_ADMIN") && email != null;
+  }
+
+  @Benchmark
+  public boolean identityHeader() {
+    return decoder.decode(identity, view) == IdentityDecoder.Result.VALID && view.hasRole("ROLE_ADMIN");
+  }
+
+  @Benchmark
+  public boolean identityHeaderPerRequest() {
+    IdentityView perRequest = IdentityView.forHeader(identity);
+    return decoder.decode(identity, perRequest) == IdentityDecoder.Result.VALID && perRequest.hasRole("ROLE_ADMIN");
+  }
+}
@@ -0,0 +1,126 @@
+package com.project.nelson.benchmarks.gateway;
+
+import com.project.nelson.msvc_gateway.gateway.filter.JwtGlobalFilter;
+import com.project.nelson.msvc_gateway.gateway.jwt.JwtVerificationCache;
+import com.project.nelson.msvc_gateway.gateway.jwt.TokenRevocationCache;
+import com.project.nelson.msvc_gateway.gateway.policy.RoleIndex;
+import com.project.nelson.msvc_gateway.gateway.policy.RoutePolicyRegistry;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Coste de {@link JwtGlobalFilter#filter} por petición con una cadena que
+ * completa de inmediato: solo se mide el filtro.
+ *
+ * <ul>
+ *   <li>{@code protectedCachedToken}: ruta protegida con token ya verificado (caso habitual).</li>
+ *   <li>{@code protectedColdToken}: ruta protegida pagando firma y parseo (caché de tamaño 1
+ *       y dos tokens alternos).</li>
+ *   <li>{@code exemptRoute}: ruta pública.</li>
+ * </ul>
+ * La lista de revocación local contiene {@value #REVOKED_TOKENS} jti, de modo
+ * que las rutas protegidas incluyen la consulta de revocación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtGlobalFilterBenchmark {
+
+  private static final String SECRET = "benchmark-secret-de-al-menos-32-bytes!!";
+  private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+  static final int REVOKED_TOKENS = 10_000;
+
+  private JwtGlobalFilter cachedFilter;
+  private JwtGlobalFilter coldFilter;
+  private String[] tokens;
+  private int next;
+
+  @Setup
+  public void setup() {
+    MockEnvironment environment = new MockEnvironment()
+      .withProperty("gateway.filter.conditional-path", "/api/segura/")
+      .withProperty("gateway.filter.allowed-roles", "ROLE_ADMIN,ROLE_USER")
+      .withProperty("gateway.filter.exempt-paths", "/auth/login,/usuarios/register")
+      .withProperty("gateway.filter.route-roles[/api/segura/usuarios/]", "ROLE_ADMIN,ROLE_USER");
+
+    cachedFilter = newFilter(environment, 10_000);
+    coldFilter = newFilter(environment, 1);
+    tokens = new String[] { token(), token() };
+  }
+
+  @Benchmark
+  public Void protectedCachedToken() {
+    return cachedFilter.filter(protectedRequest(tokens[0]), CHAIN).block();
+  }
+
+  @Benchmark
+  public Void protectedColdToken() {
+    String jwt = tokens[next++ & 1];
+    return coldFilter.filter(protectedRequest(jwt), CHAIN).block();
+  }
+
+  @Benchmark
+  public Void exemptRoute() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(
+      MockServerHttpRequest.post("/api/auth/login").build()
+    );
+    return cachedFilter.filter(exchange, CHAIN).block();
+  }
+
+  private static MockServerWebExchange protectedRequest(String jwt) {
+    return MockServerWebExchange.from(
+      MockServerHttpRequest.get("/api/segura/usuarios/list")
+        .header("Authorization", "Bearer " + jwt)
+        .build()
+    );
+  }
+
+  private static JwtGlobalFilter newFilter(MockEnvironment environment, int cacheSize) {
+    RoleIndex roleIndex = new RoleIndex();
+    JwtVerificationCache cache = new JwtVerificationCache(
+      SECRET,
+      "roles",
+      "email",
+      cacheSize,
+      roleIndex,
+      new SimpleMeterRegistry()
+    );
+    TokenRevocationCache revocations = new TokenRevocationCache(60_000, new SimpleMeterRegistry());
+    long expiresAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+    for (int i = 0; i < REVOKED_TOKENS; i++) {
+      revocations.revoke(UUID.randomUUID().toString(), expiresAt);
+    }
+    return new JwtGlobalFilter(cache, revocations, new RoutePolicyRegistry(environment, roleIndex), new SimpleMeterRegistry());
+  }
+
+  private static String token() {
+    return Jwts.builder()
+      .setSubject("admin")
+      .claim("roles", List.of("ROLE_ADMIN"))
+      .claim("email", "admin@correo.com")
+      .setId(UUID.randomUUID().toString())
+      .setIssuedAt(new Date())
+      .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+      .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+      .compact();
+  }
+}
@@ -0,0 +1,58 @@
+package com.project.nelson.benchmarks.gateway;
+
+import com.project.nelson.msvc_gateway.gateway.ratelimit.LocalTokenBucketRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Coste por petición de la decisión del rate limiter local (sin Redis).
+ *
+ * {@code sameKey} concentra todos los hilos en un bucket (peor caso de
+ * contención); {@code manyKeys} reparte entre {@value #KEYS} usuarios, el caso
+ * habitual. Comparar con la latencia de un viaje a Redis del
+ * {@code RedisRateLimiter} anterior (del orden de cientos de µs en red local).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+  static final int KEYS = 10_000;
+
+  private LocalTokenBucketRateLimiter rateLimiter;
+  private String[] keys;
+
+  @Setup
+  public void setup() {
+    // Tasa alta para medir sobre todo el camino de admisión
+    rateLimiter = new LocalTokenBucketRateLimiter(
+      null, new MockEnvironment(), new SimpleMeterRegistry(), 1_000_000, 1_000_000, true, 300_000);
+    keys = new String[KEYS];
+    for (int i = 0; i < KEYS; i++) {
+      keys[i] = "user:usuario" + i;
+    }
+  }
+
+  @Benchmark
+  public RateLimiter.Response sameKey() {
+    return rateLimiter.isAllowed("usuario-usuarios", keys[0]).block();
+  }
+
+  @Benchmark
+  public RateLimiter.Response manyKeys() {
+    String key = keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    return rateLimiter.isAllowed("usuario-usuarios", key).block();
+  }
+}
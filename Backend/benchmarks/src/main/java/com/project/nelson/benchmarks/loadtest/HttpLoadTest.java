@@ -0,0 +1,212 @@
+package com.project.nelson.benchmarks.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prueba de carga HTTP de lazo cerrado: N clientes concurrentes envían
+ * peticiones sin pausa durante un tiempo fijo y se mide throughput y latencia
+ * (p50/p90/p99/máx) por nivel de concurrencia.
+ *
+ * Sirve para comparar los modos de ejecución de usuario en el mismo tamaño de
+ * contenedor, por ejemplo con {@code docker run --cpus 1 --memory 768m}:
+ * <ol>
+ *   <li>Arrancar usuario con {@code VIRTUAL_THREADS_ENABLED=false} (pool de Tomcat).</li>
+ *   <li>Ejecutar: {@code mvn -B package exec:exec -Ploadtest
+ *       -Dloadtest.args="--url http://localhost:8081/usuarios/list --header 'Authorization: Bearer <jwt>'
+ *       --concurrency 50,200,800,2000"}</li>
+ *   <li>Repetir con {@code VIRTUAL_THREADS_ENABLED=true} y comparar la columna
+ *       de errores y la p99 a partir de la concurrencia en que el pool de
+ *       plataforma (200 hilos) se satura.</li>
+ * </ol>
+ * Los clientes del harness son hilos virtuales para que el generador de carga
+ * no sea el cuello de botella.
+ *
+ * Sin MySQL ni Eureka, usuario arranca con el perfil {@code test} (H2 en
+ * memoria) desde su classpath de tests: {@code java -cp
+ * target/classes:target/test-classes:<dependencias de test> ...UsuarioApplication
+ * --spring.profiles.active=test --server.port=8081 --eureka.client.enabled=false
+ * --spring.threads.virtual.enabled=true}. H2 no bloquea en red, así que la
+ * diferencia entre modos es menor que contra MySQL.
+ */
+public final class HttpLoadTest {
+
+  private HttpLoadTest() {}
+
+  public static void main(String[] args) throws Exception {
+    Options options = Options.parse(args);
+    if (options == null) {
+      printUsage();
+      return;
+    }
+
+    HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(options.timeout)
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+    HttpRequest request = options.buildRequest();
+
+    System.out.printf("URL: %s %s | duración %ds (calentamiento %ds)%n",
+      options.method, options.url, options.duration.toSeconds(), options.warmup.toSeconds());
+    System.out.printf("%12s %10s %10s %9s %9s %9s %9s %8s%n",
+      "concurrencia", "peticiones", "req/s", "p50 ms", "p90 ms", "p99 ms", "máx ms", "errores");
+
+    for (int concurrency : options.concurrency) {
+      run(client, request, concurrency, options.warmup);
+      Result result = run(client, request, concurrency, options.duration);
+      System.out.printf("%12d %10d %10.1f %9.2f %9.2f %9.2f %9.2f %8d%n",
+        concurrency,
+        result.requests(),
+        result.requests() / (options.duration.toMillis() / 1000.0),
+        result.percentile(0.50),
+        result.percentile(0.90),
+        result.percentile(0.99),
+        result.percentile(1.0),
+        result.errors());
+    }
+  }
+
+  private static Result run(HttpClient client, HttpRequest request, int concurrency, Duration duration)
+    throws Exception {
+    long deadline = System.nanoTime() + duration.toNanos();
+    List<Future<Worker>> futures = new ArrayList<>(concurrency);
+    try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < concurrency; i++) {
+        futures.add(workers.submit(() -> new Worker().loop(client, request, deadline)));
+      }
+    }
+
+    long[] latencies = new long[0];
+    long errors = 0;
+    for (Future<Worker> future : futures) {
+      Worker worker = future.get();
+      int offset = latencies.length;
+      latencies = Arrays.copyOf(latencies, offset + worker.count);
+      System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+      errors += worker.errors;
+    }
+    Arrays.sort(latencies);
+    return new Result(latencies, errors);
+  }
+
+  private static final class Worker {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    Worker loop(HttpClient client, HttpRequest request, long deadline) {
+      while (System.nanoTime() < deadline) {
+        long start = System.nanoTime();
+        try {
+          HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+          if (response.statusCode() >= 400) {
+            errors++;
+          }
+        } catch (Exception ex) {
+          errors++;
+        }
+        record(System.nanoTime() - start);
+      }
+      return this;
+    }
+
+    private void record(long nanos) {
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = nanos;
+    }
+  }
+
+  private record Result(long[] sortedLatencies, long errors) {
+
+    long requests() {
+      return sortedLatencies.length;
+    }
+
+    double percentile(double p) {
+      if (sortedLatencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+      return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+    }
+  }
+
+  private static final class Options {
+
+    private URI url;
+    private String method = "GET";
+    private String body;
+    private final List<String> headers = new ArrayList<>();
+    private int[] concurrency = { 50, 200, 800 };
+    private Duration duration = Duration.ofSeconds(20);
+    private Duration warmup = Duration.ofSeconds(5);
+    private Duration timeout = Duration.ofSeconds(10);
+
+    static Options parse(String[] args) {
+      Options options = new Options();
+      for (int i = 0; i < args.length; i++) {
+        String arg = args[i];
+        if ("--help".equals(arg) || i + 1 >= args.length) {
+          return null;
+        }
+        String value = args[++i];
+        switch (arg) {
+          case "--url" -> options.url = URI.create(value);
+          case "--method" -> options.method = value.toUpperCase();
+          case "--body" -> options.body = value;
+          case "--header" -> options.headers.add(value);
+          case "--concurrency" -> options.concurrency =
+            Arrays.stream(value.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+          case "--duration" -> options.duration = Duration.ofSeconds(Long.parseLong(value));
+          case "--warmup" -> options.warmup = Duration.ofSeconds(Long.parseLong(value));
+          case "--timeout" -> options.timeout = Duration.ofSeconds(Long.parseLong(value));
+          default -> {
+            return null;
+          }
+        }
+      }
+      return options.url == null ? null : options;
+    }
+
+    HttpRequest buildRequest() {
+      HttpRequest.Builder builder = HttpRequest.newBuilder(url)
+        .timeout(timeout)
+        .method(method, body == null
+          ? HttpRequest.BodyPublishers.noBody()
+          : HttpRequest.BodyPublishers.ofString(body));
+      if (body != null) {
+        builder.header("Content-Type", "application/json");
+      }
+      for (String header : headers) {
+        int colon = header.indexOf(':');
+        builder.header(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+      }
+      return builder.build();
+    }
+  }
+
+  private static void printUsage() {
+    System.out.println("""
+      Uso: HttpLoadTest --url <url> [opciones]
+        --method GET|POST|...       método HTTP (GET)
+        --body '<json>'             cuerpo JSON de la petición
+        --header 'Nombre: valor'    cabecera adicional (repetible)
+        --concurrency 50,200,800    niveles de concurrencia
+        --duration 20               segundos medidos por nivel
+        --warmup 5                  segundos de calentamiento por nivel
+        --timeout 10                timeout por petición en segundos
+      """);
+  }
+}
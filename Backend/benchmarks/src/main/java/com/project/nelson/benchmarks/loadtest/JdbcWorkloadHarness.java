@@ -0,0 +1,470 @@
+package com.project.nelson.benchmarks.loadtest;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioRow;
+import com.project.nelson.msvc_user_auth.usuario.repository.RolRepository;
+import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import com.project.nelson.msvc_user_auth.usuario.security.JpaUserDetailsService;
+import com.project.nelson.msvc_user_auth.usuario.service.coalescing.UsuarioLookupCoalescer;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.UsuarioBatchWriter;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.UsuarioBatchWriter.HashedRow;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.jdbc.DataSourcePoolMetricsAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Barrido de la configuración JDBC de usuario: tamaño del pool de Hikari,
+ * caché de sentencias preparadas y envío por lotes. Para cada combinación
+ * levanta solo la capa JPA de usuario (sin web, sin seguridad y sin caché de
+ * segundo nivel, para que cada operación llegue a la BD) y mide:
+ * <ul>
+ *   <li>{@code import}: filas/s de {@link UsuarioBatchWriter}, en lotes de 500
+ *       o fila a fila.</li>
+ *   <li>{@code login}: {@link JpaUserDetailsService#loadUserByUsername} sobre
+ *       usuarios al azar.</li>
+ *   <li>{@code listado}: las dos consultas de {@code findPageDto} (página por
+ *       cursor y roles del bloque) desde un id al azar.</li>
+ * </ul>
+ * Por ruta se informa throughput y latencia (p50/p99/máx) de lazo cerrado con
+ * {@code --concurrency} hilos, y del pool la espera media por conexión, el
+ * tiempo medio de uso y el máximo de hilos esperando
+ * ({@code hikaricp.connections.acquire}, {@code .usage} y {@code .pending},
+ * las mismas métricas que publica el servicio en Prometheus).
+ *
+ * Por defecto usa H2 en modo MySQL, donde la caché de sentencias equivale a
+ * {@code QUERY_CACHE_SIZE} y los lotes no se reescriben. Las cifras que deciden
+ * la configuración de {@code application-prod.yml} son las de un MySQL
+ * desechable, con las mismas propiedades de Connector/J que ese perfil:
+ * <pre>
+ *   docker run -d --rm --name mysql-bench -p 3307:3306 -e MYSQL_ROOT_PASSWORD=bench -e MYSQL_DATABASE=bench mysql:8.4
+ *   mvn -B package exec:exec -Pjdbcsweep -Djdbcsweep.args="--url jdbc:mysql://localhost:3307/bench --user root --password bench"
+ * </pre>
+ * El esquema se crea y se borra en cada combinación: nunca apuntar a una base
+ * con datos.
+ *
+ * Los hilos de carga son de plataforma: Connector/J puede fijar hilos
+ * virtuales en secciones {@code synchronized} y el resultado mediría eso.
+ */
+public final class JdbcWorkloadHarness {
+
+  private static final int IMPORT_BATCH = 500;
+  private static final int PAGE_SIZE = 20;
+
+  private JdbcWorkloadHarness() {}
+
+  public static void main(String[] args) throws Exception {
+    Options options = Options.parse(args);
+    if (options == null) {
+      printUsage();
+      return;
+    }
+    System.out.printf("%s | %d usuarios | %d hilos | %ds por ruta (calentamiento %ds)%n",
+      options.isMysql() ? options.url : "H2 en memoria (modo MySQL)",
+      options.users, options.concurrency, options.duration.toSeconds(), options.warmup.toSeconds());
+    System.out.printf("%5s %9s %6s %-8s %11s %9s %9s %9s %11s %9s %7s %8s%n",
+      "pool", "sentencias", "lotes", "ruta", "ops/s", "p50 ms", "p99 ms", "máx ms",
+      "espera ms", "uso ms", "en cola", "errores");
+
+    int run = 0;
+    for (int poolSize : options.poolSizes) {
+      for (boolean statementCache : options.statementCache) {
+        for (boolean batching : options.batching) {
+          try (ConfigurableApplicationContext context = start(options, run++, poolSize, statementCache, batching)) {
+            Workload workload = new Workload(context, options);
+            String prefix = String.format("%5d %9s %6s", poolSize, onOff(statementCache), onOff(batching));
+            print(prefix, "import", workload.importUsers(batching));
+            print(prefix, "login", workload.measure(workload::login));
+            print(prefix, "listado", workload.measure(workload::listPage));
+          }
+        }
+      }
+    }
+  }
+
+  private static ConfigurableApplicationContext start(
+    Options options,
+    int run,
+    int poolSize,
+    boolean statementCache,
+    boolean batching
+  ) {
+    List<String> properties = new ArrayList<>(List.of(
+      "spring.main.banner-mode=off",
+      "logging.level.root=WARN",
+      "spring.jpa.hibernate.ddl-auto=create-drop",
+      "spring.jpa.open-in-view=false",
+      "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+      "spring.jpa.properties.hibernate.query.in_clause_parameter_padding=" + statementCache,
+      "spring.jpa.properties.hibernate.jdbc.batch_size=" + (batching ? 50 : 0),
+      "spring.datasource.hikari.pool-name=usuario-db",
+      "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+      "spring.datasource.hikari.minimum-idle=" + poolSize,
+      // Se mide la espera en cola, no se corta por tiempo
+      "spring.datasource.hikari.connection-timeout=30000"
+    ));
+    if (options.isMysql()) {
+      properties.add("spring.datasource.url=" + options.url
+        + (options.url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=" + batching);
+      properties.add("spring.datasource.username=" + options.user);
+      properties.add("spring.datasource.password=" + options.password);
+      // Las mismas propiedades de Connector/J que application-prod.yml, activadas o no en bloque
+      String prefix = "spring.datasource.hikari.data-source-properties.";
+      properties.add(prefix + "useServerPrepStmts=" + statementCache);
+      properties.add(prefix + "cachePrepStmts=" + statementCache);
+      properties.add(prefix + "prepStmtCacheSize=250");
+      properties.add(prefix + "prepStmtCacheSqlLimit=2048");
+      properties.add(prefix + "useLocalSessionState=true");
+      properties.add(prefix + "cacheServerConfiguration=true");
+      properties.add(prefix + "cacheResultSetMetadata=true");
+    } else {
+      properties.add("spring.datasource.url=jdbc:h2:mem:jdbcsweep" + run + ";MODE=MySQL;DB_CLOSE_DELAY=-1"
+        + (statementCache ? "" : ";QUERY_CACHE_SIZE=0"));
+    }
+    return new SpringApplicationBuilder(WorkloadConfig.class)
+      .web(WebApplicationType.NONE)
+      .properties(properties.toArray(String[]::new))
+      .run();
+  }
+
+  private static void print(String prefix, String path, Result result) {
+    System.out.printf("%s %-8s %11.1f %9.2f %9.2f %9.2f %11.3f %9.3f %7d %8d%n",
+      prefix, path, result.opsPerSecond(),
+      result.percentile(0.50), result.percentile(0.99), result.percentile(1.0),
+      result.acquireMillis(), result.usageMillis(), result.maxPending(), result.errors());
+  }
+
+  private static String onOff(boolean value) {
+    return value ? "sí" : "no";
+  }
+
+  /**
+   * Datos y rutas medidas sobre un contexto ya levantado.
+   */
+  private static final class Workload {
+
+    private final Options options;
+    private final UsuarioBatchWriter batchWriter;
+    private final JpaUserDetailsService userDetailsService;
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate readOnlyTx;
+    private final MeterRegistry meterRegistry;
+    private final Long rolId;
+    private long minId;
+    private long maxId;
+
+    Workload(ConfigurableApplicationContext context, Options options) {
+      this.options = options;
+      this.batchWriter = context.getBean(UsuarioBatchWriter.class);
+      this.userDetailsService = context.getBean(JpaUserDetailsService.class);
+      this.usuarioRepository = context.getBean(UsuarioRepository.class);
+      this.readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+      this.readOnlyTx.setReadOnly(true);
+      this.meterRegistry = context.getBean(MeterRegistry.class);
+      this.rolId = context.getBean(RolRepository.class).save(new Rol("ROLE_USER")).getId();
+    }
+
+    Result importUsers(boolean batching) {
+      List<HashedRow> rows = new ArrayList<>(options.users);
+      for (int i = 0; i < options.users; i++) {
+        UsuarioDto usuario = new UsuarioDto();
+        usuario.setName("Carga");
+        usuario.setLastname("Usuario " + i);
+        usuario.setUsername("carga" + i);
+        usuario.setEmail("carga" + i + "@correo.com");
+        // Hash ficticio: el login de este harness no compara contraseñas
+        rows.add(new HashedRow(i + 1, usuario, "$2a$10$abcdefghijklmnopqrstuv", List.of(rolId)));
+      }
+      PoolSnapshot before = PoolSnapshot.of(meterRegistry);
+      long[] latencies = new long[batching ? (rows.size() + IMPORT_BATCH - 1) / IMPORT_BATCH : rows.size()];
+      int chunk = batching ? IMPORT_BATCH : 1;
+      long errors = 0;
+      long start = System.nanoTime();
+      for (int from = 0, i = 0; from < rows.size(); from += chunk, i++) {
+        long opStart = System.nanoTime();
+        errors += batchWriter.insert(rows.subList(from, Math.min(rows.size(), from + chunk))).size();
+        latencies[i] = System.nanoTime() - opStart;
+      }
+      long elapsed = System.nanoTime() - start;
+      Arrays.sort(latencies);
+
+      List<Long> ids = usuarioRepository.findAllRows().stream().map(UsuarioRow::id).toList();
+      minId = ids.get(0);
+      maxId = ids.get(ids.size() - 1);
+      // Throughput en filas/s; la latencia es la de cada llamada (lote o fila)
+      return new Result(latencies, rows.size() * 1e9 / elapsed, errors, before.delta(meterRegistry), 0);
+    }
+
+    void login() {
+      int i = ThreadLocalRandom.current().nextInt(options.users);
+      userDetailsService.loadUserByUsername("carga" + i);
+    }
+
+    void listPage() {
+      long after = ThreadLocalRandom.current().nextLong(minId - 1, Math.max(minId, maxId - PAGE_SIZE));
+      readOnlyTx.executeWithoutResult(status -> {
+        List<UsuarioRow> rows = usuarioRepository.findRowsAfter(after, Limit.of(PAGE_SIZE + 1));
+        usuarioRepository.findRolRowsByUsuarioIdIn(rows.stream().map(UsuarioRow::id).toList());
+      });
+    }
+
+    Result measure(Runnable operation) throws Exception {
+      runFor(operation, options.warmup, null);
+      PoolSnapshot before = PoolSnapshot.of(meterRegistry);
+      AtomicLong maxPending = new AtomicLong();
+      Samples samples = runFor(operation, options.duration, maxPending);
+      return new Result(samples.sorted(), samples.count() * 1e9 / options.duration.toNanos(),
+        samples.errors, before.delta(meterRegistry), maxPending.get());
+    }
+
+    private Samples runFor(Runnable operation, Duration duration, AtomicLong maxPending) throws Exception {
+      long end = System.nanoTime() + duration.toNanos();
+      AtomicBoolean running = new AtomicBoolean(true);
+      ExecutorService executor = Executors.newFixedThreadPool(options.concurrency + 1);
+      try {
+        if (maxPending != null) {
+          Gauge pending = meterRegistry.find("hikaricp.connections.pending").gauge();
+          executor.submit(() -> {
+            while (running.get() && pending != null) {
+              maxPending.accumulateAndGet((long) pending.value(), Math::max);
+              TimeUnit.MILLISECONDS.sleep(5);
+            }
+            return null;
+          });
+        }
+        List<Future<Samples>> futures = new ArrayList<>();
+        for (int i = 0; i < options.concurrency; i++) {
+          futures.add(executor.submit(() -> {
+            Samples own = new Samples();
+            while (System.nanoTime() < end) {
+              long start = System.nanoTime();
+              try {
+                operation.run();
+                own.add(System.nanoTime() - start);
+              } catch (RuntimeException ex) {
+                own.errors++;
+              }
+            }
+            return own;
+          }));
+        }
+        Samples all = new Samples();
+        for (Future<Samples> future : futures) {
+          all.addAll(future.get());
+        }
+        return all;
+      } finally {
+        running.set(false);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+      }
+    }
+  }
+
+  /**
+   * Contadores acumulados de los timers de Hikari, para restar el calentamiento.
+   */
+  private record PoolSnapshot(long acquireCount, double acquireNanos, long usageCount, double usageNanos) {
+
+    static PoolSnapshot of(MeterRegistry registry) {
+      Timer acquire = registry.find("hikaricp.connections.acquire").timer();
+      Timer usage = registry.find("hikaricp.connections.usage").timer();
+      return new PoolSnapshot(
+        acquire == null ? 0 : acquire.count(),
+        acquire == null ? 0 : acquire.totalTime(TimeUnit.NANOSECONDS),
+        usage == null ? 0 : usage.count(),
+        usage == null ? 0 : usage.totalTime(TimeUnit.NANOSECONDS));
+    }
+
+    double[] delta(MeterRegistry registry) {
+      PoolSnapshot now = of(registry);
+      long acquires = now.acquireCount - acquireCount;
+      long usages = now.usageCount - usageCount;
+      return new double[] {
+        acquires == 0 ? 0 : (now.acquireNanos - acquireNanos) / acquires / 1_000_000.0,
+        usages == 0 ? 0 : (now.usageNanos - usageNanos) / usages / 1_000_000.0,
+      };
+    }
+  }
+
+  /**
+   * Latencias de un hilo en un array que crece, sin cajas por muestra.
+   */
+  private static final class Samples {
+
+    private long[] values = new long[1024];
+    private int size;
+    private long errors;
+
+    void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    void addAll(Samples other) {
+      if (size + other.size > values.length) {
+        values = Arrays.copyOf(values, Math.max(values.length * 2, size + other.size));
+      }
+      System.arraycopy(other.values, 0, values, size, other.size);
+      size += other.size;
+      errors += other.errors;
+    }
+
+    int count() {
+      return size;
+    }
+
+    long[] sorted() {
+      long[] sorted = Arrays.copyOf(values, size);
+      Arrays.sort(sorted);
+      return sorted;
+    }
+  }
+
+  private record Result(long[] latencies, double opsPerSecond, long errors, double[] pool, long maxPending) {
+
+    double percentile(double p) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(p * latencies.length) - 1;
+      return latencies[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    double acquireMillis() {
+      return pool[0];
+    }
+
+    double usageMillis() {
+      return pool[1];
+    }
+  }
+
+  private static final class Options {
+
+    private String url;
+    private String user = "root";
+    private String password = "";
+    private int users = 5000;
+    private int concurrency = 32;
+    private int[] poolSizes = { 4, 16 };
+    private boolean[] statementCache = { true, false };
+    private boolean[] batching = { true, false };
+    private Duration duration = Duration.ofSeconds(10);
+    private Duration warmup = Duration.ofSeconds(3);
+
+    boolean isMysql() {
+      return url != null;
+    }
+
+    static Options parse(String[] args) {
+      Options options = new Options();
+      for (int i = 0; i < args.length; i++) {
+        String arg = args[i];
+        if ("--help".equals(arg) || i + 1 >= args.length) {
+          return null;
+        }
+        String value = args[++i];
+        switch (arg) {
+          case "--url" -> options.url = value;
+          case "--user" -> options.user = value;
+          case "--password" -> options.password = value;
+          case "--users" -> options.users = Integer.parseInt(value);
+          case "--concurrency" -> options.concurrency = Integer.parseInt(value);
+          case "--pool" -> options.poolSizes = Arrays.stream(value.split(",")).map(String::trim)
+            .mapToInt(Integer::parseInt).toArray();
+          case "--statement-cache" -> options.statementCache = parseSwitches(value);
+          case "--batching" -> options.batching = parseSwitches(value);
+          case "--duration" -> options.duration = Duration.ofSeconds(Long.parseLong(value));
+          case "--warmup" -> options.warmup = Duration.ofSeconds(Long.parseLong(value));
+          default -> {
+            return null;
+          }
+        }
+      }
+      if (options.url != null && !options.url.startsWith("jdbc:mysql:")) {
+        return null;
+      }
+      return options.users > PAGE_SIZE && options.concurrency > 0 && options.poolSizes.length > 0 ? options : null;
+    }
+
+    private static boolean[] parseSwitches(String value) {
+      String[] parts = value.split(",");
+      boolean[] switches = new boolean[parts.length];
+      for (int i = 0; i < parts.length; i++) {
+        switches[i] = "on".equalsIgnoreCase(parts[i].trim());
+      }
+      return switches;
+    }
+  }
+
+  private static void printUsage() {
+    System.out.println("""
+      Uso: JdbcWorkloadHarness [opciones]
+        --url jdbc:mysql://...   MySQL desechable (el esquema se crea y se borra); sin ella, H2
+        --user root              usuario de MySQL
+        --password ""            contraseña de MySQL
+        --users 5000             usuarios importados antes de medir
+        --concurrency 32         hilos de carga (lazo cerrado)
+        --pool 4,16              tamaños del pool de Hikari a comparar
+        --statement-cache on,off caché de sentencias preparadas
+        --batching on,off        importación por lotes (rewriteBatchedStatements) o fila a fila
+        --duration 10            segundos medidos por ruta
+        --warmup 3               segundos de calentamiento por ruta
+      """);
+  }
+
+  @Configuration
+  @ImportAutoConfiguration({
+    DataSourceAutoConfiguration.class,
+    DataSourcePoolMetricsAutoConfiguration.class,
+    HibernateJpaAutoConfiguration.class,
+    MetricsAutoConfiguration.class,
+    JdbcTemplateAutoConfiguration.class,
+    TransactionAutoConfiguration.class,
+  })
+  @EnableJpaRepositories(basePackageClasses = UsuarioRepository.class)
+  @EntityScan(basePackageClasses = Usuario.class)
+  @Import({ JpaUserDetailsService.class, UsuarioLookupCoalescer.class, UsuarioBatchWriter.class })
+  static class WorkloadConfig {
+
+    // Métricas del pool (hikaricp.*, enlazadas por MetricsAutoConfiguration) y de JpaUserDetailsService
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+}
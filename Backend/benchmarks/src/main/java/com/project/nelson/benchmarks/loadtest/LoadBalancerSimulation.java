@@ -0,0 +1,236 @@
+package com.project.nelson.benchmarks.loadtest;
+
+import com.project.nelson.msvc_gateway.gateway.loadbalancer.InstanceLatencyStats;
+import com.project.nelson.msvc_gateway.gateway.loadbalancer.LatencyAwareLoadBalancer;
+import com.project.nelson.msvc_gateway.gateway.loadbalancer.LatencyAwareLoadBalancer.Strategy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+/**
+ * Simulación de balanceo con réplicas lentas, sin red ni Eureka: compara la
+ * latencia (p50/p90/p99/p99.9/máx) de round-robin y peak-EWMA con el
+ * {@link LatencyAwareLoadBalancer} y las {@link InstanceLatencyStats} reales.
+ *
+ * Cada réplica atiende con {@code --workers} hilos y un tiempo de servicio
+ * exponencial de media {@code --service-ms}. Las {@code --slow} primeras
+ * réplicas son {@code --slow-factor} veces más lentas (BCrypt) y se detienen
+ * {@code --pause-ms} cada {@code --pause-every-ms} (pausa de GC). Las llegadas
+ * son de lazo abierto a {@code --rate} peticiones por segundo, para que las
+ * colas de la réplica lenta se vean en la latencia y no se escondan como
+ * menos throughput.
+ *
+ * Ejecución: {@code mvn -B package exec:exec -Plbsim -Dlbsim.args="--rate 800"}
+ */
+public final class LoadBalancerSimulation {
+
+  private LoadBalancerSimulation() {}
+
+  public static void main(String[] args) throws Exception {
+    Options options = Options.parse(args);
+    if (options == null) {
+      printUsage();
+      return;
+    }
+    System.out.printf("%d réplicas (%d lentas x%.1f, pausa %dms cada %dms) | %d req/s | %ds por estrategia%n",
+      options.instances, options.slow, options.slowFactor, options.pauseMillis, options.pauseEveryMillis,
+      options.rate, options.duration.toSeconds());
+    System.out.printf("%-12s %10s %9s %9s %9s %9s %9s %12s%n",
+      "estrategia", "peticiones", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms", "% a lentas");
+    for (Strategy strategy : Strategy.values()) {
+      Result result = run(options, strategy);
+      System.out.printf("%-12s %10d %9.2f %9.2f %9.2f %9.2f %9.2f %11.1f%%%n",
+        strategy.name().toLowerCase().replace('_', '-'),
+        result.latencies().length,
+        result.percentile(0.50),
+        result.percentile(0.90),
+        result.percentile(0.99),
+        result.percentile(0.999),
+        result.percentile(1.0),
+        100.0 * result.toSlow() / Math.max(1, result.latencies().length));
+    }
+  }
+
+  private static Result run(Options options, Strategy strategy) throws InterruptedException {
+    InstanceLatencyStats stats = new InstanceLatencyStats(System::nanoTime, 10_000, 1_000, 300_000);
+    LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer("usuario",
+      new StaticListableBeanFactory().getBeanProvider(ServiceInstanceListSupplier.class), stats, strategy);
+    long epoch = System.nanoTime();
+    List<ServiceInstance> instances = new ArrayList<>();
+    List<Replica> replicas = new ArrayList<>();
+    for (int i = 0; i < options.instances; i++) {
+      instances.add(new DefaultServiceInstance("usuario-" + i, "usuario", "usuario-" + i, 8081, false));
+      replicas.add(new Replica(options, i < options.slow, epoch));
+    }
+
+    ConcurrentLinkedQueue<long[]> samples = new ConcurrentLinkedQueue<>();
+    long warmupEnd = epoch + options.warmup.toNanos();
+    long end = warmupEnd + options.duration.toNanos();
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+    try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (long next = epoch; next < end; next += intervalNanos) {
+        long wait = next - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        long arrival = next;
+        requests.submit(() -> {
+          ServiceInstance instance = balancer.choose(instances, strategy).getServer();
+          int index = instances.indexOf(instance);
+          long start = stats.start(instance);
+          replicas.get(index).serve();
+          stats.complete(instance, start, false);
+          if (arrival >= warmupEnd) {
+            samples.add(new long[] { System.nanoTime() - arrival, replicas.get(index).slow ? 1 : 0 });
+          }
+        });
+      }
+    }
+
+    long[] latencies = new long[samples.size()];
+    long toSlow = 0;
+    int i = 0;
+    for (long[] sample : samples) {
+      latencies[i++] = sample[0];
+      toSlow += sample[1];
+    }
+    Arrays.sort(latencies);
+    return new Result(latencies, toSlow);
+  }
+
+  /**
+   * Réplica simulada: un pool de {@code workers} y, si es lenta, pausas periódicas.
+   */
+  private static final class Replica {
+
+    private final Semaphore workers;
+    private final boolean slow;
+    private final double meanServiceNanos;
+    private final long pauseNanos;
+    private final long pauseEveryNanos;
+    private final long epoch;
+
+    Replica(Options options, boolean slow, long epoch) {
+      this.workers = new Semaphore(options.workers);
+      this.slow = slow;
+      this.meanServiceNanos = TimeUnit.MILLISECONDS.toNanos(options.serviceMillis) * (slow ? options.slowFactor : 1);
+      this.pauseNanos = slow ? TimeUnit.MILLISECONDS.toNanos(options.pauseMillis) : 0;
+      this.pauseEveryNanos = TimeUnit.MILLISECONDS.toNanos(options.pauseEveryMillis);
+      this.epoch = epoch;
+    }
+
+    void serve() {
+      workers.acquireUninterruptibly();
+      try {
+        double u = ThreadLocalRandom.current().nextDouble();
+        long remaining = (long) (-Math.log(1 - u) * meanServiceNanos);
+        while (remaining > 0) {
+          long pauseLeft = pauseLeft(System.nanoTime());
+          if (pauseLeft > 0) {
+            // Parada del mundo: nada progresa hasta el fin de la pausa
+            LockSupport.parkNanos(pauseLeft);
+            continue;
+          }
+          long slice = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(1));
+          LockSupport.parkNanos(slice);
+          remaining -= slice;
+        }
+        long pauseLeft = pauseLeft(System.nanoTime());
+        if (pauseLeft > 0) {
+          LockSupport.parkNanos(pauseLeft);
+        }
+      } finally {
+        workers.release();
+      }
+    }
+
+    private long pauseLeft(long now) {
+      if (pauseNanos == 0) {
+        return 0;
+      }
+      long phase = (now - epoch) % pauseEveryNanos;
+      long pauseStart = pauseEveryNanos - pauseNanos;
+      return phase >= pauseStart ? pauseEveryNanos - phase : 0;
+    }
+  }
+
+  private record Result(long[] latencies, long toSlow) {
+
+    double percentile(double p) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(p * latencies.length) - 1;
+      return latencies[Math.max(0, index)] / 1_000_000.0;
+    }
+  }
+
+  private static final class Options {
+
+    private int instances = 4;
+    private int slow = 1;
+    private int workers = 4;
+    private long serviceMillis = 4;
+    private double slowFactor = 3;
+    private long pauseMillis = 250;
+    private long pauseEveryMillis = 2000;
+    private int rate = 600;
+    private Duration duration = Duration.ofSeconds(15);
+    private Duration warmup = Duration.ofSeconds(3);
+
+    static Options parse(String[] args) {
+      Options options = new Options();
+      for (int i = 0; i < args.length; i++) {
+        String arg = args[i];
+        if ("--help".equals(arg) || i + 1 >= args.length) {
+          return null;
+        }
+        String value = args[++i];
+        switch (arg) {
+          case "--instances" -> options.instances = Integer.parseInt(value);
+          case "--slow" -> options.slow = Integer.parseInt(value);
+          case "--workers" -> options.workers = Integer.parseInt(value);
+          case "--service-ms" -> options.serviceMillis = Long.parseLong(value);
+          case "--slow-factor" -> options.slowFactor = Double.parseDouble(value);
+          case "--pause-ms" -> options.pauseMillis = Long.parseLong(value);
+          case "--pause-every-ms" -> options.pauseEveryMillis = Long.parseLong(value);
+          case "--rate" -> options.rate = Integer.parseInt(value);
+          case "--duration" -> options.duration = Duration.ofSeconds(Long.parseLong(value));
+          case "--warmup" -> options.warmup = Duration.ofSeconds(Long.parseLong(value));
+          default -> {
+            return null;
+          }
+        }
+      }
+      return options.instances > options.slow && options.rate > 0 ? options : null;
+    }
+  }
+
+  private static void printUsage() {
+    System.out.println("""
+      Uso: LoadBalancerSimulation [opciones]
+        --instances 4          réplicas del servicio
+        --slow 1               réplicas lentas (menos que --instances)
+        --workers 4            peticiones simultáneas por réplica
+        --service-ms 4         tiempo medio de servicio (exponencial)
+        --slow-factor 3        multiplicador del tiempo de servicio en las lentas
+        --pause-ms 250         duración de la pausa de GC de las lentas
+        --pause-every-ms 2000  periodo de las pausas
+        --rate 600             llegadas por segundo (lazo abierto)
+        --duration 15          segundos medidos por estrategia
+        --warmup 3             segundos de calentamiento por estrategia
+      """);
+  }
+}
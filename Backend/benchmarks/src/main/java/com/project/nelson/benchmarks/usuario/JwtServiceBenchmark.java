@@ -0,0 +1,87 @@
+package com.project.nelson.benchmarks.usuario;
+
+import com.project.nelson.msvc_user_auth.usuario.security.service.JwtKeyManager;
+import com.project.nelson.msvc_user_auth.usuario.security.service.JwtService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Coste por petición de la emisión y validación JWT en usuario.
+ *
+ * {@code generateToken} es la firma ES256 del login y del refresh.
+ * {@code legacyTripleParse} reproduce la validación anterior sobre un token
+ * HS256: un parser nuevo por llamada y tres parseos del mismo token
+ * (extractUsername, isTokenValid/extractUsername e isTokenExpired).
+ * {@code verifyOnce} es la ruta actual con parser compartido, resolución de la
+ * clave por {@code kid} y un único parseo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtServiceBenchmark {
+
+  // Clave HS256 efímera: la anterior ya no está en el código
+  private static final Key LEGACY_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+
+  private JwtService jwtService;
+  private UserDetails user;
+  private String token;
+  private String legacyToken;
+
+  @Setup
+  public void setup() {
+    jwtService = new JwtService(JwtKeyManager.inMemory());
+    user = new User("admin", "", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    token = jwtService.generateToken(user, user.getAuthorities(), "admin@correo.com");
+    legacyToken = Jwts.builder()
+      .setSubject("admin")
+      .claim("roles", List.of("ROLE_ADMIN"))
+      .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+      .signWith(LEGACY_KEY)
+      .compact();
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return jwtService.generateToken(user, user.getAuthorities(), "admin@correo.com");
+  }
+
+  @Benchmark
+  public boolean verifyOnce() {
+    VerifiedToken verified = jwtService.verify(token);
+    return jwtService.isTokenValid(verified, user);
+  }
+
+  @Benchmark
+  public boolean legacyTripleParse() {
+    String username = legacyParse(legacyToken).getSubject();
+    boolean sameUser = legacyParse(legacyToken).getSubject().equals(user.getUsername());
+    boolean expired = legacyParse(legacyToken).getExpiration().before(new Date());
+    return username != null && sameUser && !expired;
+  }
+
+  private static Claims legacyParse(String token) {
+    return Jwts.parserBuilder()
+      .setSigningKey(LEGACY_KEY)
+      .build()
+      .parseClaimsJws(token)
+      .getBody();
+  }
+}
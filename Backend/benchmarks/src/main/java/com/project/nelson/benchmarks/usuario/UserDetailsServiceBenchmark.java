@@ -0,0 +1,102 @@
+package com.project.nelson.benchmarks.usuario;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.repository.RolRepository;
+import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import com.project.nelson.msvc_user_auth.usuario.security.JpaUserDetailsService;
+import com.project.nelson.msvc_user_auth.usuario.service.coalescing.UsuarioLookupCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Carga de usuario del login ({@link JpaUserDetailsService#loadUserByUsername})
+ * contra H2 en memoria: consulta por username, carga de roles y construcción
+ * de autoridades. Solo se levanta la capa JPA, sin web ni seguridad.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserDetailsServiceBenchmark {
+
+  private ConfigurableApplicationContext context;
+  private JpaUserDetailsService userDetailsService;
+
+  @Setup
+  public void setup() {
+    context = new SpringApplicationBuilder(JpaBenchmarkConfig.class)
+      .web(WebApplicationType.NONE)
+      .properties(
+        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.open-in-view=false",
+        "spring.main.banner-mode=off"
+      )
+      .run();
+    userDetailsService = context.getBean(JpaUserDetailsService.class);
+
+    RolRepository rolRepository = context.getBean(RolRepository.class);
+    Rol admin = rolRepository.save(new Rol("ROLE_ADMIN"));
+    Rol user = rolRepository.save(new Rol("ROLE_USER"));
+
+    Usuario usuario = new Usuario();
+    usuario.setName("Admin");
+    usuario.setLastname("Sistema");
+    usuario.setUsername("admin");
+    usuario.setEmail("admin@correo.com");
+    usuario.setPassword("$2a$10$abcdefghijklmnopqrstuv");
+    usuario.setRoles(List.of(admin, user));
+    context.getBean(UsuarioRepository.class).save(usuario);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public UserDetails loadUserByUsername() {
+    return userDetailsService.loadUserByUsername("admin");
+  }
+
+  @Configuration
+  @ImportAutoConfiguration({
+    DataSourceAutoConfiguration.class,
+    HibernateJpaAutoConfiguration.class,
+    TransactionAutoConfiguration.class,
+  })
+  @EnableJpaRepositories(basePackageClasses = UsuarioRepository.class)
+  @EntityScan(basePackageClasses = Usuario.class)
+  @Import({ JpaUserDetailsService.class, UsuarioLookupCoalescer.class })
+  static class JpaBenchmarkConfig {
+
+    // JpaUserDetailsService publica el timer usuario.user.load
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.project.nelson.benchmarks.usuario;
+
+import com.project.nelson.msvc_user_auth.usuario.mapper.UsuarioMapper;
+import com.project.nelson.msvc_user_auth.usuario.mapper.UsuarioMapperImpl;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Mapeo entidad → DTO de MapStruct usado en las respuestas de usuarios.
+ * Se instancia la implementación generada directamente, sin contexto Spring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsuarioMapperBenchmark {
+
+  private UsuarioMapper mapper;
+  private Usuario usuario;
+
+  @Setup
+  public void setup() {
+    mapper = new UsuarioMapperImpl();
+    usuario = new Usuario();
+    usuario.setId(1L);
+    usuario.setName("Admin");
+    usuario.setLastname("Sistema");
+    usuario.setUsername("admin");
+    usuario.setEmail("admin@correo.com");
+    usuario.setPassword("$2a$10$abcdefghijklmnopqrstuv");
+    Rol admin = new Rol("ROLE_ADMIN");
+    admin.setId(1L);
+    Rol user = new Rol("ROLE_USER");
+    user.setId(2L);
+    usuario.setRoles(List.of(admin, user));
+  }
+
+  @Benchmark
+  public UsuarioDto toDto() {
+    return mapper.toDto(usuario);
+  }
+}
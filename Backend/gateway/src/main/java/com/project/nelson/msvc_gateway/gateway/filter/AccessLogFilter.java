@@ -0,0 +1,90 @@
+package com.project.nelson.msvc_gateway.gateway.filter;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Una línea de access log por petición, con campos clave=valor:
+ * método, path, estado, duración, ruta, motivo de la decisión JWT y usuario.
+ *
+ * Se registra siempre si la respuesta es 5xx o supera
+ * {@code slow-threshold-ms}; el resto, con probabilidad {@code sample-rate}.
+ * La línea solo se construye si se va a registrar. Usa el logger
+ * {@code gateway.access}, con su propio appender asíncrono en logback-spring.xml.
+ */
+@Component
+public class AccessLogFilter implements WebFilter, Ordered {
+
+  private static final Logger accessLog = LoggerFactory.getLogger("gateway.access");
+
+  private final boolean enabled;
+  private final double sampleRate;
+  private final long slowThresholdNanos;
+
+  public AccessLogFilter(
+    @Value("${gateway.access-log.enabled:true}") boolean enabled,
+    @Value("${gateway.access-log.sample-rate:0.01}") double sampleRate,
+    @Value("${gateway.access-log.slow-threshold-ms:500}") long slowThresholdMillis
+  ) {
+    this.enabled = enabled;
+    this.sampleRate = sampleRate;
+    this.slowThresholdNanos = slowThresholdMillis * 1_000_000;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    if (!enabled || !accessLog.isInfoEnabled()) {
+      return chain.filter(exchange);
+    }
+    long start = System.nanoTime();
+    return chain.filter(exchange).doFinally(signal -> log(exchange, start, signal));
+  }
+
+  @Override
+  public int getOrder() {
+    // Envuelve al resto de filtros: la duración incluye autenticación, rate limit y backend
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+
+  private void log(ServerWebExchange exchange, long start, SignalType signal) {
+    long elapsed = System.nanoTime() - start;
+    HttpStatusCode status = exchange.getResponse().getStatusCode();
+    int code = status != null ? status.value() : 200;
+    boolean always = code >= 500 || elapsed >= slowThresholdNanos;
+    if (!always && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+
+    Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+    StringBuilder line = new StringBuilder(160)
+      .append("method=").append(exchange.getRequest().getMethod().name())
+      .append(" path=").append(exchange.getRequest().getPath().value())
+      .append(" status=").append(signal == SignalType.CANCEL ? "cancelled" : Integer.toString(code))
+      .append(" duration_ms=").append(String.format(Locale.ROOT, "%.3f", elapsed / 1_000_000.0))
+      .append(" route=").append(route != null ? route.getId() : "-")
+      .append(" auth=").append(attribute(exchange, JwtGlobalFilter.DECISION_ATTRIBUTE))
+      .append(" user=").append(attribute(exchange, JwtGlobalFilter.USER_ATTRIBUTE));
+    if (!always) {
+      line.append(" sampled=").append(sampleRate);
+    }
+    accessLog.info(line.toString());
+  }
+
+  private static String attribute(ServerWebExchange exchange, String name) {
+    Object value = exchange.getAttribute(name);
+    return value != null ? value.toString() : "-";
+  }
+}
@@ -1,20 +1,27 @@
 package com.project.nelson.msvc_gateway.gateway.filter;
 
-import io.jsonwebtoken.Claims;
+import com.project.nelson.identity.IdentityHeader;
+import com.project.nelson.msvc_gateway.gateway.jwt.JwtVerificationCache;
+import com.project.nelson.msvc_gateway.gateway.jwt.TokenRevocationCache;
+import com.project.nelson.msvc_gateway.gateway.jwt.VerifiedClaims;
+import com.project.nelson.msvc_gateway.gateway.policy.RoutePolicy;
+import com.project.nelson.msvc_gateway.gateway.policy.RoutePolicy.RouteRule;
+import com.project.nelson.msvc_gateway.gateway.policy.RoutePolicyRegistry;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-import java.security.Key;
-import java.util.Arrays;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -22,147 +29,221 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+/**
+ * Autenticación y autorización JWT en el borde.
+ *
+ * Cada petición termina en una {@link Decision}. El timer
+ * {@code gateway.auth.filter} (tags {@code decision} y {@code reason}) mide el
+ * tiempo de la decisión, sin el resto de la cadena; su contador da las
+ * peticiones admitidas y rechazadas por motivo. Los timers se crean al
+ * arrancar, uno por decisión.
+ *
+ * El motivo y el usuario quedan como atributos del exchange para la línea de
+ * {@link AccessLogFilter}; los detalles de cada rechazo solo se registran a
+ * nivel DEBUG, para que un cliente con un token inválido no inunde el log.
+ *
+ * Las peticiones autorizadas llevan aguas abajo la cabecera binaria firmada
+ * {@code X-Identity} (ver {@link IdentityHeader}) y, mientras
+ * {@code gateway.identity.legacy-headers} esté activo, las cabeceras de texto
+ * {@code X-Usuario}, {@code X-Roles}, {@code X-Email} y {@code X-JWT-Id}. Los
+ * valores salen ya construidos de {@link VerifiedClaims}. Una
+ * {@code X-Identity} enviada por el cliente se elimina siempre.
+ */
 @Component
 public class JwtGlobalFilter implements GlobalFilter, Ordered {
 
   private static final Logger logger = LoggerFactory.getLogger(JwtGlobalFilter.class);
 
-  @Value("${gateway.filter.jwt-secret:SuperClaveSecretaSeguraQueDebesCambiar}")
-  private String jwtSecret;
+  /** Motivo de la decisión ({@link Decision#reason}), para el access log. */
+  public static final String DECISION_ATTRIBUTE = JwtGlobalFilter.class.getName() + ".decision";
+
+  /** Subject del token verificado, para el access log. */
+  public static final String USER_ATTRIBUTE = JwtGlobalFilter.class.getName() + ".user";
+
+  /**
+   * Resultado del filtro, con un conjunto fijo de motivos (cardinalidad acotada).
+   */
+  enum Decision {
+    ALLOW_PREFLIGHT(true, "preflight"),
+    ALLOW_EXEMPT(true, "exempt"),
+    ALLOW_BINARY(true, "binary"),
+    ALLOW_UNPROTECTED(true, "unprotected"),
+    ALLOW_TOKEN(true, "valid_token"),
+    DENY_NO_KEY(false, "no_key"),
+    DENY_MISSING_TOKEN(false, "missing_token"),
+    DENY_REVOKED(false, "revoked"),
+    DENY_MISSING_CLAIMS(false, "missing_claims"),
+    DENY_ROLE(false, "role"),
+    DENY_EXPIRED(false, "expired"),
+    DENY_INVALID(false, "invalid_token");
+
+    final boolean allowed;
+    final String reason;
+
+    Decision(boolean allowed, String reason) {
+      this.allowed = allowed;
+      this.reason = reason;
+    }
+  }
 
-  @Value("${gateway.filter.conditional-path:/api/segura/}")
-  private String conditionalPath;
+  private final Map<Decision, Timer> decisionTimers = new EnumMap<>(Decision.class);
 
-  @Value("${gateway.filter.allowed-roles:ROLE_ADMIN,ROLE_USER}")
-  private String allowedRoles;
+  private final JwtVerificationCache verificationCache;
 
-  @Value("${gateway.filter.role-claim:rol}")
-  private String roleClaim;
+  // Tokens cerrados con logout; consulta local, sin viaje a Redis
+  private final TokenRevocationCache revocationCache;
 
-  @Value("${gateway.filter.email-claim:email}")
-  private String emailClaim;
+  // Rutas exentas, prefijo protegido y roles por ruta, compilados una sola vez
+  private final RoutePolicyRegistry policyRegistry;
 
   @Value("${gateway.filter.order:100}")
   private int filterOrder;
 
-  @Value("${gateway.filter.exempt-paths:/login,/register,/public/,/swagger-ui/,/v3/api-docs/,/auth/login,/usuarios/register}")
-  private String exemptPaths;
+  // Cabeceras de texto para servicios que aún no leen X-Identity
+  @Value("${gateway.identity.legacy-headers:true}")
+  private boolean legacyHeaders = true;
+
+  public JwtGlobalFilter(
+    JwtVerificationCache verificationCache,
+    TokenRevocationCache revocationCache,
+    RoutePolicyRegistry policyRegistry,
+    MeterRegistry meterRegistry
+  ) {
+    this.verificationCache = verificationCache;
+    this.revocationCache = revocationCache;
+    this.policyRegistry = policyRegistry;
+    for (Decision decision : Decision.values()) {
+      String result = decision.allowed ? "allow" : "deny";
+      decisionTimers.put(decision, Timer.builder("gateway.auth.filter")
+        .description("Tiempo de decisión del filtro JWT, sin el resto de la cadena")
+        .tag("decision", result)
+        .tag("reason", decision.reason)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+    }
+  }
 
   @Override
   public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    long start = System.nanoTime();
+    if (exchange.getRequest().getHeaders().containsKey(IdentityHeader.NAME)) {
+      // Solo el gateway emite la cabecera de identidad
+      exchange = exchange.mutate()
+        .request(request -> request.headers(headers -> headers.remove(IdentityHeader.NAME)))
+        .build();
+    }
     String path = exchange.getRequest().getPath().value();
-    String method = exchange.getRequest().getMethod().name();
     String contentType = exchange.getRequest().getHeaders().getFirst("Content-Type");
 
-    logger.info("Evaluando petición: {} {} | Content-Type: {}", method, path, contentType);
-
     // Ignorar preflight OPTIONS
     if (exchange.getRequest().getMethod() == HttpMethod.OPTIONS) {
-      logger.info("Preflight OPTIONS detectado, exentando: {}", path);
-      return chain.filter(exchange);
+      return allow(Decision.ALLOW_PREFLIGHT, start, exchange, chain);
     }
 
+    RoutePolicy policy = policyRegistry.current();
+
     // Exención flexible por 'contains'
-    List<String> exempt = Arrays.asList(exemptPaths.split(","));
-    boolean isExempt = exempt.stream().anyMatch(ex -> path.contains(ex));
-    logger.info("¿Ruta exenta? {} para path: {}", isExempt, path);
-    if (isExempt) {
-      logger.info("Exentando ruta: {}", path);
-      return chain.filter(exchange);
+    if (policy.isExempt(path)) {
+      return allow(Decision.ALLOW_EXEMPT, start, exchange, chain);
     }
 
     if ("application/octet-stream".equalsIgnoreCase(contentType)) {
-      logger.info("Exentando petición binaria: {}", path);
-      return chain.filter(exchange);
+      return allow(Decision.ALLOW_BINARY, start, exchange, chain);
     }
 
-    if (jwtSecret == null || jwtSecret.getBytes().length < 32) {
+    if (!verificationCache.isEnabled()) {
       logger.error("La clave JWT debe tener al menos 32 bytes.");
-      exchange.getResponse().setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
-      return exchange.getResponse().setComplete();
+      return deny(Decision.DENY_NO_KEY, start, exchange, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
     // Solo validar JWT en rutas protegidas
-    if (!path.startsWith(conditionalPath)) {
-      logger.info("Ruta fuera de protección JWT: {}", path);
-      return chain.filter(exchange);
+    if (!policy.isProtected(path)) {
+      return allow(Decision.ALLOW_UNPROTECTED, start, exchange, chain);
     }
 
     List<String> authHeaders = exchange.getRequest().getHeaders().getOrEmpty("Authorization");
     if (authHeaders.isEmpty() || !authHeaders.get(0).startsWith("Bearer ")) {
-      logger.warn("No hay token JWT válido en Authorization para ruta protegida: {}", path);
-      exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-      return exchange.getResponse().setComplete();
+      return deny(Decision.DENY_MISSING_TOKEN, start, exchange, HttpStatus.UNAUTHORIZED);
     }
 
-    String jwt = authHeaders.get(0).replace("Bearer ", "");
-    logger.info("JWT recibido: {}... para path: {}", jwt.substring(0, Math.min(jwt.length(), 10)), path);
+    String jwt = authHeaders.get(0).substring(7);
 
     try {
-      Key key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
-      Claims claims = Jwts.parserBuilder()
-        .setSigningKey(key)
-        .build()
-        .parseClaimsJws(jwt)
-        .getBody();
-
-      String rolClaimValue = claims.get(roleClaim, String.class);
-      String email = claims.get(emailClaim, String.class);
-      String usuario = claims.getSubject() != null ? claims.getSubject() : "";
-
-      logger.info("Claims extraídos: usuario={}, email={}, rol={}", usuario, email, rolClaimValue);
-
-      if (rolClaimValue == null || rolClaimValue.isEmpty()) {
-        logger.warn("No se encontró el claim de roles en el JWT para usuario: {}", usuario);
-        exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
-        return exchange.getResponse().setComplete();
+      // Verificación cacheada: solo el primer uso del token paga firma y parseo
+      VerifiedClaims claims = verificationCache.verify(jwt);
+      if (revocationCache.isRevoked(claims.jwtId())) {
+        logger.debug("JWT revocado (logout) para usuario: {}", claims.subject());
+        return deny(Decision.DENY_REVOKED, start, exchange, HttpStatus.UNAUTHORIZED);
+      }
+
+      Set<String> userRoles = claims.roles();
+      String email = claims.email();
+      String usuario = claims.subject();
+      exchange.getAttributes().put(USER_ATTRIBUTE, usuario);
+
+      if (userRoles.isEmpty()) {
+        logger.debug("No se encontró el claim de roles en el JWT para usuario: {}", usuario);
+        return deny(Decision.DENY_MISSING_CLAIMS, start, exchange, HttpStatus.FORBIDDEN);
       }
       if (email == null || email.isEmpty()) {
-        logger.warn("No se encontró el claim de email en el JWT para usuario: {}", usuario);
-        exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
-        return exchange.getResponse().setComplete();
+        logger.debug("No se encontró el claim de email en el JWT para usuario: {}", usuario);
+        return deny(Decision.DENY_MISSING_CLAIMS, start, exchange, HttpStatus.FORBIDDEN);
       }
 
-      Set<String> userRoles = Arrays.stream(rolClaimValue.split(","))
-        .map(String::trim)
-        .filter(r -> !r.isEmpty())
-        .collect(Collectors.toSet());
-      Set<String> allowedRolesSet = Arrays.stream(allowedRoles.split(","))
-        .map(String::trim)
-        .filter(r -> !r.isEmpty())
-        .collect(Collectors.toSet());
-
-      boolean hasAllowedRole = userRoles.stream().anyMatch(allowedRolesSet::contains);
-      logger.info("Roles de usuario: {} | Roles permitidos: {} | ¿Autorizado?: {}", userRoles, allowedRolesSet, hasAllowedRole);
-
-      if (!hasAllowedRole) {
-        logger.warn("Acceso denegado por roles. Usuario: {} | Roles del usuario: {} | Roles requeridos: {}", usuario, userRoles, allowedRolesSet);
-        exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
-        return exchange.getResponse().setComplete();
+      // Regla del prefijo más largo; si no hay, aplica 'allowed-roles'
+      RouteRule rule = policy.ruleFor(path);
+      if (!rule.allows(claims.roleMask())) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Acceso denegado por roles. Usuario: {} | Roles del usuario: {} | Roles requeridos: {}", usuario, userRoles, rule.roleNames());
+        }
+        return deny(Decision.DENY_ROLE, start, exchange, HttpStatus.FORBIDDEN);
       }
 
       ServerHttpRequest mutatedRequest = exchange.getRequest()
         .mutate()
-        .header("X-Usuario", usuario)
-        .header("X-Roles", String.join(",", userRoles))
-        .header("X-Email", email)
-        .header("X-JWT-Id", claims.getId() != null ? claims.getId() : "")
+        .headers(headers -> propagate(headers, claims))
         .build();
       ServerWebExchange mutatedExchange = exchange.mutate().request(mutatedRequest).build();
 
-      return chain.filter(mutatedExchange)
-        .doOnSuccess(aVoid -> logger.info("Petición autorizada para usuario: {} | Roles: {}", usuario, userRoles));
+      record(Decision.ALLOW_TOKEN, start, exchange);
+      return chain.filter(mutatedExchange);
     } catch (ExpiredJwtException ex) {
-      logger.warn("JWT expirado para usuario: {}", ex.getClaims().getSubject());
-      exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-      return exchange.getResponse().setComplete();
+      logger.debug("JWT expirado para usuario: {}", ex.getClaims().getSubject());
+      return deny(Decision.DENY_EXPIRED, start, exchange, HttpStatus.UNAUTHORIZED);
     } catch (Exception e) {
-      logger.warn("JWT inválido: {} | Path: {}", e.getMessage(), path);
-      exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
-      return exchange.getResponse().setComplete();
+      logger.debug("JWT inválido: {} | Path: {}", e.getMessage(), path);
+      return deny(Decision.DENY_INVALID, start, exchange, HttpStatus.UNAUTHORIZED);
     }
   }
 
+  private void propagate(HttpHeaders headers, VerifiedClaims claims) {
+    if (claims.identityHeader() != null) {
+      headers.set(IdentityHeader.NAME, claims.identityHeader());
+    }
+    if (legacyHeaders) {
+      headers.set("X-Usuario", claims.subject());
+      headers.set("X-Roles", claims.rolesHeader());
+      headers.set("X-Email", claims.email());
+      headers.set("X-JWT-Id", claims.jwtId() != null ? claims.jwtId() : "");
+    }
+  }
+
+  private Mono<Void> allow(Decision decision, long start, ServerWebExchange exchange, GatewayFilterChain chain) {
+    record(decision, start, exchange);
+    return chain.filter(exchange);
+  }
+
+  private Mono<Void> deny(Decision decision, long start, ServerWebExchange exchange, HttpStatus status) {
+    record(decision, start, exchange);
+    exchange.getResponse().setStatusCode(status);
+    return exchange.getResponse().setComplete();
+  }
+
+  private void record(Decision decision, long start, ServerWebExchange exchange) {
+    exchange.getAttributes().put(DECISION_ATTRIBUTE, decision.reason);
+    decisionTimers.get(decision).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
   @Override
   public int getOrder() {
     return filterOrder;
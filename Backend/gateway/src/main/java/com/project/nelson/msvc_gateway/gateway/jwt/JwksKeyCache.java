@@ -0,0 +1,209 @@
+package com.project.nelson.msvc_gateway.gateway.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Claves públicas de firma JWT descargadas del JWKS de usuario.
+ *
+ * Se descargan al arrancar y cada {@code refresh-interval-ms} en segundo
+ * plano; el mapa {@code kid -> clave} se sustituye de forma atómica, así que
+ * la verificación en el event loop es una lectura sin bloqueo. Usuario
+ * publica cada clave antes de empezar a firmar con ella, por lo que un
+ * {@code kid} desconocido es excepcional: dispara una recarga asíncrona
+ * (como mucho una cada {@code min-refresh-interval-ms}) y el token se rechaza.
+ * Si la descarga falla se conservan las claves anteriores.
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.filter.jwks.uri")
+public class JwksKeyCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(JwksKeyCache.class);
+
+  private static final ECParameterSpec P256 = curve("secp256r1");
+
+  private final WebClient webClient;
+  private final String uri;
+  private final Duration refreshInterval;
+  private final long minRefreshIntervalMillis;
+  private final Duration timeout;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private volatile Map<String, PublicKey> keys = Map.of();
+  private final AtomicLong lastOnDemandRefresh = new AtomicLong();
+  private final LongAdder failures = new LongAdder();
+  private Disposable schedule;
+
+  public JwksKeyCache(
+    WebClient.Builder webClientBuilder,
+    @Value("${gateway.filter.jwks.uri}") String uri,
+    @Value("${gateway.filter.jwks.refresh-interval-ms:300000}") long refreshIntervalMillis,
+    @Value("${gateway.filter.jwks.min-refresh-interval-ms:10000}") long minRefreshIntervalMillis,
+    @Value("${gateway.filter.jwks.timeout-ms:5000}") long timeoutMillis,
+    MeterRegistry meterRegistry
+  ) {
+    this.webClient = webClientBuilder.build();
+    this.uri = uri;
+    this.refreshInterval = Duration.ofMillis(refreshIntervalMillis);
+    this.minRefreshIntervalMillis = minRefreshIntervalMillis;
+    this.timeout = Duration.ofMillis(timeoutMillis);
+
+    Gauge.builder("gateway.jwt.jwks.keys", this, JwksKeyCache::size)
+      .description("Claves públicas JWT descargadas del JWKS")
+      .register(meterRegistry);
+    FunctionCounter.builder("gateway.jwt.jwks.refresh.failures", failures, LongAdder::sum)
+      .description("Descargas del JWKS fallidas (se conservan las claves anteriores)")
+      .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    schedule = Flux.interval(Duration.ZERO, refreshInterval)
+      .onBackpressureDrop()
+      .concatMap(tick -> fetch())
+      .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (schedule != null) {
+      schedule.dispose();
+    }
+  }
+
+  /**
+   * Clave pública del {@code kid}, o null si no está publicada (y se pide una recarga).
+   */
+  public PublicKey find(String kid) {
+    PublicKey key = keys.get(kid);
+    if (key == null) {
+      requestRefresh();
+    }
+    return key;
+  }
+
+  public int size() {
+    return keys.size();
+  }
+
+  /**
+   * Sustituye las claves por las del documento JWKS recibido.
+   *
+   * @throws IOException si el documento no es JSON válido
+   */
+  public void update(String jwksJson) throws IOException {
+    Map<String, PublicKey> parsed = parse(objectMapper.readTree(jwksJson));
+    Map<String, PublicKey> previous = keys;
+    keys = Map.copyOf(parsed);
+    if (!previous.keySet().equals(parsed.keySet())) {
+      logger.info("Claves JWKS actualizadas: {}", parsed.keySet());
+    }
+  }
+
+  private void requestRefresh() {
+    long now = System.currentTimeMillis();
+    long last = lastOnDemandRefresh.get();
+    if (now - last >= minRefreshIntervalMillis && lastOnDemandRefresh.compareAndSet(last, now)) {
+      fetch().subscribe();
+    }
+  }
+
+  private Mono<Void> fetch() {
+    return webClient.get()
+      .uri(uri)
+      .retrieve()
+      .bodyToMono(String.class)
+      .timeout(timeout)
+      .doOnNext(body -> {
+        try {
+          update(body);
+        } catch (IOException ex) {
+          throw new IllegalStateException("JWKS inválido", ex);
+        }
+      })
+      .then()
+      .onErrorResume(ex -> {
+        failures.increment();
+        logger.warn("No se pudo descargar el JWKS de {}: {}", uri, ex.getMessage());
+        return Mono.empty();
+      });
+  }
+
+  /**
+   * Convierte las claves EC P-256 y RSA de firma del JWKS; ignora el resto.
+   */
+  static Map<String, PublicKey> parse(JsonNode jwks) {
+    Map<String, PublicKey> parsed = new HashMap<>();
+    JsonNode array = jwks.path("keys");
+    for (JsonNode jwk : array) {
+      String kid = jwk.path("kid").asText(null);
+      String use = jwk.path("use").asText("sig");
+      if (kid == null || !"sig".equals(use)) {
+        continue;
+      }
+      try {
+        PublicKey key = switch (jwk.path("kty").asText()) {
+          case "EC" -> "P-256".equals(jwk.path("crv").asText())
+            ? KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(
+              new ECPoint(unsigned(jwk, "x"), unsigned(jwk, "y")), P256))
+            : null;
+          case "RSA" -> KeyFactory.getInstance("RSA").generatePublic(
+            new RSAPublicKeySpec(unsigned(jwk, "n"), unsigned(jwk, "e")));
+          default -> null;
+        };
+        if (key != null) {
+          parsed.put(kid, key);
+        }
+      } catch (GeneralSecurityException | IllegalArgumentException ex) {
+        logger.warn("Clave JWKS {} ignorada: {}", kid, ex.getMessage());
+      }
+    }
+    return parsed;
+  }
+
+  private static BigInteger unsigned(JsonNode jwk, String field) {
+    return new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path(field).asText()));
+  }
+
+  private static ECParameterSpec curve(String name) {
+    try {
+      AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+      parameters.init(new ECGenParameterSpec(name));
+      return parameters.getParameterSpec(ECParameterSpec.class);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Curva " + name + " no disponible", e);
+    }
+  }
+}
@@ -0,0 +1,410 @@
+package com.project.nelson.msvc_gateway.gateway.jwt;
+
+import com.project.nelson.identity.IdentityEncoder;
+import com.project.nelson.identity.IdentityKey;
+import com.project.nelson.msvc_gateway.gateway.policy.RoleIndex;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caché acotada de verificaciones JWT para el gateway.
+ *
+ * El parser se construye una sola vez. Los tokens con {@code kid} se verifican
+ * con la clave pública correspondiente de {@link JwksKeyCache} (ES256 emitido
+ * por usuario); los tokens sin {@code kid}, con la clave HMAC heredada de
+ * {@code gateway.filter.jwt-secret} si está configurada. Cada token verificado
+ * se guarda indexado por su digest SHA-256 (nunca el token en claro) hasta su
+ * expiración, de modo que las peticiones repetidas del mismo cliente no vuelven
+ * a pagar la firma HMAC ni el parseo JSON en el event loop. Con
+ * {@code gateway.identity.secret} configurado, la cabecera {@code X-Identity}
+ * se firma en el mismo fallo de caché y se guarda junto a los claims.
+ *
+ * Lecturas y escrituras son lock-free sobre un {@link ConcurrentHashMap}. Al
+ * superar el tamaño máximo, un único hilo (el que gane el CAS) purga los
+ * expirados y, si hace falta, los menos usados recientemente (LRU aproximado).
+ */
+@Component
+public class JwtVerificationCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(JwtVerificationCache.class);
+
+  /** Tras una purga LRU se deja la caché al 90% de su capacidad. */
+  private static final double EVICTION_TARGET_RATIO = 0.9;
+
+  private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 no disponible", e);
+    }
+  });
+
+  private final JwtParser parser;
+  private final RoleIndex roleIndex;
+  private final String roleClaim;
+  private final String emailClaim;
+  private final int maxSize;
+  private final IdentityEncoder identityEncoder;
+
+  private final ConcurrentHashMap<TokenDigest, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicBoolean evicting = new AtomicBoolean(false);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final Timer parseValid;
+  private final Timer parseInvalid;
+
+  @Autowired
+  public JwtVerificationCache(
+    @Value("${gateway.filter.jwt-secret:SuperClaveSecretaSeguraQueDebesCambiar}") String jwtSecret,
+    @Value("${gateway.filter.role-claim:rol}") String roleClaim,
+    @Value("${gateway.filter.email-claim:email}") String emailClaim,
+    @Value("${gateway.filter.jwt-cache.max-size:10000}") int maxSize,
+    RoleIndex roleIndex,
+    MeterRegistry meterRegistry,
+    ObjectProvider<JwksKeyCache> jwksKeys,
+    @Value("${gateway.identity.secret:}") String identitySecret,
+    @Value("${gateway.identity.key-id:1}") int identityKeyId
+  ) {
+    this(jwtSecret, roleClaim, emailClaim, maxSize, roleIndex, meterRegistry, jwksKeys.getIfAvailable(),
+      identityEncoder(identitySecret, identityKeyId));
+  }
+
+  /**
+   * Solo con clave HMAC, sin JWKS.
+   */
+  public JwtVerificationCache(
+    String jwtSecret,
+    String roleClaim,
+    String emailClaim,
+    int maxSize,
+    RoleIndex roleIndex,
+    MeterRegistry meterRegistry
+  ) {
+    this(jwtSecret, roleClaim, emailClaim, maxSize, roleIndex, meterRegistry, (JwksKeyCache) null);
+  }
+
+  public JwtVerificationCache(
+    String jwtSecret,
+    String roleClaim,
+    String emailClaim,
+    int maxSize,
+    RoleIndex roleIndex,
+    MeterRegistry meterRegistry,
+    JwksKeyCache jwksKeys
+  ) {
+    this(jwtSecret, roleClaim, emailClaim, maxSize, roleIndex, meterRegistry, jwksKeys, null);
+  }
+
+  public JwtVerificationCache(
+    String jwtSecret,
+    String roleClaim,
+    String emailClaim,
+    int maxSize,
+    RoleIndex roleIndex,
+    MeterRegistry meterRegistry,
+    JwksKeyCache jwksKeys,
+    IdentityEncoder identityEncoder
+  ) {
+    this.roleIndex = roleIndex;
+    this.identityEncoder = identityEncoder;
+    this.roleClaim = roleClaim;
+    this.emailClaim = emailClaim;
+    this.maxSize = Math.max(1, maxSize);
+
+    Key hmacKey = null;
+    if (jwtSecret != null && jwtSecret.getBytes().length >= 32) {
+      hmacKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    } else if (jwksKeys == null) {
+      logger.error("La clave JWT debe tener al menos 32 bytes. La verificación JWT queda deshabilitada.");
+    } else {
+      logger.info("Sin clave HMAC: solo se aceptan tokens firmados con claves del JWKS");
+    }
+
+    if (hmacKey == null && jwksKeys == null) {
+      // El filtro responde 500 mientras no haya ninguna clave válida
+      this.parser = null;
+    } else {
+      this.parser = Jwts.parserBuilder()
+        .setSigningKeyResolver(new KeyResolver(hmacKey, jwksKeys))
+        .build();
+    }
+
+    this.parseValid = parseTimer(meterRegistry, "valid");
+    this.parseInvalid = parseTimer(meterRegistry, "invalid");
+    FunctionCounter.builder("gateway.jwt.cache", hits, LongAdder::sum)
+      .tag("result", "hit")
+      .description("Verificaciones JWT resueltas desde la caché")
+      .register(meterRegistry);
+    FunctionCounter.builder("gateway.jwt.cache", misses, LongAdder::sum)
+      .tag("result", "miss")
+      .description("Verificaciones JWT que requirieron parseo y firma")
+      .register(meterRegistry);
+    FunctionCounter.builder("gateway.jwt.cache.evictions", evictions, LongAdder::sum)
+      .description("Entradas expulsadas por expiración o presión de tamaño")
+      .register(meterRegistry);
+    Gauge.builder("gateway.jwt.cache.size", entries, Map::size)
+      .description("Tokens verificados actualmente en caché")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Indica si hay una clave HMAC o un JWKS para verificar tokens.
+   */
+  public boolean isEnabled() {
+    return parser != null;
+  }
+
+  /**
+   * Verifica el token (o lo resuelve desde caché) y devuelve sus claims.
+   *
+   * @throws JwtException si el token es inválido o está expirado
+   * @throws IllegalStateException si no hay clave JWT válida configurada
+   */
+  public VerifiedClaims verify(String jwt) {
+    if (parser == null) {
+      throw new IllegalStateException("Clave JWT no configurada");
+    }
+    long now = System.currentTimeMillis();
+    TokenDigest digest = TokenDigest.of(jwt);
+
+    Entry entry = entries.get(digest);
+    if (entry != null) {
+      if (!entry.claims.isExpired(now)) {
+        entry.lastAccess = now;
+        hits.increment();
+        return entry.claims;
+      }
+      if (entries.remove(digest, entry)) {
+        evictions.increment();
+      }
+    }
+
+    misses.increment();
+    long start = System.nanoTime();
+    VerifiedClaims claims;
+    try {
+      claims = toVerifiedClaims(parser.parseClaimsJws(jwt).getBody());
+    } catch (RuntimeException ex) {
+      parseInvalid.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw ex;
+    }
+    parseValid.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    if (claims.expiresAtMillis() != Long.MAX_VALUE) {
+      // Tokens sin 'exp' no se cachean: no habría cuándo expulsarlos
+      entries.put(digest, new Entry(claims, now));
+      evictIfNeeded(now);
+    }
+    return claims;
+  }
+
+  private static IdentityEncoder identityEncoder(String secret, int keyId) {
+    if (secret == null || secret.getBytes(StandardCharsets.UTF_8).length < IdentityKey.MIN_SECRET_BYTES) {
+      logger.info("Sin gateway.identity.secret de al menos {} bytes: no se añade la cabecera X-Identity",
+        IdentityKey.MIN_SECRET_BYTES);
+      return null;
+    }
+    return new IdentityEncoder(IdentityKey.of(keyId, secret));
+  }
+
+  private static Timer parseTimer(MeterRegistry meterRegistry, String result) {
+    return Timer.builder("gateway.jwt.parse")
+      .description("Parseo y verificación de firma en fallos de caché")
+      .tag("result", result)
+      .publishPercentileHistogram()
+      .register(meterRegistry);
+  }
+
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  public long missCount() {
+    return misses.sum();
+  }
+
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  private VerifiedClaims toVerifiedClaims(Claims claims) {
+    Object rawRoles = claims.get(roleClaim);
+    String email = claims.get(emailClaim, String.class);
+    String subject = claims.getSubject() != null ? claims.getSubject() : "";
+    long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+    Set<String> roles = parseRoles(rawRoles);
+    return new VerifiedClaims(subject, email, roles, roleIndex.maskOf(roles), claims.getId(), expiresAt,
+      String.join(",", roles), identityHeader(subject, email, roles, claims.getId(), expiresAt));
+  }
+
+  private String identityHeader(String subject, String email, Set<String> roles, String jwtId, long expiresAt) {
+    if (identityEncoder == null) {
+      return null;
+    }
+    try {
+      return identityEncoder.encode(subject, email, roles, jwtId, expiresAt);
+    } catch (IllegalArgumentException ex) {
+      // Claims fuera de los límites del formato: el token sigue siendo válido, solo sin X-Identity
+      logger.debug("Cabecera X-Identity omitida para {}: {}", subject, ex.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Acepta el claim de roles como texto separado por comas o como lista JSON.
+   */
+  private static Set<String> parseRoles(Object rawRoles) {
+    if (rawRoles == null) {
+      return Collections.emptySet();
+    }
+    Set<String> roles = new LinkedHashSet<>();
+    if (rawRoles instanceof Collection<?> collection) {
+      for (Object role : collection) {
+        addRole(roles, String.valueOf(role));
+      }
+    } else {
+      for (String role : rawRoles.toString().split(",")) {
+        addRole(roles, role);
+      }
+    }
+    return Collections.unmodifiableSet(roles);
+  }
+
+  private static void addRole(Set<String> roles, String role) {
+    String trimmed = role.trim();
+    if (!trimmed.isEmpty()) {
+      roles.add(trimmed);
+    }
+  }
+
+  private void evictIfNeeded(long now) {
+    if (entries.size() <= maxSize || !evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      entries.entrySet().removeIf(e -> {
+        if (e.getValue().claims.isExpired(now)) {
+          evictions.increment();
+          return true;
+        }
+        return false;
+      });
+
+      int overflow = entries.size() - (int) (maxSize * EVICTION_TARGET_RATIO);
+      if (overflow <= 0) {
+        return;
+      }
+      // Se copia lastAccess antes de ordenar: otros hilos lo siguen actualizando
+      List<Candidate> candidates = new ArrayList<>(entries.size());
+      entries.forEach((key, value) -> candidates.add(new Candidate(key, value, value.lastAccess)));
+      candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+      for (int i = 0; i < overflow && i < candidates.size(); i++) {
+        Candidate candidate = candidates.get(i);
+        if (entries.remove(candidate.key(), candidate.entry())) {
+          evictions.increment();
+        }
+      }
+      logger.debug("Caché JWT purgada por tamaño: {} entradas restantes", entries.size());
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  private static final class Entry {
+
+    private final VerifiedClaims claims;
+    private volatile long lastAccess;
+
+    private Entry(VerifiedClaims claims, long lastAccess) {
+      this.claims = claims;
+      this.lastAccess = lastAccess;
+    }
+  }
+
+  private record Candidate(TokenDigest key, Entry entry, long lastAccess) {}
+
+  /**
+   * Elige la clave por el {@code kid} de la cabecera. jjwt comprueba además
+   * que el tipo de clave corresponda al {@code alg} del token.
+   */
+  private static final class KeyResolver extends SigningKeyResolverAdapter {
+
+    private final Key hmacKey;
+    private final JwksKeyCache jwksKeys;
+
+    private KeyResolver(Key hmacKey, JwksKeyCache jwksKeys) {
+      this.hmacKey = hmacKey;
+      this.jwksKeys = jwksKeys;
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+      String kid = header.getKeyId();
+      if (kid == null) {
+        if (hmacKey == null) {
+          throw new JwtException("Token sin kid y sin clave HMAC configurada");
+        }
+        return hmacKey;
+      }
+      Key key = jwksKeys != null ? jwksKeys.find(kid) : null;
+      if (key == null) {
+        throw new JwtException("Clave de firma desconocida: " + kid);
+      }
+      return key;
+    }
+  }
+
+  /**
+   * Primeros 128 bits del SHA-256 del token compacto.
+   */
+  private record TokenDigest(long high, long low) {
+    static TokenDigest of(String jwt) {
+      MessageDigest sha = SHA256.get();
+      byte[] hash = sha.digest(jwt.getBytes(StandardCharsets.US_ASCII));
+      return new TokenDigest(readLong(hash, 0), readLong(hash, 8));
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+      long value = 0;
+      for (int i = offset; i < offset + 8; i++) {
+        value = (value << 8) | (bytes[i] & 0xFF);
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.project.nelson.msvc_gateway.gateway.jwt;
+
+import com.project.nelson.identity.revocation.RevokedTokenSet;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copia local de la lista de revocación de tokens (logout en usuario).
+ *
+ * {@code JwtGlobalFilter} la consulta en cada petición protegida: es un acceso
+ * a un {@link RevokedTokenSet} en memoria, sin viaje a Redis. La mantiene al
+ * día {@link TokenRevocationRedisSync}.
+ */
+@Component
+public class TokenRevocationCache {
+
+  private final RevokedTokenSet revoked;
+
+  public TokenRevocationCache(
+    @Value("${gateway.filter.revocation.sweep-interval-ms:60000}") long sweepIntervalMillis,
+    MeterRegistry meterRegistry
+  ) {
+    this.revoked = new RevokedTokenSet(sweepIntervalMillis);
+    Gauge.builder("gateway.jwt.revoked", revoked, RevokedTokenSet::size)
+      .description("Tokens revocados no expirados en la caché local")
+      .register(meterRegistry);
+  }
+
+  public boolean isRevoked(String jwtId) {
+    return revoked.contains(jwtId);
+  }
+
+  public void revoke(String jwtId, long expiresAtMillis) {
+    revoked.add(jwtId, expiresAtMillis);
+  }
+}
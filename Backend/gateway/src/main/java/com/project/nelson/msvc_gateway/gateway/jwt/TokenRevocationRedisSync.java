@@ -0,0 +1,102 @@
+package com.project.nelson.msvc_gateway.gateway.jwt;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Sincroniza {@link TokenRevocationCache} con la lista de revocación que
+ * usuario mantiene en Redis.
+ *
+ * Usuario guarda cada token revocado como {@code auth:revoked:<jti>} (valor:
+ * expiración en epoch millis, TTL hasta esa expiración) y lo publica en
+ * {@code auth:revocations} como {@code <jti>|<exp millis>}. Tras cada
+ * (re)suscripción al canal se recorren las claves existentes, de modo que
+ * nada publicado durante una desconexión se pierde. Los errores de Redis se
+ * reintentan con backoff y nunca bloquean el event loop.
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.filter.revocation.redis.enabled", havingValue = "true")
+public class TokenRevocationRedisSync {
+
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocationRedisSync.class);
+
+  static final String KEY_PREFIX = "auth:revoked:";
+  static final String CHANNEL = "auth:revocations";
+
+  private final ReactiveRedisConnectionFactory connectionFactory;
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final TokenRevocationCache revocationCache;
+  private Disposable subscription;
+
+  public TokenRevocationRedisSync(
+    ReactiveRedisConnectionFactory connectionFactory,
+    ReactiveStringRedisTemplate redisTemplate,
+    TokenRevocationCache revocationCache
+  ) {
+    this.connectionFactory = connectionFactory;
+    this.redisTemplate = redisTemplate;
+    this.revocationCache = revocationCache;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    subscription = Flux.defer(() -> {
+        ReactiveRedisMessageListenerContainer container = new ReactiveRedisMessageListenerContainer(connectionFactory);
+        // receiveLater emite cuando la suscripción está activa: el SCAN posterior no deja huecos
+        return container.receiveLater(ChannelTopic.of(CHANNEL))
+          .flatMapMany(messages -> loadExisting().thenMany(messages))
+          .map(message -> message.getMessage())
+          .doFinally(signal -> container.destroyLater().subscribe());
+      })
+      .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+        .maxBackoff(Duration.ofSeconds(30))
+        .doBeforeRetry(retry -> logger.warn("Suscripción a revocaciones perdida, reintentando: {}",
+          retry.failure().getMessage())))
+      .subscribe(this::apply);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (subscription != null) {
+      subscription.dispose();
+    }
+  }
+
+  private Mono<Void> loadExisting() {
+    ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+    return redisTemplate.scan(options)
+      .flatMap(key -> redisTemplate.opsForValue().get(key)
+        .doOnNext(expiresAt -> revocationCache.revoke(key.substring(KEY_PREFIX.length()), Long.parseLong(expiresAt))),
+        16)
+      .count()
+      .doOnNext(count -> logger.info("{} tokens revocados cargados desde Redis", count))
+      .then();
+  }
+
+  private void apply(String payload) {
+    int separator = payload.lastIndexOf('|');
+    if (separator <= 0) {
+      return;
+    }
+    try {
+      revocationCache.revoke(payload.substring(0, separator), Long.parseLong(payload.substring(separator + 1)));
+    } catch (NumberFormatException ex) {
+      logger.warn("Mensaje de revocación inválido: {}", payload);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package com.project.nelson.msvc_gateway.gateway.jwt;
+
+import java.util.Set;
+
+/**
+ * Resultado inmutable de una verificación JWT exitosa.
+ * Se guarda en {@link JwtVerificationCache} para no volver a parsear el token
+ * en peticiones repetidas; junto a los claims se guardan ya construidos los
+ * valores de las cabeceras que el gateway propaga aguas abajo.
+ *
+ * @param subject usuario (claim sub)
+ * @param email claim de email configurado
+ * @param roles roles del usuario ya normalizados
+ * @param roleMask máscara de bits de los roles (ver {@code RoleIndex})
+ * @param jwtId identificador del token (claim jti), puede ser null
+ * @param expiresAtMillis expiración del token en epoch millis
+ * @param rolesHeader roles separados por comas, para {@code X-Roles}
+ * @param identityHeader valor de {@code X-Identity}, o null si no hay clave de identidad
+ */
+public record VerifiedClaims(
+  String subject,
+  String email,
+  Set<String> roles,
+  long roleMask,
+  String jwtId,
+  long expiresAtMillis,
+  String rolesHeader,
+  String identityHeader
+) {
+  public VerifiedClaims(String subject, String email, Set<String> roles, long roleMask, String jwtId, long expiresAtMillis) {
+    this(subject, email, roles, roleMask, jwtId, expiresAtMillis, String.join(",", roles), null);
+  }
+
+  public boolean isExpired(long nowMillis) {
+    return nowMillis >= expiresAtMillis;
+  }
+}
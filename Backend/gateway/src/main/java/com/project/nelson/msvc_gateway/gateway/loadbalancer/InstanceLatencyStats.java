@@ -0,0 +1,153 @@
+package com.project.nelson.msvc_gateway.gateway.loadbalancer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latencia (peak-EWMA) y peticiones en curso de cada instancia a la que el
+ * gateway envía tráfico.
+ *
+ * Un RTT mayor que la media la sustituye de inmediato (pico); uno menor se
+ * mezcla con peso {@code 1 - e^(-Δt/decay)}, y al leer el coste la media
+ * decae con el tiempo transcurrido desde la última muestra. Así una réplica
+ * que entra en una pausa de GC deja de recibir tráfico al primer RTT alto y
+ * vuelve a recibirlo en unos {@code decay-ms} sin necesidad de nuevas
+ * muestras. El coste es {@code ewma × (en curso + 1)}; una instancia sin
+ * muestras y con peticiones en curso recibe un coste de penalización.
+ *
+ * Las estadísticas son globales al gateway (compartidas entre rutas) y se
+ * indexan por servicio e instancia; las instancias sin tráfico durante
+ * {@code idle-ms} se olvidan.
+ */
+@Component
+public class InstanceLatencyStats {
+
+  /** Coste de una instancia sin muestras y con peticiones en curso (Finagle usa el mismo criterio). */
+  static final double PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+  private final AtomicLong nextSweepAt = new AtomicLong();
+  private final LongSupplier nanoClock;
+  private final double decayNanos;
+  private final long failurePenaltyNanos;
+  private final long idleNanos;
+
+  @Autowired
+  public InstanceLatencyStats(
+    @Value("${gateway.load-balancer.peak-ewma.decay-ms:10000}") long decayMillis,
+    @Value("${gateway.load-balancer.peak-ewma.failure-penalty-ms:1000}") long failurePenaltyMillis,
+    @Value("${gateway.load-balancer.peak-ewma.idle-ms:300000}") long idleMillis
+  ) {
+    this(System::nanoTime, decayMillis, failurePenaltyMillis, idleMillis);
+  }
+
+  public InstanceLatencyStats(LongSupplier nanoClock, long decayMillis, long failurePenaltyMillis, long idleMillis) {
+    this.nanoClock = nanoClock;
+    this.decayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, decayMillis));
+    this.failurePenaltyNanos = TimeUnit.MILLISECONDS.toNanos(failurePenaltyMillis);
+    this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+  }
+
+  /**
+   * Marca el inicio de una petición a la instancia.
+   *
+   * @return el instante de inicio, para {@link #complete}
+   */
+  public long start(ServiceInstance instance) {
+    long now = nanoClock.getAsLong();
+    stats(instance, now).inFlight.incrementAndGet();
+    return now;
+  }
+
+  /**
+   * Registra el fin de una petición iniciada con {@link #start}. Un fallo
+   * (error de conexión o 5xx) cuenta como un RTT de al menos
+   * {@code failure-penalty-ms}.
+   */
+  public void complete(ServiceInstance instance, long startNanos, boolean failed) {
+    long now = nanoClock.getAsLong();
+    long rtt = now - startNanos;
+    Stats entry = stats(instance, now);
+    entry.inFlight.decrementAndGet();
+    entry.observe(failed ? Math.max(rtt, failurePenaltyNanos) : rtt, now);
+    sweepIfDue(now);
+  }
+
+  /**
+   * Coste actual de la instancia; menor es mejor.
+   */
+  public double cost(ServiceInstance instance) {
+    Stats entry = stats.get(key(instance));
+    return entry == null ? 0 : entry.cost(nanoClock.getAsLong());
+  }
+
+  public int inFlight(ServiceInstance instance) {
+    Stats entry = stats.get(key(instance));
+    return entry == null ? 0 : entry.inFlight.get();
+  }
+
+  public int size() {
+    return stats.size();
+  }
+
+  private Stats stats(ServiceInstance instance, long now) {
+    Stats entry = stats.computeIfAbsent(key(instance), k -> new Stats(now));
+    entry.lastUsed = now;
+    return entry;
+  }
+
+  private void sweepIfDue(long now) {
+    long due = nextSweepAt.get();
+    if (now - due < 0 || !nextSweepAt.compareAndSet(due, now + idleNanos)) {
+      return;
+    }
+    stats.values().removeIf(entry -> entry.inFlight.get() <= 0 && now - entry.lastUsed > idleNanos);
+  }
+
+  static String key(ServiceInstance instance) {
+    String instanceId = instance.getInstanceId();
+    return instance.getServiceId() + "/" + (instanceId != null ? instanceId : instance.getHost() + ":" + instance.getPort());
+  }
+
+  private final class Stats {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long lastUsed;
+    private double ewmaNanos;
+    private long lastSampleNanos;
+
+    private Stats(long now) {
+      this.lastUsed = now;
+      this.lastSampleNanos = now;
+    }
+
+    synchronized void observe(long rttNanos, long now) {
+      if (rttNanos > ewmaNanos) {
+        ewmaNanos = rttNanos;
+      } else {
+        double weight = Math.exp(-(now - lastSampleNanos) / decayNanos);
+        ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+      }
+      lastSampleNanos = now;
+    }
+
+    double cost(long now) {
+      int pending = Math.max(0, inFlight.get());
+      double ewma;
+      synchronized (this) {
+        ewma = ewmaNanos * Math.exp(-Math.max(0, now - lastSampleNanos) / decayNanos);
+      }
+      if (ewma == 0 && pending > 0) {
+        return PENALTY_NANOS + pending;
+      }
+      return ewma * (pending + 1);
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.project.nelson.msvc_gateway.gateway.loadbalancer;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Balanceador de un servicio ({@code lb://usuario}, {@code lb://product-service})
+ * con dos estrategias, elegidas por ruta con el metadato
+ * {@value #STRATEGY_METADATA} o, si la ruta no lo indica, por
+ * {@code gateway.load-balancer.default-strategy}:
+ * <ul>
+ *   <li>{@code round-robin}: el comportamiento por defecto de Spring Cloud.</li>
+ *   <li>{@code peak-ewma}: power of two choices; se eligen dos instancias al
+ *       azar y gana la de menor coste en {@link InstanceLatencyStats}. Sortear
+ *       dos en vez de tomar la mínima global evita que todas las peticiones
+ *       simultáneas caigan en la misma instancia antes de que su coste suba.</li>
+ * </ul>
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+  private static final Logger logger = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+
+  /** Metadato de ruta con la estrategia: {@code round-robin} o {@code peak-ewma}. */
+  public static final String STRATEGY_METADATA = "load-balancer";
+
+  public enum Strategy {
+    ROUND_ROBIN,
+    PEAK_EWMA;
+
+    static Strategy parse(Object value, Strategy fallback) {
+      if (value == null) {
+        return fallback;
+      }
+      try {
+        return valueOf(value.toString().trim().replace('-', '_').toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException ex) {
+        logger.warn("Estrategia de balanceo desconocida '{}', se usa {}", value, fallback);
+        return fallback;
+      }
+    }
+  }
+
+  private final String serviceId;
+  private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+  private final InstanceLatencyStats stats;
+  private final Strategy defaultStrategy;
+  // Valor del metadato -> estrategia; se parsea (y avisa si es inválido) una sola vez
+  private final Map<Object, Strategy> parsedStrategies = new ConcurrentHashMap<>();
+  private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+
+  public LatencyAwareLoadBalancer(
+    String serviceId,
+    ObjectProvider<ServiceInstanceListSupplier> suppliers,
+    InstanceLatencyStats stats,
+    Strategy defaultStrategy
+  ) {
+    this.serviceId = serviceId;
+    this.suppliers = suppliers;
+    this.stats = stats;
+    this.defaultStrategy = defaultStrategy;
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes")
+  public Mono<Response<ServiceInstance>> choose(Request request) {
+    ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+    Strategy strategy = strategy(request);
+    return supplier.get(request).next().map(instances -> choose(instances, strategy));
+  }
+
+  /**
+   * Selección sobre una lista ya resuelta; pública para la simulación de benchmarks.
+   */
+  public Response<ServiceInstance> choose(List<ServiceInstance> instances, Strategy strategy) {
+    int size = instances.size();
+    if (size == 0) {
+      logger.warn("Sin instancias disponibles para el servicio: {}", serviceId);
+      return new EmptyResponse();
+    }
+    if (size == 1) {
+      return new DefaultResponse(instances.get(0));
+    }
+    if (strategy == Strategy.ROUND_ROBIN) {
+      int next = position.incrementAndGet() & Integer.MAX_VALUE;
+      return new DefaultResponse(instances.get(next % size));
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(size);
+    int second = random.nextInt(size - 1);
+    if (second >= first) {
+      second++;
+    }
+    ServiceInstance a = instances.get(first);
+    ServiceInstance b = instances.get(second);
+    return new DefaultResponse(stats.cost(a) <= stats.cost(b) ? a : b);
+  }
+
+  @SuppressWarnings("rawtypes")
+  private Strategy strategy(Request request) {
+    if (request != null && request.getContext() instanceof RequestDataContext context
+      && context.getClientRequest() != null) {
+      Map<String, Object> attributes = context.getClientRequest().getAttributes();
+      if (attributes != null && attributes.get(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR) instanceof Route route) {
+        Object value = route.getMetadata().get(STRATEGY_METADATA);
+        return value == null
+          ? defaultStrategy
+          : parsedStrategies.computeIfAbsent(value, v -> Strategy.parse(v, defaultStrategy));
+      }
+    }
+    return defaultStrategy;
+  }
+}
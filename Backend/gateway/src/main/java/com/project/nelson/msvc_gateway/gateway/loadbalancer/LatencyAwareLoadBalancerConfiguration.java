@@ -0,0 +1,38 @@
+package com.project.nelson.msvc_gateway.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuración de cada cliente de balanceo (un contexto hijo por servicio).
+ *
+ * Sin {@code @Configuration} a propósito: la registra
+ * {@link LoadBalancerConfig} como configuración por defecto de todos los
+ * clientes y no debe entrar en el escaneo del contexto principal.
+ * {@link InstanceLatencyStats} viene del contexto principal, compartido.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+
+  @Bean
+  public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+    Environment environment,
+    LoadBalancerClientFactory clientFactory,
+    InstanceLatencyStats stats
+  ) {
+    String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+    LatencyAwareLoadBalancer.Strategy defaultStrategy = LatencyAwareLoadBalancer.Strategy.parse(
+      environment.getProperty("gateway.load-balancer.default-strategy"),
+      LatencyAwareLoadBalancer.Strategy.ROUND_ROBIN
+    );
+    return new LatencyAwareLoadBalancer(
+      serviceId,
+      clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+      stats,
+      defaultStrategy
+    );
+  }
+}
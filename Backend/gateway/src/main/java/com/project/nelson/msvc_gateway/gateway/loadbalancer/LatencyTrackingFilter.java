@@ -0,0 +1,54 @@
+package com.project.nelson.msvc_gateway.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Mide cada petición proxiada hacia la instancia que eligió el balanceador y
+ * alimenta {@link InstanceLatencyStats}.
+ *
+ * Va justo después de {@link ReactiveLoadBalancerClientFilter}, que deja la
+ * instancia elegida en el exchange. Se usa {@code doFinally} en lugar de
+ * {@code LoadBalancerLifecycle}: este último no se invoca si el cliente
+ * cancela la petición, y el contador de peticiones en curso quedaría inflado.
+ * Un error o una respuesta 5xx cuentan como fallo.
+ */
+@Component
+public class LatencyTrackingFilter implements GlobalFilter, Ordered {
+
+  private final InstanceLatencyStats stats;
+
+  public LatencyTrackingFilter(InstanceLatencyStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    Response<ServiceInstance> selected = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+    if (selected == null || !selected.hasServer()) {
+      return chain.filter(exchange);
+    }
+    ServiceInstance instance = selected.getServer();
+    long start = stats.start(instance);
+    return chain.filter(exchange).doFinally(signal -> {
+      HttpStatusCode status = exchange.getResponse().getStatusCode();
+      boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+      stats.complete(instance, start, failed);
+    });
+  }
+
+  @Override
+  public int getOrder() {
+    return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+  }
+}
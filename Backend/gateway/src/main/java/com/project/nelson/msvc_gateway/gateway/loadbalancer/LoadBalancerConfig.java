@@ -0,0 +1,15 @@
+package com.project.nelson.msvc_gateway.gateway.loadbalancer;
+
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Sustituye el round-robin de Spring Cloud por {@link LatencyAwareLoadBalancer}
+ * en todos los servicios {@code lb://}. La estrategia se elige por ruta (ver
+ * {@link LatencyAwareLoadBalancer#STRATEGY_METADATA}); sin metadato se
+ * mantiene round-robin salvo que {@code gateway.load-balancer.default-strategy}
+ * diga otra cosa.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {}
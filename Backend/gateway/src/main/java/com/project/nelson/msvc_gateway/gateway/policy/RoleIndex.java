@@ -0,0 +1,51 @@
+package com.project.nelson.msvc_gateway.gateway.policy;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Asigna a cada nombre de rol un bit estable (0..63) para poder autorizar con
+ * una operación AND sobre un {@code long}.
+ *
+ * Los índices nunca se reasignan, así que las máscaras ya calculadas (por
+ * ejemplo las guardadas en la caché de tokens) siguen siendo válidas después de
+ * recompilar las políticas de rutas.
+ */
+@Component
+public class RoleIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger(RoleIndex.class);
+
+  public static final int MAX_ROLES = Long.SIZE;
+
+  private final ConcurrentHashMap<String, Integer> bits = new ConcurrentHashMap<>();
+  private final AtomicInteger nextBit = new AtomicInteger();
+
+  /**
+   * Devuelve la máscara de un rol, registrándolo si es nuevo.
+   * Devuelve 0 si ya se agotaron los 64 bits disponibles.
+   */
+  public long maskOf(String role) {
+    Integer bit = bits.computeIfAbsent(role, r -> {
+      int next = nextBit.getAndIncrement();
+      if (next >= MAX_ROLES) {
+        logger.error("Se superó el máximo de {} roles distintos; '{}' no podrá autorizarse", MAX_ROLES, r);
+        return -1;
+      }
+      return next;
+    });
+    return bit < 0 ? 0L : 1L << bit;
+  }
+
+  public long maskOf(Collection<String> roles) {
+    long mask = 0L;
+    for (String role : roles) {
+      mask |= maskOf(role);
+    }
+    return mask;
+  }
+}
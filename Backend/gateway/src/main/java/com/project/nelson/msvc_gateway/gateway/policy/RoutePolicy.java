@@ -0,0 +1,179 @@
+package com.project.nelson.msvc_gateway.gateway.policy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Política de rutas compilada e inmutable del {@code JwtGlobalFilter}.
+ *
+ * Contiene las rutas exentas, el prefijo protegido por JWT y un trie de
+ * prefijos con los roles requeridos por ruta. Todas las consultas recorren
+ * estructuras precalculadas y no reservan memoria, por lo que pueden
+ * ejecutarse en el event loop de Netty en cada petición.
+ */
+public final class RoutePolicy {
+
+  private final String[] exemptPaths;
+  private final String protectedPrefix;
+  private final RouteRule defaultRule;
+  private final Node root;
+
+  private RoutePolicy(String[] exemptPaths, String protectedPrefix, RouteRule defaultRule, Node root) {
+    this.exemptPaths = exemptPaths;
+    this.protectedPrefix = protectedPrefix;
+    this.defaultRule = defaultRule;
+    this.root = root;
+  }
+
+  /**
+   * Compila la política a partir de la configuración en texto.
+   *
+   * @param exemptPaths rutas exentas separadas por comas (se comparan por 'contains')
+   * @param protectedPrefix prefijo a partir del cual se exige JWT
+   * @param allowedRoles roles por defecto separados por comas
+   * @param routeRoles roles requeridos por prefijo de ruta (separados por comas)
+   * @param roleIndex registro de bits de rol
+   */
+  public static RoutePolicy compile(
+    String exemptPaths,
+    String protectedPrefix,
+    String allowedRoles,
+    Map<String, String> routeRoles,
+    RoleIndex roleIndex
+  ) {
+    String[] exempt = splitCsv(exemptPaths).toArray(String[]::new);
+    RouteRule defaultRule = newRule(protectedPrefix, allowedRoles, roleIndex);
+
+    Builder root = new Builder();
+    routeRoles.forEach((prefix, roles) -> {
+      String trimmed = prefix.trim();
+      if (!trimmed.isEmpty()) {
+        root.insert(trimmed, newRule(trimmed, roles, roleIndex));
+      }
+    });
+    return new RoutePolicy(exempt, protectedPrefix, defaultRule, root.build());
+  }
+
+  /**
+   * Indica si la ruta contiene alguno de los fragmentos exentos.
+   */
+  public boolean isExempt(String path) {
+    for (String exempt : exemptPaths) {
+      if (path.contains(exempt)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Indica si la ruta exige JWT.
+   */
+  public boolean isProtected(String path) {
+    return path.startsWith(protectedPrefix);
+  }
+
+  /**
+   * Devuelve la regla del prefijo más largo que coincide con la ruta,
+   * o la regla por defecto ({@code allowed-roles}) si ninguna coincide.
+   */
+  public RouteRule ruleFor(String path) {
+    RouteRule match = defaultRule;
+    Node node = root;
+    for (int i = 0; i < path.length() && node != null; i++) {
+      node = node.child(path.charAt(i));
+      if (node != null && node.rule != null) {
+        match = node.rule;
+      }
+    }
+    return match;
+  }
+
+  private static RouteRule newRule(String prefix, String roles, RoleIndex roleIndex) {
+    Set<String> names = Collections.unmodifiableSet(new LinkedHashSet<>(splitCsv(roles)));
+    return new RouteRule(prefix, names, roleIndex.maskOf(names));
+  }
+
+  private static List<String> splitCsv(String value) {
+    List<String> parts = new ArrayList<>();
+    if (value == null) {
+      return parts;
+    }
+    for (String part : value.split(",")) {
+      String trimmed = part.trim();
+      if (!trimmed.isEmpty()) {
+        parts.add(trimmed);
+      }
+    }
+    return parts;
+  }
+
+  /**
+   * Roles requeridos para un prefijo de ruta.
+   *
+   * @param prefix prefijo al que aplica la regla
+   * @param roleNames nombres de rol (solo para logs y diagnóstico)
+   * @param requiredMask máscara de roles; basta con tener uno de ellos
+   */
+  public record RouteRule(String prefix, Set<String> roleNames, long requiredMask) {
+    public boolean allows(long roleMask) {
+      return (roleMask & requiredMask) != 0;
+    }
+  }
+
+  /**
+   * Nodo del trie: hijos ordenados por carácter y búsqueda binaria.
+   */
+  private static final class Node {
+
+    private final char[] keys;
+    private final Node[] children;
+    private final RouteRule rule;
+
+    private Node(char[] keys, Node[] children, RouteRule rule) {
+      this.keys = keys;
+      this.children = children;
+      this.rule = rule;
+    }
+
+    private Node child(char c) {
+      int idx = Arrays.binarySearch(keys, c);
+      return idx >= 0 ? children[idx] : null;
+    }
+  }
+
+  /**
+   * Trie mutable usado solo durante la compilación.
+   */
+  private static final class Builder {
+
+    private final TreeMap<Character, Builder> children = new TreeMap<>();
+    private RouteRule rule;
+
+    private void insert(String prefix, RouteRule rule) {
+      Builder node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Builder());
+      }
+      node.rule = rule;
+    }
+
+    private Node build() {
+      char[] keys = new char[children.size()];
+      Node[] nodes = new Node[children.size()];
+      int i = 0;
+      for (Map.Entry<Character, Builder> entry : children.entrySet()) {
+        keys[i] = entry.getKey();
+        nodes[i] = entry.getValue().build();
+        i++;
+      }
+      return new Node(keys, nodes, rule);
+    }
+  }
+}
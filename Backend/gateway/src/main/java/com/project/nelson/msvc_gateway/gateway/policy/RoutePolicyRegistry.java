@@ -0,0 +1,65 @@
+package com.project.nelson.msvc_gateway.gateway.policy;
+
+import java.util.Collections;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mantiene la {@link RoutePolicy} vigente.
+ *
+ * La política se compila al arrancar y se recompila cuando cambia alguna
+ * propiedad {@code gateway.filter.*} (refresh de configuración). El filtro
+ * solo lee una referencia volátil, sin bloqueos.
+ */
+@Component
+public class RoutePolicyRegistry {
+
+  private static final Logger logger = LoggerFactory.getLogger(RoutePolicyRegistry.class);
+
+  private static final String PREFIX = "gateway.filter.";
+  private static final String DEFAULT_EXEMPT_PATHS =
+    "/login,/register,/public/,/swagger-ui/,/v3/api-docs/,/auth/login,/auth/refresh,/usuarios/register";
+
+  private final Environment environment;
+  private final RoleIndex roleIndex;
+  private volatile RoutePolicy current;
+
+  public RoutePolicyRegistry(Environment environment, RoleIndex roleIndex) {
+    this.environment = environment;
+    this.roleIndex = roleIndex;
+    this.current = compile();
+  }
+
+  public RoutePolicy current() {
+    return current;
+  }
+
+  @EventListener
+  public void onEnvironmentChange(EnvironmentChangeEvent event) {
+    boolean affectsPolicy = event.getKeys().stream().anyMatch(key -> key.startsWith(PREFIX));
+    if (affectsPolicy) {
+      current = compile();
+      logger.info("Política de rutas JWT recompilada tras cambio de configuración");
+    }
+  }
+
+  private RoutePolicy compile() {
+    Map<String, String> routeRoles = Binder.get(environment)
+      .bind(PREFIX + "route-roles", Bindable.mapOf(String.class, String.class))
+      .orElse(Collections.emptyMap());
+    return RoutePolicy.compile(
+      environment.getProperty(PREFIX + "exempt-paths", DEFAULT_EXEMPT_PATHS),
+      environment.getProperty(PREFIX + "conditional-path", "/api/segura/"),
+      environment.getProperty(PREFIX + "allowed-roles", "ROLE_ADMIN,ROLE_USER"),
+      routeRoles,
+      roleIndex
+    );
+  }
+}
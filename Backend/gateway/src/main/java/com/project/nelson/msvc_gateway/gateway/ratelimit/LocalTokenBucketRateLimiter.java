@@ -0,0 +1,230 @@
+package com.project.nelson.msvc_gateway.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.route.RouteDefinitionRouteLocator;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rate limiter del filtro {@code RequestRateLimiter} con token buckets en
+ * memoria.
+ *
+ * Cada petición se decide localmente, sin viaje a Redis. La cuota del clúster
+ * la aplica {@link RateLimitRedisSync}: cada cierto tiempo suma en Redis, por
+ * lotes, lo consumido en esta instancia y bloquea hasta el final de la
+ * ventana los buckets cuya clave ya superó la cuota entre todas las
+ * instancias. El exceso posible está acotado por instancias × intervalo de
+ * sincronización × tasa.
+ *
+ * Límites por ruta, de mayor a menor prioridad: argumentos
+ * {@code local-rate-limiter.*} de un {@code RequestRateLimiter} propio de la
+ * ruta, {@code gateway.rate-limit.routes.<routeId>}, argumentos del filtro en
+ * {@code default-filters} y {@code gateway.rate-limit.default.*}.
+ */
+@Component
+@Primary
+public class LocalTokenBucketRateLimiter extends AbstractRateLimiter<LocalTokenBucketRateLimiter.Config> {
+
+  private static final Logger logger = LoggerFactory.getLogger(LocalTokenBucketRateLimiter.class);
+
+  public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+  public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+  public static final String REPLENISH_RATE_HEADER = "X-RateLimit-Replenish-Rate";
+  public static final String BURST_CAPACITY_HEADER = "X-RateLimit-Burst-Capacity";
+  public static final String REQUESTED_TOKENS_HEADER = "X-RateLimit-Requested-Tokens";
+
+  private static final Mono<Response> UNLIMITED = Mono.just(new Response(true, Collections.emptyMap()));
+
+  private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+  private final Map<String, Config> routeLimits;
+  private final Config defaultConfig;
+  private final boolean includeHeaders;
+  private final long idleMillis;
+  private final AtomicLong nextSweepAt = new AtomicLong();
+  private final Counter allowed;
+  private final Counter denied;
+
+  /**
+   * Consumo local pendiente de sumar a la cuota del clúster.
+   */
+  public record PendingUsage(String bucketKey, TokenBucket bucket, long tokens) {}
+
+  public LocalTokenBucketRateLimiter(
+    ConfigurationService configurationService,
+    Environment environment,
+    MeterRegistry meterRegistry,
+    @Value("${gateway.rate-limit.default.replenish-rate:10}") int defaultReplenishRate,
+    @Value("${gateway.rate-limit.default.burst-capacity:20}") int defaultBurstCapacity,
+    @Value("${gateway.rate-limit.include-headers:true}") boolean includeHeaders,
+    @Value("${gateway.rate-limit.idle-bucket-ms:300000}") long idleMillis
+  ) {
+    super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+    this.defaultConfig = new Config().setReplenishRate(defaultReplenishRate).setBurstCapacity(defaultBurstCapacity);
+    this.routeLimits = Binder.get(environment)
+      .bind("gateway.rate-limit.routes", Bindable.mapOf(String.class, Config.class))
+      .orElse(Collections.emptyMap());
+    this.includeHeaders = includeHeaders;
+    this.idleMillis = idleMillis;
+
+    this.allowed = Counter.builder("gateway.ratelimit.requests").tag("result", "allowed")
+      .description("Peticiones admitidas por el rate limiter local")
+      .register(meterRegistry);
+    this.denied = Counter.builder("gateway.ratelimit.requests").tag("result", "denied")
+      .description("Peticiones rechazadas con 429")
+      .register(meterRegistry);
+    Gauge.builder("gateway.ratelimit.buckets", buckets, Map::size)
+      .description("Token buckets activos en memoria")
+      .register(meterRegistry);
+  }
+
+  @Override
+  public Mono<Response> isAllowed(String routeId, String id) {
+    Config config = configFor(routeId);
+    if (config.getReplenishRate() <= 0) {
+      return UNLIMITED;
+    }
+    long nowNanos = System.nanoTime();
+    long nowMillis = System.currentTimeMillis();
+    TokenBucket bucket = buckets.computeIfAbsent(routeId + '|' + id, key -> new TokenBucket(config, nowNanos, nowMillis));
+    long remaining = bucket.tryConsume(nowNanos, nowMillis);
+    sweepIfDue(nowMillis);
+
+    if (remaining >= 0) {
+      allowed.increment();
+    } else {
+      denied.increment();
+      logger.debug("Rate limit superado: ruta={}, clave={}", routeId, id);
+    }
+    return Mono.just(new Response(remaining >= 0, headers(config, Math.max(remaining, 0))));
+  }
+
+  /**
+   * Extrae el consumo pendiente de todos los buckets (lo llama la sincronización con Redis).
+   */
+  public List<PendingUsage> drainPending() {
+    List<PendingUsage> usages = new ArrayList<>();
+    buckets.forEach((key, bucket) -> {
+      long tokens = bucket.drainPending();
+      if (tokens > 0) {
+        usages.add(new PendingUsage(key, bucket, tokens));
+      }
+    });
+    return usages;
+  }
+
+  /**
+   * Aplica el consumo total del clúster en la ventana: si supera la cuota,
+   * el bucket rechaza hasta {@code windowEndMillis}. La cuota es lo que un
+   * único bucket deja pasar en la ventana: la ráfaga completa más lo repuesto.
+   *
+   * @return true si la clave quedó bloqueada
+   */
+  public boolean applyClusterUsage(PendingUsage usage, long clusterTokens, long windowMillis, long windowEndMillis) {
+    Config config = usage.bucket().config();
+    double quota = config.getBurstCapacity() + config.getReplenishRate() * windowMillis / 1000.0;
+    if (clusterTokens <= quota) {
+      return false;
+    }
+    usage.bucket().blockUntil(windowEndMillis);
+    return true;
+  }
+
+  public int size() {
+    return buckets.size();
+  }
+
+  private Config configFor(String routeId) {
+    Config config = getConfig().get(routeId);
+    if (config == null) {
+      config = routeLimits.get(routeId);
+    }
+    if (config == null) {
+      config = getConfig().get(RouteDefinitionRouteLocator.DEFAULT_FILTERS);
+    }
+    return config != null ? config : defaultConfig;
+  }
+
+  private Map<String, String> headers(Config config, long remaining) {
+    if (!includeHeaders) {
+      return Collections.emptyMap();
+    }
+    return Map.of(
+      REMAINING_HEADER, Long.toString(remaining),
+      REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()),
+      BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()),
+      REQUESTED_TOKENS_HEADER, Integer.toString(config.getRequestedTokens())
+    );
+  }
+
+  private void sweepIfDue(long now) {
+    long due = nextSweepAt.get();
+    if (now < due || !nextSweepAt.compareAndSet(due, now + idleMillis)) {
+      return;
+    }
+    buckets.values().removeIf(bucket -> bucket.isIdle(now, idleMillis));
+  }
+
+  /**
+   * Límite de una ruta: tokens por segundo, capacidad de ráfaga y coste por petición.
+   */
+  public static class Config {
+
+    private int replenishRate;
+    private int burstCapacity;
+    private int requestedTokens = 1;
+
+    public int getReplenishRate() {
+      return replenishRate;
+    }
+
+    public Config setReplenishRate(int replenishRate) {
+      this.replenishRate = replenishRate;
+      return this;
+    }
+
+    /**
+     * Capacidad de ráfaga; si no se configura, un segundo de tasa.
+     */
+    public int getBurstCapacity() {
+      return burstCapacity > 0 ? burstCapacity : replenishRate;
+    }
+
+    public Config setBurstCapacity(int burstCapacity) {
+      this.burstCapacity = burstCapacity;
+      return this;
+    }
+
+    public int getRequestedTokens() {
+      return requestedTokens;
+    }
+
+    public Config setRequestedTokens(int requestedTokens) {
+      this.requestedTokens = requestedTokens;
+      return this;
+    }
+
+    @Override
+    public String toString() {
+      return "Config{replenishRate=" + replenishRate + ", burstCapacity=" + burstCapacity
+        + ", requestedTokens=" + requestedTokens + "}";
+    }
+  }
+}
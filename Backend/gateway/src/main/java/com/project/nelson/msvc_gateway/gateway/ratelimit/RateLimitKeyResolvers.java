@@ -0,0 +1,58 @@
+package com.project.nelson.msvc_gateway.gateway.ratelimit;
+
+import com.project.nelson.msvc_gateway.gateway.jwt.JwtVerificationCache;
+import com.project.nelson.msvc_gateway.gateway.jwt.VerifiedClaims;
+import java.net.InetSocketAddress;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Claves del rate limiter.
+ *
+ * {@code jwtSubjectKeyResolver} (por defecto) limita por usuario autenticado:
+ * detrás de un NAT corporativo todos los usuarios de un cliente comparten IP y
+ * compartirían cuota. El subject sale de {@link JwtVerificationCache}, la
+ * misma caché que usa {@code JwtGlobalFilter}, así que no se verifica el token
+ * dos veces. Sin token válido se limita por IP; si el token es inválido,
+ * {@code JwtGlobalFilter} lo rechazará después.
+ */
+@Configuration
+public class RateLimitKeyResolvers {
+
+  @Bean
+  @Primary
+  public KeyResolver jwtSubjectKeyResolver(JwtVerificationCache verificationCache) {
+    return exchange -> {
+      String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+      if (authorization != null && authorization.startsWith("Bearer ") && verificationCache.isEnabled()) {
+        try {
+          VerifiedClaims claims = verificationCache.verify(authorization.substring(7));
+          if (!claims.subject().isEmpty()) {
+            return Mono.just("user:" + claims.subject());
+          }
+        } catch (RuntimeException ex) {
+          // Token inválido o expirado: cuenta contra la IP
+        }
+      }
+      return Mono.just("ip:" + remoteAddress(exchange));
+    };
+  }
+
+  @Bean
+  public KeyResolver remoteAddressKeyResolver() {
+    return exchange -> Mono.just("ip:" + remoteAddress(exchange));
+  }
+
+  private static String remoteAddress(ServerWebExchange exchange) {
+    InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+    if (address == null) {
+      return "unknown";
+    }
+    return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+  }
+}
@@ -0,0 +1,115 @@
+package com.project.nelson.msvc_gateway.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Suma en Redis, por lotes y fuera del camino de las peticiones, lo consumido
+ * en los token buckets de esta instancia.
+ *
+ * Cada {@code sync-interval-ms} se vacía el consumo pendiente y se envía con
+ * un script (INCRBY + PEXPIRE) por clave y ventana fija
+ * ({@code rl:<ruta>|<clave>:<ventana>}); los comandos salen en paralelo por la
+ * conexión compartida de Lettuce. El total devuelto es el consumo del clúster
+ * en la ventana: si supera la cuota, el bucket local rechaza hasta que acabe.
+ * Si Redis no responde, el límite queda en el nivel local de cada instancia.
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.rate-limit.redis.enabled", havingValue = "true")
+public class RateLimitRedisSync {
+
+  private static final Logger logger = LoggerFactory.getLogger(RateLimitRedisSync.class);
+
+  static final String KEY_PREFIX = "rl:";
+
+  private static final RedisScript<Long> INCREMENT_SCRIPT = RedisScript.of(
+    "local total = redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+    "if total == tonumber(ARGV[1]) then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+    "return total",
+    Long.class
+  );
+
+  private final LocalTokenBucketRateLimiter rateLimiter;
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final Duration syncInterval;
+  private final long windowMillis;
+  private final int concurrency;
+  private final Counter blocked;
+  private Disposable schedule;
+
+  public RateLimitRedisSync(
+    LocalTokenBucketRateLimiter rateLimiter,
+    ReactiveStringRedisTemplate redisTemplate,
+    MeterRegistry meterRegistry,
+    @Value("${gateway.rate-limit.redis.sync-interval-ms:250}") long syncIntervalMillis,
+    @Value("${gateway.rate-limit.redis.window-ms:1000}") long windowMillis,
+    @Value("${gateway.rate-limit.redis.concurrency:64}") int concurrency
+  ) {
+    this.rateLimiter = rateLimiter;
+    this.redisTemplate = redisTemplate;
+    this.syncInterval = Duration.ofMillis(syncIntervalMillis);
+    this.windowMillis = windowMillis;
+    this.concurrency = concurrency;
+    this.blocked = Counter.builder("gateway.ratelimit.cluster_blocks")
+      .description("Claves bloqueadas hasta fin de ventana por superar la cuota del clúster")
+      .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    schedule = Flux.interval(syncInterval)
+      .onBackpressureDrop()
+      .concatMap(tick -> flush())
+      .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (schedule != null) {
+      schedule.dispose();
+    }
+  }
+
+  Mono<Void> flush() {
+    List<LocalTokenBucketRateLimiter.PendingUsage> usages = rateLimiter.drainPending();
+    if (usages.isEmpty()) {
+      return Mono.empty();
+    }
+    long window = System.currentTimeMillis() / windowMillis;
+    long windowEnd = (window + 1) * windowMillis;
+    // La clave sobrevive una ventana más para absorber relojes desfasados entre instancias
+    String ttl = Long.toString(windowMillis * 2);
+    return Flux.fromIterable(usages)
+      .flatMap(usage -> redisTemplate.execute(
+            INCREMENT_SCRIPT,
+            List.of(KEY_PREFIX + usage.bucketKey() + ':' + window),
+            List.of(Long.toString(usage.tokens()), ttl))
+          .next()
+          .doOnNext(total -> {
+            if (rateLimiter.applyClusterUsage(usage, total, windowMillis, windowEnd)) {
+              blocked.increment();
+            }
+          }),
+        concurrency)
+      .onErrorResume(ex -> {
+        logger.warn("No se pudo sincronizar el rate limit con Redis: {}", ex.getMessage());
+        return Mono.empty();
+      })
+      .then();
+  }
+}
@@ -0,0 +1,73 @@
+package com.project.nelson.msvc_gateway.gateway.ratelimit;
+
+/**
+ * Token bucket local de una clave (usuario o IP) en una ruta.
+ *
+ * La sección crítica es de unas pocas operaciones aritméticas, sin E/S: el
+ * bloqueo del objeto no llega a notarse en el event loop y cada clave tiene su
+ * propio bucket, así que apenas hay contención. Además de los tokens lleva la
+ * cuenta de lo consumido desde la última sincronización con Redis y, si la
+ * cuota del clúster se agotó, hasta cuándo debe rechazar.
+ */
+public final class TokenBucket {
+
+  private final LocalTokenBucketRateLimiter.Config config;
+  private double tokens;
+  private long lastRefillNanos;
+  private long pending;
+  private long blockedUntilMillis;
+  private volatile long lastAccessMillis;
+
+  TokenBucket(LocalTokenBucketRateLimiter.Config config, long nowNanos, long nowMillis) {
+    this.config = config;
+    this.tokens = config.getBurstCapacity();
+    this.lastRefillNanos = nowNanos;
+    this.lastAccessMillis = nowMillis;
+  }
+
+  /**
+   * Intenta consumir {@code requestedTokens}.
+   *
+   * @return tokens restantes, o -1 si la petición se rechaza
+   */
+  synchronized long tryConsume(long nowNanos, long nowMillis) {
+    lastAccessMillis = nowMillis;
+    double elapsedSeconds = (nowNanos - lastRefillNanos) / 1_000_000_000.0;
+    if (elapsedSeconds > 0) {
+      tokens = Math.min(config.getBurstCapacity(), tokens + elapsedSeconds * config.getReplenishRate());
+      lastRefillNanos = nowNanos;
+    }
+    int requested = config.getRequestedTokens();
+    if (nowMillis < blockedUntilMillis || tokens < requested) {
+      return -1;
+    }
+    tokens -= requested;
+    pending += requested;
+    return (long) tokens;
+  }
+
+  /**
+   * Devuelve y pone a cero lo consumido desde la última sincronización.
+   */
+  synchronized long drainPending() {
+    long drained = pending;
+    pending = 0;
+    return drained;
+  }
+
+  /**
+   * Rechaza todas las peticiones hasta {@code untilMillis} (cuota del clúster agotada).
+   */
+  synchronized void blockUntil(long untilMillis) {
+    blockedUntilMillis = Math.max(blockedUntilMillis, untilMillis);
+    tokens = 0;
+  }
+
+  synchronized boolean isIdle(long nowMillis, long idleMillis) {
+    return pending == 0 && nowMillis >= blockedUntilMillis && nowMillis - lastAccessMillis >= idleMillis;
+  }
+
+  LocalTokenBucketRateLimiter.Config config() {
+    return config;
+  }
+}
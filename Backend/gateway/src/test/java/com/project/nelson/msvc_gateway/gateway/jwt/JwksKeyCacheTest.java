@@ -0,0 +1,105 @@
+package com.project.nelson.msvc_gateway.gateway.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.msvc_gateway.gateway.policy.RoleIndex;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+class JwksKeyCacheTest {
+
+  private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+  private final KeyPair pair = generate();
+
+  private JwksKeyCache newKeys() {
+    // Sin recargas bajo demanda: la prueba no abre conexiones
+    return new JwksKeyCache(WebClient.builder(), "http://localhost:1/jwks", 300_000, Long.MAX_VALUE, 1_000,
+      new SimpleMeterRegistry());
+  }
+
+  @Test
+  void es256TokenIsVerifiedWithThePublishedKid() throws Exception {
+    JwksKeyCache keys = newKeys();
+    keys.update(jwks("k1", (ECPublicKey) pair.getPublic()));
+    assertEquals(pair.getPublic(), keys.find("k1"));
+
+    JwtVerificationCache cache = new JwtVerificationCache("corta", "roles", "email", 100, new RoleIndex(),
+      new SimpleMeterRegistry(), keys);
+    assertTrue(cache.isEnabled());
+    VerifiedClaims claims = cache.verify(es256("k1"));
+    assertEquals("ana", claims.subject());
+    assertEquals(Set.of("ROLE_USER"), claims.roles());
+
+    assertThrows(JwtException.class, () -> cache.verify(es256("otra")));
+  }
+
+  @Test
+  void tokensWithoutKidNeedTheHmacSecret() throws Exception {
+    JwksKeyCache keys = newKeys();
+    keys.update(jwks("k1", (ECPublicKey) pair.getPublic()));
+    String hs256 = Jwts.builder()
+      .setSubject("ana")
+      .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+      .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+      .compact();
+
+    JwtVerificationCache withoutSecret = new JwtVerificationCache("corta", "roles", "email", 100, new RoleIndex(),
+      new SimpleMeterRegistry(), keys);
+    assertThrows(JwtException.class, () -> withoutSecret.verify(hs256));
+
+    JwtVerificationCache withSecret = new JwtVerificationCache(SECRET, "roles", "email", 100, new RoleIndex(),
+      new SimpleMeterRegistry(), keys);
+    assertEquals("ana", withSecret.verify(hs256).subject());
+  }
+
+  private String es256(String kid) {
+    return Jwts.builder()
+      .setHeaderParam("kid", kid)
+      .setSubject("ana")
+      .claim("roles", List.of("ROLE_USER"))
+      .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+      .signWith(pair.getPrivate(), SignatureAlgorithm.ES256)
+      .compact();
+  }
+
+  private static String jwks(String kid, ECPublicKey key) {
+    return "{\"keys\":[{\"kty\":\"EC\",\"crv\":\"P-256\",\"use\":\"sig\",\"alg\":\"ES256\",\"kid\":\"" + kid
+      + "\",\"x\":\"" + coordinate(key.getW().getAffineX())
+      + "\",\"y\":\"" + coordinate(key.getW().getAffineY()) + "\"}]}";
+  }
+
+  private static String coordinate(BigInteger value) {
+    byte[] raw = value.toByteArray();
+    byte[] fixed = new byte[32];
+    int length = Math.min(raw.length, 32);
+    System.arraycopy(raw, raw.length - length, fixed, 32 - length, length);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+  }
+
+  private static KeyPair generate() {
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+      generator.initialize(new ECGenParameterSpec("secp256r1"));
+      return generator.generateKeyPair();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
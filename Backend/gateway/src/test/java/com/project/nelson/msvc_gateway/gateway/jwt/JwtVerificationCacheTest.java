@@ -0,0 +1,115 @@
+package com.project.nelson.msvc_gateway.gateway.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.identity.IdentityDecoder;
+import com.project.nelson.identity.IdentityEncoder;
+import com.project.nelson.identity.IdentityKey;
+import com.project.nelson.identity.IdentityView;
+import com.project.nelson.msvc_gateway.gateway.policy.RoleIndex;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class JwtVerificationCacheTest {
+
+  private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+  private JwtVerificationCache newCache(int maxSize) {
+    return new JwtVerificationCache(SECRET, "rol", "email", maxSize, new RoleIndex(), new SimpleMeterRegistry());
+  }
+
+  private String token(String subject, Object roles, long ttlMillis) {
+    long now = System.currentTimeMillis();
+    return Jwts.builder()
+      .setSubject(subject)
+      .claim("rol", roles)
+      .claim("email", subject + "@correo.com")
+      .setId(subject + "-jti")
+      .setIssuedAt(new Date(now))
+      .setExpiration(new Date(now + ttlMillis))
+      .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+      .compact();
+  }
+
+  @Test
+  void repeatedTokenIsServedFromCache() {
+    JwtVerificationCache cache = newCache(100);
+    String jwt = token("ana", "ROLE_USER, ROLE_ADMIN", 60_000);
+
+    VerifiedClaims first = cache.verify(jwt);
+    VerifiedClaims second = cache.verify(jwt);
+
+    assertEquals("ana", first.subject());
+    assertEquals("ana@correo.com", first.email());
+    assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), first.roles());
+    assertEquals("ana-jti", first.jwtId());
+    assertEquals(first, second);
+    assertEquals(1, cache.missCount());
+    assertEquals(1, cache.hitCount());
+  }
+
+  @Test
+  void rolesClaimMayBeAJsonList() {
+    JwtVerificationCache cache = newCache(100);
+    VerifiedClaims claims = cache.verify(token("luis", List.of("ROLE_USER"), 60_000));
+    assertEquals(Set.of("ROLE_USER"), claims.roles());
+  }
+
+  @Test
+  void expiredAndTamperedTokensAreRejected() {
+    JwtVerificationCache cache = newCache(100);
+    assertThrows(ExpiredJwtException.class, () -> cache.verify(token("ana", "ROLE_USER", -1_000)));
+
+    String jwt = token("ana", "ROLE_USER", 60_000);
+    String tampered = jwt.substring(0, jwt.length() - 2) + (jwt.endsWith("A") ? "BB" : "AA");
+    assertThrows(JwtException.class, () -> cache.verify(tampered));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void leastRecentlyUsedEntriesAreEvictedUnderPressure() {
+    JwtVerificationCache cache = newCache(10);
+    for (int i = 0; i < 25; i++) {
+      cache.verify(token("user" + i, "ROLE_USER", 60_000));
+    }
+    assertTrue(cache.size() <= 10);
+    assertTrue(cache.evictionCount() >= 15);
+  }
+
+  @Test
+  void identityHeaderIsSignedOnceAndCachedWithTheClaims() {
+    IdentityKey key = IdentityKey.of(1, "identity-secret-de-al-menos-32-bytes");
+    JwtVerificationCache cache = new JwtVerificationCache(SECRET, "rol", "email", 100, new RoleIndex(),
+      new SimpleMeterRegistry(), null, new IdentityEncoder(key));
+    String jwt = token("ana", "ROLE_USER,ROLE_ADMIN", 60_000);
+
+    VerifiedClaims first = cache.verify(jwt);
+    VerifiedClaims second = cache.verify(jwt);
+
+    assertSame(first.identityHeader(), second.identityHeader());
+    assertEquals("ROLE_USER,ROLE_ADMIN", first.rolesHeader());
+    IdentityView view = IdentityView.forHeader(first.identityHeader());
+    assertEquals(IdentityDecoder.Result.VALID, new IdentityDecoder(key).decode(first.identityHeader(), view));
+    assertTrue(view.subjectEquals("ana"));
+    assertTrue(view.hasRole("ROLE_ADMIN"));
+    assertEquals("ana-jti", view.jwtId());
+  }
+
+  @Test
+  void weakSecretDisablesVerification() {
+    JwtVerificationCache cache = new JwtVerificationCache("corta", "rol", "email", 10, new RoleIndex(), new SimpleMeterRegistry());
+    assertFalse(cache.isEnabled());
+    assertThrows(IllegalStateException.class, () -> cache.verify("a.b.c"));
+  }
+}
@@ -0,0 +1,78 @@
+package com.project.nelson.msvc_gateway.gateway.loadbalancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+class LatencyAwareLoadBalancerTest {
+
+  private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+  private final InstanceLatencyStats stats = new InstanceLatencyStats(clock::get, 10_000, 1_000, 300_000);
+  private final List<ServiceInstance> instances = List.of(instance("a"), instance("b"), instance("c"));
+  private final LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer("usuario",
+    new StaticListableBeanFactory().getBeanProvider(ServiceInstanceListSupplier.class), stats,
+    LatencyAwareLoadBalancer.Strategy.PEAK_EWMA);
+
+  private static ServiceInstance instance(String id) {
+    return new DefaultServiceInstance(id, "usuario", id + ".local", 8081, false);
+  }
+
+  private void observe(ServiceInstance instance, long millis, boolean failed) {
+    long start = stats.start(instance);
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    stats.complete(instance, start, failed);
+  }
+
+  @Test
+  void slowInstanceLosesEveryComparison() {
+    observe(instances.get(0), 5, false);
+    observe(instances.get(1), 5, false);
+    observe(instances.get(2), 400, false);
+
+    for (int i = 0; i < 200; i++) {
+      ServiceInstance chosen = balancer.choose(instances, LatencyAwareLoadBalancer.Strategy.PEAK_EWMA).getServer();
+      assertNotEquals("c", chosen.getInstanceId(), "la instancia lenta no debe ganar contra una rápida");
+    }
+  }
+
+  @Test
+  void penalisedInstanceRecoversAsTheAverageDecays() {
+    observe(instances.get(0), 5, false);
+    observe(instances.get(1), 5, true);
+    double penalised = stats.cost(instances.get(1));
+    assertTrue(penalised >= TimeUnit.SECONDS.toNanos(1));
+
+    // Tras 6 constantes de tiempo el fallo pesa menos que un RTT normal
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+    assertTrue(stats.cost(instances.get(1)) < TimeUnit.MILLISECONDS.toNanos(5));
+  }
+
+  @Test
+  void inFlightRequestsRaiseTheCost() {
+    observe(instances.get(0), 10, false);
+    double idle = stats.cost(instances.get(0));
+    stats.start(instances.get(0));
+    stats.start(instances.get(0));
+
+    assertEquals(2, stats.inFlight(instances.get(0)));
+    assertEquals(3 * idle, stats.cost(instances.get(0)), idle * 0.01);
+  }
+
+  @Test
+  void roundRobinCyclesThroughInstances() {
+    String first = balancer.choose(instances, LatencyAwareLoadBalancer.Strategy.ROUND_ROBIN).getServer().getInstanceId();
+    String second = balancer.choose(instances, LatencyAwareLoadBalancer.Strategy.ROUND_ROBIN).getServer().getInstanceId();
+    String third = balancer.choose(instances, LatencyAwareLoadBalancer.Strategy.ROUND_ROBIN).getServer().getInstanceId();
+    assertEquals(3, Set.of(first, second, third).size());
+  }
+}
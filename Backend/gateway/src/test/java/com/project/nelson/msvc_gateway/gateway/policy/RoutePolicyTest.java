@@ -0,0 +1,68 @@
+package com.project.nelson.msvc_gateway.gateway.policy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.msvc_gateway.gateway.policy.RoutePolicy.RouteRule;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class RoutePolicyTest {
+
+  private final RoleIndex roleIndex = new RoleIndex();
+
+  private RoutePolicy policy() {
+    Map<String, String> routeRoles = new LinkedHashMap<>();
+    routeRoles.put("/api/segura/usuarios/", "ROLE_ADMIN");
+    routeRoles.put("/api/segura/usuarios/perfil/", "ROLE_USER, ROLE_ADMIN");
+    return RoutePolicy.compile("/auth/login, /usuarios/register", "/api/segura/", "ROLE_ADMIN,ROLE_USER", routeRoles, roleIndex);
+  }
+
+  @Test
+  void exemptPathsKeepContainsSemantics() {
+    RoutePolicy policy = policy();
+    assertTrue(policy.isExempt("/api/auth/login"));
+    assertTrue(policy.isExempt("/api/segura/usuarios/register"));
+    assertFalse(policy.isExempt("/api/segura/productos/1"));
+  }
+
+  @Test
+  void onlyConditionalPathIsProtected() {
+    RoutePolicy policy = policy();
+    assertTrue(policy.isProtected("/api/segura/productos/1"));
+    assertFalse(policy.isProtected("/api/productos/1"));
+  }
+
+  @Test
+  void longestPrefixRuleWins() {
+    RoutePolicy policy = policy();
+    long user = roleIndex.maskOf(List.of("ROLE_USER"));
+    long admin = roleIndex.maskOf(List.of("ROLE_ADMIN"));
+
+    RouteRule usuarios = policy.ruleFor("/api/segura/usuarios/list");
+    assertEquals(Set.of("ROLE_ADMIN"), usuarios.roleNames());
+    assertTrue(usuarios.allows(admin));
+    assertFalse(usuarios.allows(user));
+
+    RouteRule perfil = policy.ruleFor("/api/segura/usuarios/perfil/7");
+    assertTrue(perfil.allows(user));
+
+    RouteRule porDefecto = policy.ruleFor("/api/segura/productos/1");
+    assertEquals("/api/segura/", porDefecto.prefix());
+    assertTrue(porDefecto.allows(user));
+    assertTrue(porDefecto.allows(admin));
+    assertFalse(porDefecto.allows(roleIndex.maskOf(List.of("ROLE_INVITADO"))));
+  }
+
+  @Test
+  void roleBitsAreStableAcrossCompilations() {
+    long before = roleIndex.maskOf("ROLE_ADMIN");
+    policy();
+    policy();
+    assertEquals(before, roleIndex.maskOf("ROLE_ADMIN"));
+  }
+}
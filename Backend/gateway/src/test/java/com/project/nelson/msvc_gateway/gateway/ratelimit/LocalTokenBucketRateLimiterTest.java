@@ -0,0 +1,66 @@
+package com.project.nelson.msvc_gateway.gateway.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter.Response;
+import org.springframework.mock.env.MockEnvironment;
+
+class LocalTokenBucketRateLimiterTest {
+
+  private static LocalTokenBucketRateLimiter rateLimiter() {
+    MockEnvironment environment = new MockEnvironment()
+      .withProperty("gateway.rate-limit.routes.auth.replenish-rate", "1")
+      .withProperty("gateway.rate-limit.routes.auth.burst-capacity", "2");
+    // Tasa mínima: en la duración del test no se repone ningún token
+    return new LocalTokenBucketRateLimiter(null, environment, new SimpleMeterRegistry(), 1, 3, true, 300_000);
+  }
+
+  private static boolean allowed(LocalTokenBucketRateLimiter limiter, String routeId, String key) {
+    Response response = limiter.isAllowed(routeId, key).block();
+    return response.isAllowed();
+  }
+
+  @Test
+  void admitsBurstThenRejectsPerKeyAndRoute() {
+    LocalTokenBucketRateLimiter limiter = rateLimiter();
+
+    assertTrue(allowed(limiter, "api", "user:ana"));
+    assertTrue(allowed(limiter, "api", "user:ana"));
+    assertTrue(allowed(limiter, "api", "user:ana"));
+    assertFalse(allowed(limiter, "api", "user:ana"));
+
+    // Otra clave y otra ruta tienen su propio bucket
+    assertTrue(allowed(limiter, "api", "user:luis"));
+    assertTrue(allowed(limiter, "auth", "user:ana"));
+    assertTrue(allowed(limiter, "auth", "user:ana"));
+    assertFalse(allowed(limiter, "auth", "user:ana"));
+
+    Response response = limiter.isAllowed("api", "user:luis").block();
+    assertEquals("1", response.getHeaders().get(LocalTokenBucketRateLimiter.REMAINING_HEADER));
+    assertEquals("3", response.getHeaders().get(LocalTokenBucketRateLimiter.BURST_CAPACITY_HEADER));
+  }
+
+  @Test
+  void clusterUsageOverQuotaBlocksUntilWindowEnds() {
+    LocalTokenBucketRateLimiter limiter = rateLimiter();
+    assertTrue(allowed(limiter, "api", "ip:10.0.0.1"));
+
+    List<LocalTokenBucketRateLimiter.PendingUsage> usages = limiter.drainPending();
+    assertEquals(1, usages.size());
+    assertEquals(1, usages.get(0).tokens());
+    assertTrue(limiter.drainPending().isEmpty());
+
+    long windowEnd = System.currentTimeMillis() + 60_000;
+    // Cuota por ventana de 1 s = burst + tasa = 4 tokens
+    assertFalse(limiter.applyClusterUsage(usages.get(0), 4, 1000, windowEnd));
+    assertTrue(allowed(limiter, "api", "ip:10.0.0.1"));
+
+    assertTrue(limiter.applyClusterUsage(usages.get(0), 5, 1000, windowEnd));
+    assertFalse(allowed(limiter, "api", "ip:10.0.0.1"));
+  }
+}
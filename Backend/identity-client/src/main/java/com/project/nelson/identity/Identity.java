@@ -0,0 +1,15 @@
+package com.project.nelson.identity;
+
+import java.util.List;
+
+/**
+ * Identidad propagada por el gateway, materializada a partir de una
+ * {@link IdentityView}.
+ *
+ * @param subject usuario (claim sub del JWT)
+ * @param email email del usuario, puede ser null
+ * @param roles roles del usuario
+ * @param jwtId jti del token de acceso, puede ser null
+ * @param expiresAtMillis expiración del token en epoch millis
+ */
+public record Identity(String subject, String email, List<String> roles, String jwtId, long expiresAtMillis) {}
@@ -0,0 +1,190 @@
+package com.project.nelson.identity;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Verifica y decodifica {@link IdentityHeader} en los servicios aguas abajo.
+ *
+ * {@link #decode(CharSequence, IdentityView)} no asigna memoria: el base64url
+ * se decodifica directamente en el buffer de la vista, el HMAC se calcula en
+ * el espacio libre al final de ese mismo buffer y los campos quedan como
+ * offsets. Se aceptan varias claves (la actual y la anterior) para poder rotar
+ * el secreto sin cortar peticiones.
+ */
+public final class IdentityDecoder {
+
+  /**
+   * Resultado de la decodificación; solo {@link #VALID} deja la vista utilizable.
+   */
+  public enum Result {
+    VALID,
+    MALFORMED,
+    UNKNOWN_KEY,
+    BAD_MAC,
+    EXPIRED
+  }
+
+  private static final byte[] BASE64URL = new byte[128];
+
+  static {
+    Arrays.fill(BASE64URL, (byte) -1);
+    String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+    for (int i = 0; i < alphabet.length(); i++) {
+      BASE64URL[alphabet.charAt(i)] = (byte) i;
+    }
+  }
+
+  private final IdentityKey[] keys = new IdentityKey[256];
+  private final LongSupplier clock;
+
+  public IdentityDecoder(IdentityKey key) {
+    this(List.of(key), System::currentTimeMillis);
+  }
+
+  public IdentityDecoder(Collection<IdentityKey> keys, LongSupplier clock) {
+    for (IdentityKey key : keys) {
+      this.keys[key.id()] = key;
+    }
+    this.clock = clock;
+  }
+
+  /**
+   * Verifica el valor de la cabecera y, si es válido, deja sus campos en {@code view}.
+   */
+  public Result decode(CharSequence headerValue, IdentityView view) {
+    view.valid = false;
+    if (headerValue == null) {
+      return Result.MALFORMED;
+    }
+    int length = decodeBase64(headerValue, view.buffer);
+    if (length < IdentityHeader.MIN_ENCODED_BYTES) {
+      return Result.MALFORMED;
+    }
+    byte[] buffer = view.buffer;
+    if ((buffer[0] & 0xFF) != IdentityHeader.VERSION) {
+      return Result.MALFORMED;
+    }
+    IdentityKey key = keys[buffer[1] & 0xFF];
+    if (key == null) {
+      return Result.UNKNOWN_KEY;
+    }
+
+    int signedLength = length - IdentityHeader.MAC_LENGTH;
+    // El HMAC completo se escribe tras el bloque, en el espacio reservado de la vista
+    key.sign(buffer, 0, signedLength, buffer, length);
+    int diff = 0;
+    for (int i = 0; i < IdentityHeader.MAC_LENGTH; i++) {
+      diff |= buffer[signedLength + i] ^ buffer[length + i];
+    }
+    if (diff != 0) {
+      return Result.BAD_MAC;
+    }
+
+    long expiresAt = readLong(buffer, IdentityHeader.EXPIRES_AT_OFFSET);
+    if (clock.getAsLong() >= expiresAt) {
+      return Result.EXPIRED;
+    }
+    return parse(view, signedLength, expiresAt) ? Result.VALID : Result.MALFORMED;
+  }
+
+  private static boolean parse(IdentityView view, int end, long expiresAt) {
+    byte[] buffer = view.buffer;
+    int position = IdentityHeader.EXPIRES_AT_OFFSET + 8;
+
+    int jwtIdLength = buffer[position++] & 0xFF;
+    int jwtIdOffset = position;
+    position += jwtIdLength;
+
+    if (position + 2 > end) {
+      return false;
+    }
+    int subjectLength = readU16(buffer, position);
+    int subjectOffset = position + 2;
+    position = subjectOffset + subjectLength;
+
+    if (position + 2 > end) {
+      return false;
+    }
+    int emailLength = readU16(buffer, position);
+    int emailOffset = position + 2;
+    position = emailOffset + emailLength;
+
+    if (position + 1 > end) {
+      return false;
+    }
+    int roleCount = buffer[position++] & 0xFF;
+    int rolesOffset = position;
+    for (int i = 0; i < roleCount; i++) {
+      if (position >= end) {
+        return false;
+      }
+      position += 1 + (buffer[position] & 0xFF);
+    }
+    if (position != end) {
+      return false;
+    }
+
+    view.length = end;
+    view.keyId = buffer[1] & 0xFF;
+    view.expiresAtMillis = expiresAt;
+    view.jwtIdOffset = jwtIdOffset;
+    view.jwtIdLength = jwtIdLength;
+    view.subjectOffset = subjectOffset;
+    view.subjectLength = subjectLength;
+    view.emailOffset = emailOffset;
+    view.emailLength = emailLength;
+    view.rolesOffset = rolesOffset;
+    view.roleCount = roleCount;
+    view.valid = true;
+    return true;
+  }
+
+  /**
+   * Base64url sin relleno directamente a {@code out}.
+   *
+   * @return bytes escritos, o -1 si el texto no es base64url o no cabe en la vista
+   */
+  private static int decodeBase64(CharSequence text, byte[] out) {
+    int chars = text.length();
+    int remainder = chars % 4;
+    if (remainder == 1) {
+      return -1;
+    }
+    int length = chars / 4 * 3 + (remainder == 0 ? 0 : remainder - 1);
+    if (length + IdentityView.MAC_SCRATCH > out.length) {
+      return -1;
+    }
+    int position = 0;
+    int bits = 0;
+    int accumulated = 0;
+    for (int i = 0; i < chars; i++) {
+      char c = text.charAt(i);
+      int value = c < 128 ? BASE64URL[c] : -1;
+      if (value < 0) {
+        return -1;
+      }
+      accumulated = (accumulated << 6) | value;
+      bits += 6;
+      if (bits >= 8) {
+        bits -= 8;
+        out[position++] = (byte) (accumulated >>> bits);
+      }
+    }
+    return position;
+  }
+
+  private static int readU16(byte[] buffer, int offset) {
+    return ((buffer[offset] & 0xFF) << 8) | (buffer[offset + 1] & 0xFF);
+  }
+
+  private static long readLong(byte[] buffer, int offset) {
+    long value = 0;
+    for (int i = offset; i < offset + 8; i++) {
+      value = (value << 8) | (buffer[i] & 0xFF);
+    }
+    return value;
+  }
+}
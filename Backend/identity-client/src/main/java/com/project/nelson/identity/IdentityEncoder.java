@@ -0,0 +1,108 @@
+package com.project.nelson.identity;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Construye el valor de {@link IdentityHeader} en el gateway.
+ *
+ * Se llama una vez por token verificado; el resultado se cachea junto a sus
+ * claims, así que aquí se prioriza la claridad sobre las asignaciones.
+ */
+public final class IdentityEncoder {
+
+  private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+  private final IdentityKey key;
+
+  public IdentityEncoder(IdentityKey key) {
+    this.key = key;
+  }
+
+  /**
+   * @return el valor de la cabecera
+   * @throws IllegalArgumentException si algún campo o el bloque completo excede los límites del formato
+   */
+  public String encode(String subject, String email, Collection<String> roles, String jwtId, long expiresAtMillis) {
+    byte[] jti = bytes(jwtId, StandardCharsets.US_ASCII);
+    byte[] sub = bytes(subject, StandardCharsets.UTF_8);
+    byte[] mail = bytes(email, StandardCharsets.UTF_8);
+    if (jti.length > 0xFF || sub.length > 0xFFFF || mail.length > 0xFFFF || roles.size() > 0xFF) {
+      throw new IllegalArgumentException("Claims demasiado grandes para la cabecera de identidad");
+    }
+
+    byte[] buffer = new byte[IdentityHeader.MAX_ENCODED_BYTES];
+    Writer out = new Writer(buffer);
+    out.u8(IdentityHeader.VERSION);
+    out.u8(key.id());
+    out.i64(expiresAtMillis);
+    out.u8(jti.length).raw(jti);
+    out.u16(sub.length).raw(sub);
+    out.u16(mail.length).raw(mail);
+    out.u8(roles.size());
+    for (String role : roles) {
+      byte[] name = bytes(role, StandardCharsets.UTF_8);
+      if (name.length > 0xFF) {
+        throw new IllegalArgumentException("Rol demasiado largo para la cabecera de identidad");
+      }
+      out.u8(name.length).raw(name);
+    }
+    out.require(IdentityKey.HMAC_LENGTH);
+
+    // HMAC completo tras el bloque; se conservan sus primeros MAC_LENGTH bytes
+    key.sign(buffer, 0, out.position, buffer, out.position);
+    return BASE64.encodeToString(Arrays.copyOf(buffer, out.position + IdentityHeader.MAC_LENGTH));
+  }
+
+  private static byte[] bytes(String value, Charset charset) {
+    return value == null ? new byte[0] : value.getBytes(charset);
+  }
+
+  private static final class Writer {
+
+    private final byte[] buffer;
+    private int position;
+
+    private Writer(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    Writer u8(int value) {
+      require(1);
+      buffer[position++] = (byte) value;
+      return this;
+    }
+
+    Writer u16(int value) {
+      require(2);
+      buffer[position++] = (byte) (value >>> 8);
+      buffer[position++] = (byte) value;
+      return this;
+    }
+
+    Writer i64(long value) {
+      require(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[position++] = (byte) (value >>> shift);
+      }
+      return this;
+    }
+
+    Writer raw(byte[] bytes) {
+      require(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+      return this;
+    }
+
+    void require(int bytes) {
+      if (position + bytes > buffer.length) {
+        throw new IllegalArgumentException(
+          "La cabecera de identidad supera " + IdentityHeader.MAX_ENCODED_BYTES + " bytes");
+      }
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.project.nelson.identity;
+
+/**
+ * Cabecera de identidad que el gateway añade a cada petición autorizada.
+ *
+ * El valor es base64url (sin relleno) de un bloque binario big-endian:
+ * <pre>
+ *   u8   versión ({@value #VERSION})
+ *   u8   id de la clave HMAC
+ *   i64  expiración del token en epoch millis
+ *   u8   longitud + bytes ASCII del jti
+ *   u16  longitud + bytes UTF-8 del subject
+ *   u16  longitud + bytes UTF-8 del email
+ *   u8   número de roles, y por cada uno u8 longitud + bytes UTF-8
+ *   16   primeros 128 bits del HMAC-SHA256 de todo lo anterior
+ * </pre>
+ * El gateway elimina cualquier {@code X-Identity} que envíe el cliente, de modo
+ * que un servicio que verifica el MAC puede confiar en la identidad sin volver
+ * a verificar el JWT.
+ */
+public final class IdentityHeader {
+
+  public static final String NAME = "X-Identity";
+
+  public static final int VERSION = 1;
+
+  /** Bytes del MAC truncado al final del bloque. */
+  public static final int MAC_LENGTH = 16;
+
+  /** Tamaño máximo del bloque binario; tokens con claims mayores no llevan cabecera. */
+  public static final int MAX_ENCODED_BYTES = 2048;
+
+  /** Versión, clave, expiración, cuatro longitudes y MAC con todos los campos vacíos. */
+  static final int MIN_ENCODED_BYTES = 1 + 1 + 8 + 1 + 2 + 2 + 1 + MAC_LENGTH;
+
+  /** Offset de la expiración dentro del bloque. */
+  static final int EXPIRES_AT_OFFSET = 2;
+
+  private IdentityHeader() {}
+}
@@ -0,0 +1,91 @@
+package com.project.nelson.identity;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Clave HMAC-SHA256 compartida entre el gateway y los servicios, con su id.
+ *
+ * El HMAC (RFC 2104) se calcula sobre un {@link MessageDigest} con
+ * {@code digest(buf, off, len)}, que escribe en el buffer del llamador:
+ * {@code javax.crypto.Mac#doFinal(byte[], int)} asigna internamente el resumen
+ * en cada llamada. Los digests se toman de un pool acotado y se devuelven al
+ * terminar; un ThreadLocal crearía uno por hilo virtual.
+ */
+public final class IdentityKey {
+
+  public static final int MIN_SECRET_BYTES = 32;
+
+  /** Tamaño del HMAC-SHA256 completo. */
+  static final int HMAC_LENGTH = 32;
+
+  private static final int BLOCK_SIZE = 64;
+
+  private final int id;
+  private final byte[] innerPad = new byte[BLOCK_SIZE];
+  private final byte[] outerPad = new byte[BLOCK_SIZE];
+  private final ArrayBlockingQueue<MessageDigest> pool =
+    new ArrayBlockingQueue<>(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+
+  public IdentityKey(int id, byte[] secret) {
+    if (id < 0 || id > 255) {
+      throw new IllegalArgumentException("El id de la clave debe estar entre 0 y 255");
+    }
+    if (secret == null || secret.length < MIN_SECRET_BYTES) {
+      throw new IllegalArgumentException("La clave de identidad debe tener al menos " + MIN_SECRET_BYTES + " bytes");
+    }
+    this.id = id;
+    byte[] key = secret.length > BLOCK_SIZE ? newDigest().digest(secret) : secret;
+    for (int i = 0; i < BLOCK_SIZE; i++) {
+      byte b = i < key.length ? key[i] : 0;
+      innerPad[i] = (byte) (b ^ 0x36);
+      outerPad[i] = (byte) (b ^ 0x5c);
+    }
+  }
+
+  public static IdentityKey of(int id, String secret) {
+    return new IdentityKey(id, secret == null ? null : secret.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public int id() {
+    return id;
+  }
+
+  /**
+   * Escribe el HMAC-SHA256 de {@code data[offset, offset + length)} en
+   * {@code out[outOffset, outOffset + 32)}. No asigna memoria.
+   */
+  void sign(byte[] data, int offset, int length, byte[] out, int outOffset) {
+    MessageDigest sha = borrow();
+    try {
+      sha.update(innerPad);
+      sha.update(data, offset, length);
+      sha.digest(out, outOffset, HMAC_LENGTH);
+      sha.update(outerPad);
+      sha.update(out, outOffset, HMAC_LENGTH);
+      sha.digest(out, outOffset, HMAC_LENGTH);
+    } catch (DigestException e) {
+      throw new IllegalArgumentException("Sin espacio para el HMAC en el buffer", e);
+    } finally {
+      sha.reset();
+      // Si el pool está lleno el digest se descarta
+      pool.offer(sha);
+    }
+  }
+
+  private MessageDigest borrow() {
+    MessageDigest sha = pool.poll();
+    return sha != null ? sha : newDigest();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 no disponible", e);
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.project.nelson.identity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Vista sobre una cabecera de identidad ya verificada por {@link IdentityDecoder}.
+ *
+ * Guarda el bloque decodificado y los offsets de cada campo; las consultas
+ * {@link #hasRole}, {@link #subjectEquals} y {@link #expiresAtMillis} no
+ * asignan memoria. Los métodos que devuelven {@link String} los construyen en
+ * cada llamada: úsense solo cuando la aplicación necesite el texto.
+ *
+ * Una vista se puede reutilizar para varias decodificaciones, pero no es
+ * thread-safe.
+ */
+public final class IdentityView {
+
+  /** Espacio extra al final del buffer para calcular el HMAC completo. */
+  static final int MAC_SCRATCH = IdentityKey.HMAC_LENGTH;
+
+  final byte[] buffer;
+  int length;
+  int keyId;
+  long expiresAtMillis;
+  int jwtIdOffset;
+  int jwtIdLength;
+  int subjectOffset;
+  int subjectLength;
+  int emailOffset;
+  int emailLength;
+  int rolesOffset;
+  int roleCount;
+  boolean valid;
+
+  public IdentityView() {
+    this(IdentityHeader.MAX_ENCODED_BYTES);
+  }
+
+  /**
+   * @param capacity bytes máximos del bloque decodificado
+   */
+  public IdentityView(int capacity) {
+    this.buffer = new byte[Math.min(capacity, IdentityHeader.MAX_ENCODED_BYTES) + MAC_SCRATCH];
+  }
+
+  /**
+   * Vista con el tamaño justo para decodificar {@code headerValue}.
+   */
+  public static IdentityView forHeader(CharSequence headerValue) {
+    return new IdentityView(headerValue.length() * 3 / 4 + 1);
+  }
+
+  public boolean isValid() {
+    return valid;
+  }
+
+  public int keyId() {
+    return keyId;
+  }
+
+  public long expiresAtMillis() {
+    return expiresAtMillis;
+  }
+
+  public int roleCount() {
+    return roleCount;
+  }
+
+  public boolean subjectEquals(CharSequence subject) {
+    return valid && matches(subjectOffset, subjectLength, subject);
+  }
+
+  public boolean hasRole(CharSequence role) {
+    if (!valid) {
+      return false;
+    }
+    int offset = rolesOffset;
+    for (int i = 0; i < roleCount; i++) {
+      int length = buffer[offset] & 0xFF;
+      if (matches(offset + 1, length, role)) {
+        return true;
+      }
+      offset += 1 + length;
+    }
+    return false;
+  }
+
+  public boolean hasAnyRole(CharSequence... roles) {
+    for (CharSequence role : roles) {
+      if (hasRole(role)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public String subject() {
+    return string(subjectOffset, subjectLength);
+  }
+
+  public String email() {
+    return emailLength == 0 ? null : string(emailOffset, emailLength);
+  }
+
+  public String jwtId() {
+    return jwtIdLength == 0 ? null : new String(buffer, jwtIdOffset, jwtIdLength, StandardCharsets.US_ASCII);
+  }
+
+  public List<String> roles() {
+    List<String> roles = new ArrayList<>(roleCount);
+    int offset = rolesOffset;
+    for (int i = 0; i < roleCount; i++) {
+      int length = buffer[offset] & 0xFF;
+      roles.add(string(offset + 1, length));
+      offset += 1 + length;
+    }
+    return roles;
+  }
+
+  /**
+   * Copia independiente del buffer, para guardarla más allá de la petición.
+   */
+  public Identity toIdentity() {
+    if (!valid) {
+      throw new IllegalStateException("La cabecera de identidad no se ha verificado");
+    }
+    return new Identity(subject(), email(), List.copyOf(roles()), jwtId(), expiresAtMillis);
+  }
+
+  @Override
+  public String toString() {
+    return valid ? "IdentityView[" + subject() + "]" : "IdentityView[inválida]";
+  }
+
+  private String string(int offset, int length) {
+    return new String(buffer, offset, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Compara sin asignar mientras el texto sea ASCII, el caso de usernames y
+   * roles; con caracteres no ASCII recurre a la codificación UTF-8.
+   */
+  private boolean matches(int offset, int length, CharSequence text) {
+    int chars = text.length();
+    if (chars > length) {
+      return false;
+    }
+    for (int i = 0; i < chars; i++) {
+      char c = text.charAt(i);
+      if (c >= 0x80) {
+        byte[] encoded = text.toString().getBytes(StandardCharsets.UTF_8);
+        return encoded.length == length
+          && Arrays.equals(buffer, offset, offset + length, encoded, 0, length);
+      }
+      if (buffer[offset + i] != (byte) c) {
+        return false;
+      }
+    }
+    return chars == length;
+  }
+}
@@ -0,0 +1,69 @@
+package com.project.nelson.identity.autoconfigure;
+
+import com.project.nelson.identity.IdentityDecoder;
+import com.project.nelson.identity.IdentityKey;
+import com.project.nelson.identity.servlet.IdentityHeaderFilter;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+/**
+ * Registra {@link IdentityHeaderFilter} en servicios Spring MVC que tengan
+ * configurado {@code identity.header.secret} (el mismo que
+ * {@code gateway.identity.secret}).
+ *
+ * <pre>
+ * identity:
+ *   header:
+ *     secret: ${GATEWAY_IDENTITY_SECRET}
+ *     key-id: 1
+ *     # Durante una rotación, el secreto anterior sigue aceptándose
+ *     previous-secret: ${GATEWAY_IDENTITY_PREVIOUS_SECRET:}
+ *     previous-key-id: 0
+ *     required: false
+ * </pre>
+ */
+@AutoConfiguration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnClass(name = "jakarta.servlet.Filter")
+@ConditionalOnProperty(name = "identity.header.secret")
+public class IdentityClientAutoConfiguration {
+
+  /** Antes de la cadena de Spring Security (orden -100). */
+  private static final int FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 20;
+
+  @Bean
+  @ConditionalOnMissingBean
+  public IdentityDecoder identityDecoder(
+    @Value("${identity.header.secret}") String secret,
+    @Value("${identity.header.key-id:1}") int keyId,
+    @Value("${identity.header.previous-secret:}") String previousSecret,
+    @Value("${identity.header.previous-key-id:0}") int previousKeyId
+  ) {
+    List<IdentityKey> keys = new ArrayList<>(2);
+    if (!previousSecret.isEmpty()) {
+      keys.add(IdentityKey.of(previousKeyId, previousSecret));
+    }
+    keys.add(IdentityKey.of(keyId, secret));
+    return new IdentityDecoder(keys, System::currentTimeMillis);
+  }
+
+  @Bean
+  public FilterRegistrationBean<IdentityHeaderFilter> identityHeaderFilter(
+    IdentityDecoder identityDecoder,
+    @Value("${identity.header.required:false}") boolean required
+  ) {
+    FilterRegistrationBean<IdentityHeaderFilter> registration =
+      new FilterRegistrationBean<>(new IdentityHeaderFilter(identityDecoder, required));
+    registration.setOrder(FILTER_ORDER);
+    return registration;
+  }
+}
@@ -0,0 +1,75 @@
+package com.project.nelson.identity.revocation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conjunto en memoria de identificadores de token (jti) revocados, cada uno
+ * con su expiración.
+ *
+ * Los jti se guardan como {@link UUID} (dos {@code long}); los que no son UUID
+ * se reducen a un UUID tipo 3 de su contenido. Una entrada se descarta cuando
+ * el token habría expirado de todos modos: al consultarla o en un barrido que
+ * ejecuta, como mucho cada {@code sweepIntervalMillis}, el hilo que gane el CAS.
+ *
+ * La comparten el gateway y usuario como copia local de la lista de
+ * revocación que usuario publica en Redis.
+ */
+public final class RevokedTokenSet {
+
+  private final ConcurrentHashMap<UUID, Long> expiries = new ConcurrentHashMap<>();
+  private final AtomicLong nextSweepAt = new AtomicLong();
+  private final long sweepIntervalMillis;
+
+  public RevokedTokenSet(long sweepIntervalMillis) {
+    this.sweepIntervalMillis = sweepIntervalMillis;
+  }
+
+  public void add(String jti, long expiresAtMillis) {
+    long now = System.currentTimeMillis();
+    if (jti == null || expiresAtMillis <= now) {
+      return;
+    }
+    expiries.merge(key(jti), expiresAtMillis, Math::max);
+    sweepIfDue(now);
+  }
+
+  public boolean contains(String jti) {
+    // Caso habitual sin revocaciones: ni siquiera se parsea el jti
+    if (jti == null || expiries.isEmpty()) {
+      return false;
+    }
+    UUID key = key(jti);
+    Long expiresAt = expiries.get(key);
+    if (expiresAt == null) {
+      return false;
+    }
+    if (expiresAt <= System.currentTimeMillis()) {
+      expiries.remove(key, expiresAt);
+      return false;
+    }
+    return true;
+  }
+
+  public int size() {
+    return expiries.size();
+  }
+
+  private void sweepIfDue(long now) {
+    long due = nextSweepAt.get();
+    if (now < due || !nextSweepAt.compareAndSet(due, now + sweepIntervalMillis)) {
+      return;
+    }
+    expiries.values().removeIf(expiresAt -> expiresAt <= now);
+  }
+
+  private static UUID key(String jti) {
+    try {
+      return UUID.fromString(jti);
+    } catch (IllegalArgumentException ex) {
+      return UUID.nameUUIDFromBytes(jti.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.project.nelson.identity.servlet;
+
+import com.project.nelson.identity.IdentityDecoder;
+import com.project.nelson.identity.IdentityHeader;
+import com.project.nelson.identity.IdentityView;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Verifica {@link IdentityHeader} y deja la identidad en el atributo
+ * {@link #IDENTITY_ATTRIBUTE} de la petición.
+ *
+ * Una cabecera presente pero inválida (MAC, clave o expiración) se responde con
+ * 401. Sin cabecera, la petición sigue sin identidad salvo que
+ * {@code required} sea true. Cada petición con cabecera asigna una vista del
+ * tamaño justo; los strings solo se crean si la aplicación los pide.
+ */
+public class IdentityHeaderFilter implements Filter {
+
+  private static final Logger logger = LoggerFactory.getLogger(IdentityHeaderFilter.class);
+
+  public static final String IDENTITY_ATTRIBUTE = IdentityView.class.getName();
+
+  private final IdentityDecoder decoder;
+  private final boolean required;
+
+  public IdentityHeaderFilter(IdentityDecoder decoder, boolean required) {
+    this.decoder = decoder;
+    this.required = required;
+  }
+
+  /**
+   * Identidad verificada de la petición, o null si no venía cabecera.
+   */
+  public static IdentityView current(ServletRequest request) {
+    return (IdentityView) request.getAttribute(IDENTITY_ATTRIBUTE);
+  }
+
+  @Override
+  public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+    throws IOException, ServletException {
+    String value = ((HttpServletRequest) request).getHeader(IdentityHeader.NAME);
+    if (value == null) {
+      if (required) {
+        logger.debug("Petición sin cabecera {}", IdentityHeader.NAME);
+        ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        return;
+      }
+      chain.doFilter(request, response);
+      return;
+    }
+
+    IdentityView view = IdentityView.forHeader(value);
+    IdentityDecoder.Result result = decoder.decode(value, view);
+    if (result != IdentityDecoder.Result.VALID) {
+      logger.debug("Cabecera {} rechazada: {}", IdentityHeader.NAME, result);
+      ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+      return;
+    }
+    request.setAttribute(IDENTITY_ATTRIBUTE, view);
+    chain.doFilter(request, response);
+  }
+}
@@ -0,0 +1,91 @@
+package com.project.nelson.identity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+
+class IdentityDecoderTest {
+
+  private static final IdentityKey KEY = IdentityKey.of(1, "0123456789abcdef0123456789abcdef");
+  private static final IdentityKey PREVIOUS = IdentityKey.of(0, "fedcba9876543210fedcba9876543210");
+  private static final long NOW = 1_700_000_000_000L;
+
+  private final IdentityDecoder decoder = new IdentityDecoder(List.of(KEY, PREVIOUS), () -> NOW);
+
+  private static String encode(IdentityKey key, long expiresAt) {
+    return new IdentityEncoder(key)
+      .encode("josé", "jose@correo.com", List.of("ROLE_USER", "ROLE_ADMIN"), "jti-1", expiresAt);
+  }
+
+  @Test
+  void roundTripExposesEveryClaim() {
+    IdentityView view = new IdentityView();
+
+    assertEquals(IdentityDecoder.Result.VALID, decoder.decode(encode(KEY, NOW + 60_000), view));
+    assertEquals("josé", view.subject());
+    assertTrue(view.subjectEquals("josé"));
+    assertFalse(view.subjectEquals("jose"));
+    assertEquals("jose@correo.com", view.email());
+    assertEquals("jti-1", view.jwtId());
+    assertEquals(List.of("ROLE_USER", "ROLE_ADMIN"), view.roles());
+    assertTrue(view.hasRole("ROLE_ADMIN"));
+    assertFalse(view.hasRole("ROLE_ADM"));
+    assertEquals(NOW + 60_000, view.toIdentity().expiresAtMillis());
+  }
+
+  @Test
+  void previousKeyIsStillAcceptedDuringRotation() {
+    IdentityView view = new IdentityView();
+    assertEquals(IdentityDecoder.Result.VALID, decoder.decode(encode(PREVIOUS, NOW + 60_000), view));
+    assertEquals(0, view.keyId());
+  }
+
+  @Test
+  void rejectsTamperedExpiredAndUnknownKeys() {
+    String header = encode(KEY, NOW + 60_000);
+    char last = header.charAt(header.length() - 5);
+    String tampered = header.substring(0, header.length() - 5) + (last == 'A' ? 'B' : 'A') + header.substring(header.length() - 4);
+    IdentityView view = IdentityView.forHeader(header);
+
+    assertEquals(IdentityDecoder.Result.BAD_MAC, decoder.decode(tampered, view));
+    assertFalse(view.isValid());
+    assertFalse(view.hasRole("ROLE_USER"));
+    assertEquals(IdentityDecoder.Result.EXPIRED, decoder.decode(encode(KEY, NOW), view));
+    assertEquals(IdentityDecoder.Result.UNKNOWN_KEY,
+      decoder.decode(encode(IdentityKey.of(7, "0123456789abcdef0123456789abcdef"), NOW + 60_000), view));
+    assertEquals(IdentityDecoder.Result.MALFORMED, decoder.decode("no es base64!", view));
+    assertEquals(IdentityDecoder.Result.MALFORMED, decoder.decode("", view));
+  }
+
+  @Test
+  void missingOptionalClaimsDecodeAsNull() {
+    String header = new IdentityEncoder(KEY).encode("ana", null, List.of(), null, NOW + 1);
+    IdentityView view = IdentityView.forHeader(header);
+
+    assertEquals(IdentityDecoder.Result.VALID, decoder.decode(header, view));
+    assertNull(view.email());
+    assertNull(view.jwtId());
+    assertEquals(0, view.roleCount());
+  }
+
+  @Test
+  void hmacMatchesTheJdkImplementation() throws Exception {
+    byte[] secret = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+    byte[] data = "cabecera de identidad".getBytes(StandardCharsets.UTF_8);
+    byte[] out = new byte[IdentityKey.HMAC_LENGTH + 4];
+
+    new IdentityKey(1, secret).sign(data, 0, data.length, out, 4);
+
+    Mac mac = Mac.getInstance("HmacSHA256");
+    mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+    assertEquals(Arrays.toString(mac.doFinal(data)), Arrays.toString(Arrays.copyOfRange(out, 4, out.length)));
+  }
+}
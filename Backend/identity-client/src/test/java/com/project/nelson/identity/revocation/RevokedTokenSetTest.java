@@ -0,0 +1,41 @@
+package com.project.nelson.identity.revocation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class RevokedTokenSetTest {
+
+  @Test
+  void containsRevokedUntilExpiration() throws InterruptedException {
+    RevokedTokenSet set = new RevokedTokenSet(0);
+    String jti = UUID.randomUUID().toString();
+    long now = System.currentTimeMillis();
+
+    set.add(jti, now + 60_000);
+    set.add("no-es-uuid", now + 60_000);
+    set.add("corto", now + 50);
+
+    assertTrue(set.contains(jti));
+    assertTrue(set.contains("no-es-uuid"));
+    assertTrue(set.contains("corto"));
+    assertFalse(set.contains(UUID.randomUUID().toString()));
+    assertFalse(set.contains(null));
+
+    Thread.sleep(100);
+    assertFalse(set.contains("corto"));
+    // El barrido en la siguiente alta elimina las entradas expiradas
+    set.add(UUID.randomUUID().toString(), now + 60_000);
+    assertEquals(3, set.size());
+  }
+
+  @Test
+  void ignoresAlreadyExpiredTokens() {
+    RevokedTokenSet set = new RevokedTokenSet(60_000);
+    set.add("viejo", System.currentTimeMillis() - 1);
+    assertEquals(0, set.size());
+  }
+}
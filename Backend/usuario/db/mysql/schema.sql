@@ -0,0 +1,76 @@
+-- Esquema de usuario para MySQL 8 (perfil prod: spring.jpa.hibernate.ddl-auto=validate).
+--
+-- Idempotente: crea solo las tablas que faltan, así que sirve para una base
+-- vacía y para una ya existente a la que le faltan refresh_tokens y
+-- jwt_signing_keys. Aplicarlo antes de desplegar una versión que las use:
+--
+--   mysql -h <host> -u <usuario> -p <base> < Backend/usuario/db/mysql/schema.sql
+--
+-- docker-compose lo monta en /docker-entrypoint-initdb.d: MySQL lo ejecuta al
+-- crear el volumen. Con un volumen ya creado hay que aplicarlo a mano.
+-- Cualquier cambio en las entidades debe reflejarse aquí.
+
+CREATE TABLE IF NOT EXISTS usuarios (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(20) NOT NULL,
+    name VARCHAR(50) NOT NULL,
+    lastname VARCHAR(50) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    active BIT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_usuarios_username UNIQUE (username),
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS roles (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(50) NOT NULL,
+    activo BIT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_name UNIQUE (name)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id BIGINT NOT NULL,
+    rol_id BIGINT NOT NULL,
+    CONSTRAINT uk_user_roles UNIQUE (user_id, rol_id),
+    CONSTRAINT fk_user_roles_usuario FOREIGN KEY (user_id) REFERENCES usuarios (id),
+    CONSTRAINT fk_user_roles_rol FOREIGN KEY (rol_id) REFERENCES roles (id)
+) ENGINE=InnoDB;
+
+-- Refresh tokens opacos (solo el hash SHA-256), agrupados por familia de login
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    token_hash VARCHAR(64) NOT NULL,
+    family_id VARCHAR(36) NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    access_jti VARCHAR(36),
+    access_expires_at DATETIME(6),
+    expires_at DATETIME(6) NOT NULL,
+    used_at DATETIME(6),
+    revoked BIT NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_refresh_tokens_hash UNIQUE (token_hash),
+    INDEX idx_refresh_tokens_family (family_id),
+    INDEX idx_refresh_tokens_expires (expires_at)
+) ENGINE=InnoDB;
+
+-- Claves de firma ES256; previous_kid único serializa la rotación entre instancias
+CREATE TABLE IF NOT EXISTS jwt_signing_keys (
+    kid VARCHAR(36) NOT NULL,
+    previous_kid VARCHAR(36) NOT NULL,
+    algorithm VARCHAR(10) NOT NULL,
+    public_key VARCHAR(512) NOT NULL,
+    private_key VARCHAR(1024) NOT NULL,
+    activates_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6),
+    created_at DATETIME(6),
+    PRIMARY KEY (kid),
+    CONSTRAINT uk_jwt_signing_keys_previous UNIQUE (previous_kid)
+) ENGINE=InnoDB;
@@ -0,0 +1,115 @@
+package com.project.nelson.msvc_user_auth.usuario.config.configlogging;
+
+import com.project.nelson.msvc_user_auth.usuario.security.filter.JwtValidationFilter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Una línea de access log por petición, con campos clave=valor: método, URI,
+ * estado, duración y usuario autenticado.
+ *
+ * Se registra siempre si la respuesta es 5xx o supera
+ * {@code slow-threshold-ms}; el resto, con probabilidad {@code sample-rate}.
+ * Sustituye a los mensajes INFO por petición de los filtros de seguridad. Usa
+ * el logger {@code usuario.access}, con su propio appender asíncrono.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+  private static final Logger accessLog = LoggerFactory.getLogger("usuario.access");
+
+  @Value("${logging.access.enabled:true}")
+  private boolean enabled = true;
+
+  @Value("${logging.access.sample-rate:0.01}")
+  private double sampleRate = 0.01;
+
+  @Value("${logging.access.slow-threshold-ms:500}")
+  private long slowThresholdMillis = 500;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled || !accessLog.isInfoEnabled();
+  }
+
+  @Override
+  protected void doFilterInternal(
+    HttpServletRequest request,
+    HttpServletResponse response,
+    FilterChain filterChain
+  ) throws ServletException, IOException {
+    long start = System.nanoTime();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      if (request.isAsyncStarted()) {
+        // Respuestas en streaming: la línea se escribe al terminar la petición asíncrona
+        request.getAsyncContext().addListener(new CompletionListener(request, response, start));
+      } else {
+        log(request, response, start);
+      }
+    }
+  }
+
+  private void log(HttpServletRequest request, HttpServletResponse response, long start) {
+    long elapsedNanos = System.nanoTime() - start;
+    int status = response.getStatus();
+    boolean always = status >= 500 || elapsedNanos >= slowThresholdMillis * 1_000_000;
+    if (!always && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+    Object user = request.getAttribute(JwtValidationFilter.USER_ATTRIBUTE);
+    StringBuilder line = new StringBuilder(128)
+      .append("method=").append(request.getMethod())
+      .append(" uri=").append(request.getRequestURI())
+      .append(" status=").append(status)
+      .append(" duration_ms=").append(String.format(Locale.ROOT, "%.3f", elapsedNanos / 1_000_000.0))
+      .append(" user=").append(user != null ? user : "-");
+    if (!always) {
+      line.append(" sampled=").append(sampleRate);
+    }
+    accessLog.info(line.toString());
+  }
+
+  private final class CompletionListener implements AsyncListener {
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final long start;
+
+    CompletionListener(HttpServletRequest request, HttpServletResponse response, long start) {
+      this.request = request;
+      this.response = response;
+      this.start = start;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      log(request, response, start);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {}
+
+    @Override
+    public void onError(AsyncEvent event) {}
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {}
+  }
+}
@@ -3,10 +3,18 @@ package com.project.nelson.msvc_user_auth.usuario.config.configsecurity;
 import com.project.nelson.msvc_user_auth.usuario.security.JpaUserDetailsService;
 import com.project.nelson.msvc_user_auth.usuario.security.filter.JwtAuthenticationFilter;
 import com.project.nelson.msvc_user_auth.usuario.security.filter.JwtValidationFilter;
+import com.project.nelson.msvc_user_auth.usuario.security.password.BoundedPasswordEncoder;
 import com.project.nelson.msvc_user_auth.usuario.security.service.JwtService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.LoginAttemptService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.LoginMetrics;
+import com.project.nelson.msvc_user_auth.usuario.security.service.RefreshTokenService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.TokenRevocationService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.UserSessionRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -14,7 +22,6 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
@@ -26,6 +33,7 @@ public class SecurityConfig {
     // Endpoints públicos POST
     private static final String[] PUBLIC_POST = {
         "/auth/login",
+        "/auth/refresh",
         "/usuarios/register",
     };
 
@@ -33,8 +41,13 @@ public class SecurityConfig {
     private static final String[] PUBLIC_GET = {
         "/swagger-ui/**",
         "/v3/api-docs/**",
+        "/.well-known/jwks.json",
+        "/actuator/health",
     };
 
+    // Métricas sin autenticar solo en el puerto de gestión, que no se publica
+    private static final String PROMETHEUS_PATH = "/actuator/prometheus";
+
     @Autowired
     private AuthenticationConfiguration authenticationConfiguration;
 
@@ -44,16 +57,72 @@ public class SecurityConfig {
     @Autowired
     private JpaUserDetailsService userDetailsService;
 
+    @Autowired
+    private UserSessionRegistry sessionRegistry;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private LoginAttemptService loginAttemptService;
+
+    @Autowired
+    private LoginMetrics loginMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    // true: autentica con los claims del JWT; false: carga el usuario de BD en cada petición
+    @Value("${jwt.validation.stateless:true}")
+    private boolean statelessValidation;
+
+    // Coste BCrypt fijo, igual en todas las instancias; 0 = calibrar al arrancar (un solo nodo)
+    @Value("${security.password.bcrypt.strength:0}")
+    private int bcryptStrength;
+
+    @Value("${security.password.bcrypt.target-ms:250}")
+    private long bcryptTargetMillis;
+
+    @Value("${security.password.bcrypt.min-strength:10}")
+    private int bcryptMinStrength;
+
+    @Value("${security.password.bcrypt.max-strength:14}")
+    private int bcryptMaxStrength;
+
+    // Hashes simultáneos y en espera antes de responder 503
+    @Value("${security.password.hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int hashingThreads;
+
+    @Value("${security.password.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${security.password.hashing.timeout-ms:2000}")
+    private long hashingTimeoutMillis;
+
     @Bean
     public AuthenticationManager authenticationManager() throws Exception {
         logger.info("[SecurityConfig] Exponiendo bean AuthenticationManager");
         return authenticationConfiguration.getAuthenticationManager();
     }
 
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     public PasswordEncoder passwordEncoder() {
-        logger.info("[SecurityConfig] Exponiendo bean PasswordEncoder (BCrypt)");
-        return new BCryptPasswordEncoder();
+        logger.info("[SecurityConfig] Exponiendo bean PasswordEncoder (BCrypt en pool acotado)");
+        int strength = bcryptStrength;
+        if (strength <= 0) {
+            strength = BoundedPasswordEncoder.calibrate(bcryptTargetMillis, bcryptMinStrength, bcryptMaxStrength);
+            logger.warn("[SecurityConfig] Coste BCrypt calibrado en este nodo ({}); con varias instancias fije security.password.bcrypt.strength", strength);
+        }
+        BoundedPasswordEncoder encoder =
+            new BoundedPasswordEncoder(strength, hashingThreads, hashingQueueCapacity, hashingTimeoutMillis);
+        encoder.bindTo(meterRegistry);
+        return encoder;
     }
 
     @Bean
@@ -65,10 +134,13 @@ public class SecurityConfig {
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers(HttpMethod.POST, PUBLIC_POST).permitAll()
                 .requestMatchers(HttpMethod.GET, PUBLIC_GET).permitAll()
+                .requestMatchers(request -> request.getLocalPort() == managementPort
+                    && PROMETHEUS_PATH.equals(request.getRequestURI())).permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
-            .addFilter(new JwtAuthenticationFilter(authenticationManager(), jwtService))
-            .addFilterBefore(new JwtValidationFilter(jwtService, userDetailsService), JwtAuthenticationFilter.class)
+            .addFilter(new JwtAuthenticationFilter(authenticationManager(), jwtService, refreshTokenService, loginAttemptService, loginMetrics))
+            .addFilterBefore(new JwtValidationFilter(jwtService, userDetailsService, sessionRegistry, revocationService, statelessValidation), JwtAuthenticationFilter.class)
             .build();
     }
 }
\ No newline at end of file
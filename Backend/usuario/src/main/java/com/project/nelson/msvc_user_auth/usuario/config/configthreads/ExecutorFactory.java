@@ -0,0 +1,97 @@
+package com.project.nelson.msvc_user_auth.usuario.config.configthreads;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crea ejecutores de tareas que respetan el modo de ejecución configurado.
+ *
+ * Con hilos virtuales devuelve un {@link SimpleAsyncTaskExecutor} (un hilo
+ * virtual por tarea) en el que solo {@code concurrency} tareas ejecutan a la
+ * vez; con hilos de plataforma, un {@link ThreadPoolTaskExecutor} de tamaño
+ * fijo. En ambos casos enviar una tarea no bloquea al llamador: el límite se
+ * aplica dentro de la tarea con un {@link Semaphore}, no con el
+ * {@code concurrencyLimit} del executor, que bloquea a quien la envía.
+ *
+ * El llamador lo cierra con {@link #close(AsyncTaskExecutor)}. No se registran
+ * como {@code @Bean}: cualquier bean {@code Executor} desactiva el
+ * {@code applicationTaskExecutor} que Spring Boot usa para {@code @Async}.
+ */
+@Component
+public class ExecutorFactory {
+
+  private final Environment environment;
+  private final SimpleAsyncTaskExecutorBuilder simpleBuilder;
+  private final ThreadPoolTaskExecutorBuilder poolBuilder;
+
+  public ExecutorFactory(
+    Environment environment,
+    SimpleAsyncTaskExecutorBuilder simpleBuilder,
+    ThreadPoolTaskExecutorBuilder poolBuilder
+  ) {
+    this.environment = environment;
+    this.simpleBuilder = simpleBuilder;
+    this.poolBuilder = poolBuilder;
+  }
+
+  public AsyncTaskExecutor newExecutor(String threadNamePrefix, int concurrency) {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      return simpleBuilder
+        .virtualThreads(true)
+        .threadNamePrefix(threadNamePrefix)
+        .taskDecorator(throttled(new Semaphore(concurrency)))
+        .build();
+    }
+    ThreadPoolTaskExecutor executor = poolBuilder
+      .corePoolSize(concurrency)
+      .maxPoolSize(concurrency)
+      .threadNamePrefix(threadNamePrefix)
+      .build();
+    executor.initialize();
+    return executor;
+  }
+
+  /**
+   * Cada hilo virtual espera su permiso antes de ejecutar la tarea. Si se
+   * interrumpe mientras espera (cierre del executor), cancela la tarea para
+   * que su {@code Future} no quede pendiente para siempre.
+   */
+  private static TaskDecorator throttled(Semaphore permits) {
+    return task -> () -> {
+      try {
+        permits.acquire();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        if (task instanceof Future<?> future) {
+          future.cancel(false);
+        }
+        return;
+      }
+      try {
+        task.run();
+      } finally {
+        permits.release();
+      }
+    };
+  }
+
+  /**
+   * Cierra un ejecutor creado con {@link #newExecutor(String, int)}.
+   */
+  public void close(AsyncTaskExecutor executor) {
+    if (executor instanceof ThreadPoolTaskExecutor pool) {
+      pool.shutdown();
+    } else if (executor instanceof SimpleAsyncTaskExecutor simple) {
+      simple.close();
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.project.nelson.msvc_user_auth.usuario.config.configthreads;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Modo de ejecución del servicio.
+ *
+ * Con {@code spring.threads.virtual.enabled=true} Spring Boot atiende las
+ * peticiones de Tomcat y los métodos {@code @Async} en hilos virtuales; las
+ * esperas de MySQL/JPA dejan de ocupar un hilo del pool. Los ejecutores
+ * propios se crean con {@link ExecutorFactory} para seguir el mismo modo.
+ * El hashing BCrypt se mantiene en su pool de plataforma acotado: es trabajo
+ * de CPU y su límite de concurrencia es intencional.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class ThreadingConfig {
+
+  private static final Logger logger = LoggerFactory.getLogger(ThreadingConfig.class);
+
+  private final Environment environment;
+
+  public ThreadingConfig(Environment environment) {
+    this.environment = environment;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void logExecutionMode() {
+    if (Threading.VIRTUAL.isActive(environment)) {
+      logger.info("[ThreadingConfig] Modo de ejecución: hilos virtuales (Tomcat, @Async y ejecutores propios)");
+    } else {
+      logger.info("[ThreadingConfig] Modo de ejecución: pool de hilos de plataforma");
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.project.nelson.msvc_user_auth.usuario.config.configthreads;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Diagnóstico de hilos virtuales fijados a su hilo portador.
+ *
+ * En Java 21 un hilo virtual que bloquea dentro de un bloque
+ * {@code synchronized} (habitual en drivers JDBC, pools y Hibernate) no libera
+ * el portador. Este componente escucha el evento JFR
+ * {@code jdk.VirtualThreadPinned} en el propio proceso, registra la duración
+ * en el timer {@code usuario.threads.pinned} y escribe la pila completa la
+ * primera vez que aparece cada punto de fijación.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "threads.pinning-monitor.enabled", havingValue = "true", matchIfMissing = true)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+  private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+  private static final String EVENT = "jdk.VirtualThreadPinned";
+  private static final int LOGGED_FRAMES = 15;
+
+  private final Duration threshold;
+  private final Timer pinnedTimer;
+  private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+  private volatile RecordingStream stream;
+
+  public VirtualThreadPinningMonitor(
+    @Value("${threads.pinning-monitor.threshold-ms:20}") long thresholdMillis,
+    MeterRegistry meterRegistry
+  ) {
+    this.threshold = Duration.ofMillis(thresholdMillis);
+    this.pinnedTimer = Timer.builder("usuario.threads.pinned")
+      .description("Tiempo que un hilo virtual bloqueó a su portador")
+      .register(meterRegistry);
+    Gauge.builder("usuario.threads.pinned.sites", reportedSites, Set::size)
+      .description("Puntos de código distintos que fijaron hilos virtuales")
+      .register(meterRegistry);
+  }
+
+  @Override
+  public void start() {
+    RecordingStream recording = new RecordingStream();
+    recording.enable(EVENT).withThreshold(threshold).withStackTrace();
+    recording.onEvent(EVENT, this::onPinned);
+    recording.startAsync();
+    stream = recording;
+    logger.info("[VirtualThreadPinningMonitor] Monitorizando fijaciones de hilos virtuales > {} ms", threshold.toMillis());
+  }
+
+  @Override
+  public void stop() {
+    RecordingStream recording = stream;
+    stream = null;
+    if (recording != null) {
+      recording.close();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return stream != null;
+  }
+
+  private void onPinned(RecordedEvent event) {
+    pinnedTimer.record(event.getDuration());
+    RecordedStackTrace stackTrace = event.getStackTrace();
+    List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+    String site = pinningSite(frames);
+    if (reportedSites.add(site)) {
+      logger.warn(
+        "[VirtualThreadPinningMonitor] Hilo virtual fijado {} ms en {}:\n{}",
+        event.getDuration().toMillis(),
+        site,
+        frames.stream().limit(LOGGED_FRAMES).map(VirtualThreadPinningMonitor::format).collect(Collectors.joining("\n"))
+      );
+    } else {
+      logger.debug("[VirtualThreadPinningMonitor] Hilo virtual fijado {} ms en {}", event.getDuration().toMillis(), site);
+    }
+  }
+
+  /**
+   * Primer frame fuera del JDK: el código (driver, pool, Hibernate o propio)
+   * que mantiene el monitor.
+   */
+  private static String pinningSite(List<RecordedFrame> frames) {
+    return frames.stream()
+      .filter(RecordedFrame::isJavaFrame)
+      .map(VirtualThreadPinningMonitor::format)
+      .filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk.") && !frame.startsWith("sun."))
+      .findFirst()
+      .orElse(frames.isEmpty() ? "desconocido" : format(frames.get(0)));
+  }
+
+  private static String format(RecordedFrame frame) {
+    return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+  }
+}
@@ -3,19 +3,35 @@ package com.project.nelson.msvc_user_auth.usuario.controller;
 import static com.project.nelson.msvc_user_auth.usuario.security.TokenJwtConfig.*;
 
 import com.project.nelson.msvc_user_auth.usuario.model.dtos.LoginDto;
-import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.LoginResponse;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.RolDto;
+import com.project.nelson.msvc_user_auth.usuario.security.UsuarioPrincipal;
+import com.project.nelson.msvc_user_auth.usuario.security.password.PasswordHashingUnavailableException;
+import com.project.nelson.msvc_user_auth.usuario.security.service.AccessToken;
+import com.project.nelson.msvc_user_auth.usuario.security.service.InvalidRefreshTokenException;
 import com.project.nelson.msvc_user_auth.usuario.security.service.JwtService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.LoginAttemptService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.LoginMetrics;
+import com.project.nelson.msvc_user_auth.usuario.security.service.LoginThrottledException;
+import com.project.nelson.msvc_user_auth.usuario.security.service.RefreshTokenService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.TokenRevocationService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.UserSessionRegistry;
+import com.project.nelson.msvc_user_auth.usuario.security.service.VerifiedToken;
 import com.project.nelson.msvc_user_auth.usuario.service.UsuarioService;
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,9 +40,11 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -54,6 +72,21 @@ public class AuthController {
   @Autowired
   private JwtService jwtService;
 
+  @Autowired
+  private TokenRevocationService revocationService;
+
+  @Autowired
+  private UserSessionRegistry sessionRegistry;
+
+  @Autowired
+  private RefreshTokenService refreshTokenService;
+
+  @Autowired
+  private LoginAttemptService loginAttemptService;
+
+  @Autowired
+  private LoginMetrics loginMetrics;
+
   /**
    * Endpoint para login y generación de JWT.
    *
@@ -79,7 +112,7 @@ public class AuthController {
         content = @io.swagger.v3.oas.annotations.media.Content(
           mediaType = "application/json",
           examples = @io.swagger.v3.oas.annotations.media.ExampleObject(
-            value = "{\"token\": \"jwt...\", \"id\": 1, \"name\": \"Juan\", \"lastName\": \"Pérez\", \"email\": \"juan@correo.com\", \"active\": true, \"roles\": [{\"id\": 1, \"name\": \"ADMIN\", \"active\": true}]}"
+            value = "{\"token\": \"jwt...\", \"expiresIn\": 900, \"refreshToken\": \"...\", \"refreshExpiresIn\": 1209600, \"id\": 1, \"name\": \"Juan\", \"lastname\": \"Pérez\", \"email\": \"juan@correo.com\", \"active\": true, \"username\": \"juan\", \"roles\": [{\"id\": 1, \"name\": \"ROLE_ADMIN\", \"active\": true}]}"
           )
         )
       ),
@@ -87,6 +120,14 @@ public class AuthController {
         responseCode = "401",
         description = "Credenciales inválidas"
       ),
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "429",
+        description = "Demasiados intentos fallidos, reintentar tras Retry-After"
+      ),
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "503",
+        description = "Servicio saturado, reintentar (Retry-After)"
+      ),
       @io.swagger.v3.oas.annotations.responses.ApiResponse(
         responseCode = "500",
         description = "Error interno"
@@ -94,9 +135,13 @@ public class AuthController {
     }
   )
   @PostMapping("/login")
-  public ResponseEntity<?> login(@RequestBody @Valid LoginDto loginDto) {
-    logger.info("Intento de login para usuario: {}", loginDto.getUsername());
+  public ResponseEntity<?> login(@RequestBody @Valid LoginDto loginDto, HttpServletRequest request) {
+    logger.debug("Intento de login para usuario: {}", loginDto.getUsername());
+    long start = System.nanoTime();
+    String clientIp = loginAttemptService.clientIp(request);
     try {
+      // Username o IP bloqueados: se rechaza antes de cargar el usuario y de BCrypt
+      loginAttemptService.checkAllowed(loginDto.getUsername(), clientIp);
       UsernamePasswordAuthenticationToken authToken =
         new UsernamePasswordAuthenticationToken(
           loginDto.getUsername(),
@@ -104,56 +149,37 @@ public class AuthController {
         );
       Authentication authentication = authenticationManager.authenticate(authToken);
       logger.info("Autenticación exitosa para usuario: {}", loginDto.getUsername());
-      UserDetails principal = (UserDetails) authentication.getPrincipal();
-      String username = principal.getUsername();
+      loginAttemptService.recordSuccess(loginDto.getUsername());
+      // Perfil cargado por JpaUserDetailsService con la misma consulta de las credenciales
+      UsuarioPrincipal principal = (UsuarioPrincipal) authentication.getPrincipal();
       Collection<? extends GrantedAuthority> roles = authentication.getAuthorities();
 
-      // Buscar el usuario real en la base de datos y el email
-      Usuario usuario = usuarioService.findByUsername(username).orElse(null);
-      String email = usuario != null ? usuario.getEmail() : "";
-
-      // Genera el token incluyendo claims "rol" y "email"
-      String token = jwtService.generateToken(principal, roles, email);
-
-      Map<String, Object> body = jwtService.buildResponseBody(token, username, roles);
-
-      // Agregar datos adicionales del usuario
-      if (usuario != null) {
-        body.put("id", usuario.getId());
-        body.put("name", usuario.getName());
-        body.put("lastname", usuario.getLastname());
-        body.put("email", usuario.getEmail());
-        body.put("active", usuario.isActive());
-        body.put("username", usuario.getUsername());
-        body.put(
-          "roles",
-          usuario
-            .getRoles()
-            .stream()
-            .map(rol -> {
-              Map<String, Object> rolMap = new HashMap<>();
-              rolMap.put("id", rol.getId());
-              rolMap.put("name", rol.getName());
-              rolMap.put("active", rol.isActivo());
-              return rolMap;
-            })
-            .toList()
-        );
-      } else {
-        body.put("id", null);
-        body.put("name", "");
-        body.put("lastName", "");
-        body.put("email", "");
-        body.put("active", true);
-        body.put("username", username);
-        body.put("roles", java.util.Collections.emptyList());
-      }
+      // Genera el token incluyendo claims "roles" y "email"
+      AccessToken accessToken = jwtService.issueAccessToken(principal, roles, principal.getEmail());
+      String token = accessToken.value();
+      RefreshTokenService.Issued refreshToken = refreshTokenService.issue(principal.getUsername(), accessToken);
+
+      LoginResponse body = principal.toLoginResponse(
+        token,
+        accessToken.expiresInSeconds(),
+        refreshToken.token(),
+        refreshToken.expiresInSeconds()
+      );
 
+      loginMetrics.record(LoginMetrics.Outcome.SUCCESS, start);
       return ResponseEntity.ok()
         .header(HEADER_AUTHORIZATION, PREFIX_TOKEN + token)
         .contentType(org.springframework.http.MediaType.APPLICATION_JSON)
         .body(body);
+    } catch (LoginThrottledException ex) {
+      logger.warn("Login bloqueado para usuario: {}", loginDto.getUsername());
+      loginMetrics.record(LoginMetrics.Outcome.THROTTLED, start);
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+        .body(Map.of("error", "Demasiados intentos fallidos", "message", ex.getMessage()));
     } catch (BadCredentialsException ex) {
+      loginAttemptService.recordFailure(loginDto.getUsername(), clientIp);
+      loginMetrics.record(LoginMetrics.Outcome.BAD_CREDENTIALS, start);
       logger.warn(
         "Login fallido para usuario: {} - Credenciales inválidas",
         loginDto.getUsername()
@@ -162,8 +188,17 @@ public class AuthController {
       error.put("error", "Credenciales inválidas");
       error.put("message", ex.getMessage());
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+    } catch (PasswordHashingUnavailableException ex) {
+      logger.warn(
+        "Login rechazado para usuario: {} - Servicio saturado",
+        loginDto.getUsername()
+      );
+      loginMetrics.record(LoginMetrics.Outcome.UNAVAILABLE, start);
+      // El 503 lo construye GlobalExceptionHandler
+      throw ex;
     } catch (Exception ex) {
       logger.error("Error interno en login: {}", ex.getMessage(), ex);
+      loginMetrics.record(LoginMetrics.Outcome.ERROR, start);
       Map<String, String> error = new HashMap<>();
       error.put("error", "Error interno");
       error.put("message", ex.getMessage());
@@ -174,36 +209,66 @@ public class AuthController {
   /**
    * Endpoint para cerrar sesión (logout).
    *
+   * Revoca el token de la petición (claim jti) hasta su expiración, en esta
+   * instancia, en el resto de instancias y en el gateway. Si el cuerpo trae
+   * {@code refreshToken}, se revoca también su familia.
+   *
    * @return Mensaje de cierre de sesión
    */
   @Operation(
     summary = "Logout de usuario",
-    description = "Cierra la sesión del usuario actual."
+    description = "Cierra la sesión del usuario actual revocando su token."
   )
   @PreAuthorize("isAuthenticated()")
   @PostMapping("/logout")
-  public ResponseEntity<Map<String, String>> logout() {
-    logger.info("Logout solicitado");
+  public ResponseEntity<Map<String, String>> logout(
+    @RequestHeader(HEADER_AUTHORIZATION) String authorization,
+    @RequestBody(required = false) Map<String, String> requestBody
+  ) {
+    logger.debug("Logout solicitado");
     Map<String, String> body = new HashMap<>();
+    try {
+      VerifiedToken verified = jwtService.verify(authorization.substring(PREFIX_TOKEN.length()));
+      if (verified.jwtId() != null) {
+        revocationService.revoke(verified.jwtId(), verified.expiresAt().getTime());
+      } else {
+        // Tokens emitidos antes de incluir jti: se revocan todos los del usuario
+        sessionRegistry.revokeIssuedUntilNow(verified.subject());
+      }
+      String refreshToken = requestBody != null ? requestBody.get("refreshToken") : null;
+      if (refreshToken != null && !refreshToken.isBlank()) {
+        refreshTokenService.revoke(refreshToken);
+      }
+    } catch (JwtException | IllegalArgumentException | IndexOutOfBoundsException ex) {
+      logger.warn("Logout con token inválido: {}", ex.getMessage());
+      body.put("error", "Token inválido");
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(body);
+    }
     body.put("message", "Sesión cerrada correctamente.");
     return ResponseEntity.ok(body);
   }
 
   /**
-   * Endpoint para refrescar el token JWT.
+   * Endpoint para renovar la sesión.
+   *
+   * Con {@code refreshToken} rota el refresh token (uso único) y emite un
+   * access token nuevo con los roles actuales del usuario, sin verificar la
+   * contraseña. Presentar un refresh token ya rotado revoca toda su familia.
+   * Un access token no sirve para renovar: no pasaría por el registro de
+   * sesiones ni por el estado actual del usuario.
    *
-   * @param requestBody debe contener el token actual
-   * @return nuevo token JWT
+   * @param requestBody {@code refreshToken}
+   * @return nuevo access token y nuevo refresh token
    */
   @Operation(
     summary = "Refresh token",
-    description = "Renueva el JWT si es válido.",
+    description = "Rota el refresh token y emite un nuevo JWT de vida corta.",
     requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
-      description = "Token actual",
+      description = "Refresh token actual",
       required = true,
       content = @io.swagger.v3.oas.annotations.media.Content(
         examples = @io.swagger.v3.oas.annotations.media.ExampleObject(
-          value = "{\"token\": \"jwt...\"}"
+          value = "{\"refreshToken\": \"...\"}"
         )
       )
     ),
@@ -212,43 +277,72 @@ public class AuthController {
         responseCode = "200",
         description = "Token renovado"
       ),
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "400",
+        description = "refreshToken no proporcionado"
+      ),
       @io.swagger.v3.oas.annotations.responses.ApiResponse(
         responseCode = "401",
-        description = "Token inválido"
+        description = "Token inválido, expirado o reutilizado"
       ),
     }
   )
-  @PreAuthorize("isAuthenticated()")
   @PostMapping("/refresh")
   public ResponseEntity<?> refreshToken(
     @RequestBody Map<String, String> requestBody
   ) {
-    String oldToken = requestBody.get("token");
-    logger.info("Refresh token solicitado");
-    try {
-      if (oldToken == null || oldToken.isBlank()) {
-        logger.warn("Token no proporcionado para refresh");
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
-          Map.of("error", "Token requerido")
-        );
-      }
-      // Extraer el email del token viejo
-      String email = "";
-      try {
-        Claims claims = jwtService.parseToken(oldToken);
-        email = claims.get("email", String.class);
-      } catch (Exception e) {
-        logger.warn("No se pudo extraer el email del token para refresh");
-      }
+    String refreshToken = requestBody.get("refreshToken");
+    if (refreshToken != null && !refreshToken.isBlank()) {
+      return rotateRefreshToken(refreshToken);
+    }
+    logger.warn("Refresh token no proporcionado");
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(
+      Map.of("error", "refreshToken requerido")
+    );
+  }
 
-      // Validar y renovar el token incluyendo el email
-      String newToken = jwtService.refreshToken(oldToken, email);
-      return ResponseEntity.ok(Map.of("token", newToken));
-    } catch (Exception ex) {
-      logger.error("Error al refrescar token: {}", ex.getMessage(), ex);
+  private ResponseEntity<?> rotateRefreshToken(String refreshToken) {
+    try {
+      RefreshTokenService.Rotation rotation = refreshTokenService.rotate(
+        refreshToken,
+        this::issueAccessToken
+      );
+      Map<String, Object> body = new HashMap<>();
+      body.put("token", rotation.accessToken().value());
+      body.put("expiresIn", rotation.accessToken().expiresInSeconds());
+      body.put("refreshToken", rotation.refreshToken().token());
+      body.put("refreshExpiresIn", rotation.refreshToken().expiresInSeconds());
+      body.put("username", rotation.username());
+      return ResponseEntity.ok()
+        .header(HEADER_AUTHORIZATION, PREFIX_TOKEN + rotation.accessToken().value())
+        .body(body);
+    } catch (InvalidRefreshTokenException ex) {
+      logger.warn("Refresh token rechazado: {}", ex.getMessage());
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
-        Map.of("error", "Token inválido")
+        Map.of("error", "Refresh token inválido", "message", ex.getMessage())
       );
     }
   }
+
+  /**
+   * Access token con los roles y el email actuales del usuario; vacío si ya no
+   * existe o está inactivo.
+   */
+  private Optional<AccessToken> issueAccessToken(String username) {
+    return usuarioService.findDtoByUsername(username)
+      .filter(usuario -> usuario.isActive())
+      .map(usuario -> {
+        List<GrantedAuthority> authorities = usuario.getRoles() == null
+          ? List.of()
+          : usuario.getRoles().stream()
+            .map(RolDto::getName)
+            .filter(name -> name != null && !name.isBlank())
+            .map(name -> name.startsWith("ROLE_") ? name : "ROLE_" + name)
+            .distinct()
+            .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+            .toList();
+        User principal = new User(usuario.getUsername(), "", authorities);
+        return jwtService.issueAccessToken(principal, authorities, usuario.getEmail());
+      });
+  }
 }
@@ -0,0 +1,37 @@
+package com.project.nelson.msvc_user_auth.usuario.controller;
+
+import com.project.nelson.msvc_user_auth.usuario.security.service.JwtKeyManager;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Publica las claves públicas de firma JWT (JWKS) para que el gateway y otros
+ * servicios verifiquen tokens sin compartir secretos con usuario.
+ */
+@RestController
+@Tag(name = "Autenticación", description = "Endpoints para autenticación y gestión de sesión JWT")
+public class JwksController {
+
+    @Autowired
+    private JwtKeyManager keyManager;
+
+    @Operation(
+        summary = "Claves públicas JWT",
+        description = "Conjunto JWKS con las claves ES256 vigentes y las próximas a activarse, identificadas por kid."
+    )
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> jwks() {
+        // Las claves se publican antes de firmar: una caché corta es segura
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+            .body(keyManager.jwks());
+    }
+}
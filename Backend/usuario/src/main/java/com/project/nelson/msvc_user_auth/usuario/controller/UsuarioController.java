@@ -1,20 +1,35 @@
 package com.project.nelson.msvc_user_auth.usuario.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.project.nelson.msvc_user_auth.usuario.mapper.UsuarioMapper;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.ImportJobStatus;
 import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioPage;
 import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.service.UsuarioImportService;
 import com.project.nelson.msvc_user_auth.usuario.service.UsuarioService;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.ImportFormat;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/usuarios")
@@ -31,18 +46,79 @@ public class UsuarioController {
   @Autowired
   private UsuarioMapper usuarioMapper;
 
-  @Operation(summary = "Obtener todos los usuarios")
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private UsuarioImportService usuarioImportService;
+
+  private static final int MAX_PAGE_SIZE = 500;
+  private static final int STREAM_CHUNK_SIZE = 500;
+  private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+  /**
+   * @deprecated carga la tabla completa en memoria; usar {@code /usuarios/page}
+   * o {@code /usuarios/stream}.
+   */
+  @Deprecated
+  @Operation(
+    summary = "Obtener todos los usuarios",
+    description = "Obsoleto: carga todos los usuarios en memoria. Usar /usuarios/page o /usuarios/stream.",
+    deprecated = true
+  )
   @GetMapping("/list")
   public ResponseEntity<List<UsuarioDto>> getAll() {
-    logger.info("Obteniendo todos los usuarios");
+    logger.debug("Obteniendo todos los usuarios");
     List<UsuarioDto> usuariosDto = usuarioService.findAllDto();
     return ResponseEntity.ok(usuariosDto);
   }
 
+  @Operation(
+    summary = "Listar usuarios paginados por cursor",
+    description = "Devuelve hasta 'size' usuarios con id mayor que 'after', ordenados por id. " +
+    "Para la siguiente página enviar after=nextCursor mientras hasMore sea true."
+  )
+  @GetMapping("/page")
+  public ResponseEntity<UsuarioPage> getPage(
+    @RequestParam(defaultValue = "0") long after,
+    @RequestParam(defaultValue = "50") int size
+  ) {
+    int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    return ResponseEntity.ok(usuarioService.findPageDto(after, pageSize));
+  }
+
+  @Operation(
+    summary = "Exportar usuarios en streaming (NDJSON)",
+    description = "Un usuario JSON por línea, escrito a medida que se lee de la base de datos."
+  )
+  @GetMapping(value = "/stream", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> stream() {
+    logger.info("Exportando usuarios en streaming");
+    StreamingResponseBody body = out ->
+      usuarioService.streamAllDto(STREAM_CHUNK_SIZE, chunk -> writeNdjson(out, chunk));
+    return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+  }
+
+  private void writeNdjson(OutputStream out, List<UsuarioDto> chunk) {
+    try {
+      // Sin AUTO_CLOSE_TARGET: Jackson no debe cerrar la respuesta tras cada línea
+      ObjectWriter writer = objectMapper
+        .writerFor(UsuarioDto.class)
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      for (UsuarioDto dto : chunk) {
+        writer.writeValue(out, dto);
+        out.write('\n');
+      }
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @Operation(summary = "Obtener usuario por ID")
   @GetMapping("/list/{id}")
   public ResponseEntity<UsuarioDto> getById(@PathVariable Long id) {
-    logger.info("Obteniendo usuario por id: {}", id);
+    logger.debug("Obteniendo usuario por id: {}", id);
     Optional<UsuarioDto> usuarioOpt = usuarioService.findDtoById(id);
     return usuarioOpt
       .map(ResponseEntity::ok)
@@ -81,6 +157,38 @@ public class UsuarioController {
     return ResponseEntity.status(HttpStatus.CREATED).body(dto);
   }
 
+  @Operation(
+    summary = "Importar usuarios en lote (CSV o NDJSON)",
+    description = "Acepta text/csv (cabecera name,lastname,username,password,email[,roles]) o " +
+    "application/x-ndjson (un usuario JSON por línea). Responde 202 con el trabajo; " +
+    "el progreso, el throughput y los errores por fila se consultan en /usuarios/import/{jobId}."
+  )
+  @PostMapping(
+    value = "/import",
+    consumes = { ImportFormat.TEXT_CSV, ImportFormat.APPLICATION_NDJSON }
+  )
+  public ResponseEntity<ImportJobStatus> importUsuarios(
+    @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+    InputStream body
+  ) throws IOException {
+    ImportFormat format = ImportFormat.fromContentType(contentType);
+    logger.info("Importando usuarios en lote ({})", format);
+    ImportJobStatus status = usuarioImportService.start(body, format);
+    return ResponseEntity
+      .accepted()
+      .location(URI.create("/usuarios/import/" + status.jobId()))
+      .body(status);
+  }
+
+  @Operation(summary = "Estado de una importación en lote")
+  @GetMapping("/import/{jobId}")
+  public ResponseEntity<ImportJobStatus> importStatus(@PathVariable String jobId) {
+    return usuarioImportService
+      .findStatus(jobId)
+      .map(ResponseEntity::ok)
+      .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
+  }
+
   @Operation(summary = "Actualizar usuario")
   @PutMapping("update/{id}")
   public ResponseEntity<UsuarioDto> update(
@@ -1,7 +1,10 @@
 package com.project.nelson.msvc_user_auth.usuario.exeptions;
 
+import com.project.nelson.msvc_user_auth.usuario.security.password.PasswordHashingUnavailableException;
 import java.util.HashMap;
 import java.util.Map;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -36,6 +39,30 @@ public class GlobalExceptionHandler {
     return ResponseEntity.badRequest().body(Map.of("validationErrors", errors));
   }
 
+  @ExceptionHandler(PasswordHashingUnavailableException.class)
+  public ResponseEntity<?> handlePasswordHashingUnavailable(
+    PasswordHashingUnavailableException ex
+  ) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+      .header(HttpHeaders.RETRY_AFTER, "1")
+      .body(
+        Map.of(
+          "error",
+          "Servicio temporalmente saturado",
+          "detalle",
+          ex.getMessage()
+        )
+      );
+  }
+
+  @ExceptionHandler(CustomException.class)
+  public ResponseEntity<?> handleCustomException(CustomException ex) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("error", ex.getError() != null ? ex.getError() : "Error en la petición");
+    body.put("detalle", ex.getMessage());
+    return ResponseEntity.status(ex.getStatus()).body(body);
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<?> handleGeneralError(Exception ex) {
     return ResponseEntity.internalServerError()
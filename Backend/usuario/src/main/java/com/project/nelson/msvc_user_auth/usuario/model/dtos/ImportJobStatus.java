@@ -0,0 +1,41 @@
+package com.project.nelson.msvc_user_auth.usuario.model.dtos;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Estado de un trabajo de importación masiva de usuarios.
+ *
+ * @param jobId identificador del trabajo
+ * @param state PENDING, RUNNING, COMPLETED o FAILED
+ * @param format formato del archivo (CSV o NDJSON)
+ * @param rowsRead filas leídas hasta ahora
+ * @param imported usuarios insertados
+ * @param failed filas rechazadas
+ * @param rowsPerSecond filas procesadas por segundo desde el inicio
+ * @param parseMillis tiempo acumulado de lectura y validación
+ * @param hashMillis tiempo acumulado esperando el hashing de contraseñas
+ * @param insertMillis tiempo acumulado en inserciones por lotes
+ * @param startedAt inicio del procesamiento, null si sigue en cola
+ * @param finishedAt fin del procesamiento, null si no ha terminado
+ * @param message motivo del fallo cuando state es FAILED
+ * @param errors errores por fila (limitados a {@code usuario.import.max-errors})
+ * @param errorsTruncated true si se descartaron errores por el límite
+ */
+public record ImportJobStatus(
+  String jobId,
+  String state,
+  String format,
+  long rowsRead,
+  long imported,
+  long failed,
+  double rowsPerSecond,
+  long parseMillis,
+  long hashMillis,
+  long insertMillis,
+  Instant startedAt,
+  Instant finishedAt,
+  String message,
+  List<ImportRowError> errors,
+  boolean errorsTruncated
+) {}
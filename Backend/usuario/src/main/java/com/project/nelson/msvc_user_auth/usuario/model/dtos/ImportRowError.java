@@ -0,0 +1,10 @@
+package com.project.nelson.msvc_user_auth.usuario.model.dtos;
+
+/**
+ * Error de una fila en una importación masiva de usuarios.
+ *
+ * @param line número de línea en el archivo (1 = primera línea)
+ * @param field campo que falló, null si el error es de la fila completa
+ * @param message descripción del error
+ */
+public record ImportRowError(long line, String field, String message) {}
@@ -0,0 +1,38 @@
+package com.project.nelson.msvc_user_auth.usuario.model.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Respuesta del login: tokens emitidos más el perfil del usuario autenticado.
+ *
+ * @param token access token JWT
+ * @param expiresIn segundos de vida del access token
+ * @param refreshToken refresh token opaco
+ * @param refreshExpiresIn segundos de vida del refresh token
+ * @param id identificador del usuario
+ * @param name nombre
+ * @param lastname apellido
+ * @param email correo electrónico
+ * @param active si el usuario está activo
+ * @param username nombre de usuario
+ * @param roles roles asignados
+ */
+public record LoginResponse(
+    String token,
+    long expiresIn,
+    String refreshToken,
+    long refreshExpiresIn,
+    Long id,
+    String name,
+    String lastname,
+    String email,
+    boolean active,
+    String username,
+    List<Rol> roles) {
+
+    /**
+     * Rol tal como se devuelve en el login.
+     */
+    public record Rol(Long id, String name, boolean active) implements Serializable {}
+}
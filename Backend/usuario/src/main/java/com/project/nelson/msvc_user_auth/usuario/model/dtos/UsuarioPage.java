@@ -0,0 +1,12 @@
+package com.project.nelson.msvc_user_auth.usuario.model.dtos;
+
+import java.util.List;
+
+/**
+ * Página de usuarios paginada por cursor (keyset sobre {@code id}).
+ *
+ * @param items usuarios de la página, ordenados por id ascendente
+ * @param nextCursor valor de {@code after} para pedir la siguiente página, null si no hay más
+ * @param hasMore indica si existen más usuarios después de esta página
+ */
+public record UsuarioPage(List<UsuarioDto> items, Long nextCursor, boolean hasMore) {}
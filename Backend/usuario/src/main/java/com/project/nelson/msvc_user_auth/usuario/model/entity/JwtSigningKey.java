@@ -0,0 +1,130 @@
+package com.project.nelson.msvc_user_auth.usuario.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Clave de firma JWT (ES256) identificada por su {@code kid}.
+ *
+ * Una clave se publica en el JWKS desde que se crea, firma tokens a partir de
+ * {@code activatesAt} hasta que se activa la siguiente y deja de publicarse en
+ * {@code expiresAt}, cuando ya no puede quedar ningún token vivo firmado con ella.
+ */
+@Entity
+@Table(name = "jwt_signing_keys")
+public class JwtSigningKey implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  @Id
+  @Column(length = 36)
+  private String kid;
+
+  /**
+   * Clave a la que sustituye ({@code none} en la primera). Es única: de cada
+   * clave solo puede nacer una sucesora aunque varias instancias roten a la vez.
+   */
+  @Column(name = "previous_kid", nullable = false, unique = true, length = 36)
+  private String previousKid;
+
+  @Column(nullable = false, length = 10)
+  private String algorithm;
+
+  /**
+   * Clave pública X.509 en Base64.
+   */
+  @Column(name = "public_key", nullable = false, length = 512)
+  private String publicKey;
+
+  /**
+   * Clave privada PKCS#8 en Base64, cifrada con AES-GCM si hay secreto configurado.
+   */
+  @Column(name = "private_key", nullable = false, length = 1024)
+  private String privateKey;
+
+  @Column(name = "activates_at", nullable = false)
+  private LocalDateTime activatesAt;
+
+  /**
+   * Fin de publicación; null mientras sea la clave más reciente.
+   */
+  @Column(name = "expires_at")
+  private LocalDateTime expiresAt;
+
+  @Column(name = "created_at", updatable = false)
+  private LocalDateTime createdAt;
+
+  @PrePersist
+  public void prePersist() {
+    this.createdAt = LocalDateTime.now();
+  }
+
+  public JwtSigningKey() {
+    // Constructor vacío requerido por JPA
+  }
+
+  public String getKid() {
+    return kid;
+  }
+
+  public void setKid(String kid) {
+    this.kid = kid;
+  }
+
+  public String getPreviousKid() {
+    return previousKid;
+  }
+
+  public void setPreviousKid(String previousKid) {
+    this.previousKid = previousKid;
+  }
+
+  public String getAlgorithm() {
+    return algorithm;
+  }
+
+  public void setAlgorithm(String algorithm) {
+    this.algorithm = algorithm;
+  }
+
+  public String getPublicKey() {
+    return publicKey;
+  }
+
+  public void setPublicKey(String publicKey) {
+    this.publicKey = publicKey;
+  }
+
+  public String getPrivateKey() {
+    return privateKey;
+  }
+
+  public void setPrivateKey(String privateKey) {
+    this.privateKey = privateKey;
+  }
+
+  public LocalDateTime getActivatesAt() {
+    return activatesAt;
+  }
+
+  public void setActivatesAt(LocalDateTime activatesAt) {
+    this.activatesAt = activatesAt;
+  }
+
+  public LocalDateTime getExpiresAt() {
+    return expiresAt;
+  }
+
+  public void setExpiresAt(LocalDateTime expiresAt) {
+    this.expiresAt = expiresAt;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+}
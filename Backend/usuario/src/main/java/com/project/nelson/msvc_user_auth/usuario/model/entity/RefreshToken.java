@@ -0,0 +1,154 @@
+package com.project.nelson.msvc_user_auth.usuario.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token opaco y rotatorio.
+ *
+ * Solo se guarda el SHA-256 del token (índice único). Todos los tokens
+ * derivados de un mismo login comparten {@code familyId}: si un token ya
+ * usado se presenta de nuevo, se revoca la familia completa.
+ */
+@Entity
+@Table(
+  name = "refresh_tokens",
+  indexes = {
+    @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+    @Index(name = "idx_refresh_tokens_expires", columnList = "expires_at"),
+  }
+)
+public class RefreshToken implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "token_hash", unique = true, nullable = false, length = 64)
+  private String tokenHash;
+
+  @Column(name = "family_id", nullable = false, length = 36)
+  private String familyId;
+
+  @Column(nullable = false, length = 50)
+  private String username;
+
+  /**
+   * jti del access token emitido junto a este refresh token.
+   */
+  @Column(name = "access_jti", length = 36)
+  private String accessJti;
+
+  @Column(name = "access_expires_at")
+  private LocalDateTime accessExpiresAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+
+  /**
+   * Momento en que se rotó; null mientras el token no se ha usado.
+   */
+  @Column(name = "used_at")
+  private LocalDateTime usedAt;
+
+  @Column(nullable = false)
+  private boolean revoked = false;
+
+  @Column(name = "created_at", updatable = false)
+  private LocalDateTime createdAt;
+
+  @PrePersist
+  public void prePersist() {
+    this.createdAt = LocalDateTime.now();
+  }
+
+  public RefreshToken() {
+    // Constructor vacío requerido por JPA
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getTokenHash() {
+    return tokenHash;
+  }
+
+  public void setTokenHash(String tokenHash) {
+    this.tokenHash = tokenHash;
+  }
+
+  public String getFamilyId() {
+    return familyId;
+  }
+
+  public void setFamilyId(String familyId) {
+    this.familyId = familyId;
+  }
+
+  public String getUsername() {
+    return username;
+  }
+
+  public void setUsername(String username) {
+    this.username = username;
+  }
+
+  public String getAccessJti() {
+    return accessJti;
+  }
+
+  public void setAccessJti(String accessJti) {
+    this.accessJti = accessJti;
+  }
+
+  public LocalDateTime getAccessExpiresAt() {
+    return accessExpiresAt;
+  }
+
+  public void setAccessExpiresAt(LocalDateTime accessExpiresAt) {
+    this.accessExpiresAt = accessExpiresAt;
+  }
+
+  public LocalDateTime getExpiresAt() {
+    return expiresAt;
+  }
+
+  public void setExpiresAt(LocalDateTime expiresAt) {
+    this.expiresAt = expiresAt;
+  }
+
+  public LocalDateTime getUsedAt() {
+    return usedAt;
+  }
+
+  public void setUsedAt(LocalDateTime usedAt) {
+    this.usedAt = usedAt;
+  }
+
+  public boolean isRevoked() {
+    return revoked;
+  }
+
+  public void setRevoked(boolean revoked) {
+    this.revoked = revoked;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+}
@@ -1,6 +1,7 @@
 package com.project.nelson.msvc_user_auth.usuario.model.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.project.nelson.msvc_user_auth.usuario.service.cache.CacheRegions;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -14,6 +15,8 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Entidad Rol para gestión de roles y permisos en el sistema.
@@ -21,6 +24,7 @@ import java.util.List;
  */
 @Entity
 @Table(name = "roles")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.ROLES)
 public class Rol implements Serializable {
 
   private static final long serialVersionUID = 1L;
@@ -2,6 +2,8 @@ package com.project.nelson.msvc_user_auth.usuario.model.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.project.nelson.msvc_user_auth.usuario.service.cache.CacheRegions;
+import com.project.nelson.msvc_user_auth.usuario.validation.ExistsByEmail;
 import com.project.nelson.msvc_user_auth.usuario.validation.ExistsByUsername;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -24,6 +26,9 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Entidad Usuario para gestión de usuarios en el sistema.
@@ -31,6 +36,7 @@ import java.util.List;
  */
 @Entity
 @Table(name = "usuarios")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USUARIOS)
 public class Usuario implements Serializable {
 
   private static final long serialVersionUID = 1L;
@@ -58,6 +64,7 @@ public class Usuario implements Serializable {
   @Column(nullable = false)
   private String password;
 
+  @ExistsByEmail
   @NotEmpty
   @Email
   @Column(unique = true, nullable = false)
@@ -65,6 +72,9 @@ public class Usuario implements Serializable {
 
   @JsonIgnoreProperties({ "usuarios", "handler", "hibernateLazyInitializer" })
   @ManyToMany
+  // Al recorrer listas de usuarios los roles se cargan en lotes, no uno por usuario
+  @BatchSize(size = 100)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USUARIO_ROLES)
   @JoinTable(
     name = "user_roles",
     joinColumns = @JoinColumn(name = "user_id", referencedColumnName = "id"),
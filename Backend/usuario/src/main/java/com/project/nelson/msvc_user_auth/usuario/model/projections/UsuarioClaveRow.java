@@ -0,0 +1,6 @@
+package com.project.nelson.msvc_user_auth.usuario.model.projections;
+
+/**
+ * Claves únicas de un usuario (username y email) para índices en memoria.
+ */
+public record UsuarioClaveRow(String username, String email) {}
@@ -0,0 +1,14 @@
+package com.project.nelson.msvc_user_auth.usuario.model.projections;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.RolDto;
+
+/**
+ * Proyección de un rol asignado a un usuario: una fila de {@code user_roles}
+ * con las columnas de {@link RolDto}. Permite resolver los roles de muchos
+ * usuarios en una sola consulta.
+ */
+public record UsuarioRolRow(Long usuarioId, Long id, String name, boolean activo) {
+  public RolDto toDto() {
+    return new RolDto(id, name, activo);
+  }
+}
@@ -0,0 +1,24 @@
+package com.project.nelson.msvc_user_auth.usuario.model.projections;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.RolDto;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import java.util.List;
+
+/**
+ * Proyección de lectura de Usuario: solo las columnas que expone {@link UsuarioDto}.
+ * No es una entidad gestionada, por lo que no dispara cargas lazy ni ocupa
+ * el contexto de persistencia.
+ */
+public record UsuarioRow(
+  Long id,
+  String name,
+  String lastname,
+  String username,
+  String password,
+  String email,
+  boolean active
+) {
+  public UsuarioDto toDto(List<RolDto> roles) {
+    return new UsuarioDto(id, name, lastname, username, password, email, roles, active);
+  }
+}
@@ -0,0 +1,37 @@
+package com.project.nelson.msvc_user_auth.usuario.repository;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.JwtSigningKey;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio de claves de firma JWT. La tabla tiene muy pocas filas.
+ */
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+    /**
+     * Claves publicadas (sin fin de publicación o aún no alcanzado), la más reciente primero.
+     */
+    @Query(
+        "SELECT k FROM JwtSigningKey k WHERE k.expiresAt IS NULL OR k.expiresAt > :now " +
+        "ORDER BY k.activatesAt DESC"
+    )
+    List<JwtSigningKey> findPublished(@Param("now") LocalDateTime now);
+
+    /**
+     * Fija el fin de publicación de las claves que aún no lo tienen (rotación).
+     */
+    @Modifying
+    @Query("UPDATE JwtSigningKey k SET k.expiresAt = :expiresAt WHERE k.expiresAt IS NULL AND k.kid <> :kid")
+    int retireAllExcept(@Param("kid") String kid, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM JwtSigningKey k WHERE k.expiresAt < :before")
+    int deleteExpired(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,56 @@
+package com.project.nelson.msvc_user_auth.usuario.repository;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.RefreshToken;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio de refresh tokens; todas las búsquedas usan índices.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marca el token como usado solo si nadie lo usó antes. Devuelve 0 si ya
+     * estaba usado o revocado: es la detección de reutilización, atómica aun
+     * con varias instancias rotando a la vez.
+     */
+    @Modifying
+    @Query(
+        "UPDATE RefreshToken r SET r.usedAt = :now " +
+        "WHERE r.id = :id AND r.usedAt IS NULL AND r.revoked = false"
+    )
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Momento de uso de un token no revocado, leído de la BD (no del contexto
+     * de persistencia). Vacío si está revocado; fecha nula si aún no consta el uso.
+     */
+    @Query("SELECT r.usedAt FROM RefreshToken r WHERE r.id = :id AND r.revoked = false")
+    List<LocalDateTime> findUsedAtIfNotRevoked(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    /**
+     * jti de access tokens de la familia que aún no han expirado.
+     */
+    @Query(
+        "SELECT r FROM RefreshToken r WHERE r.familyId = :familyId " +
+        "AND r.accessJti IS NOT NULL AND r.accessExpiresAt > :now"
+    )
+    List<RefreshToken> findLiveAccessTokens(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
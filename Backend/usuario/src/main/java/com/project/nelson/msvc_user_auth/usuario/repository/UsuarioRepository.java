@@ -1,23 +1,112 @@
 package com.project.nelson.msvc_user_auth.usuario.repository;
 
 import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioClaveRow;
+import com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioRolRow;
+import com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioRow;
+import com.project.nelson.msvc_user_auth.usuario.service.cache.CacheRegions;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+  // Caché de consultas: la invalida cualquier escritura JPA en usuarios
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.USUARIO_QUERIES),
+  })
   @EntityGraph(attributePaths = "roles")
   Optional<Usuario> findByUsername(String username);
 
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.USUARIO_QUERIES),
+  })
   Optional<Usuario> findByEmail(String email);
 
   boolean existsByUsername(String username);
 
+  boolean existsByEmail(String email);
+
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.USUARIO_QUERIES),
+  })
   @Query(
     "SELECT COUNT(u) FROM Usuario u JOIN u.roles r WHERE r.name = :rolName"
   )
   long countByRolName(String rolName);
+
+  @Query("SELECT u.username FROM Usuario u WHERE u.active = false")
+  List<String> findInactiveUsernames();
+
+  // ================= MODELO DE LECTURA (proyecciones) =================
+
+  String USUARIO_ROW =
+    "new com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioRow(" +
+    "u.id, u.name, u.lastname, u.username, u.password, u.email, u.active)";
+
+  String USUARIO_ROL_ROW =
+    "new com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioRolRow(" +
+    "u.id, r.id, r.name, r.activo)";
+
+  @Query("SELECT " + USUARIO_ROW + " FROM Usuario u ORDER BY u.id")
+  List<UsuarioRow> findAllRows();
+
+  @Query("SELECT " + USUARIO_ROW + " FROM Usuario u WHERE u.id = :id")
+  Optional<UsuarioRow> findRowById(Long id);
+
+  @Query("SELECT " + USUARIO_ROW + " FROM Usuario u WHERE u.username = :username")
+  Optional<UsuarioRow> findRowByUsername(String username);
+
+  @Query("SELECT " + USUARIO_ROW + " FROM Usuario u WHERE u.email = :email")
+  Optional<UsuarioRow> findRowByEmail(String email);
+
+  // Keyset: recorre el índice de la clave primaria desde el cursor, sin OFFSET
+  @Query("SELECT " + USUARIO_ROW + " FROM Usuario u WHERE u.id > :after ORDER BY u.id")
+  List<UsuarioRow> findRowsAfter(Long after, Limit limit);
+
+  // Recorrido completo; requiere transacción abierta mientras se consume.
+  // En MySQL el fetch size solo evita cargar todo el resultado con useCursorFetch=true
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query("SELECT " + USUARIO_ROW + " FROM Usuario u ORDER BY u.id")
+  Stream<UsuarioRow> streamAllRows();
+
+  // Claves únicas de todos los usuarios (índice de pertenencia)
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+  @Query(
+    "SELECT new com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioClaveRow(" +
+    "u.username, u.email) FROM Usuario u"
+  )
+  Stream<UsuarioClaveRow> streamAllClaves();
+
+  @Query(
+    "SELECT new com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioClaveRow(" +
+    "u.username, u.email) FROM Usuario u WHERE u.id = :id"
+  )
+  Optional<UsuarioClaveRow> findClaveById(Long id);
+
+  // Roles de un bloque de usuarios en una sola consulta
+  @Query("SELECT " + USUARIO_ROL_ROW + " FROM Usuario u JOIN u.roles r WHERE u.id IN :ids")
+  List<UsuarioRolRow> findRolRowsByUsuarioIdIn(Collection<Long> ids);
+
+  // Roles de todos los usuarios (listado completo)
+  @Query("SELECT " + USUARIO_ROL_ROW + " FROM Usuario u JOIN u.roles r")
+  List<UsuarioRolRow> findAllRolRows();
+
+  // Re-hash en el login: solo la contraseña, sin validar ni tocar la entidad completa
+  @Modifying
+  @Query("UPDATE Usuario u SET u.password = :password WHERE u.username = :username")
+  int updatePasswordByUsername(String username, String password);
 }
@@ -4,35 +4,81 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.LoginResponse;
 import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
 import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import com.project.nelson.msvc_user_auth.usuario.service.cache.UsuariosChangedEvent;
+import com.project.nelson.msvc_user_auth.usuario.service.coalescing.UsuarioLookupCoalescer;
 
+/**
+ * Carga de usuarios para el login: una sola consulta (usuario y roles) produce
+ * un {@link UsuarioPrincipal} con todo lo que necesita la respuesta del login.
+ * También actualiza el hash de la contraseña
+ * cuando el {@code PasswordEncoder} indica que su coste BCrypt ya no es el
+ * configurado ({@link UserDetailsPasswordService}).
+ *
+ * {@code usuario.user.load} mide la consulta a la BD del login (tag
+ * {@code result}: found, not_found, inactive); si la consulta se agrupó con
+ * otra en curso ({@link UsuarioLookupCoalescer}) incluye la espera.
+ */
 @Service
-public class JpaUserDetailsService implements UserDetailsService {
+public class JpaUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private static final Logger logger = LoggerFactory.getLogger(JpaUserDetailsService.class);
 
     @Autowired
     private UsuarioRepository repository;
 
+    @Autowired
+    private UsuarioLookupCoalescer lookupCoalescer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private Timer foundTimer;
+    private Timer notFoundTimer;
+    private Timer inactiveTimer;
+
+    @PostConstruct
+    public void init() {
+        foundTimer = loadTimer("found");
+        notFoundTimer = loadTimer("not_found");
+        inactiveTimer = loadTimer("inactive");
+    }
+
     @Transactional(readOnly = true)
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        logger.info("[JpaUserDetailsService] Buscando usuario por username: {}", username);
-        Optional<Usuario> userOptional = repository.findByUsername(username);
+        logger.debug("[JpaUserDetailsService] Buscando usuario por username: {}", username);
+        long start = System.nanoTime();
+        // Los logins simultáneos de la misma cuenta comparten una sola consulta
+        Optional<Usuario> userOptional = lookupCoalescer.findByUsername(username);
+        long elapsed = System.nanoTime() - start;
 
         if (userOptional.isEmpty()) {
+            notFoundTimer.record(elapsed, TimeUnit.NANOSECONDS);
             logger.warn("[JpaUserDetailsService] Usuario no encontrado: {}", username);
             throw new UsernameNotFoundException(String.format("Username '%s' no existe en el sistema.", username));
         }
@@ -40,6 +86,7 @@ public class JpaUserDetailsService implements UserDetailsService {
         Usuario user = userOptional.get();
 
         if (!user.isActive()) {
+            inactiveTimer.record(elapsed, TimeUnit.NANOSECONDS);
             logger.warn("[JpaUserDetailsService] Usuario '{}' está inactivo. Login rechazado.", username);
             throw new UsernameNotFoundException(String.format("Usuario '%s' está inactivo. Contacte al administrador.", username));
         }
@@ -57,15 +104,44 @@ public class JpaUserDetailsService implements UserDetailsService {
                 .map(SimpleGrantedAuthority::new)
                 .collect(Collectors.toList());
 
-        logger.info("[JpaUserDetailsService] Usuario '{}' autenticado con roles: {}", user.getUsername(), authorities);
+        logger.debug("[JpaUserDetailsService] Usuario '{}' cargado con roles: {}", user.getUsername(), authorities);
+        foundTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+        List<LoginResponse.Rol> roles = user.getRoles().stream()
+                .map(rol -> new LoginResponse.Rol(rol.getId(), rol.getName(), rol.isActivo()))
+                .toList();
 
-        return new org.springframework.security.core.userdetails.User(
+        return new UsuarioPrincipal(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
-                true,
-                true,
-                true,
-                true,
+                user.getName(),
+                user.getLastname(),
+                user.getEmail(),
+                roles,
                 authorities);
     }
+
+    private Timer loadTimer(String result) {
+        return Timer.builder("usuario.user.load")
+                .description("Consulta de usuario y roles en el login")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Transactional
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        repository.updatePasswordByUsername(user.getUsername(), newPassword);
+        eventPublisher.publishEvent(user instanceof UsuarioPrincipal principal
+                ? new UsuariosChangedEvent(principal.getId())
+                : UsuariosChangedEvent.all());
+        logger.info("[JpaUserDetailsService] Hash de contraseña actualizado al coste vigente para usuario: {}", user.getUsername());
+        if (user instanceof UsuarioPrincipal principal) {
+            // Conserva el perfil cargado: la respuesta del login no vuelve a consultar la BD
+            return principal.withPassword(newPassword);
+        }
+        return User.withUserDetails(user).password(newPassword).build();
+    }
 }
\ No newline at end of file
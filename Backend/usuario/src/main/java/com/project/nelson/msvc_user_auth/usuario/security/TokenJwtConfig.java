@@ -1,9 +1,5 @@
 package com.project.nelson.msvc_user_auth.usuario.security;
 
-import javax.crypto.SecretKey;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-
 /**
  * Configuración centralizada para el manejo de JWT en la aplicación.
  * Proporciona claves, prefijos y cabeceras estándar para seguridad empresarial.
@@ -11,16 +7,6 @@ import io.jsonwebtoken.security.Keys;
  */
 public final class TokenJwtConfig {
 
-    /**
-     * Clave secreta para la firma y validación de JWT (HS256).
-     * En producción, debe gestionarse de forma segura (por variables de entorno o
-     * vault).
-     * Debe tener al menos 32 caracteres.
-     */
-    private static final String JWT_SECRET_BASE64 = "pJ9KkV7b6bDPqKhtWZfLzN6rQ3wXy5VtU2hXyqGz4A8E=";
-
-    public static final SecretKey SECRET_KEY = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET_BASE64));
-
     /**
      * Prefijo estándar para el token JWT en la cabecera Authorization.
      */
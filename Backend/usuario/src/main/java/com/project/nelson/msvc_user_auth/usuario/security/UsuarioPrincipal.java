@@ -0,0 +1,76 @@
+package com.project.nelson.msvc_user_auth.usuario.security;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.LoginResponse;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Usuario autenticado con los datos de perfil que necesita la respuesta del
+ * login. {@link JpaUserDetailsService} lo construye con la misma consulta que
+ * valida las credenciales, de modo que el login no vuelve a leer el usuario.
+ */
+public class UsuarioPrincipal extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String name;
+    private final String lastname;
+    private final String email;
+    private final List<LoginResponse.Rol> roles;
+
+    public UsuarioPrincipal(
+        Long id,
+        String username,
+        String password,
+        String name,
+        String lastname,
+        String email,
+        List<LoginResponse.Rol> roles,
+        Collection<? extends GrantedAuthority> authorities
+    ) {
+        super(username, password, true, true, true, true, authorities);
+        this.id = id;
+        this.name = name;
+        this.lastname = lastname;
+        this.email = email;
+        this.roles = List.copyOf(roles);
+    }
+
+    /**
+     * Copia con otro hash de contraseña (re-hash al coste BCrypt vigente).
+     */
+    public UsuarioPrincipal withPassword(String password) {
+        return new UsuarioPrincipal(id, getUsername(), password, name, lastname, email, roles, getAuthorities());
+    }
+
+    /**
+     * Respuesta del login con los tokens recién emitidos.
+     */
+    public LoginResponse toLoginResponse(String token, long expiresIn, String refreshToken, long refreshExpiresIn) {
+        return new LoginResponse(token, expiresIn, refreshToken, refreshExpiresIn,
+            id, name, lastname, email, true, getUsername(), roles);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public List<LoginResponse.Rol> getRoles() {
+        return roles;
+    }
+}
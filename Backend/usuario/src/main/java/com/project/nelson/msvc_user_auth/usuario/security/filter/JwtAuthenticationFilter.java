@@ -1,8 +1,18 @@
 package com.project.nelson.msvc_user_auth.usuario.security.filter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.LoginResponse;
 import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.security.TokenJwtConfig;
+import com.project.nelson.msvc_user_auth.usuario.security.UsuarioPrincipal;
+import com.project.nelson.msvc_user_auth.usuario.security.password.PasswordHashingUnavailableException;
+import com.project.nelson.msvc_user_auth.usuario.security.service.AccessToken;
 import com.project.nelson.msvc_user_auth.usuario.security.service.JwtService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.LoginAttemptService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.LoginMetrics;
+import com.project.nelson.msvc_user_auth.usuario.security.service.LoginThrottledException;
+import com.project.nelson.msvc_user_auth.usuario.security.service.RefreshTokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,7 +22,10 @@ import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
@@ -25,15 +38,32 @@ public class JwtAuthenticationFilter
     JwtAuthenticationFilter.class
   );
 
+  // ObjectMapper es thread-safe: uno por filtro en lugar de uno por petición
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ObjectWriter LOGIN_RESPONSE_WRITER = MAPPER.writerFor(LoginResponse.class);
+
+  // Username del intento en curso, para contar el fallo en unsuccessfulAuthentication
+  private static final String USERNAME_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".username";
+  private static final String START_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".start";
+
   private final AuthenticationManager authenticationManager;
   private final JwtService jwtService;
+  private final RefreshTokenService refreshTokenService;
+  private final LoginAttemptService loginAttemptService;
+  private final LoginMetrics loginMetrics;
 
   public JwtAuthenticationFilter(
     AuthenticationManager authenticationManager,
-    JwtService jwtService
+    JwtService jwtService,
+    RefreshTokenService refreshTokenService,
+    LoginAttemptService loginAttemptService,
+    LoginMetrics loginMetrics
   ) {
     this.authenticationManager = authenticationManager;
     this.jwtService = jwtService;
+    this.refreshTokenService = refreshTokenService;
+    this.loginAttemptService = loginAttemptService;
+    this.loginMetrics = loginMetrics;
     setFilterProcessesUrl("/auth/login");
   }
 
@@ -42,15 +72,18 @@ public class JwtAuthenticationFilter
     HttpServletRequest request,
     HttpServletResponse response
   ) throws AuthenticationException {
+    request.setAttribute(START_ATTRIBUTE, System.nanoTime());
     try {
-      Usuario user = new ObjectMapper()
+      Usuario user = MAPPER
         .readValue(request.getInputStream(), Usuario.class);
-      logger.info(
-        "[JwtAuthFilter] Login recibido: usuario={}, ip={}, headers={}",
+      logger.debug(
+        "[JwtAuthFilter] Login recibido: usuario={}, ip={}",
         user.getUsername(),
-        request.getRemoteAddr(),
-        request.getHeaderNames()
+        request.getRemoteAddr()
       );
+      request.setAttribute(USERNAME_ATTRIBUTE, user.getUsername());
+      // Username o IP bloqueados: se rechaza antes de cargar el usuario y de BCrypt
+      loginAttemptService.checkAllowed(user.getUsername(), loginAttemptService.clientIp(request));
       UsernamePasswordAuthenticationToken authToken =
         new UsernamePasswordAuthenticationToken(
           user.getUsername(),
@@ -70,30 +103,32 @@ public class JwtAuthenticationFilter
     FilterChain chain,
     Authentication authResult
   ) throws IOException, ServletException {
-    org.springframework.security.core.userdetails.User user =
-      (org.springframework.security.core.userdetails.User) authResult.getPrincipal();
+    // El principal ya trae el perfil cargado al validar las credenciales
+    UsuarioPrincipal user = (UsuarioPrincipal) authResult.getPrincipal();
     String username = user.getUsername();
-    String token = jwtService.generateToken(
+    loginAttemptService.recordSuccess(username);
+    AccessToken accessToken = jwtService.issueAccessToken(
       user,
       authResult.getAuthorities(),
-      username
+      user.getEmail()
     );
+    // Las renovaciones posteriores usan el refresh token, sin volver a pasar por BCrypt
+    RefreshTokenService.Issued refreshToken = refreshTokenService.issue(username, accessToken);
 
-    logger.info(
-      "[JwtAuthFilter] Login exitoso: usuario={}, token={}",
-      username,
-      token
-    );
+    logger.info("[JwtAuthFilter] Login exitoso: usuario={}", username);
 
-    Map<String, Object> body = jwtService.buildResponseBody(
-      token,
-      username,
-      authResult.getAuthorities()
+    LoginResponse body = user.toLoginResponse(
+      accessToken.value(),
+      accessToken.expiresInSeconds(),
+      refreshToken.token(),
+      refreshToken.expiresInSeconds()
     );
 
+    response.setHeader(TokenJwtConfig.HEADER_AUTHORIZATION, TokenJwtConfig.PREFIX_TOKEN + accessToken.value());
     response.setContentType("application/json;charset=UTF-8");
     response.setStatus(HttpServletResponse.SC_OK);
-    response.getWriter().write(new ObjectMapper().writeValueAsString(body));
+    LOGIN_RESPONSE_WRITER.writeValue(response.getWriter(), body);
+    recordOutcome(request, LoginMetrics.Outcome.SUCCESS);
   }
 
   @Override
@@ -102,12 +137,53 @@ public class JwtAuthenticationFilter
     HttpServletResponse response,
     AuthenticationException failed
   ) throws IOException, ServletException {
+    if (failed instanceof PasswordHashingUnavailableException) {
+      // Backpressure del pool BCrypt: no son credenciales inválidas, el cliente debe reintentar
+      logger.warn("[JwtAuthFilter] Login rechazado por saturación: {}", failed.getMessage());
+      Map<String, Object> body = new HashMap<>();
+      body.put("error", "Servicio temporalmente saturado");
+      body.put("details", failed.getMessage());
+      response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.setContentType("application/json;charset=UTF-8");
+      response.getWriter().write(MAPPER.writeValueAsString(body));
+      recordOutcome(request, LoginMetrics.Outcome.UNAVAILABLE);
+      return;
+    }
+    if (failed instanceof LoginThrottledException throttled) {
+      // LoginAttemptService avisa una vez al bloquear; aquí cada intento rechazado solo en DEBUG
+      logger.debug("[JwtAuthFilter] Login bloqueado: usuario={}", request.getAttribute(USERNAME_ATTRIBUTE));
+      Map<String, Object> body = new HashMap<>();
+      body.put("error", "Demasiados intentos fallidos");
+      body.put("details", failed.getMessage());
+      response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(throttled.getRetryAfterSeconds()));
+      response.setContentType("application/json;charset=UTF-8");
+      response.getWriter().write(MAPPER.writeValueAsString(body));
+      recordOutcome(request, LoginMetrics.Outcome.THROTTLED);
+      return;
+    }
+    if (failed instanceof BadCredentialsException) {
+      loginAttemptService.recordFailure(
+        (String) request.getAttribute(USERNAME_ATTRIBUTE),
+        loginAttemptService.clientIp(request)
+      );
+    }
     logger.warn("[JwtAuthFilter] Login fallido: {}", failed.getMessage());
     Map<String, Object> body = new HashMap<>();
     body.put("error", "Credenciales inválidas");
     body.put("details", failed.getMessage());
     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
     response.setContentType("application/json;charset=UTF-8");
-    response.getWriter().write(new ObjectMapper().writeValueAsString(body));
+    response.getWriter().write(MAPPER.writeValueAsString(body));
+    recordOutcome(request, failed instanceof BadCredentialsException
+      ? LoginMetrics.Outcome.BAD_CREDENTIALS
+      : LoginMetrics.Outcome.ERROR);
+  }
+
+  private void recordOutcome(HttpServletRequest request, LoginMetrics.Outcome outcome) {
+    if (request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+      loginMetrics.record(outcome, start);
+    }
   }
 }
@@ -1,6 +1,10 @@
 package com.project.nelson.msvc_user_auth.usuario.security.filter;
 
 import com.project.nelson.msvc_user_auth.usuario.security.service.JwtService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.TokenRevocationService;
+import com.project.nelson.msvc_user_auth.usuario.security.service.UserSessionRegistry;
+import com.project.nelson.msvc_user_auth.usuario.security.service.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,26 +14,52 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+/**
+ * Filtro de validación JWT para peticiones autenticadas.
+ *
+ * En modo sin estado (por defecto) la autenticación se construye a partir de
+ * un único parseo del token y de su claim firmado {@code roles}; el
+ * {@link UserSessionRegistry} rechaza tokens de usuarios desactivados o con
+ * roles modificados y el {@link TokenRevocationService} los tokens cerrados con
+ * logout, ambos sin consultar la base de datos. En modo base de datos se
+ * conserva el comportamiento anterior (carga del usuario en cada petición).
+ *
+ * Se ejecuta en cada petición autenticada: sus mensajes son DEBUG y el usuario
+ * queda en el atributo {@link #USER_ATTRIBUTE} para la línea del access log.
+ */
 public class JwtValidationFilter extends OncePerRequestFilter {
 
+  /** Usuario autenticado por el token, para el access log. */
+  public static final String USER_ATTRIBUTE = JwtValidationFilter.class.getName() + ".user";
+
   private static final Logger logger = LoggerFactory.getLogger(
     JwtValidationFilter.class
   );
 
   private final JwtService jwtService;
   private final UserDetailsService userDetailsService;
+  private final UserSessionRegistry sessionRegistry;
+  private final TokenRevocationService revocationService;
+  private final boolean stateless;
 
   public JwtValidationFilter(
     JwtService jwtService,
-    UserDetailsService userDetailsService
+    UserDetailsService userDetailsService,
+    UserSessionRegistry sessionRegistry,
+    TokenRevocationService revocationService,
+    boolean stateless
   ) {
     this.jwtService = jwtService;
     this.userDetailsService = userDetailsService;
+    this.sessionRegistry = sessionRegistry;
+    this.revocationService = revocationService;
+    this.stateless = stateless;
   }
 
   @Override
@@ -41,7 +71,9 @@ public class JwtValidationFilter extends OncePerRequestFilter {
     String path = request.getServletPath();
     if (
       path.equals("/auth/login") ||
+      path.equals("/auth/refresh") ||
       path.equals("/usuarios/register") ||
+      path.equals("/.well-known/jwks.json") ||
       path.startsWith("/swagger-ui") ||
       path.startsWith("/v3/api-docs")
     ) {
@@ -51,44 +83,65 @@ public class JwtValidationFilter extends OncePerRequestFilter {
     }
 
     String authHeader = request.getHeader("Authorization");
-    String jwt = null;
-    String username = null;
+    if (
+      authHeader == null ||
+      !authHeader.startsWith("Bearer ") ||
+      SecurityContextHolder.getContext().getAuthentication() != null
+    ) {
+      filterChain.doFilter(request, response);
+      return;
+    }
 
-    if (authHeader != null && authHeader.startsWith("Bearer ")) {
-      jwt = authHeader.substring(7);
-      username = jwtService.extractUsername(jwt);
-      logger.info("[JwtValidationFilter] Token recibido: {}", jwt);
-      logger.info("[JwtValidationFilter] Usuario extraído: {}", username);
+    String jwt = authHeader.substring(7);
+    VerifiedToken token;
+    try {
+      // Un solo parseo: firma, expiración y claims
+      token = jwtService.verify(jwt);
+    } catch (JwtException | IllegalArgumentException ex) {
+      logger.debug("[JwtValidationFilter] Token inválido: {}", ex.getMessage());
+      filterChain.doFilter(request, response);
+      return;
     }
 
+    String username = token.subject();
+
     if (
-      username != null &&
-      SecurityContextHolder.getContext().getAuthentication() == null
+      username == null ||
+      revocationService.isRevoked(token.jwtId()) ||
+      sessionRegistry.isRevoked(username, token.issuedAt())
     ) {
-      UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-      if (jwtService.isTokenValid(jwt, userDetails)) {
-        UsernamePasswordAuthenticationToken authToken =
-          new UsernamePasswordAuthenticationToken(
-            userDetails,
-            null,
-            userDetails.getAuthorities()
-          );
-        authToken.setDetails(
-          new WebAuthenticationDetailsSource().buildDetails(request)
-        );
-        SecurityContextHolder.getContext().setAuthentication(authToken);
-        logger.info(
-          "[JwtValidationFilter] Autenticación para usuario: {} establecida en SecurityContext",
-          username
-        );
-      } else {
-        logger.warn(
-          "[JwtValidationFilter] Token inválido para usuario: {}",
-          username
-        );
-      }
+      logger.debug(
+        "[JwtValidationFilter] Token revocado o sin usuario: {}",
+        username
+      );
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    UserDetails userDetails = stateless
+      ? new User(username, "", token.authorities())
+      : userDetailsService.loadUserByUsername(username);
+    if (!stateless && !jwtService.isTokenValid(token, userDetails)) {
+      filterChain.doFilter(request, response);
+      return;
     }
 
+    UsernamePasswordAuthenticationToken authToken =
+      new UsernamePasswordAuthenticationToken(
+        userDetails,
+        null,
+        userDetails.getAuthorities()
+      );
+    authToken.setDetails(
+      new WebAuthenticationDetailsSource().buildDetails(request)
+    );
+    SecurityContextHolder.getContext().setAuthentication(authToken);
+    request.setAttribute(USER_ATTRIBUTE, username);
+    logger.debug(
+      "[JwtValidationFilter] Autenticación para usuario: {} establecida en SecurityContext",
+      username
+    );
+
     filterChain.doFilter(request, response);
   }
-}
\ No newline at end of file
+}
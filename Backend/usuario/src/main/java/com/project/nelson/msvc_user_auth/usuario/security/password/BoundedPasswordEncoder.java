@@ -0,0 +1,260 @@
+package com.project.nelson.msvc_user_auth.usuario.security.password;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder.BCryptVersion;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} BCrypt que ejecuta el hashing en un pool propio y acotado.
+ *
+ * BCrypt consume CPU durante cientos de milisegundos por llamada; ejecutarlo en
+ * los hilos de Tomcat hace que una ráfaga de logins bloquee el resto de
+ * endpoints. Aquí el número de hashes simultáneos está limitado por
+ * {@code threads} y la espera por {@code queueCapacity}: cuando la cola está
+ * llena la petición falla de inmediato con
+ * {@link PasswordHashingUnavailableException} (503) en lugar de acumularse.
+ *
+ * Los hashes nuevos usan la versión {@code $2b$} con el coste configurado;
+ * {@link #upgradeEncoding(String)} pide re-hashear en el login los hashes
+ * BCrypt de coste menor. Nunca baja el coste: un nodo con otra configuración
+ * no re-hashea en cada login lo que otro acaba de subir.
+ *
+ * Con {@link #bindTo(MeterRegistry)} publica la duración de cada hash
+ * ({@code usuario.password.hash}, sin la espera en cola), los rechazos por
+ * saturación y la ocupación del pool.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+  private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+  // Mismo formato que acepta BCryptPasswordEncoder: $2$, $2a$, $2b$ o $2y$, coste y 53 caracteres
+  private static final Pattern BCRYPT_PATTERN =
+    Pattern.compile("\\A\\$2(a|y|b)?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+  private static final String CALIBRATION_PASSWORD = "calibracion-bcrypt";
+
+  private final PasswordEncoder delegate;
+  private final int strength;
+  private final ThreadPoolExecutor executor;
+  private final long timeoutMillis;
+  private volatile Timer encodeTimer;
+  private volatile Timer matchesTimer;
+  private volatile Counter rejected;
+
+  public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long timeoutMillis) {
+    this(new BCryptPasswordEncoder(BCryptVersion.$2B, strength), strength, threads, queueCapacity, timeoutMillis);
+  }
+
+  BoundedPasswordEncoder(
+    PasswordEncoder delegate,
+    int strength,
+    int threads,
+    int queueCapacity,
+    long timeoutMillis
+  ) {
+    this.delegate = delegate;
+    this.strength = strength;
+    this.timeoutMillis = timeoutMillis;
+    this.executor = new ThreadPoolExecutor(
+      threads,
+      threads,
+      0L,
+      TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(queueCapacity),
+      new HashingThreadFactory(),
+      new ThreadPoolExecutor.AbortPolicy()
+    );
+    logger.info(
+      "[BoundedPasswordEncoder] BCrypt coste={} hilos={} cola={} timeout={}ms",
+      strength, threads, queueCapacity, timeoutMillis
+    );
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return submit(() -> timed(encodeTimer, () -> delegate.encode(rawPassword)));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return submit(() -> timed(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword)));
+  }
+
+  /**
+   * Re-hashear cuando el hash es BCrypt con un coste menor que el actual.
+   * Hashes no BCrypt no se tocan.
+   */
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    int current = strengthOf(encodedPassword);
+    return current > 0 && current < strength;
+  }
+
+  public int getStrength() {
+    return strength;
+  }
+
+  /**
+   * Hashes en espera de un hilo del pool.
+   */
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    encodeTimer = hashTimer(registry, "encode");
+    matchesTimer = hashTimer(registry, "matches");
+    rejected = Counter.builder("usuario.password.hash.rejected")
+      .description("Hashes rechazados por cola llena o timeout (503)")
+      .register(registry);
+    Gauge.builder("usuario.password.hash.queue", this, BoundedPasswordEncoder::getQueueDepth)
+      .description("Hashes en espera de un hilo del pool BCrypt")
+      .register(registry);
+    Gauge.builder("usuario.password.hash.active", this, BoundedPasswordEncoder::getActiveCount)
+      .description("Hashes BCrypt en ejecución")
+      .register(registry);
+  }
+
+  private static Timer hashTimer(MeterRegistry registry, String operation) {
+    return Timer.builder("usuario.password.hash")
+      .description("Duración de BCrypt en el pool, sin la espera en cola")
+      .tag("operation", operation)
+      .publishPercentileHistogram()
+      .register(registry);
+  }
+
+  private static <T> T timed(Timer timer, Callable<T> task) throws Exception {
+    if (timer == null) {
+      return task.call();
+    }
+    long start = System.nanoTime();
+    try {
+      return task.call();
+    } finally {
+      timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void countRejected() {
+    Counter counter = rejected;
+    if (counter != null) {
+      counter.increment();
+    }
+  }
+
+  /**
+   * Indica si el valor ya es un hash BCrypt ({@code $2a$}, {@code $2b$}, {@code $2y$}).
+   */
+  public static boolean isBcryptHash(String value) {
+    return value != null && BCRYPT_PATTERN.matcher(value).matches();
+  }
+
+  /**
+   * Coste de un hash BCrypt, o -1 si el valor no es un hash BCrypt.
+   */
+  public static int strengthOf(String encodedPassword) {
+    if (encodedPassword == null) {
+      return -1;
+    }
+    Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+    return matcher.matches() ? Integer.parseInt(matcher.group(2)) : -1;
+  }
+
+  /**
+   * Mayor coste en [minStrength, maxStrength] cuyo hash se estima por debajo
+   * de {@code targetMillis} en esta máquina. Mide el coste mínimo y duplica
+   * la estimación por cada punto de coste (BCrypt es exponencial en base 2).
+   */
+  public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+    BCryptPasswordEncoder probe = new BCryptPasswordEncoder(BCryptVersion.$2B, minStrength);
+    probe.encode(CALIBRATION_PASSWORD); // calentamiento del JIT
+    int samples = 3;
+    long start = System.nanoTime();
+    for (int i = 0; i < samples; i++) {
+      probe.encode(CALIBRATION_PASSWORD);
+    }
+    double millis = (System.nanoTime() - start) / 1_000_000.0 / samples;
+
+    int strength = minStrength;
+    double estimate = millis;
+    while (strength < maxStrength && estimate * 2 <= targetMillis) {
+      estimate *= 2;
+      strength++;
+    }
+    logger.info(
+      "[BoundedPasswordEncoder] Calibración: coste {} medido en {} ms, elegido coste {} (~{} ms, objetivo {} ms)",
+      minStrength, Math.round(millis), strength, Math.round(estimate), targetMillis
+    );
+    return strength;
+  }
+
+  private <T> T submit(Callable<T> task) {
+    Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException ex) {
+      countRejected();
+      logger.warn("[BoundedPasswordEncoder] Cola de hashing llena ({}), petición rechazada", getQueueDepth());
+      throw new PasswordHashingUnavailableException("Servicio de autenticación saturado, reintente", ex);
+    }
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException ex) {
+      future.cancel(true);
+      countRejected();
+      logger.warn("[BoundedPasswordEncoder] Hashing sin respuesta en {} ms", timeoutMillis);
+      throw new PasswordHashingUnavailableException("Servicio de autenticación saturado, reintente", ex);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      throw new PasswordHashingUnavailableException("Hashing de contraseña interrumpido", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new IllegalStateException("Error en el hashing de contraseña", cause);
+    }
+  }
+
+  private static final class HashingThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      // Hilos de plataforma también en modo virtual: BCrypt es CPU pura y el pool fija su concurrencia
+      Thread thread = new Thread(runnable, "bcrypt-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.project.nelson.msvc_user_auth.usuario.security.password;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+/**
+ * El ejecutor de hashing de contraseñas está saturado o no respondió a tiempo.
+ *
+ * Se traduce a 503 (Service Unavailable) con {@code Retry-After}: el cliente
+ * debe reintentar, las credenciales no se consideran inválidas. Extiende
+ * {@link InternalAuthenticationServiceException} para que el
+ * {@code ProviderManager} la propague sin probar otros proveedores.
+ */
+public class PasswordHashingUnavailableException
+  extends InternalAuthenticationServiceException {
+
+  public PasswordHashingUnavailableException(String message) {
+    super(message);
+  }
+
+  public PasswordHashingUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
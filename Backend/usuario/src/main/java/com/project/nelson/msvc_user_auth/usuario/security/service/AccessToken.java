@@ -0,0 +1,20 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import java.util.Date;
+
+/**
+ * Access token JWT recién emitido.
+ *
+ * @param value token compacto
+ * @param jwtId claim jti
+ * @param expiresAt claim exp
+ */
+public record AccessToken(String value, String jwtId, Date expiresAt) {
+
+    /**
+     * Segundos de vida restantes, para el campo {@code expiresIn} de la respuesta.
+     */
+    public long expiresInSeconds() {
+        return Math.max(0, (expiresAt.getTime() - System.currentTimeMillis()) / 1000);
+    }
+}
@@ -0,0 +1,18 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+/**
+ * Refresh token desconocido, expirado, revocado o reutilizado.
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    private final boolean reuseDetected;
+
+    public InvalidRefreshTokenException(String message, boolean reuseDetected) {
+        super(message);
+        this.reuseDetected = reuseDetected;
+    }
+
+    public boolean isReuseDetected() {
+        return reuseDetected;
+    }
+}
@@ -0,0 +1,386 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.JwtSigningKey;
+import com.project.nelson.msvc_user_auth.usuario.repository.JwtSigningKeyRepository;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Claves de firma JWT (ES256) con rotación por {@code kid}.
+ *
+ * Las claves viven en la tabla {@code jwt_signing_keys}, compartida por todas
+ * las instancias. Cada rotación crea una clave que se publica en el JWKS
+ * {@code publish-ahead-minutes} antes de empezar a firmar: cuando aparece el
+ * primer token con el nuevo {@code kid}, el gateway ya la ha descargado. La
+ * clave anterior sigue publicada hasta que expira el último token que pudo
+ * firmar. Nada de esto requiere reiniciar usuario ni el gateway.
+ *
+ * Cada clave nueva guarda en {@code previous_kid} (columna única) la clave
+ * que sustituye: si dos instancias rotan a la vez desde la misma clave, la
+ * segunda inserción falla y esa instancia se limita a recargar.
+ *
+ * Firma y verificación leen una instantánea inmutable que se sustituye de
+ * forma atómica al recargar; las peticiones nunca consultan la base de datos.
+ */
+@Component
+public class JwtKeyManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(JwtKeyManager.class);
+
+  static final String ALGORITHM = "ES256";
+  private static final String CURVE = "secp256r1";
+  private static final String ENCRYPTED_PREFIX = "enc:";
+  private static final int GCM_IV_BYTES = 12;
+  private static final long CLOCK_SKEW_MILLIS = TimeUnit.MINUTES.toMillis(5);
+  // previous_kid de la primera clave: solo puede existir una
+  static final String FIRST_KEY = "none";
+
+  private final JwtSigningKeyRepository repository;
+  private final TransactionTemplate transactionTemplate;
+  private final long accessTokenTtlMillis;
+  private final long rotationIntervalMillis;
+  private final long publishAheadMillis;
+  private final SecretKeySpec keyEncryptionKey;
+  private final SecretKey legacyKey;
+  private final long legacyAcceptedUntilMillis;
+  private final SecureRandom random = new SecureRandom();
+
+  private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of(), Map.of("keys", List.of()));
+
+  /**
+   * Clave cargada en memoria.
+   */
+  record LoadedKey(String kid, long activatesAtMillis, PrivateKey privateKey, ECPublicKey publicKey) {}
+
+  private record Snapshot(List<LoadedKey> keys, Map<String, PublicKey> publicKeys, Map<String, Object> jwks) {}
+
+  @Autowired
+  public JwtKeyManager(
+    JwtSigningKeyRepository repository,
+    PlatformTransactionManager transactionManager,
+    @Value("${jwt.access-token.ttl-minutes:15}") long accessTokenTtlMinutes,
+    @Value("${jwt.signing.rotation-interval-hours:24}") long rotationIntervalHours,
+    @Value("${jwt.signing.publish-ahead-minutes:10}") long publishAheadMinutes,
+    @Value("${jwt.signing.key-encryption-secret:}") String keyEncryptionSecret,
+    @Value("${jwt.signing.legacy-hs256-secret:}") String legacyHs256Secret,
+    @Value("${jwt.signing.accept-legacy-hs256:false}") boolean acceptLegacyHs256,
+    @Value("${jwt.signing.legacy-hs256-window-minutes:60}") long legacyWindowMinutes
+  ) {
+    this.repository = repository;
+    this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+    this.accessTokenTtlMillis = TimeUnit.MINUTES.toMillis(accessTokenTtlMinutes);
+    this.rotationIntervalMillis = TimeUnit.HOURS.toMillis(rotationIntervalHours);
+    this.publishAheadMillis = TimeUnit.MINUTES.toMillis(publishAheadMinutes);
+    this.keyEncryptionKey = keyEncryptionSecret == null || keyEncryptionSecret.isBlank()
+      ? null
+      : new SecretKeySpec(sha256(keyEncryptionSecret), "AES");
+    if (acceptLegacyHs256 && (legacyHs256Secret == null || legacyHs256Secret.isBlank())) {
+      logger.warn("[JwtKeyManager] jwt.signing.accept-legacy-hs256 activo sin legacy-hs256-secret: se rechazan los tokens sin kid");
+    }
+    this.legacyKey = acceptLegacyHs256 && legacyHs256Secret != null && !legacyHs256Secret.isBlank()
+      ? Keys.hmacShaKeyFor(Decoders.BASE64.decode(legacyHs256Secret))
+      : null;
+    this.legacyAcceptedUntilMillis = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(legacyWindowMinutes);
+  }
+
+  /**
+   * Gestor con una única clave en memoria, sin base de datos (benchmarks y pruebas unitarias).
+   */
+  public static JwtKeyManager inMemory() {
+    JwtKeyManager manager = new JwtKeyManager(null, null, 15, 24, 0, "", "", false, 0);
+    KeyPair pair = manager.generateKeyPair();
+    LoadedKey key = new LoadedKey(UUID.randomUUID().toString(), 0, pair.getPrivate(), (ECPublicKey) pair.getPublic());
+    manager.snapshot = manager.buildSnapshot(List.of(key));
+    return manager;
+  }
+
+  @PostConstruct
+  public void init() {
+    if (keyEncryptionKey == null) {
+      logger.warn("[JwtKeyManager] jwt.signing.key-encryption-secret vacío: las claves privadas se guardan sin cifrar");
+    }
+    if (legacyKey != null) {
+      logger.warn("[JwtKeyManager] Se aceptan tokens HS256 sin kid hasta {}",
+        Instant.ofEpochMilli(legacyAcceptedUntilMillis));
+    }
+    rotateIfDue();
+  }
+
+  /**
+   * Clave con la que se firman los tokens ahora: la más reciente ya activada.
+   */
+  LoadedKey signingKey() {
+    long now = System.currentTimeMillis();
+    for (LoadedKey key : snapshot.keys()) {
+      if (key.activatesAtMillis() <= now) {
+        return key;
+      }
+    }
+    throw new IllegalStateException("No hay clave de firma JWT activa");
+  }
+
+  /**
+   * Clave para verificar un token según su {@code kid}. Los tokens sin
+   * {@code kid} son los HS256 emitidos antes de la firma asimétrica; solo se
+   * aceptan con {@code jwt.signing.accept-legacy-hs256} y el secreto
+   * configurados, y durante {@code legacy-hs256-window-minutes} tras arrancar
+   * (la vida de los tokens emitidos antes del despliegue).
+   *
+   * @return la clave, o null si el {@code kid} no está publicado
+   */
+  Key verificationKey(String kid) {
+    if (kid == null) {
+      return legacyKey != null && System.currentTimeMillis() < legacyAcceptedUntilMillis ? legacyKey : null;
+    }
+    return snapshot.publicKeys().get(kid);
+  }
+
+  /**
+   * Documento JWKS (RFC 7517) con todas las claves publicadas.
+   */
+  public Map<String, Object> jwks() {
+    return snapshot.jwks();
+  }
+
+  /**
+   * Crea una clave nueva si la más reciente ya cumplió su intervalo de
+   * rotación (o si no hay ninguna) y recarga la instantánea.
+   */
+  @Scheduled(
+    initialDelayString = "${jwt.signing.rotation-check-interval-ms:300000}",
+    fixedDelayString = "${jwt.signing.rotation-check-interval-ms:300000}"
+  )
+  public void rotateIfDue() {
+    if (repository == null) {
+      return;
+    }
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        LocalDateTime now = LocalDateTime.now();
+        List<JwtSigningKey> published = repository.findPublished(now);
+        if (published.isEmpty()) {
+          // Primera clave: firma desde ya
+          create(FIRST_KEY, now);
+        } else {
+          // La siguiente clave se crea con antelación para que esté publicada al activarse
+          long newestActivation = toMillis(published.get(0).getActivatesAt());
+          if (newestActivation + rotationIntervalMillis <= System.currentTimeMillis() + publishAheadMillis) {
+            create(published.get(0).getKid(), now.plusNanos(TimeUnit.MILLISECONDS.toNanos(publishAheadMillis)));
+          }
+        }
+        repository.deleteExpired(now);
+      });
+    } catch (DataIntegrityViolationException ex) {
+      logger.info("[JwtKeyManager] Otra instancia rotó la clave a la vez; se recarga la suya");
+    }
+    reload();
+  }
+
+  /**
+   * Fuerza una rotación: la nueva clave se publica ya y firma tras {@code publish-ahead-minutes}.
+   *
+   * @throws DataIntegrityViolationException si otra instancia rotó a la vez desde la misma clave
+   */
+  public String rotate() {
+    if (repository == null) {
+      throw new IllegalStateException("Rotación no disponible sin base de datos");
+    }
+    try {
+      return transactionTemplate.execute(status -> {
+        LocalDateTime now = LocalDateTime.now();
+        List<JwtSigningKey> published = repository.findPublished(now);
+        String previous = published.isEmpty() ? FIRST_KEY : published.get(0).getKid();
+        return create(previous, now.plusNanos(TimeUnit.MILLISECONDS.toNanos(publishAheadMillis)));
+      });
+    } finally {
+      reload();
+    }
+  }
+
+  /**
+   * Recarga las claves publicadas; recoge las rotaciones hechas por otras instancias.
+   */
+  @Scheduled(
+    initialDelayString = "${jwt.signing.reload-interval-ms:60000}",
+    fixedDelayString = "${jwt.signing.reload-interval-ms:60000}"
+  )
+  public void reload() {
+    if (repository == null) {
+      return;
+    }
+    List<LoadedKey> keys = new ArrayList<>();
+    for (JwtSigningKey entity : repository.findPublished(LocalDateTime.now())) {
+      try {
+        keys.add(load(entity));
+      } catch (GeneralSecurityException | IllegalArgumentException ex) {
+        logger.error("[JwtKeyManager] No se pudo cargar la clave {}: {}", entity.getKid(), ex.getMessage());
+      }
+    }
+    Snapshot previous = snapshot;
+    snapshot = buildSnapshot(keys);
+    if (!previous.publicKeys().keySet().equals(snapshot.publicKeys().keySet())) {
+      logger.info("[JwtKeyManager] Claves JWT publicadas: {}", snapshot.publicKeys().keySet());
+    }
+  }
+
+  /**
+   * Crea la clave que sucede a {@code previousKid}. La inserción se envía ya
+   * para que, si otra instancia creó antes el sucesor, la restricción única
+   * falle aquí y no se retire ninguna clave.
+   */
+  private String create(String previousKid, LocalDateTime activatesAt) {
+    KeyPair pair = generateKeyPair();
+    JwtSigningKey entity = new JwtSigningKey();
+    entity.setKid(UUID.randomUUID().toString());
+    entity.setPreviousKid(previousKid);
+    entity.setAlgorithm(ALGORITHM);
+    entity.setPublicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+    entity.setPrivateKey(encrypt(pair.getPrivate().getEncoded()));
+    entity.setActivatesAt(activatesAt);
+    repository.saveAndFlush(entity);
+
+    // Las claves anteriores firman hasta que se active esta; sus tokens viven un TTL más
+    LocalDateTime retiredAt = activatesAt.plusNanos(
+      TimeUnit.MILLISECONDS.toNanos(accessTokenTtlMillis + CLOCK_SKEW_MILLIS));
+    repository.retireAllExcept(entity.getKid(), retiredAt);
+    logger.info("[JwtKeyManager] Nueva clave de firma {} (activa desde {})", entity.getKid(), activatesAt);
+    return entity.getKid();
+  }
+
+  private LoadedKey load(JwtSigningKey entity) throws GeneralSecurityException {
+    KeyFactory factory = KeyFactory.getInstance("EC");
+    PublicKey publicKey = factory.generatePublic(
+      new X509EncodedKeySpec(Base64.getDecoder().decode(entity.getPublicKey())));
+    PrivateKey privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(decrypt(entity.getPrivateKey())));
+    return new LoadedKey(entity.getKid(), toMillis(entity.getActivatesAt()), privateKey, (ECPublicKey) publicKey);
+  }
+
+  private Snapshot buildSnapshot(List<LoadedKey> keys) {
+    List<LoadedKey> sorted = new ArrayList<>(keys);
+    sorted.sort(Comparator.comparingLong(LoadedKey::activatesAtMillis).reversed());
+    Map<String, PublicKey> publicKeys = new HashMap<>();
+    List<Map<String, Object>> jwks = new ArrayList<>();
+    for (LoadedKey key : sorted) {
+      publicKeys.put(key.kid(), key.publicKey());
+      jwks.add(toJwk(key));
+    }
+    return new Snapshot(List.copyOf(sorted), Map.copyOf(publicKeys), Map.of("keys", List.copyOf(jwks)));
+  }
+
+  private static Map<String, Object> toJwk(LoadedKey key) {
+    Map<String, Object> jwk = new LinkedHashMap<>();
+    jwk.put("kty", "EC");
+    jwk.put("crv", "P-256");
+    jwk.put("use", "sig");
+    jwk.put("alg", ALGORITHM);
+    jwk.put("kid", key.kid());
+    jwk.put("x", coordinate(key.publicKey().getW().getAffineX()));
+    jwk.put("y", coordinate(key.publicKey().getW().getAffineY()));
+    return jwk;
+  }
+
+  /**
+   * Coordenada de la curva en 32 bytes big-endian sin signo, Base64URL (RFC 7518 §6.2.1).
+   */
+  private static String coordinate(BigInteger value) {
+    byte[] raw = value.toByteArray();
+    byte[] fixed = new byte[32];
+    int length = Math.min(raw.length, 32);
+    System.arraycopy(raw, raw.length - length, fixed, 32 - length, length);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+  }
+
+  private KeyPair generateKeyPair() {
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+      generator.initialize(new ECGenParameterSpec(CURVE), random);
+      return generator.generateKeyPair();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("No se pudo generar la clave EC", e);
+    }
+  }
+
+  private String encrypt(byte[] plain) {
+    if (keyEncryptionKey == null) {
+      return Base64.getEncoder().encodeToString(plain);
+    }
+    try {
+      byte[] iv = new byte[GCM_IV_BYTES];
+      random.nextBytes(iv);
+      Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+      cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(128, iv));
+      byte[] encrypted = cipher.doFinal(plain);
+      return ENCRYPTED_PREFIX + Base64.getEncoder().encodeToString(
+        ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("No se pudo cifrar la clave de firma", e);
+    }
+  }
+
+  private byte[] decrypt(String stored) throws GeneralSecurityException {
+    if (!stored.startsWith(ENCRYPTED_PREFIX)) {
+      return Base64.getDecoder().decode(stored);
+    }
+    if (keyEncryptionKey == null) {
+      throw new GeneralSecurityException("clave cifrada y jwt.signing.key-encryption-secret vacío");
+    }
+    byte[] data = Base64.getDecoder().decode(stored.substring(ENCRYPTED_PREFIX.length()));
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(128, data, 0, GCM_IV_BYTES));
+    return cipher.doFinal(data, GCM_IV_BYTES, data.length - GCM_IV_BYTES);
+  }
+
+  private static long toMillis(LocalDateTime value) {
+    return value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private static byte[] sha256(String value) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("SHA-256 no disponible", e);
+    }
+  }
+}
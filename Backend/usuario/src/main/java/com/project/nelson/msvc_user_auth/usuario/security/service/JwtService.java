@@ -1,30 +1,87 @@
 package com.project.nelson.msvc_user_auth.usuario.security.service;
 
-import com.project.nelson.msvc_user_auth.usuario.security.TokenJwtConfig;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Servicio profesional para manejo de JWT.
- * Variables y clave obtenidas desde TokenJwtConfig para uniformidad y seguridad.
  * Métodos de generación, validación, parsing y refresh de tokens JWT.
+ *
+ * Los tokens se firman con ES256 y llevan en la cabecera el {@code kid} de la
+ * clave; {@link JwtKeyManager} rota las claves y las publica como JWKS, de
+ * modo que el gateway verifica sin compartir ningún secreto con usuario.
+ *
+ * El token se parsea y verifica una sola vez con {@link #verify(String)}; el
+ * {@link VerifiedToken} resultante se reutiliza para validar y refrescar.
+ *
+ * Métricas: {@code usuario.jwt.sign} y {@code usuario.jwt.verify} (tag
+ * {@code result}: valid, expired, invalid), con histograma de percentiles.
  */
 @Service
 public class JwtService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
 
-    // Clave secreta y configuración obtenida de TokenJwtConfig
-    private static final SecretKey SECRET_KEY = TokenJwtConfig.SECRET_KEY;
-    private static final int TOKEN_EXPIRATION_MINUTES = 60;
+    /**
+     * Instante de emisión en milisegundos; los tokens que no lo llevan usan 'iat'.
+     */
+    static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
+    private final JwtKeyManager keyManager;
+
+    // Vida corta: la sesión se prolonga con refresh tokens rotatorios
+    @Value("${jwt.access-token.ttl-minutes:15}")
+    private long accessTokenTtlMinutes = 15;
+
+    // El parser de jjwt es inmutable y thread-safe: se comparte entre peticiones
+    private final JwtParser parser;
+
+    private final Timer signTimer;
+    private final Timer verifyValidTimer;
+    private final Timer verifyExpiredTimer;
+    private final Timer verifyInvalidTimer;
+
+    public JwtService(JwtKeyManager keyManager) {
+        this(keyManager, Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public JwtService(JwtKeyManager keyManager, MeterRegistry meterRegistry) {
+        this.keyManager = keyManager;
+        this.signTimer = Timer.builder("usuario.jwt.sign")
+                .description("Firma ES256 de tokens de acceso")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.verifyValidTimer = verifyTimer(meterRegistry, "valid");
+        this.verifyExpiredTimer = verifyTimer(meterRegistry, "expired");
+        this.verifyInvalidTimer = verifyTimer(meterRegistry, "invalid");
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        Key key = keyManager.verificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Clave de firma desconocida: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+    }
 
     // ================= MÉTODOS PÚBLICOS PRINCIPALES =================
 
@@ -32,120 +89,105 @@ public class JwtService {
      * Genera un JWT válido para el usuario autenticado.
      */
     public String generateToken(UserDetails userDetails, Collection<? extends GrantedAuthority> authorities, String email) {
+        return issueAccessToken(userDetails, authorities, email).value();
+    }
+
+    /**
+     * Genera un JWT y devuelve también su jti y expiración.
+     */
+    public AccessToken issueAccessToken(UserDetails userDetails, Collection<? extends GrantedAuthority> authorities, String email) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
         claims.put("email", email);
         claims.put("username", userDetails.getUsername());
 
+        long start = System.nanoTime();
+        JwtKeyManager.LoadedKey signingKey = keyManager.signingKey();
+        String jwtId = UUID.randomUUID().toString();
+        long issuedAtMillis = System.currentTimeMillis();
+        // 'iat' solo tiene segundos; la revocación por fecha compara en milisegundos
+        claims.put(ISSUED_AT_MILLIS_CLAIM, issuedAtMillis);
+        Date expiresAt = new Date(issuedAtMillis + TimeUnit.MINUTES.toMillis(accessTokenTtlMinutes));
         String token = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
                 .setClaims(claims)
                 .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_EXPIRATION_MINUTES * 60 * 1000))
-                .signWith(SECRET_KEY, SignatureAlgorithm.HS256)
+                // jti: permite revocar este token concreto (logout)
+                .setId(jwtId)
+                .setIssuedAt(new Date(issuedAtMillis))
+                .setExpiration(expiresAt)
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
                 .compact();
+        signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
-        logger.info("[JwtService] Token generado para usuario: {}", userDetails.getUsername());
-        return token;
-    }
-
-    /**
-     * Parsea el token y devuelve los claims.
-     */
-    public Claims parseToken(String token) {
-        return extractAllClaims(token);
-    }
-
-    /**
-     * Refresca el token usando los claims del anterior.
-     */
-    public String refreshToken(String oldToken, String email) {
-        Claims claims = extractAllClaims(oldToken);
-        String username = claims.get("username", String.class);
-        List<String> roles = claims.get("roles", List.class);
-
-        org.springframework.security.core.userdetails.User userDetails =
-            new org.springframework.security.core.userdetails.User(
-                username, "",
-                roles != null ? roles.stream().map(r -> (GrantedAuthority) () -> r).collect(Collectors.toList()) : Collections.emptyList()
-            );
-        return generateToken(userDetails, userDetails.getAuthorities(), email);
+        logger.debug("[JwtService] Token generado para usuario: {}", userDetails.getUsername());
+        return new AccessToken(token, jwtId, expiresAt);
     }
 
     /**
-     * Extrae el username del token JWT.
+     * Parsea y verifica el token una única vez (firma y expiración).
+     *
+     * @throws JwtException si el token es inválido o está expirado
+     * @throws IllegalArgumentException si el token es nulo o vacío
      */
-    public String extractUsername(String token) {
-        try {
-            return extractAllClaims(token).getSubject();
-        } catch (Exception ex) {
-            logger.error("[JwtService] Error al extraer username: {}", ex.getMessage());
-            return null;
-        }
+    public VerifiedToken verify(String token) {
+        Claims claims = extractAllClaims(token);
+        List<?> roles = claims.get("roles", List.class);
+        Number issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Number.class);
+        return new VerifiedToken(
+                claims.getSubject(),
+                roles != null ? roles.stream().map(String::valueOf).toList() : List.of(),
+                claims.get("email", String.class),
+                issuedAtMillis != null ? new Date(issuedAtMillis.longValue()) : claims.getIssuedAt(),
+                claims.getExpiration(),
+                claims.getId());
     }
 
     /**
-     * Valida si el token es correcto y pertenece al usuario.
+     * Valida que el token verificado pertenezca al usuario y no haya expirado.
      */
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        try {
-            String username = extractUsername(token);
-            boolean valid = username != null && username.equals(userDetails.getUsername()) && !isTokenExpired(token);
-            if (!valid) {
-                logger.warn("[JwtService] Token inválido para usuario: {}", userDetails.getUsername());
-            }
-            return valid;
-        } catch (Exception ex) {
-            logger.error("[JwtService] Error al validar token: {}", ex.getMessage());
-            return false;
+    public boolean isTokenValid(VerifiedToken verified, UserDetails userDetails) {
+        boolean valid = verified.subject() != null
+                && verified.subject().equals(userDetails.getUsername())
+                && verified.expiresAt() != null
+                && verified.expiresAt().after(new Date());
+        if (!valid) {
+            logger.debug("[JwtService] Token inválido para usuario: {}", userDetails.getUsername());
         }
-    }
-
-    /**
-     * Construye el cuerpo de respuesta para autenticación.
-     */
-    public Map<String, Object> buildResponseBody(String token, String username, Collection<? extends GrantedAuthority> authorities) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("token", token);
-        body.put("username", username);
-        body.put("roles", authorities.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
-        return body;
+        return valid;
     }
 
     // ================= MÉTODOS PRIVADOS AUXILIARES =================
 
-    /**
-     * Verifica si el token está expirado.
-     */
-    private boolean isTokenExpired(String token) {
-        try {
-            Date expiration = extractAllClaims(token).getExpiration();
-            boolean expired = expiration.before(new Date());
-            if (expired) {
-                logger.warn("[JwtService] Token expirado");
-            }
-            return expired;
-        } catch (Exception ex) {
-            logger.error("[JwtService] Error al verificar expiración: {}", ex.getMessage());
-            return true;
-        }
-    }
-
     /**
      * Extrae todos los claims del token JWT.
      */
     private Claims extractAllClaims(String token) {
+        long start = System.nanoTime();
+        Timer timer = verifyInvalidTimer;
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            logger.debug("[JwtService] Claims extraídos: {}", claims);
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            timer = verifyValidTimer;
+            logger.debug("[JwtService] Token verificado para usuario: {}", claims.getSubject());
             return claims;
+        } catch (ExpiredJwtException ex) {
+            timer = verifyExpiredTimer;
+            logger.debug("[JwtService] Token expirado: {}", ex.getMessage());
+            throw ex;
         } catch (JwtException ex) {
-            logger.error("[JwtService] Error al parsear claims: {}", ex.getMessage());
+            // Error del cliente, frecuente bajo ataque: cuenta en usuario.jwt.verify{result=invalid}
+            logger.debug("[JwtService] Error al parsear claims: {}", ex.getMessage());
             throw ex;
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
-}
\ No newline at end of file
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("usuario.jwt.verify")
+                .description("Parseo y verificación de firma de tokens de acceso")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
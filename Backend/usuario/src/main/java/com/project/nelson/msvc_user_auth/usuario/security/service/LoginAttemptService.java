@@ -0,0 +1,339 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Limita los intentos de login fallidos por username y por IP de cliente.
+ *
+ * {@link #checkAllowed(String, String)} se llama antes de
+ * {@code AuthenticationManager.authenticate}: un username o una IP bloqueados
+ * se rechazan con una consulta a un mapa en memoria, sin cargar el usuario ni
+ * calcular BCrypt. Los fallos se cuentan en una ventana deslizante (contador
+ * de la ventana actual más la anterior ponderada) y, al alcanzar el umbral, la
+ * clave se bloquea {@code lockout-base-seconds} × 2^n, hasta
+ * {@code lockout-max-seconds}. Cada clave tiene su propio registro con su
+ * propio bloqueo, de modo que los hilos solo compiten si atacan la misma clave.
+ *
+ * Un login correcto limpia el registro del username, no el de la IP: un
+ * atacante no puede reiniciar su contador entrando con una cuenta propia. El
+ * estado es por instancia; detrás de N instancias el atacante obtiene como
+ * mucho N veces el umbral.
+ *
+ * Con {@code max-entries} registros, la clave nueva hace sitio: un único hilo
+ * descarta los registros caducados y, si no basta, los de fallo más antiguo,
+ * dejando para el final los que siguen bloqueados.
+ */
+@Service
+public class LoginAttemptService {
+
+  private static final Logger logger = LoggerFactory.getLogger(LoginAttemptService.class);
+
+  private static final double EVICTION_TARGET_RATIO = 0.9;
+
+  private final ConcurrentHashMap<String, FailureRecord> records = new ConcurrentHashMap<>();
+  private final AtomicLong nextSweepAt = new AtomicLong();
+  private final AtomicBoolean evicting = new AtomicBoolean(false);
+  private final LongSupplier clock;
+  private final long windowMillis;
+  private final int maxFailuresPerUser;
+  private final int maxFailuresPerIp;
+  private final long lockoutBaseMillis;
+  private final long lockoutMaxMillis;
+  private final int maxEntries;
+  private final List<String> trustedProxies;
+  private final Counter throttledByUser;
+  private final Counter throttledByIp;
+
+  @Autowired
+  public LoginAttemptService(
+    MeterRegistry meterRegistry,
+    @Value("${security.login.throttle.window-seconds:300}") long windowSeconds,
+    @Value("${security.login.throttle.max-failures-per-user:5}") int maxFailuresPerUser,
+    @Value("${security.login.throttle.max-failures-per-ip:20}") int maxFailuresPerIp,
+    @Value("${security.login.throttle.lockout-base-seconds:30}") long lockoutBaseSeconds,
+    @Value("${security.login.throttle.lockout-max-seconds:900}") long lockoutMaxSeconds,
+    @Value("${security.login.throttle.max-entries:100000}") int maxEntries,
+    @Value("${security.login.throttle.trusted-proxies:}") String trustedProxies
+  ) {
+    this(System::currentTimeMillis, meterRegistry, windowSeconds, maxFailuresPerUser, maxFailuresPerIp,
+      lockoutBaseSeconds, lockoutMaxSeconds, maxEntries, trustedProxies);
+  }
+
+  LoginAttemptService(
+    LongSupplier clock,
+    MeterRegistry meterRegistry,
+    long windowSeconds,
+    int maxFailuresPerUser,
+    int maxFailuresPerIp,
+    long lockoutBaseSeconds,
+    long lockoutMaxSeconds,
+    int maxEntries,
+    String trustedProxies
+  ) {
+    this.clock = clock;
+    this.windowMillis = TimeUnit.SECONDS.toMillis(windowSeconds);
+    this.maxFailuresPerUser = maxFailuresPerUser;
+    this.maxFailuresPerIp = maxFailuresPerIp;
+    this.lockoutBaseMillis = TimeUnit.SECONDS.toMillis(lockoutBaseSeconds);
+    this.lockoutMaxMillis = TimeUnit.SECONDS.toMillis(lockoutMaxSeconds);
+    this.maxEntries = maxEntries;
+    this.trustedProxies = trustedProxies == null || trustedProxies.isBlank()
+      ? List.of()
+      : Arrays.stream(trustedProxies.split(",")).map(String::trim).filter(entry -> !entry.isEmpty()).toList();
+    this.throttledByUser = Counter.builder("usuario.login.throttled").tag("key", "user")
+      .description("Logins rechazados sin autenticar por username bloqueado")
+      .register(meterRegistry);
+    this.throttledByIp = Counter.builder("usuario.login.throttled").tag("key", "ip")
+      .description("Logins rechazados sin autenticar por IP bloqueada")
+      .register(meterRegistry);
+    Gauge.builder("usuario.login.throttle.entries", records, ConcurrentHashMap::size)
+      .description("Usernames e IPs con fallos recientes en memoria")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Rechaza el intento si el username o la IP están bloqueados.
+   *
+   * @throws LoginThrottledException con los segundos que faltan para el desbloqueo
+   */
+  public void checkAllowed(String username, String clientIp) {
+    long now = clock.getAsLong();
+    long userWait = remainingLockMillis(userKey(username), now);
+    if (userWait > 0) {
+      throttledByUser.increment();
+      throw new LoginThrottledException(userWait);
+    }
+    long ipWait = remainingLockMillis(ipKey(clientIp), now);
+    if (ipWait > 0) {
+      throttledByIp.increment();
+      throw new LoginThrottledException(ipWait);
+    }
+  }
+
+  /**
+   * Registra credenciales inválidas para el username y la IP.
+   */
+  public void recordFailure(String username, String clientIp) {
+    long now = clock.getAsLong();
+    sweepIfDue(now);
+    String userKey = userKey(username);
+    if (userKey != null && recordFailure(userKey, maxFailuresPerUser, now)) {
+      logger.warn("[LoginAttemptService] Username bloqueado por intentos fallidos: {}", username);
+    }
+    String ipKey = ipKey(clientIp);
+    if (ipKey != null && recordFailure(ipKey, maxFailuresPerIp, now)) {
+      logger.warn("[LoginAttemptService] IP bloqueada por intentos fallidos: {}", clientIp);
+    }
+  }
+
+  /**
+   * Login correcto: olvida los fallos del username.
+   */
+  public void recordSuccess(String username) {
+    String key = userKey(username);
+    if (key != null && !records.isEmpty()) {
+      records.remove(key);
+    }
+  }
+
+  /**
+   * IP del cliente. Si la petición llega desde uno de los
+   * {@code trusted-proxies} (el gateway) se toma la última entrada de
+   * {@code X-Forwarded-For}, la que añade el gateway; las anteriores las
+   * controla el cliente. Desde cualquier otra dirección la cabecera se ignora.
+   */
+  public String clientIp(HttpServletRequest request) {
+    String remoteAddr = request.getRemoteAddr();
+    if (!trustedProxies.isEmpty() && isTrustedProxy(remoteAddr)) {
+      String forwarded = request.getHeader("X-Forwarded-For");
+      if (forwarded != null && !forwarded.isBlank()) {
+        return forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+      }
+    }
+    return remoteAddr;
+  }
+
+  public int size() {
+    return records.size();
+  }
+
+  /**
+   * Las entradas son IP, rango CIDR o nombre de host; los nombres se
+   * resuelven en cada login (caché DNS de la JVM) para seguir al gateway
+   * aunque cambie de dirección al reiniciarse.
+   */
+  private boolean isTrustedProxy(String remoteAddr) {
+    if (remoteAddr == null) {
+      return false;
+    }
+    for (String proxy : trustedProxies) {
+      try {
+        if (proxy.indexOf('/') >= 0) {
+          if (new IpAddressMatcher(proxy).matches(remoteAddr)) {
+            return true;
+          }
+          continue;
+        }
+        for (InetAddress address : InetAddress.getAllByName(proxy)) {
+          if (address.getHostAddress().equals(remoteAddr)) {
+            return true;
+          }
+        }
+      } catch (UnknownHostException | IllegalArgumentException ex) {
+        logger.debug("[LoginAttemptService] Proxy de confianza no resoluble: {}", proxy);
+      }
+    }
+    return false;
+  }
+
+  private long remainingLockMillis(String key, long now) {
+    // Caso habitual sin ataques: el mapa está vacío o no contiene la clave
+    if (key == null || records.isEmpty()) {
+      return 0;
+    }
+    FailureRecord record = records.get(key);
+    return record == null ? 0 : record.remainingLockMillis(now);
+  }
+
+  private boolean recordFailure(String key, int maxFailures, long now) {
+    FailureRecord record = records.get(key);
+    if (record == null) {
+      if (records.size() >= maxEntries) {
+        evictIfNeeded(now);
+      }
+      record = records.computeIfAbsent(key, k -> new FailureRecord());
+    }
+    return record.fail(now, maxFailures);
+  }
+
+  /**
+   * Un único hilo (el que gane el CAS) deja el mapa al 90% de
+   * {@code max-entries}: primero los registros caducados, después los no
+   * bloqueados de fallo más antiguo y, solo si no basta, los bloqueados.
+   */
+  private void evictIfNeeded(long now) {
+    if (!evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      records.values().removeIf(record -> record.isStale(now));
+      int overflow = records.size() - (int) (maxEntries * EVICTION_TARGET_RATIO);
+      if (overflow <= 0) {
+        return;
+      }
+      List<Candidate> candidates = new ArrayList<>(records.size());
+      records.forEach((key, record) ->
+        candidates.add(new Candidate(key, record, record.remainingLockMillis(now) > 0, record.lastFailure())));
+      candidates.sort(Comparator.comparing(Candidate::locked).thenComparingLong(Candidate::lastFailure));
+      for (int i = 0; i < overflow && i < candidates.size(); i++) {
+        records.remove(candidates.get(i).key(), candidates.get(i).record());
+      }
+      logger.warn("[LoginAttemptService] Límite de {} registros alcanzado: se descartaron los más antiguos",
+        maxEntries);
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  private void sweepIfDue(long now) {
+    long due = nextSweepAt.get();
+    if (now < due || !nextSweepAt.compareAndSet(due, now + windowMillis)) {
+      return;
+    }
+    records.values().removeIf(record -> record.isStale(now));
+  }
+
+  private static String userKey(String username) {
+    // MySQL compara usernames sin distinguir mayúsculas
+    return username == null || username.isBlank() ? null : "u:" + username.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static String ipKey(String clientIp) {
+    return clientIp == null || clientIp.isBlank() ? null : "ip:" + clientIp;
+  }
+
+  /**
+   * Registro candidato a expulsión, con su estado leído una sola vez.
+   */
+  private record Candidate(String key, FailureRecord record, boolean locked, long lastFailure) {}
+
+  /**
+   * Fallos de una clave en ventana deslizante y su bloqueo exponencial.
+   */
+  private final class FailureRecord {
+
+    private long windowStart;
+    private int currentCount;
+    private int previousCount;
+    private int lockouts;
+    private long lockedUntil;
+    private long lastFailure;
+
+    synchronized long remainingLockMillis(long now) {
+      return Math.max(0, lockedUntil - now);
+    }
+
+    /**
+     * @return true si este fallo bloquea la clave
+     */
+    synchronized boolean fail(long now, int maxFailures) {
+      if (now - lastFailure > windowMillis + lockoutMaxMillis) {
+        // Sin actividad reciente: la escalada vuelve a empezar
+        lockouts = 0;
+      }
+      lastFailure = now;
+      roll(now);
+      currentCount++;
+      if (estimate(now) < maxFailures || now < lockedUntil) {
+        return false;
+      }
+      long lockMillis = Math.min(lockoutMaxMillis, lockoutBaseMillis << Math.min(lockouts, 20));
+      lockedUntil = now + lockMillis;
+      lockouts++;
+      return true;
+    }
+
+    synchronized long lastFailure() {
+      return lastFailure;
+    }
+
+    synchronized boolean isStale(long now) {
+      return now >= lockedUntil && now - lastFailure > windowMillis + lockoutMaxMillis;
+    }
+
+    private void roll(long now) {
+      long elapsedWindows = (now - windowStart) / windowMillis;
+      if (elapsedWindows >= 1) {
+        previousCount = elapsedWindows == 1 ? currentCount : 0;
+        currentCount = 0;
+        windowStart += elapsedWindows * windowMillis;
+      }
+    }
+
+    private double estimate(long now) {
+      double previousWeight = 1.0 - (double) (now - windowStart) / windowMillis;
+      return currentCount + previousCount * previousWeight;
+    }
+  }
+}
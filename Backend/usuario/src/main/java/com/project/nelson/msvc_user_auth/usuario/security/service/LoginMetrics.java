@@ -0,0 +1,48 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Duración y resultado de cada login ({@code usuario.login}, tag
+ * {@code outcome}), medido de extremo a extremo: lectura de credenciales,
+ * bloqueo por intentos, BCrypt, emisión de tokens y respuesta.
+ *
+ * Los timers se registran al arrancar, uno por resultado, para que el camino
+ * del login no busque ni cree medidores.
+ */
+@Component
+public class LoginMetrics {
+
+  public enum Outcome {
+    SUCCESS,
+    BAD_CREDENTIALS,
+    THROTTLED,
+    UNAVAILABLE,
+    ERROR
+  }
+
+  private final Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+
+  public LoginMetrics(MeterRegistry meterRegistry) {
+    for (Outcome outcome : Outcome.values()) {
+      timers.put(outcome, Timer.builder("usuario.login")
+        .description("Duración de los logins por resultado")
+        .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+    }
+  }
+
+  /**
+   * Registra un login iniciado en {@code startNanos} ({@link System#nanoTime()}).
+   */
+  public void record(Outcome outcome, long startNanos) {
+    timers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+}
@@ -0,0 +1,23 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Username o IP bloqueados por demasiados logins fallidos.
+ *
+ * Se traduce a 429 (Too Many Requests) con {@code Retry-After}. Se lanza antes
+ * de autenticar, por lo que no se carga el usuario ni se calcula BCrypt.
+ */
+public class LoginThrottledException extends AuthenticationException {
+
+  private final long retryAfterSeconds;
+
+  public LoginThrottledException(long retryAfterMillis) {
+    super("Demasiados intentos fallidos, reintentar más tarde");
+    this.retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
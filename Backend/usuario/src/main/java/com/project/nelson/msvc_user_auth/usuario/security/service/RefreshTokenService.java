@@ -0,0 +1,299 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.RefreshToken;
+import com.project.nelson.msvc_user_auth.usuario.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Refresh tokens opacos y rotatorios.
+ *
+ * El login emite un par access token (vida corta) + refresh token. Cada
+ * {@link #rotate} consume el refresh token y emite otro de la misma familia,
+ * sin verificar la contraseña: renovar la sesión no cuesta un BCrypt.
+ *
+ * Solo se guarda el SHA-256 del token (los tokens tienen 256 bits aleatorios,
+ * no necesitan un hash lento). La búsqueda pasa primero por una caché en
+ * memoria de los tokens emitidos por esta instancia y después por el índice
+ * único de {@code token_hash}. La caché guarda cada token como mucho
+ * {@code cache-ttl-minutes} (los que no se usan en ese tiempo se buscan en la
+ * BD) y, llena, descarta los más antiguos, de modo que siempre admite los
+ * recién emitidos.
+ *
+ * La validez la decide siempre el UPDATE condicional de
+ * {@link RefreshTokenRepository#markUsed}: si un token ya rotado vuelve a
+ * presentarse, se revoca la familia completa y los access tokens vivos
+ * emitidos con ella. La excepción es un segundo uso dentro de
+ * {@code reuse-grace-ms} del primero (dos pestañas que refrescan a la vez, o
+ * un reintento por timeout): recibe también un par nuevo de la misma familia.
+ */
+@Service
+public class RefreshTokenService {
+
+  private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+  private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 no disponible", e);
+    }
+  });
+
+  /** Tras una purga por tamaño la caché queda al 90% de su capacidad. */
+  private static final double EVICTION_TARGET_RATIO = 0.9;
+
+  private final SecureRandom random = new SecureRandom();
+  private final ConcurrentHashMap<String, CachedToken> cache = new ConcurrentHashMap<>();
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  private final RefreshTokenRepository repository;
+  private final TokenRevocationService revocationService;
+  private final long ttlMillis;
+  private final int cacheMaxSize;
+  private final long cacheTtlMillis;
+  private final long reuseGraceMillis;
+  private final Counter cacheHits;
+  private final Counter cacheMisses;
+  private final Counter reuseDetected;
+  private final Counter reuseWithinGrace;
+
+  /**
+   * Refresh token emitido: el valor en claro solo existe en la respuesta.
+   */
+  public record Issued(String token, Instant expiresAt) {
+
+    public long expiresInSeconds() {
+      return Math.max(0, expiresAt.getEpochSecond() - Instant.now().getEpochSecond());
+    }
+  }
+
+  /**
+   * Resultado de una rotación: nuevo access token y nuevo refresh token.
+   */
+  public record Rotation(String username, AccessToken accessToken, Issued refreshToken) {}
+
+  private record CachedToken(Long id, String familyId, String username, long expiresAtMillis, long cachedAtMillis) {}
+
+  public RefreshTokenService(
+    RefreshTokenRepository repository,
+    TokenRevocationService revocationService,
+    MeterRegistry meterRegistry,
+    @Value("${jwt.refresh-token.ttl-days:14}") long ttlDays,
+    @Value("${jwt.refresh-token.cache-max-size:10000}") int cacheMaxSize,
+    @Value("${jwt.refresh-token.cache-ttl-minutes:60}") long cacheTtlMinutes,
+    @Value("${jwt.refresh-token.reuse-grace-ms:10000}") long reuseGraceMillis
+  ) {
+    this.repository = repository;
+    this.revocationService = revocationService;
+    this.ttlMillis = ttlDays * 24 * 60 * 60 * 1000;
+    this.cacheMaxSize = cacheMaxSize;
+    this.cacheTtlMillis = TimeUnit.MINUTES.toMillis(cacheTtlMinutes);
+    this.reuseGraceMillis = reuseGraceMillis;
+    this.cacheHits = Counter.builder("usuario.refresh_token.lookups").tag("result", "cache")
+      .register(meterRegistry);
+    this.cacheMisses = Counter.builder("usuario.refresh_token.lookups").tag("result", "database")
+      .register(meterRegistry);
+    this.reuseDetected = Counter.builder("usuario.refresh_token.reuse_detected")
+      .description("Refresh tokens ya rotados presentados de nuevo (familia revocada)")
+      .register(meterRegistry);
+    this.reuseWithinGrace = Counter.builder("usuario.refresh_token.reuse_within_grace")
+      .description("Segundos usos dentro del margen de gracia (refrescos simultáneos)")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Emite el primer refresh token de una familia nueva (login).
+   */
+  @Transactional
+  public Issued issue(String username, AccessToken accessToken) {
+    return store(UUID.randomUUID().toString(), username, accessToken);
+  }
+
+  /**
+   * Consume el refresh token y emite el siguiente de su familia.
+   *
+   * @param accessTokenFor emite el access token para el username; devuelve
+   *        vacío si el usuario ya no puede iniciar sesión (se revoca la familia)
+   * @throws InvalidRefreshTokenException si el token no es válido o ya se usó
+   */
+  @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+  public Rotation rotate(String rawToken, Function<String, Optional<AccessToken>> accessTokenFor) {
+    String hash = hash(rawToken);
+    CachedToken token = lookup(hash)
+      .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token desconocido", false));
+    if (token.expiresAtMillis() <= System.currentTimeMillis()) {
+      throw new InvalidRefreshTokenException("Refresh token expirado", false);
+    }
+    if (repository.markUsed(token.id(), LocalDateTime.now()) == 0) {
+      if (!usedWithinGrace(token)) {
+        reuseDetected.increment();
+        logger.warn("[RefreshTokenService] Reutilización de refresh token de {}: familia {} revocada",
+          token.username(), token.familyId());
+        revokeFamily(token.familyId());
+        throw new InvalidRefreshTokenException("Refresh token ya utilizado", true);
+      }
+      reuseWithinGrace.increment();
+      logger.debug("[RefreshTokenService] Refresco simultáneo de {} dentro del margen de gracia", token.username());
+    }
+
+    Optional<AccessToken> accessToken = accessTokenFor.apply(token.username());
+    if (accessToken.isEmpty()) {
+      revokeFamily(token.familyId());
+      throw new InvalidRefreshTokenException("Usuario inactivo o inexistente", false);
+    }
+    Issued next = store(token.familyId(), token.username(), accessToken.get());
+    return new Rotation(token.username(), accessToken.get(), next);
+  }
+
+  /**
+   * Revoca la familia del refresh token (logout). Ignora tokens desconocidos.
+   */
+  @Transactional
+  public void revoke(String rawToken) {
+    lookup(hash(rawToken)).ifPresent(token -> revokeFamily(token.familyId()));
+  }
+
+  /**
+   * Borra los refresh tokens expirados; el índice de {@code expires_at} evita recorrer la tabla.
+   */
+  @Scheduled(
+    initialDelayString = "${jwt.refresh-token.purge-interval-ms:3600000}",
+    fixedDelayString = "${jwt.refresh-token.purge-interval-ms:3600000}"
+  )
+  @Transactional
+  public void purgeExpired() {
+    int deleted = repository.deleteExpired(LocalDateTime.now());
+    long now = System.currentTimeMillis();
+    cache.values().removeIf(token -> isStale(token, now));
+    if (deleted > 0) {
+      logger.info("[RefreshTokenService] {} refresh tokens expirados eliminados", deleted);
+    }
+  }
+
+  private Issued store(String familyId, String username, AccessToken accessToken) {
+    byte[] bytes = new byte[32];
+    random.nextBytes(bytes);
+    String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    Instant expiresAt = Instant.now().plusMillis(ttlMillis);
+
+    RefreshToken entity = new RefreshToken();
+    entity.setTokenHash(hash(rawToken));
+    entity.setFamilyId(familyId);
+    entity.setUsername(username);
+    entity.setAccessJti(accessToken.jwtId());
+    entity.setAccessExpiresAt(toLocal(accessToken.expiresAt().toInstant()));
+    entity.setExpiresAt(toLocal(expiresAt));
+    RefreshToken saved = repository.save(entity);
+
+    long now = System.currentTimeMillis();
+    cache.put(saved.getTokenHash(), new CachedToken(saved.getId(), familyId, username, expiresAt.toEpochMilli(), now));
+    evictIfNeeded(now);
+    return new Issued(rawToken, expiresAt);
+  }
+
+  /**
+   * El token no está revocado y su primer uso es de hace menos de
+   * {@code reuseGraceMillis}. Sin fecha de uso visible, la otra transacción
+   * aún no había confirmado al leer: es un uso simultáneo.
+   */
+  private boolean usedWithinGrace(CachedToken token) {
+    if (reuseGraceMillis <= 0) {
+      return false;
+    }
+    List<LocalDateTime> usedAt = repository.findUsedAtIfNotRevoked(token.id());
+    if (usedAt.isEmpty()) {
+      return false;
+    }
+    LocalDateTime firstUse = usedAt.get(0);
+    return firstUse == null || firstUse.isAfter(LocalDateTime.now().minus(reuseGraceMillis, ChronoUnit.MILLIS));
+  }
+
+  private boolean isStale(CachedToken token, long now) {
+    return token.expiresAtMillis() <= now || token.cachedAtMillis() <= now - cacheTtlMillis;
+  }
+
+  /**
+   * Al superar el tamaño máximo, un único hilo (el que gane el CAS) descarta
+   * las entradas caducadas y, si no basta, las más antiguas.
+   */
+  private void evictIfNeeded(long now) {
+    if (cache.size() <= cacheMaxSize || !evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      cache.values().removeIf(token -> isStale(token, now));
+      int overflow = cache.size() - (int) (cacheMaxSize * EVICTION_TARGET_RATIO);
+      if (overflow <= 0) {
+        return;
+      }
+      List<Map.Entry<String, CachedToken>> oldest = new ArrayList<>(cache.entrySet());
+      oldest.sort(Comparator.comparingLong(entry -> entry.getValue().cachedAtMillis()));
+      for (int i = 0; i < overflow && i < oldest.size(); i++) {
+        cache.remove(oldest.get(i).getKey(), oldest.get(i).getValue());
+      }
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  private Optional<CachedToken> lookup(String hash) {
+    // Cada refresh token se usa una vez: se retira de la caché al consultarlo
+    CachedToken cached = cache.remove(hash);
+    if (cached != null && !isStale(cached, System.currentTimeMillis())) {
+      cacheHits.increment();
+      return Optional.of(cached);
+    }
+    cacheMisses.increment();
+    return repository.findByTokenHash(hash).map(token -> new CachedToken(
+      token.getId(),
+      token.getFamilyId(),
+      token.getUsername(),
+      token.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+      0L
+    ));
+  }
+
+  private void revokeFamily(String familyId) {
+    repository.revokeFamily(familyId);
+    cache.values().removeIf(token -> token.familyId().equals(familyId));
+    for (RefreshToken token : repository.findLiveAccessTokens(familyId, LocalDateTime.now())) {
+      revocationService.revoke(token.getAccessJti(),
+        token.getAccessExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+  }
+
+  private static LocalDateTime toLocal(Instant instant) {
+    return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+  }
+
+  private static String hash(String rawToken) {
+    return HexFormat.of().formatHex(SHA256.get().digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+  }
+}
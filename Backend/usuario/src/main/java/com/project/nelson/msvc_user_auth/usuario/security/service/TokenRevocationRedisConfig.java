@@ -0,0 +1,123 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Lista de revocación compartida con el gateway en Redis.
+ *
+ * Cada revocación se guarda como {@code auth:revoked:<jti>} con el TTL
+ * restante del token (Redis la borra sola al expirar) y se publica en
+ * {@code auth:revocations} como {@code <jti>|<exp millis>}. Como en el
+ * gateway, tras cada (re)suscripción al canal se recorren las claves
+ * existentes: una instancia nueva no acepta tokens ya revocados y nada
+ * publicado durante una desconexión se pierde. Solo se activa con
+ * {@code jwt.revocation.redis.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "jwt.revocation.redis.enabled", havingValue = "true")
+public class TokenRevocationRedisConfig {
+
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocationRedisConfig.class);
+
+  public static final String KEY_PREFIX = "auth:revoked:";
+  public static final String CHANNEL = "auth:revocations";
+
+  private final StringRedisTemplate redisTemplate;
+  private final TokenRevocationService revocationService;
+
+  public TokenRevocationRedisConfig(StringRedisTemplate redisTemplate, TokenRevocationService revocationService) {
+    this.redisTemplate = redisTemplate;
+    this.revocationService = revocationService;
+  }
+
+  @Bean
+  public RedisMessageListenerContainer tokenRevocationListenerContainer(RedisConnectionFactory connectionFactory) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(new RevocationListener(), new ChannelTopic(CHANNEL));
+    return container;
+  }
+
+  @EventListener
+  public void publishRevocation(TokenRevokedEvent event) {
+    long ttlMillis = event.expiresAtMillis() - System.currentTimeMillis();
+    if (ttlMillis <= 0) {
+      return;
+    }
+    try {
+      redisTemplate.opsForValue().set(KEY_PREFIX + event.jwtId(), Long.toString(event.expiresAtMillis()),
+        Duration.ofMillis(ttlMillis));
+      redisTemplate.convertAndSend(CHANNEL, event.jwtId() + "|" + event.expiresAtMillis());
+    } catch (RuntimeException ex) {
+      // La revocación local ya aplica; el resto de instancias la verá al reconectar
+      logger.warn("[TokenRevocation] No se pudo publicar la revocación de {}: {}", event.jwtId(), ex.getMessage());
+    }
+  }
+
+  /**
+   * Carga las revocaciones vigentes; se llama con la suscripción ya activa,
+   * así que las publicadas mientras tanto llegan también por el canal.
+   */
+  public void loadRevoked() {
+    int loaded = 0;
+    ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+    try (Cursor<String> keys = redisTemplate.scan(options)) {
+      while (keys.hasNext()) {
+        String key = keys.next();
+        String expiresAt = redisTemplate.opsForValue().get(key);
+        if (expiresAt != null) {
+          revocationService.applyRemote(key.substring(KEY_PREFIX.length()), Long.parseLong(expiresAt));
+          loaded++;
+        }
+      }
+      logger.info("[TokenRevocation] {} tokens revocados cargados desde Redis", loaded);
+    } catch (RuntimeException ex) {
+      logger.warn("[TokenRevocation] No se pudo cargar la lista de revocación: {}", ex.getMessage());
+    }
+  }
+
+  private void applyMessage(String payload) {
+    int separator = payload.lastIndexOf('|');
+    if (separator <= 0) {
+      return;
+    }
+    try {
+      revocationService.applyRemote(payload.substring(0, separator), Long.parseLong(payload.substring(separator + 1)));
+    } catch (NumberFormatException ex) {
+      logger.warn("[TokenRevocation] Mensaje de revocación inválido: {}", payload);
+    }
+  }
+
+  /**
+   * El contenedor avisa de cada suscripción, también de las que siguen a una
+   * reconexión, en su propio ejecutor (no en el hilo de E/S de Redis).
+   */
+  private final class RevocationListener implements MessageListener, SubscriptionListener {
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+      applyMessage(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+      loadRevoked();
+    }
+  }
+}
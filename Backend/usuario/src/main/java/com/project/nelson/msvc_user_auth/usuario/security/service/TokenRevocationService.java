@@ -0,0 +1,60 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import com.project.nelson.identity.revocation.RevokedTokenSet;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Revocación de tokens individuales por su claim jti.
+ *
+ * La consulta {@link #isRevoked(String)} es local (un {@link RevokedTokenSet}
+ * en memoria) y no añade viajes de red a cada petición. Con
+ * {@code jwt.revocation.redis.enabled=true} las revocaciones se guardan en
+ * Redis con el TTL restante del token y se difunden por pub/sub al gateway y
+ * al resto de instancias (ver {@link TokenRevocationRedisConfig}).
+ */
+@Service
+public class TokenRevocationService {
+
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+  private final RevokedTokenSet revoked;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public TokenRevocationService(
+    ApplicationEventPublisher eventPublisher,
+    MeterRegistry meterRegistry,
+    @Value("${jwt.revocation.sweep-interval-ms:60000}") long sweepIntervalMillis
+  ) {
+    this.eventPublisher = eventPublisher;
+    this.revoked = new RevokedTokenSet(sweepIntervalMillis);
+    Gauge.builder("usuario.jwt.revoked", revoked, RevokedTokenSet::size)
+      .description("Tokens revocados no expirados en la caché local")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Revoca el token hasta su expiración y lo difunde a las demás instancias.
+   */
+  public void revoke(String jwtId, long expiresAtMillis) {
+    revoked.add(jwtId, expiresAtMillis);
+    logger.info("[TokenRevocationService] Token {} revocado", jwtId);
+    eventPublisher.publishEvent(new TokenRevokedEvent(jwtId, expiresAtMillis));
+  }
+
+  /**
+   * Registra una revocación recibida de otra instancia, sin volver a difundirla.
+   */
+  public void applyRemote(String jwtId, long expiresAtMillis) {
+    revoked.add(jwtId, expiresAtMillis);
+  }
+
+  public boolean isRevoked(String jwtId) {
+    return revoked.contains(jwtId);
+  }
+}
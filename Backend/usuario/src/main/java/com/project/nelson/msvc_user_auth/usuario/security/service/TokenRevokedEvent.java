@@ -0,0 +1,9 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+/**
+ * Publicado al revocar un token en esta instancia.
+ *
+ * @param jwtId claim jti del token revocado
+ * @param expiresAtMillis expiración del token (epoch millis)
+ */
+public record TokenRevokedEvent(String jwtId, long expiresAtMillis) {}
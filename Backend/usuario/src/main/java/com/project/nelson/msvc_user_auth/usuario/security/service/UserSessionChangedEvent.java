@@ -0,0 +1,11 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+/**
+ * Publicado al cambiar en esta instancia el límite de validez de los tokens
+ * de un usuario (desactivación, baja, cambio de roles o reactivación).
+ *
+ * @param username usuario afectado
+ * @param revokedBeforeMillis instante hasta el cual se rechazan sus tokens
+ *        ({@link Long#MAX_VALUE}: todos, usuario inactivo o eliminado)
+ */
+public record UserSessionChangedEvent(String username, long revokedBeforeMillis) {}
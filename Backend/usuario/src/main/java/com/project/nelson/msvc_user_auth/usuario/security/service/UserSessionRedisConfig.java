@@ -0,0 +1,78 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Difunde los cambios de {@link UserSessionRegistry} entre instancias de
+ * usuario por pub/sub de Redis, junto con la lista de revocación (se activa
+ * con la misma propiedad {@code jwt.revocation.redis.enabled=true}).
+ *
+ * El mensaje es {@code <instancia>|<username>|<revocados antes de, millis>};
+ * se publica al confirmar la transacción que desactivó, eliminó o cambió los
+ * roles del usuario.
+ */
+@Configuration
+@ConditionalOnProperty(name = "jwt.revocation.redis.enabled", havingValue = "true")
+public class UserSessionRedisConfig {
+
+  private static final Logger logger = LoggerFactory.getLogger(UserSessionRedisConfig.class);
+
+  static final String CHANNEL = "usuario:sessions:invalidate";
+
+  private final String instanceId = UUID.randomUUID().toString();
+
+  private final StringRedisTemplate redisTemplate;
+
+  public UserSessionRedisConfig(StringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  @Bean
+  public RedisMessageListenerContainer userSessionListenerContainer(
+    RedisConnectionFactory connectionFactory,
+    UserSessionRegistry sessionRegistry
+  ) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(
+      (message, pattern) -> {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int first = body.indexOf('|');
+        int last = body.lastIndexOf('|');
+        if (first < 0 || first == last || instanceId.equals(body.substring(0, first))) {
+          return;
+        }
+        try {
+          sessionRegistry.applyRemote(body.substring(first + 1, last), Long.parseLong(body.substring(last + 1)));
+        } catch (NumberFormatException ex) {
+          logger.warn("[UserSessionRegistry] Mensaje de sesión inválido: {}", body);
+        }
+      },
+      new ChannelTopic(CHANNEL)
+    );
+    return container;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void publishChange(UserSessionChangedEvent event) {
+    try {
+      redisTemplate.convertAndSend(CHANNEL, instanceId + "|" + event.username() + "|" + event.revokedBeforeMillis());
+    } catch (RuntimeException ex) {
+      // El cambio ya aplica aquí; las demás instancias lo cargan de la BD al reiniciar
+      logger.warn("[UserSessionRegistry] No se pudo publicar el cambio de sesión de {}: {}",
+        event.username(), ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Registro en memoria de usuarios cuyos tokens dejaron de ser válidos.
+ *
+ * Permite validar JWT sin consultar la base de datos en cada petición: basta
+ * con comprobar si el usuario fue desactivado, eliminado o cambió de roles
+ * después de emitido el token (claim iat). La consulta es un único acceso a
+ * un {@link ConcurrentHashMap}.
+ *
+ * Cada cambio se publica como {@link UserSessionChangedEvent}; con Redis
+ * activo, {@link UserSessionRedisConfig} lo difunde al resto de instancias.
+ * Las entradas por fecha se purgan cuando ya no queda ningún token emitido
+ * antes de ellas sin expirar. Solo los usuarios inactivos (que siguen en la
+ * BD y se cargan al arrancar) se guardan sin fecha.
+ */
+@Service
+public class UserSessionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSessionRegistry.class);
+
+    /**
+     * Marca de usuario inactivo: ningún token es válido.
+     */
+    private static final long ALL_TOKENS = Long.MAX_VALUE;
+
+    /**
+     * username -> instante (epoch millis) hasta el cual los tokens emitidos se rechazan.
+     */
+    private final ConcurrentHashMap<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Mayor que la vida máxima de un token de acceso aceptado
+    @Value("${jwt.sessions.retention-minutes:60}")
+    private long retentionMinutes = 60;
+
+    /**
+     * Carga los usuarios inactivos al arrancar para que un reinicio no
+     * reactive sus tokens.
+     */
+    @PostConstruct
+    public void loadInactiveUsers() {
+        List<String> inactive = usuarioRepository.findInactiveUsernames();
+        inactive.forEach(username -> revokedBefore.put(username, ALL_TOKENS));
+        logger.info("[UserSessionRegistry] {} usuarios inactivos cargados", inactive.size());
+    }
+
+    /**
+     * Rechaza todos los tokens del usuario mientras siga inactivo o eliminado.
+     */
+    public void markInactive(String username) {
+        update(username, ALL_TOKENS);
+    }
+
+    /**
+     * Usuario eliminado: rechaza los tokens emitidos hasta ahora. No hace falta
+     * más, porque sin usuario en la BD ni el login ni el refresh emiten tokens
+     * nuevos; la entrada se purga cuando expira el último token anterior.
+     */
+    public void markDeleted(String username) {
+        revokeIssuedUntilNow(username);
+    }
+
+    /**
+     * Rechaza los tokens emitidos hasta este momento (cambio de roles o reactivación).
+     */
+    public void revokeIssuedUntilNow(String username) {
+        update(username, System.currentTimeMillis());
+    }
+
+    /**
+     * Un usuario activo se guardó con este username (alta tras una baja, o
+     * reactivación): deja de rechazar sus tokens nuevos. Los emitidos hasta
+     * ahora siguen rechazados, pues pueden pertenecer a la cuenta anterior.
+     */
+    public void markActive(String username) {
+        Long limit = revokedBefore.get(username);
+        if (limit != null && limit == ALL_TOKENS) {
+            revokeIssuedUntilNow(username);
+        }
+    }
+
+    /**
+     * Registra un cambio recibido de otra instancia, sin volver a difundirlo.
+     */
+    public void applyRemote(String username, long revokedBeforeMillis) {
+        revokedBefore.put(username, revokedBeforeMillis);
+    }
+
+    /**
+     * Indica si un token emitido en {@code issuedAt} ya no es válido para el usuario.
+     * {@code issuedAt} tiene precisión de milisegundos (claim {@code iat_ms}): un
+     * token emitido justo después de la revocación, en el mismo segundo, es válido.
+     */
+    public boolean isRevoked(String username, Date issuedAt) {
+        Long limit = revokedBefore.get(username);
+        if (limit == null) {
+            return false;
+        }
+        if (limit == ALL_TOKENS || issuedAt == null) {
+            return true;
+        }
+        return issuedAt.getTime() <= limit;
+    }
+
+    /**
+     * Elimina las revocaciones por fecha cuyos tokens ya expiraron todos.
+     */
+    @Scheduled(
+        initialDelayString = "${jwt.revocation.sweep-interval-ms:60000}",
+        fixedDelayString = "${jwt.revocation.sweep-interval-ms:60000}"
+    )
+    public void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        revokedBefore.values().removeIf(limit -> limit != ALL_TOKENS && limit < cutoff);
+    }
+
+    private void update(String username, long limit) {
+        revokedBefore.put(username, limit);
+        eventPublisher.publishEvent(new UserSessionChangedEvent(username, limit));
+    }
+}
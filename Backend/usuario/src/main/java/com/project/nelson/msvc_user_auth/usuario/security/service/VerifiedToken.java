@@ -0,0 +1,37 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Token JWT ya verificado (firma y expiración) con sus claims principales.
+ * Se obtiene con {@link JwtService#verify(String)} y se reutiliza en lugar de
+ * volver a parsear el token compacto.
+ *
+ * @param subject usuario (claim sub)
+ * @param roles roles firmados en el claim {@code roles}
+ * @param email claim {@code email}, puede ser null
+ * @param issuedAt fecha de emisión en milisegundos (claim iat_ms, o iat si no está)
+ * @param expiresAt fecha de expiración (claim exp)
+ * @param jwtId identificador del token (claim jti), puede ser null
+ */
+public record VerifiedToken(
+    String subject,
+    List<String> roles,
+    String email,
+    Date issuedAt,
+    Date expiresAt,
+    String jwtId) {
+
+    /**
+     * Roles del token como autoridades de Spring Security.
+     */
+    public List<GrantedAuthority> authorities() {
+        return roles.stream()
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,20 @@
+package com.project.nelson.msvc_user_auth.usuario.service;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.ImportJobStatus;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.ImportFormat;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+public interface UsuarioImportService {
+
+  /**
+   * Copia el archivo a disco y lanza su importación en segundo plano.
+   *
+   * @throws com.project.nelson.msvc_user_auth.usuario.exeptions.CustomException
+   *         429 si ya se alcanzó el máximo de importaciones simultáneas
+   */
+  ImportJobStatus start(InputStream body, ImportFormat format) throws IOException;
+
+  Optional<ImportJobStatus> findStatus(String jobId);
+}
@@ -2,7 +2,9 @@ package com.project.nelson.msvc_user_auth.usuario.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioPage;
 import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,6 +20,17 @@ public interface UsuarioService {
 
   List<UsuarioDto> findAllDto();
 
+  /**
+   * Página de usuarios con id mayor que {@code after}, roles incluidos.
+   */
+  UsuarioPage findPageDto(long after, int size);
+
+  /**
+   * Recorre todos los usuarios en orden de id entregándolos en bloques de
+   * {@code chunkSize}, con memoria constante.
+   */
+  void streamAllDto(int chunkSize, Consumer<List<UsuarioDto>> chunkConsumer);
+
   Optional<Usuario> findById(Long id);
 
   Optional<UsuarioDto> findDtoById(Long id);
@@ -38,5 +51,7 @@ public interface UsuarioService {
 
   boolean existsByUsername(String username);
 
+  boolean existsByEmail(String email);
+
   Usuario saveWithRoleUser(Usuario usuario); // Añadido para el registro público
 }
@@ -0,0 +1,22 @@
+package com.project.nelson.msvc_user_auth.usuario.service.cache;
+
+/**
+ * Regiones de la caché de segundo nivel de Hibernate. Cada nombre es también
+ * el alias de la caché en {@code ehcache.xml}, donde se fijan su tamaño y TTL.
+ */
+public final class CacheRegions {
+
+  /** Entidad {@code Usuario}. */
+  public static final String USUARIOS = "usuarios";
+
+  /** Colección {@code Usuario.roles} (tabla {@code user_roles}). */
+  public static final String USUARIO_ROLES = "usuarios.roles";
+
+  /** Entidad {@code Rol}. */
+  public static final String ROLES = "roles";
+
+  /** Resultados de findByUsername, findByEmail y countByRolName. */
+  public static final String USUARIO_QUERIES = "usuarios.consultas";
+
+  private CacheRegions() {}
+}
@@ -0,0 +1,57 @@
+package com.project.nelson.msvc_user_auth.usuario.service.cache;
+
+import java.net.URI;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caché de segundo nivel de Hibernate para {@code Usuario}, {@code Rol} y
+ * {@code Usuario.roles}, más la caché de consultas de
+ * {@link CacheRegions#USUARIO_QUERIES}. Proveedor JCache local (Ehcache) con
+ * tamaño y TTL por región en {@code ehcache.xml}.
+ *
+ * El {@link CacheManager} se crea aquí con una URI propia y se entrega a
+ * Hibernate: el que obtendría Hibernate por su cuenta se comparte entre todos
+ * los contextos de la JVM (por URI y classloader), y dos contextos con bases
+ * de datos distintas, como en los tests, verían las entidades del otro.
+ *
+ * Las opciones se aplican solo si {@code spring.jpa.properties} no las fija:
+ * {@code hibernate.cache.use_second_level_cache=false} desactiva la caché.
+ * Las estadísticas de Hibernate quedan activas para
+ * {@link SecondLevelCacheMetrics}.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+  @Bean(destroyMethod = "close")
+  public CacheManager hibernateCacheManager() {
+    EhcacheCachingProvider provider =
+      (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+    XmlConfiguration configuration =
+      new XmlConfiguration(getClass().getResource("/ehcache.xml"), getClass().getClassLoader());
+    return provider.getCacheManager(URI.create("urn:usuario:hibernate:" + UUID.randomUUID()), configuration);
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager hibernateCacheManager) {
+    return properties -> {
+      properties.putIfAbsent(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+      properties.putIfAbsent(AvailableSettings.USE_QUERY_CACHE, "true");
+      properties.putIfAbsent(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+      // Una región que falte en ehcache.xml es un error, no una caché sin límites
+      properties.putIfAbsent(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+      properties.putIfAbsent(AvailableSettings.GENERATE_STATISTICS, "true");
+      // Sin el resumen de métricas por sesión en el log que activan las estadísticas
+      properties.putIfAbsent(AvailableSettings.LOG_SESSION_METRICS, "false");
+      properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    };
+  }
+}
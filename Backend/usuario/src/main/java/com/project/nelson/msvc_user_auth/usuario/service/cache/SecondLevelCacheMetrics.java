@@ -0,0 +1,74 @@
+package com.project.nelson.msvc_user_auth.usuario.service.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exporta aciertos y fallos de cada región de la caché de segundo nivel:
+ * {@code usuario.cache.requests} (tags {@code region}, {@code result}: hit,
+ * miss, put) y {@code usuario.cache.hit_ratio} (acumulada desde el arranque;
+ * la de una ventana sale de los contadores en Prometheus).
+ */
+@Component
+public class SecondLevelCacheMetrics {
+
+  private final Statistics statistics;
+
+  public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+    this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    register(meterRegistry, CacheRegions.USUARIOS, statistics::getDomainDataRegionStatistics);
+    register(meterRegistry, CacheRegions.USUARIO_ROLES, statistics::getDomainDataRegionStatistics);
+    register(meterRegistry, CacheRegions.ROLES, statistics::getDomainDataRegionStatistics);
+    register(meterRegistry, CacheRegions.USUARIO_QUERIES, statistics::getQueryRegionStatistics);
+  }
+
+  private void register(MeterRegistry meterRegistry, String region, Function<String, CacheRegionStatistics> lookup) {
+    counter(meterRegistry, region, "hit", lookup, CacheRegionStatistics::getHitCount);
+    counter(meterRegistry, region, "miss", lookup, CacheRegionStatistics::getMissCount);
+    counter(meterRegistry, region, "put", lookup, CacheRegionStatistics::getPutCount);
+    Gauge.builder("usuario.cache.hit_ratio", this, self -> {
+        double hits = count(lookup, region, CacheRegionStatistics::getHitCount);
+        double total = hits + count(lookup, region, CacheRegionStatistics::getMissCount);
+        return total == 0 ? Double.NaN : hits / total;
+      })
+      .tag("region", region)
+      .description("Fracción de lecturas de la región resueltas por la caché")
+      .register(meterRegistry);
+  }
+
+  private void counter(
+    MeterRegistry meterRegistry,
+    String region,
+    String result,
+    Function<String, CacheRegionStatistics> lookup,
+    ToLongFunction<CacheRegionStatistics> value
+  ) {
+    FunctionCounter.builder("usuario.cache.requests", this, self -> count(lookup, region, value))
+      .tag("region", region)
+      .tag("result", result)
+      .description("Lecturas y escrituras en la caché de segundo nivel")
+      .register(meterRegistry);
+  }
+
+  private static double count(
+    Function<String, CacheRegionStatistics> lookup,
+    String region,
+    ToLongFunction<CacheRegionStatistics> value
+  ) {
+    try {
+      CacheRegionStatistics regionStatistics = lookup.apply(region);
+      return regionStatistics == null ? 0 : value.applyAsLong(regionStatistics);
+    } catch (IllegalArgumentException ex) {
+      // Región inexistente: caché de segundo nivel desactivada
+      return 0;
+    }
+  }
+}
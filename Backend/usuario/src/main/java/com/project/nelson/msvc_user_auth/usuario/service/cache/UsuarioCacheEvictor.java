@@ -0,0 +1,68 @@
+package com.project.nelson.msvc_user_auth.usuario.service.cache;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Desalojo de usuarios de la caché de segundo nivel.
+ *
+ * Las escrituras hechas con JPA ({@code save}, {@code deleteById} y los
+ * {@code UPDATE} de JPQL) ya las invalida Hibernate en esta instancia. Este
+ * componente cubre lo que Hibernate no ve: las inserciones por JDBC de la
+ * importación masiva y los cambios hechos en otra instancia (ver
+ * {@link UsuarioCacheRedisConfig}). Al confirmar un {@link UsuariosChangedEvent}
+ * se desaloja el usuario, su colección de roles y las consultas cacheadas;
+ * con un usuario concreto el coste es una lectura de más en la próxima consulta.
+ */
+@Component
+public class UsuarioCacheEvictor {
+
+  private static final Logger logger = LoggerFactory.getLogger(UsuarioCacheEvictor.class);
+
+  private static final String ROLES_COLLECTION = Usuario.class.getName() + ".roles";
+
+  private final Cache cache;
+
+  public UsuarioCacheEvictor(EntityManagerFactory entityManagerFactory) {
+    this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUsuariosChanged(UsuariosChangedEvent event) {
+    evictUsuario(event.usuarioId());
+  }
+
+  /**
+   * Desaloja un usuario (o todos si {@code usuarioId} es null) y las consultas
+   * cacheadas, que pueden incluirlo o dar por hecho que no existe.
+   */
+  public void evictUsuario(Long usuarioId) {
+    if (usuarioId == null) {
+      cache.evictEntityData(Usuario.class);
+      cache.evictCollectionData(ROLES_COLLECTION);
+    } else {
+      cache.evictEntityData(Usuario.class, usuarioId);
+      cache.evictCollectionData(ROLES_COLLECTION, usuarioId);
+    }
+    cache.evictQueryRegion(CacheRegions.USUARIO_QUERIES);
+    logger.debug("[UsuarioCacheEvictor] Usuario desalojado de la caché: {}", usuarioId == null ? "todos" : usuarioId);
+  }
+
+  /**
+   * Desaloja los roles y las colecciones que los referencian (cambio de roles
+   * en otra instancia).
+   */
+  public void evictRoles() {
+    cache.evictEntityData(Rol.class);
+    cache.evictCollectionData(ROLES_COLLECTION);
+    cache.evictQueryRegion(CacheRegions.USUARIO_QUERIES);
+  }
+}
@@ -0,0 +1,115 @@
+package com.project.nelson.msvc_user_auth.usuario.service.cache;
+
+import com.project.nelson.msvc_user_auth.usuario.service.membership.UsuarioMembershipIndex;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalidación de la caché de segundo nivel entre instancias mediante pub/sub
+ * de Redis. Se activa con {@code usuario.cache.redis.enabled=true} (valor por
+ * defecto en dev y prod); sin ella, una instancia ve los cambios hechos en
+ * otra (contraseña, desactivación) cuando vence el TTL de la región
+ * ({@code ehcache.xml}). Tras una reconexión al canal se desaloja todo, pues
+ * las invalidaciones publicadas durante el corte se han perdido.
+ *
+ * El mismo mensaje lleva las altas al {@link UsuarioMembershipIndex} de las
+ * demás instancias.
+ *
+ * El mensaje es {@code <instancia>:<id de usuario>} o {@code <instancia>:*}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "usuario.cache.redis.enabled", havingValue = "true")
+public class UsuarioCacheRedisConfig {
+
+  private static final Logger logger = LoggerFactory.getLogger(UsuarioCacheRedisConfig.class);
+
+  static final String CHANNEL = "usuario:usuarios:invalidate";
+
+  private final String instanceId = UUID.randomUUID().toString();
+
+  private final StringRedisTemplate redisTemplate;
+
+  public UsuarioCacheRedisConfig(StringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  @Bean
+  public RedisMessageListenerContainer usuarioCacheListenerContainer(
+    RedisConnectionFactory connectionFactory,
+    UsuarioCacheEvictor evictor,
+    UsuarioMembershipIndex membershipIndex
+  ) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(new InvalidationListener(evictor, membershipIndex), new ChannelTopic(CHANNEL));
+    return container;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void publishInvalidation(UsuariosChangedEvent event) {
+    Long id = event.usuarioId();
+    try {
+      redisTemplate.convertAndSend(CHANNEL, instanceId + ":" + (id == null ? "*" : id));
+    } catch (RuntimeException ex) {
+      // Sin Redis las demás instancias convergen por el TTL de la caché
+      logger.warn("[UsuarioCache] No se pudo publicar la invalidación de usuarios: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * Aplica las invalidaciones de otras instancias. La primera suscripción es
+   * la del arranque; cualquier otra sigue a una reconexión.
+   */
+  private final class InvalidationListener implements MessageListener, SubscriptionListener {
+
+    private final UsuarioCacheEvictor evictor;
+    private final UsuarioMembershipIndex membershipIndex;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    InvalidationListener(UsuarioCacheEvictor evictor, UsuarioMembershipIndex membershipIndex) {
+      this.evictor = evictor;
+      this.membershipIndex = membershipIndex;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+      String body = new String(message.getBody(), StandardCharsets.UTF_8);
+      int separator = body.lastIndexOf(':');
+      if (separator < 0 || instanceId.equals(body.substring(0, separator))) {
+        return;
+      }
+      String id = body.substring(separator + 1);
+      try {
+        Long usuarioId = "*".equals(id) ? null : Long.valueOf(id);
+        evictor.evictUsuario(usuarioId);
+        membershipIndex.applyRemoteChange(usuarioId);
+      } catch (NumberFormatException ex) {
+        logger.warn("[UsuarioCache] Invalidación remota ignorada: {}", body);
+      }
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+      if (subscribed.getAndSet(true)) {
+        logger.info("[UsuarioCache] Resuscrito a {}: se desaloja la caché de usuarios", CHANNEL);
+        evictor.evictUsuario(null);
+        membershipIndex.applyRemoteChange(null);
+      }
+    }
+  }
+}
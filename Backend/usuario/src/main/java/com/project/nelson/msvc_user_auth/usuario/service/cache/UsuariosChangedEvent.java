@@ -0,0 +1,14 @@
+package com.project.nelson.msvc_user_auth.usuario.service.cache;
+
+/**
+ * Se publica al crear, modificar o eliminar usuarios. Cuando la transacción
+ * confirma, {@link UsuarioCacheEvictor} los saca de la caché de segundo nivel.
+ *
+ * @param usuarioId id del usuario afectado; null si son varios (importación)
+ */
+public record UsuariosChangedEvent(Long usuarioId) {
+
+  public static UsuariosChangedEvent all() {
+    return new UsuariosChangedEvent(null);
+  }
+}
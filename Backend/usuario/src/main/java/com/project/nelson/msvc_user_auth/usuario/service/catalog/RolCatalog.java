@@ -0,0 +1,183 @@
+package com.project.nelson.msvc_user_auth.usuario.service.catalog;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.RolDto;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.repository.RolRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Catálogo de roles en memoria, de lectura mayoritaria.
+ *
+ * Mantiene una instantánea inmutable (lista, índice por id e índice por
+ * nombre) que se reemplaza de forma atómica tras cada {@code save} o
+ * {@code deleteById} confirmado, o cuando otra instancia avisa por Redis. Las
+ * lecturas no consultan la base de datos y devuelven copias desacopladas de
+ * {@link Rol}, de modo que nadie puede modificar la instantánea compartida.
+ *
+ * Sin Redis, {@code rol.catalog.max-age-seconds} acota cuánto puede tardar una
+ * instancia en ver los cambios hechos en otra.
+ */
+@Component
+public class RolCatalog {
+
+  private static final Logger logger = LoggerFactory.getLogger(RolCatalog.class);
+
+  private final RolRepository rolRepository;
+  private final long maxAgeNanos;
+  private final ReentrantLock reloadLock = new ReentrantLock();
+  private volatile Snapshot snapshot;
+
+  public RolCatalog(
+    RolRepository rolRepository,
+    @Value("${rol.catalog.max-age-seconds:300}") long maxAgeSeconds
+  ) {
+    this.rolRepository = rolRepository;
+    this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+  }
+
+  public List<Rol> findAll() {
+    return current().all().stream().map(RolEntry::toEntity).collect(Collectors.toList());
+  }
+
+  public List<RolDto> findAllDto() {
+    return current().all().stream().map(RolEntry::toDto).collect(Collectors.toList());
+  }
+
+  public Optional<Rol> findById(Long id) {
+    return Optional.ofNullable(current().byId().get(id)).map(RolEntry::toEntity);
+  }
+
+  public Optional<RolDto> findDtoById(Long id) {
+    return Optional.ofNullable(current().byId().get(id)).map(RolEntry::toDto);
+  }
+
+  public Optional<Rol> findByName(String name) {
+    return lookupByName(name).map(RolEntry::toEntity);
+  }
+
+  public Optional<RolDto> findDtoByName(String name) {
+    return lookupByName(name).map(RolEntry::toDto);
+  }
+
+  /**
+   * Recarga al arrancar: los roles creados durante la inicialización publican
+   * su evento antes de que existan los listeners.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    reload("arranque");
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onRolesChanged(RolesChangedEvent event) {
+    reload("cambio local de rol " + event.rolId());
+  }
+
+  /**
+   * Recarga la instantánea desde la base de datos.
+   */
+  public void reload(String reason) {
+    reloadLock.lock();
+    try {
+      List<RolEntry> entries = rolRepository.findAll().stream()
+        .map(RolEntry::of)
+        .collect(Collectors.toUnmodifiableList());
+      snapshot = new Snapshot(
+        entries,
+        entries.stream().collect(Collectors.toUnmodifiableMap(RolEntry::id, Function.identity())),
+        entries.stream().collect(Collectors.toUnmodifiableMap(RolEntry::name, Function.identity())),
+        System.nanoTime()
+      );
+      logger.info("[RolCatalog] {} roles cargados ({})", entries.size(), reason);
+    } finally {
+      reloadLock.unlock();
+    }
+  }
+
+  /**
+   * Un nombre ausente se confirma contra la base de datos: otra instancia
+   * pudo crearlo sin que llegara la invalidación. Es el único caso que
+   * consulta la BD y, si el rol existe, recarga la instantánea.
+   */
+  private Optional<RolEntry> lookupByName(String name) {
+    RolEntry entry = current().byName().get(name);
+    if (entry != null) {
+      return Optional.of(entry);
+    }
+    if (rolRepository.existsByName(name)) {
+      reload("rol desconocido " + name);
+      return Optional.ofNullable(current().byName().get(name));
+    }
+    return Optional.empty();
+  }
+
+  private Snapshot current() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      reload("carga inicial");
+      return snapshot;
+    }
+    // Solo un hilo recarga una instantánea vencida; el resto sigue con la anterior
+    if (System.nanoTime() - current.loadedAt() > maxAgeNanos && reloadLock.tryLock()) {
+      try {
+        if (snapshot == current) {
+          reload("instantánea vencida");
+        }
+      } finally {
+        reloadLock.unlock();
+      }
+      return snapshot;
+    }
+    return current;
+  }
+
+  private record Snapshot(
+    List<RolEntry> all,
+    Map<Long, RolEntry> byId,
+    Map<String, RolEntry> byName,
+    long loadedAt
+  ) {}
+
+  /**
+   * Valores inmutables de un rol; cada lectura construye una entidad o DTO nuevo.
+   */
+  private record RolEntry(
+    Long id,
+    String name,
+    boolean activo,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt
+  ) {
+    static RolEntry of(Rol rol) {
+      return new RolEntry(rol.getId(), rol.getName(), rol.isActivo(), rol.getCreatedAt(), rol.getUpdatedAt());
+    }
+
+    Rol toEntity() {
+      Rol rol = new Rol(name);
+      rol.setId(id);
+      rol.setActivo(activo);
+      rol.setCreatedAt(createdAt);
+      rol.setUpdatedAt(updatedAt);
+      return rol;
+    }
+
+    RolDto toDto() {
+      return new RolDto(id, name, activo);
+    }
+  }
+}
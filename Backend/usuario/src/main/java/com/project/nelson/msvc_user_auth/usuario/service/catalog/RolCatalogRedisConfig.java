@@ -0,0 +1,73 @@
+package com.project.nelson.msvc_user_auth.usuario.service.catalog;
+
+import com.project.nelson.msvc_user_auth.usuario.service.cache.UsuarioCacheEvictor;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalidación del {@link RolCatalog} entre instancias mediante pub/sub de
+ * Redis (el mismo Redis que usa el gateway). Solo se activa con
+ * {@code rol.catalog.redis.enabled=true}.
+ *
+ * Cada instancia publica su id al confirmar un cambio de roles y, al recibir
+ * el id de otra, recarga su catálogo y desaloja los roles de la caché de
+ * segundo nivel.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rol.catalog.redis.enabled", havingValue = "true")
+public class RolCatalogRedisConfig {
+
+  private static final Logger logger = LoggerFactory.getLogger(RolCatalogRedisConfig.class);
+
+  static final String CHANNEL = "usuario:roles:invalidate";
+
+  private final String instanceId = UUID.randomUUID().toString();
+
+  private final StringRedisTemplate redisTemplate;
+
+  public RolCatalogRedisConfig(StringRedisTemplate redisTemplate) {
+    this.redisTemplate = redisTemplate;
+  }
+
+  @Bean
+  public RedisMessageListenerContainer rolCatalogListenerContainer(
+    RedisConnectionFactory connectionFactory,
+    RolCatalog rolCatalog,
+    UsuarioCacheEvictor usuarioCacheEvictor
+  ) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(
+      (message, pattern) -> {
+        String origin = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!instanceId.equals(origin)) {
+          rolCatalog.reload("invalidación remota de " + origin);
+          usuarioCacheEvictor.evictRoles();
+        }
+      },
+      new ChannelTopic(CHANNEL)
+    );
+    return container;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void publishInvalidation(RolesChangedEvent event) {
+    try {
+      redisTemplate.convertAndSend(CHANNEL, instanceId);
+    } catch (RuntimeException ex) {
+      // Sin Redis las demás instancias convergen por max-age-seconds
+      logger.warn("[RolCatalog] No se pudo publicar la invalidación de roles: {}", ex.getMessage());
+    }
+  }
+}
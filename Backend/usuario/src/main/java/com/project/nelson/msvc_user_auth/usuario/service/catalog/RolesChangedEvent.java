@@ -0,0 +1,9 @@
+package com.project.nelson.msvc_user_auth.usuario.service.catalog;
+
+/**
+ * Se publica al crear, modificar o eliminar un rol. El catálogo se recarga
+ * cuando la transacción que lo publicó confirma.
+ *
+ * @param rolId id del rol afectado, puede ser null
+ */
+public record RolesChangedEvent(Long rolId) {}
@@ -0,0 +1,79 @@
+package com.project.nelson.msvc_user_auth.usuario.service.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa las llamadas simultáneas con la misma clave en una sola ejecución.
+ *
+ * El primer hilo (líder) ejecuta la consulta; los que llegan mientras está en
+ * curso esperan su resultado en lugar de lanzar otra. Un error del líder se
+ * propaga a todos los que esperaban. La clave se retira antes de publicar el
+ * resultado: quien llega después de terminada la consulta lanza una nueva y
+ * nunca recibe un valor anterior a su llegada.
+ *
+ * {@code usuario.db.lookups} cuenta las consultas lanzadas ({@code issued}) y
+ * las resueltas esperando a otra ({@code coalesced}), por tipo de consulta.
+ */
+public final class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final Counter issued;
+  private final Counter coalesced;
+
+  public SingleFlight(String query, MeterRegistry meterRegistry) {
+    this.issued = Counter.builder("usuario.db.lookups")
+      .tag("query", query).tag("result", "issued")
+      .description("Consultas de usuario enviadas a la BD")
+      .register(meterRegistry);
+    this.coalesced = Counter.builder("usuario.db.lookups")
+      .tag("query", query).tag("result", "coalesced")
+      .description("Consultas de usuario resueltas con otra idéntica en curso")
+      .register(meterRegistry);
+  }
+
+  public V execute(K key, Supplier<V> loader) {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+    if (existing != null) {
+      coalesced.increment();
+      return await(existing);
+    }
+    issued.increment();
+    V value;
+    try {
+      value = loader.get();
+    } catch (RuntimeException | Error ex) {
+      inFlight.remove(key, mine);
+      mine.completeExceptionally(ex);
+      throw ex;
+    }
+    inFlight.remove(key, mine);
+    mine.complete(value);
+    return value;
+  }
+
+  /** Consultas en curso; para pruebas y diagnóstico. */
+  public int inFlight() {
+    return inFlight.size();
+  }
+
+  private static <V> V await(CompletableFuture<V> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw ex;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.project.nelson.msvc_user_auth.usuario.service.coalescing;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Lecturas de usuario por clave con las consultas idénticas simultáneas
+ * agrupadas ({@link SingleFlight}): cuando muchos clientes inician sesión a la
+ * vez con la misma cuenta de administración o de servicio, la BD recibe una
+ * sola consulta por clave.
+ *
+ * Solo se agrupa dentro de transacciones de solo lectura; una transacción de
+ * escritura debe ver sus propios cambios y consulta directamente. Lo que se
+ * comparte entre hilos no es la entidad gestionada por la sesión del líder,
+ * sino una instantánea inmutable con los roles ya leídos; cada llamador,
+ * líder incluido, recibe su propia copia desacoplada ({@code Usuario} y
+ * {@code Rol} nuevos, sin colecciones perezosas ni sesión asociada).
+ *
+ * {@code usuario.coalescing.enabled=false} desactiva la agrupación.
+ */
+@Component
+public class UsuarioLookupCoalescer {
+
+  private final UsuarioRepository usuarioRepository;
+  private final boolean enabled;
+  private final SingleFlight<String, Optional<Snapshot>> byUsername;
+  private final SingleFlight<Long, Optional<Snapshot>> byId;
+  private final SingleFlight<String, Optional<Snapshot>> byEmail;
+  private final SingleFlight<String, Boolean> existsByUsername;
+
+  public UsuarioLookupCoalescer(
+    UsuarioRepository usuarioRepository,
+    MeterRegistry meterRegistry,
+    @Value("${usuario.coalescing.enabled:true}") boolean enabled
+  ) {
+    this.usuarioRepository = usuarioRepository;
+    this.enabled = enabled;
+    this.byUsername = new SingleFlight<>("find_by_username", meterRegistry);
+    this.byId = new SingleFlight<>("find_by_id", meterRegistry);
+    this.byEmail = new SingleFlight<>("find_by_email", meterRegistry);
+    this.existsByUsername = new SingleFlight<>("exists_by_username", meterRegistry);
+  }
+
+  public Optional<Usuario> findByUsername(String username) {
+    if (!coalesce() || username == null) {
+      return usuarioRepository.findByUsername(username);
+    }
+    return byUsername.execute(username, () -> usuarioRepository.findByUsername(username).map(Snapshot::of))
+      .map(Snapshot::toUsuario);
+  }
+
+  public Optional<Usuario> findById(Long id) {
+    if (!coalesce() || id == null) {
+      return usuarioRepository.findById(id);
+    }
+    return byId.execute(id, () -> usuarioRepository.findById(id).map(Snapshot::of))
+      .map(Snapshot::toUsuario);
+  }
+
+  public Optional<Usuario> findByEmail(String email) {
+    if (!coalesce() || email == null) {
+      return usuarioRepository.findByEmail(email);
+    }
+    return byEmail.execute(email, () -> usuarioRepository.findByEmail(email).map(Snapshot::of))
+      .map(Snapshot::toUsuario);
+  }
+
+  public boolean existsByUsername(String username) {
+    if (!coalesce() || username == null) {
+      return usuarioRepository.existsByUsername(username);
+    }
+    return existsByUsername.execute(username, () -> usuarioRepository.existsByUsername(username));
+  }
+
+  private boolean coalesce() {
+    return enabled && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+  }
+
+  /**
+   * Estado de un usuario leído en la transacción del líder. Los roles se
+   * recorren aquí, dentro de esa transacción (con un acierto de la caché de
+   * consultas pueden no venir cargados).
+   */
+  private record Snapshot(
+    Long id,
+    String name,
+    String lastname,
+    String username,
+    String password,
+    String email,
+    boolean active,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt,
+    List<RolSnapshot> roles
+  ) {
+
+    static Snapshot of(Usuario usuario) {
+      return new Snapshot(usuario.getId(), usuario.getName(), usuario.getLastname(), usuario.getUsername(),
+        usuario.getPassword(), usuario.getEmail(), usuario.isActive(), usuario.getCreatedAt(),
+        usuario.getUpdatedAt(), usuario.getRoles().stream().map(RolSnapshot::of).toList());
+    }
+
+    Usuario toUsuario() {
+      Usuario usuario = new Usuario();
+      usuario.setId(id);
+      usuario.setName(name);
+      usuario.setLastname(lastname);
+      usuario.setUsername(username);
+      usuario.setPassword(password);
+      usuario.setEmail(email);
+      usuario.setActive(active);
+      usuario.setCreatedAt(createdAt);
+      usuario.setUpdatedAt(updatedAt);
+      usuario.setRoles(roles.stream().map(RolSnapshot::toRol).collect(Collectors.toCollection(ArrayList::new)));
+      return usuario;
+    }
+  }
+
+  private record RolSnapshot(Long id, String name, boolean activo, LocalDateTime createdAt,
+    LocalDateTime updatedAt) {
+
+    static RolSnapshot of(Rol rol) {
+      return new RolSnapshot(rol.getId(), rol.getName(), rol.isActivo(), rol.getCreatedAt(), rol.getUpdatedAt());
+    }
+
+    Rol toRol() {
+      Rol rol = new Rol(name);
+      rol.setId(id);
+      rol.setActivo(activo);
+      rol.setCreatedAt(createdAt);
+      rol.setUpdatedAt(updatedAt);
+      return rol;
+    }
+  }
+}
@@ -5,18 +5,23 @@ import com.project.nelson.msvc_user_auth.usuario.model.dtos.RolDto;
 import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
 import com.project.nelson.msvc_user_auth.usuario.repository.RolRepository;
 import com.project.nelson.msvc_user_auth.usuario.service.RolService;
+import com.project.nelson.msvc_user_auth.usuario.service.catalog.RolCatalog;
+import com.project.nelson.msvc_user_auth.usuario.service.catalog.RolesChangedEvent;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Implementación profesional y escalable del servicio de roles.
  * Incluye manejo de transacciones, logging, uso de mappers y buenas prácticas.
+ *
+ * Las lecturas se resuelven desde {@link RolCatalog} sin acceder a la base de
+ * datos; las escrituras publican {@link RolesChangedEvent} para recargarlo.
  */
 @Service
 public class RolServiceImpl implements RolService {
@@ -29,41 +34,43 @@ public class RolServiceImpl implements RolService {
     @Autowired
     private RolMapper rolMapper;
 
+    @Autowired
+    private RolCatalog rolCatalog;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
-    @Transactional(readOnly = true)
     public List<Rol> findAll() {
         logger.info("Buscando todos los roles");
-        return rolRepository.findAll();
+        return rolCatalog.findAll();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<RolDto> findAllDto() {
         logger.info("Buscando todos los roles (DTO)");
-        return rolRepository.findAll().stream()
-            .map(rolMapper::toDto)
-            .collect(Collectors.toList());
+        return rolCatalog.findAllDto();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Optional<Rol> findById(Long id) {
         logger.info("Buscando rol por id: {}", id);
-        return rolRepository.findById(id);
+        return rolCatalog.findById(id);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Optional<RolDto> findDtoById(Long id) {
         logger.info("Buscando rol (DTO) por id: {}", id);
-        return rolRepository.findById(id).map(rolMapper::toDto);
+        return rolCatalog.findDtoById(id);
     }
 
     @Override
     @Transactional
     public Rol save(Rol rol) {
         logger.info("Guardando rol: {}", rol.getName());
-        return rolRepository.save(rol);
+        Rol saved = rolRepository.save(rol);
+        eventPublisher.publishEvent(new RolesChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
@@ -80,19 +87,18 @@ public class RolServiceImpl implements RolService {
     public void deleteById(Long id) {
         logger.warn("Eliminando rol por id: {}", id);
         rolRepository.deleteById(id);
+        eventPublisher.publishEvent(new RolesChangedEvent(id));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Optional<Rol> findByName(String name) {
         logger.info("Buscando rol por nombre: {}", name);
-        return rolRepository.findByName(name);
+        return rolCatalog.findByName(name);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Optional<RolDto> findDtoByName(String name) {
         logger.info("Buscando rol (DTO) por nombre: {}", name);
-        return rolRepository.findByName(name).map(rolMapper::toDto);
+        return rolCatalog.findDtoByName(name);
     }
 }
\ No newline at end of file
@@ -0,0 +1,345 @@
+package com.project.nelson.msvc_user_auth.usuario.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.nelson.msvc_user_auth.usuario.config.configthreads.ExecutorFactory;
+import com.project.nelson.msvc_user_auth.usuario.exeptions.CustomException;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.ImportJobStatus;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.ImportRowError;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.RolDto;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.security.password.BoundedPasswordEncoder;
+import com.project.nelson.msvc_user_auth.usuario.security.service.UserSessionRegistry;
+import com.project.nelson.msvc_user_auth.usuario.service.RolService;
+import com.project.nelson.msvc_user_auth.usuario.service.UsuarioImportService;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.ImportFormat;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.ImportJob;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.UsuarioBatchWriter;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.UsuarioBatchWriter.HashedRow;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.UsuarioImportReader;
+import com.project.nelson.msvc_user_auth.usuario.service.membership.UsuarioMembershipIndex;
+import com.project.nelson.msvc_user_auth.usuario.service.membership.UsuarioMembershipIndex.Key;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Importación masiva de usuarios desde CSV o NDJSON.
+ *
+ * El archivo se copia a disco y un trabajo en segundo plano lo recorre por
+ * etapas: lectura y validación fila a fila, descarte de usernames/emails ya
+ * existentes (índice de pertenencia y una consulta IN por lote), hashing BCrypt
+ * en paralelo en un pool acotado y, mientras se hashea el lote siguiente,
+ * inserción JDBC por lotes del anterior. Los errores se reportan por fila.
+ */
+@Service
+public class UsuarioImportServiceImpl implements UsuarioImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsuarioImportServiceImpl.class);
+
+    @Autowired
+    private UsuarioBatchWriter batchWriter;
+
+    @Autowired
+    private RolService rolService;
+
+    @Autowired
+    private UsuarioMembershipIndex membershipIndex;
+
+    @Autowired
+    private UserSessionRegistry sessionRegistry;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ExecutorFactory executorFactory;
+
+    @Value("${usuario.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${usuario.import.max-concurrent-jobs:1}")
+    private int maxConcurrentJobs;
+
+    // Hashes simultáneos de la importación, en un pool distinto del de login
+    @Value("${usuario.import.hash-threads:#{T(java.lang.Math).max(1, T(java.lang.Runtime).getRuntime().availableProcessors() / 2)}}")
+    private int hashThreads;
+
+    @Value("${usuario.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${usuario.import.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private Semaphore jobPermits;
+    private AsyncTaskExecutor jobExecutor;
+    private AsyncTaskExecutor hashExecutor;
+    private PasswordEncoder importEncoder;
+    private Counter importedRows;
+    private Counter failedRows;
+
+    @PostConstruct
+    public void init() {
+        jobPermits = new Semaphore(maxConcurrentJobs);
+        jobExecutor = executorFactory.newExecutor("usuario-import-", maxConcurrentJobs);
+        hashExecutor = executorFactory.newExecutor("usuario-import-hash-", hashThreads);
+        // Mismo coste que el login, pero fuera de su pool acotado
+        int strength = passwordEncoder instanceof BoundedPasswordEncoder bounded ? bounded.getStrength() : 10;
+        importEncoder = new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2B, strength);
+        importedRows = Counter.builder("usuario.import.rows").tag("result", "imported").register(meterRegistry);
+        failedRows = Counter.builder("usuario.import.rows").tag("result", "failed").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorFactory.close(jobExecutor);
+        executorFactory.close(hashExecutor);
+    }
+
+    @Override
+    public ImportJobStatus start(InputStream body, ImportFormat format) throws IOException {
+        purgeFinishedJobs();
+        // El executor no debe bloquear ni encolar sin límite: se rechaza antes de aceptar el archivo
+        if (!jobPermits.tryAcquire()) {
+            throw new CustomException("Hay demasiadas importaciones en curso, reintente más tarde", 429,
+                "Too Many Requests");
+        }
+        Path file;
+        try {
+            file = Files.createTempFile("usuario-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            jobPermits.release();
+            throw ex;
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), format, maxErrors);
+        jobs.put(job.getId(), job);
+        logger.info("Importación {} aceptada ({}, {} bytes)", job.getId(), format, Files.size(file));
+        try {
+            jobExecutor.execute(() -> run(job, file));
+        } catch (RuntimeException ex) {
+            jobs.remove(job.getId());
+            jobPermits.release();
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+        return job.toStatus();
+    }
+
+    @Override
+    public Optional<ImportJobStatus> findStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::toStatus);
+    }
+
+    private void run(ImportJob job, Path file) {
+        job.start();
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        try (UsuarioImportReader reader = new UsuarioImportReader(file, job.getFormat(), objectMapper.reader())) {
+            List<ValidRow> batch = new ArrayList<>(batchSize);
+            PendingBatch inFlight = null;
+            long parseStart = System.nanoTime();
+            UsuarioImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                job.rowRead();
+                ValidRow valid = validate(job, row, seenUsernames, seenEmails);
+                if (valid != null) {
+                    batch.add(valid);
+                }
+                if (batch.size() == batchSize) {
+                    job.addParseNanos(System.nanoTime() - parseStart);
+                    PendingBatch next = hashAsync(job, batch);
+                    write(job, inFlight);
+                    inFlight = next;
+                    batch = new ArrayList<>(batchSize);
+                    parseStart = System.nanoTime();
+                }
+            }
+            job.addParseNanos(System.nanoTime() - parseStart);
+            PendingBatch last = hashAsync(job, batch);
+            write(job, inFlight);
+            write(job, last);
+            job.complete();
+            ImportJobStatus status = job.toStatus();
+            logger.info("Importación {} terminada: {} importados, {} rechazados, {} filas/s",
+                job.getId(), status.imported(), status.failed(), status.rowsPerSecond());
+        } catch (Exception ex) {
+            logger.error("Importación {} fallida: {}", job.getId(), ex.getMessage());
+            job.abort(ex.getMessage());
+        } finally {
+            jobPermits.release();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                logger.warn("No se pudo borrar el archivo temporal {}: {}", file, ex.getMessage());
+            }
+        }
+    }
+
+    private ValidRow validate(ImportJob job, UsuarioImportReader.Row row, Set<String> seenUsernames,
+        Set<String> seenEmails) {
+        if (row.error() != null) {
+            reject(job, row.line(), null, row.error());
+            return null;
+        }
+        UsuarioDto usuario = row.usuario();
+        Set<ConstraintViolation<UsuarioDto>> violations = validator.validate(usuario);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<UsuarioDto> first = violations.iterator().next();
+            reject(job, row.line(), first.getPropertyPath().toString(), first.getMessage());
+            return null;
+        }
+        String username = usuario.getUsername().toLowerCase(Locale.ROOT);
+        String email = usuario.getEmail().toLowerCase(Locale.ROOT);
+        if (!seenUsernames.add(username)) {
+            reject(job, row.line(), "username", "username repetido en el archivo");
+            return null;
+        }
+        if (!seenEmails.add(email)) {
+            reject(job, row.line(), "email", "email repetido en el archivo");
+            return null;
+        }
+        List<Long> rolIds = new ArrayList<>();
+        List<RolDto> roles = usuario.getRoles();
+        if (roles == null || roles.isEmpty()) {
+            rolIds.add(rolService.findByName("ROLE_USER")
+                .orElseGet(() -> rolService.save(new Rol("ROLE_USER"))).getId());
+        } else {
+            for (RolDto rolDto : roles) {
+                Optional<Rol> rol = rolDto.getName() == null ? Optional.empty() : rolService.findByName(rolDto.getName());
+                if (rol.isEmpty()) {
+                    reject(job, row.line(), "roles", "rol inexistente: " + rolDto.getName());
+                    return null;
+                }
+                rolIds.add(rol.get().getId());
+            }
+        }
+        return new ValidRow(row.line(), usuario, rolIds);
+    }
+
+    /**
+     * Descarta las filas cuyo username o email ya existe y lanza el hashing
+     * del resto. Solo los "puede existir" del índice se consultan en la BD.
+     */
+    private PendingBatch hashAsync(ImportJob job, List<ValidRow> batch) {
+        Set<String> existingUsernames = batchWriter.findExisting("username",
+            maybeExisting(batch, Key.USERNAME));
+        Set<String> existingEmails = batchWriter.findExisting("email",
+            maybeExisting(batch, Key.EMAIL));
+
+        List<ValidRow> rows = new ArrayList<>(batch.size());
+        List<Future<String>> hashes = new ArrayList<>(batch.size());
+        for (ValidRow row : batch) {
+            if (existingUsernames.contains(row.usuario().getUsername().toLowerCase(Locale.ROOT))) {
+                reject(job, row.line(), "username", "ya existe en la base de datos");
+            } else if (existingEmails.contains(row.usuario().getEmail().toLowerCase(Locale.ROOT))) {
+                reject(job, row.line(), "email", "ya existe en la base de datos");
+            } else {
+                String rawPassword = row.usuario().getPassword();
+                rows.add(row);
+                hashes.add(hashExecutor.submit(() -> importEncoder.encode(rawPassword)));
+            }
+        }
+        return new PendingBatch(rows, hashes);
+    }
+
+    private List<String> maybeExisting(List<ValidRow> batch, Key key) {
+        return batch.stream()
+            .map(row -> key == Key.USERNAME ? row.usuario().getUsername() : row.usuario().getEmail())
+            .filter(value -> !membershipIndex.definitelyAbsent(key, value))
+            .toList();
+    }
+
+    private void write(ImportJob job, PendingBatch pending) throws InterruptedException {
+        if (pending == null || pending.rows().isEmpty()) {
+            return;
+        }
+        long hashStart = System.nanoTime();
+        List<HashedRow> hashed = new ArrayList<>(pending.rows().size());
+        for (int i = 0; i < pending.rows().size(); i++) {
+            ValidRow row = pending.rows().get(i);
+            try {
+                hashed.add(new HashedRow(row.line(), row.usuario(), pending.hashes().get(i).get(), row.rolIds()));
+            } catch (ExecutionException ex) {
+                reject(job, row.line(), "password", "No se pudo hashear la contraseña: " + ex.getCause().getMessage());
+            }
+        }
+        job.addHashNanos(System.nanoTime() - hashStart);
+
+        long insertStart = System.nanoTime();
+        List<ImportRowError> errors = batchWriter.insert(hashed);
+        job.addInsertNanos(System.nanoTime() - insertStart);
+
+        Set<Long> failedLines = new HashSet<>();
+        for (ImportRowError error : errors) {
+            failedLines.add(error.line());
+            reject(job, error.line(), error.field(), error.message());
+        }
+        long inserted = 0;
+        for (HashedRow row : hashed) {
+            if (!failedLines.contains(row.line())) {
+                membershipIndex.recordInsert(row.usuario().getUsername(), row.usuario().getEmail());
+                // El lote ya está confirmado: como en el alta individual, no hereda el bloqueo de una cuenta anterior
+                sessionRegistry.markActive(row.usuario().getUsername());
+                inserted++;
+            }
+        }
+        job.imported(inserted);
+        importedRows.increment(inserted);
+    }
+
+    private void reject(ImportJob job, long line, String field, String message) {
+        job.reject(line, field, message);
+        failedRows.increment();
+    }
+
+    private void purgeFinishedJobs() {
+        Instant limit = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(limit));
+    }
+
+    private record ValidRow(long line, UsuarioDto usuario, List<Long> rolIds) {}
+
+    private record PendingBatch(List<ValidRow> rows, List<Future<String>> hashes) {}
+}
@@ -2,24 +2,43 @@ package com.project.nelson.msvc_user_auth.usuario.service.impl;
 
 
 import com.project.nelson.msvc_user_auth.usuario.mapper.UsuarioMapper;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.RolDto;
 import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioPage;
 import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
 import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
-import com.project.nelson.msvc_user_auth.usuario.repository.RolRepository;
+import com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioRolRow;
+import com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioRow;
 import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import com.project.nelson.msvc_user_auth.usuario.security.password.BoundedPasswordEncoder;
+import com.project.nelson.msvc_user_auth.usuario.security.service.UserSessionRegistry;
+import com.project.nelson.msvc_user_auth.usuario.service.RolService;
 import com.project.nelson.msvc_user_auth.usuario.service.UsuarioService;
+import com.project.nelson.msvc_user_auth.usuario.service.cache.UsuariosChangedEvent;
+import com.project.nelson.msvc_user_auth.usuario.service.coalescing.UsuarioLookupCoalescer;
+import com.project.nelson.msvc_user_auth.usuario.service.membership.UsuarioMembershipIndex;
+import com.project.nelson.msvc_user_auth.usuario.service.membership.UsuarioMembershipIndex.Key;
 
 import jakarta.annotation.PostConstruct;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -36,7 +55,7 @@ public class UsuarioServiceImpl implements UsuarioService {
     private UsuarioRepository usuarioRepository;
 
     @Autowired
-    private RolRepository rolRepository;
+    private RolService rolService;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
@@ -44,12 +63,24 @@ public class UsuarioServiceImpl implements UsuarioService {
     @Autowired
     private UsuarioMapper usuarioMapper;
 
+    @Autowired
+    private UserSessionRegistry sessionRegistry;
+
+    @Autowired
+    private UsuarioMembershipIndex membershipIndex;
+
+    @Autowired
+    private UsuarioLookupCoalescer lookupCoalescer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @PostConstruct
     public void initAdminUser() {
         if (usuarioRepository.countByRolName("ROLE_ADMIN") == 0) {
             logger.info("No existe usuario admin, creando uno por defecto...");
-            Rol adminRol = rolRepository.findByName("ROLE_ADMIN")
-                .orElseGet(() -> rolRepository.save(new Rol("ROLE_ADMIN")));
+            Rol adminRol = rolService.findByName("ROLE_ADMIN")
+                .orElseGet(() -> rolService.save(new Rol("ROLE_ADMIN")));
 
             Usuario admin = new Usuario();
             admin.setName("Administrador");
@@ -67,58 +98,107 @@ public class UsuarioServiceImpl implements UsuarioService {
     @Override
     @Transactional(readOnly = true)
     public Page<Usuario> findAll(Pageable pageable) {
-        logger.info("Buscando usuarios paginados: {}", pageable);
+        logger.debug("Buscando usuarios paginados: {}", pageable);
         return usuarioRepository.findAll(pageable);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Usuario> findAll() {
-        logger.info("Buscando todos los usuarios");
+        logger.debug("Buscando todos los usuarios");
         return usuarioRepository.findAll();
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<UsuarioDto> findAllDto() {
-        logger.info("Buscando todos los usuarios (DTO)");
-        return usuarioRepository.findAll().stream()
-            .map(usuarioMapper::toDto)
-            .collect(Collectors.toList());
+        logger.debug("Buscando todos los usuarios (DTO)");
+        // Dos consultas en total: columnas de usuario y todas las asignaciones de roles
+        return toDtos(usuarioRepository.findAllRows(), usuarioRepository.findAllRolRows());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UsuarioPage findPageDto(long after, int size) {
+        logger.debug("Buscando página de usuarios después de id {} (tamaño {})", after, size);
+        // Se pide una fila extra para saber si hay más páginas sin un COUNT
+        List<UsuarioRow> rows = usuarioRepository.findRowsAfter(after, Limit.of(size + 1));
+        boolean hasMore = rows.size() > size;
+        List<UsuarioRow> pageRows = hasMore ? rows.subList(0, size) : rows;
+        if (pageRows.isEmpty()) {
+            return new UsuarioPage(List.of(), null, false);
+        }
+        Long nextCursor = hasMore ? pageRows.get(pageRows.size() - 1).id() : null;
+        return new UsuarioPage(withRoles(pageRows), nextCursor, hasMore);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllDto(int chunkSize, Consumer<List<UsuarioDto>> chunkConsumer) {
+        logger.debug("Recorriendo todos los usuarios en bloques de {}", chunkSize);
+        List<UsuarioRow> chunk = new ArrayList<>(chunkSize);
+        try (Stream<UsuarioRow> rows = usuarioRepository.streamAllRows()) {
+            Iterator<UsuarioRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(withRoles(chunk));
+                    // Proyecciones no gestionadas: nada que liberar del contexto de persistencia
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkConsumer.accept(withRoles(chunk));
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Usuario> findById(Long id) {
-        logger.info("Buscando usuario por id: {}", id);
-        return usuarioRepository.findById(id);
+        logger.debug("Buscando usuario por id: {}", id);
+        return lookupCoalescer.findById(id);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<UsuarioDto> findDtoById(Long id) {
-        logger.info("Buscando usuario (DTO) por id: {}", id);
-        return usuarioRepository.findById(id)
-            .map(usuarioMapper::toDto);
+        logger.debug("Buscando usuario (DTO) por id: {}", id);
+        return usuarioRepository.findRowById(id)
+            .map(row -> withRoles(List.of(row)).get(0));
     }
 
     @Override
     @Transactional
     public Usuario save(Usuario usuario) {
         logger.info("Guardando usuario: {}", usuario.getUsername());
+        if (usuario.getId() != null) {
+            usuarioRepository.findById(usuario.getId())
+                .ifPresent(previous -> invalidateSessionsIfNeeded(previous, usuario));
+        }
         if (usuario.getPassword() != null) {
-            if (usuario.getId() == null || !usuario.getPassword().startsWith("$2a$")) {
+            // Reconoce cualquier hash BCrypt ($2a$, $2b$, $2y$) para no hashearlo dos veces
+            if (usuario.getId() == null || !BoundedPasswordEncoder.isBcryptHash(usuario.getPassword())) {
                 usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
             }
         }
-        return usuarioRepository.save(usuario);
+        Usuario saved = usuarioRepository.save(usuario);
+        if (saved.isActive()) {
+            // Un alta con el username de un usuario eliminado no debe heredar su bloqueo
+            sessionRegistry.markActive(saved.getUsername());
+        }
+        // También en actualizaciones: un username o email nuevo debe dejar de ser "seguro que no existe"
+        membershipIndex.recordInsert(saved.getUsername(), saved.getEmail());
+        eventPublisher.publishEvent(new UsuariosChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
     @Transactional
     public Usuario saveWithRoleUser(Usuario usuario) {
-        Rol userRol = rolRepository.findByName("ROLE_USER")
-            .orElseGet(() -> rolRepository.save(new Rol("ROLE_USER")));
+        // Catálogo en memoria: sin consulta a la BD en cada registro público
+        Rol userRol = rolService.findByName("ROLE_USER")
+            .orElseGet(() -> rolService.save(new Rol("ROLE_USER")));
         usuario.setRoles(List.of(userRol));
         return save(usuario);
     }
@@ -136,43 +216,113 @@ public class UsuarioServiceImpl implements UsuarioService {
     @Transactional
     public void deleteById(Long id) {
         logger.warn("Eliminando usuario por id: {}", id);
+        usuarioRepository.findById(id)
+            .ifPresent(usuario -> sessionRegistry.markDeleted(usuario.getUsername()));
         usuarioRepository.deleteById(id);
+        membershipIndex.recordDelete();
+        eventPublisher.publishEvent(new UsuariosChangedEvent(id));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Usuario> findByUsername(String username) {
-        logger.info("Buscando usuario por username: {}", username);
-        return usuarioRepository.findByUsername(username);
+        logger.debug("Buscando usuario por username: {}", username);
+        return lookupCoalescer.findByUsername(username);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<UsuarioDto> findDtoByUsername(String username) {
-        logger.info("Buscando usuario (DTO) por username: {}", username);
-        return usuarioRepository.findByUsername(username)
-            .map(usuarioMapper::toDto);
+        logger.debug("Buscando usuario (DTO) por username: {}", username);
+        return usuarioRepository.findRowByUsername(username)
+            .map(row -> withRoles(List.of(row)).get(0));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Usuario> findByEmail(String email) {
-        logger.info("Buscando usuario por email: {}", email);
-        return usuarioRepository.findByEmail(email);
+        logger.debug("Buscando usuario por email: {}", email);
+        return lookupCoalescer.findByEmail(email);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<UsuarioDto> findDtoByEmail(String email) {
-        logger.info("Buscando usuario (DTO) por email: {}", email);
-        return usuarioRepository.findByEmail(email)
-            .map(usuarioMapper::toDto);
+        logger.debug("Buscando usuario (DTO) por email: {}", email);
+        return usuarioRepository.findRowByEmail(email)
+            .map(row -> withRoles(List.of(row)).get(0));
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
-        logger.info("Verificando existencia de usuario por username: {}", username);
-        return usuarioRepository.existsByUsername(username);
+        logger.debug("Verificando existencia de usuario por username: {}", username);
+        // Un "seguro que no existe" del índice evita la consulta
+        if (membershipIndex.definitelyAbsent(Key.USERNAME, username)) {
+            return false;
+        }
+        boolean exists = lookupCoalescer.existsByUsername(username);
+        if (!exists) {
+            membershipIndex.recordFalsePositive(Key.USERNAME);
+        }
+        return exists;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsByEmail(String email) {
+        logger.debug("Verificando existencia de usuario por email: {}", email);
+        if (membershipIndex.definitelyAbsent(Key.EMAIL, email)) {
+            return false;
+        }
+        boolean exists = usuarioRepository.existsByEmail(email);
+        if (!exists) {
+            membershipIndex.recordFalsePositive(Key.EMAIL);
+        }
+        return exists;
+    }
+
+    /**
+     * Invalida los JWT ya emitidos cuando el usuario se desactiva, se reactiva
+     * o cambia de roles, ya que la validación sin estado confía en los claims.
+     */
+    private void invalidateSessionsIfNeeded(Usuario previous, Usuario updated) {
+        boolean deactivated = !updated.isActive();
+        boolean changed = deactivated
+            || !previous.isActive()
+            || !roleNames(previous).equals(roleNames(updated));
+        if (!changed) {
+            return;
+        }
+        if (deactivated) {
+            sessionRegistry.markInactive(previous.getUsername());
+        } else {
+            sessionRegistry.revokeIssuedUntilNow(previous.getUsername());
+        }
+        logger.info("Sesiones invalidadas para usuario: {}", previous.getUsername());
+    }
+
+    /**
+     * Completa un bloque de usuarios con sus roles resueltos en una sola consulta.
+     */
+    private List<UsuarioDto> withRoles(List<UsuarioRow> rows) {
+        List<Long> ids = rows.stream().map(UsuarioRow::id).collect(Collectors.toList());
+        return toDtos(rows, usuarioRepository.findRolRowsByUsuarioIdIn(ids));
+    }
+
+    private static List<UsuarioDto> toDtos(List<UsuarioRow> rows, List<UsuarioRolRow> rolRows) {
+        Map<Long, List<RolDto>> rolesByUsuario = new HashMap<>();
+        for (UsuarioRolRow rolRow : rolRows) {
+            rolesByUsuario.computeIfAbsent(rolRow.usuarioId(), id -> new ArrayList<>()).add(rolRow.toDto());
+        }
+        return rows.stream()
+            .map(row -> row.toDto(rolesByUsuario.getOrDefault(row.id(), new ArrayList<>())))
+            .collect(Collectors.toList());
+    }
+
+    private static Set<String> roleNames(Usuario usuario) {
+        return usuario.getRoles() == null ? Set.of() : usuario.getRoles().stream()
+            .map(Rol::getName)
+            .collect(Collectors.toSet());
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.project.nelson.msvc_user_auth.usuario.service.importer;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos aceptados por la importación masiva de usuarios.
+ *
+ * CSV: primera línea de cabecera con las columnas name, lastname, username,
+ * password, email y, opcionalmente, roles (nombres separados por {@code |}).
+ * NDJSON: un {@code UsuarioDto} JSON por línea.
+ */
+public enum ImportFormat {
+  CSV,
+  NDJSON;
+
+  public static final String TEXT_CSV = "text/csv";
+  public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+  public static ImportFormat fromContentType(MediaType contentType) {
+    if (contentType != null && contentType.isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON))) {
+      return NDJSON;
+    }
+    return CSV;
+  }
+}
@@ -0,0 +1,132 @@
+package com.project.nelson.msvc_user_auth.usuario.service.importer;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.ImportJobStatus;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.ImportRowError;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado mutable de una importación. Lo escribe solo el hilo del trabajo;
+ * {@link #toStatus()} puede leerse desde cualquier petición.
+ */
+public class ImportJob {
+
+  public enum State {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+  }
+
+  private final String id;
+  private final ImportFormat format;
+  private final int maxErrors;
+  private final List<ImportRowError> errors = new ArrayList<>();
+  private final AtomicLong rowsRead = new AtomicLong();
+  private final AtomicLong imported = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong parseNanos = new AtomicLong();
+  private final AtomicLong hashNanos = new AtomicLong();
+  private final AtomicLong insertNanos = new AtomicLong();
+  private volatile State state = State.PENDING;
+  private volatile Instant startedAt;
+  private volatile Instant finishedAt;
+  private volatile String message;
+  private volatile boolean errorsTruncated;
+
+  public ImportJob(String id, ImportFormat format, int maxErrors) {
+    this.id = id;
+    this.format = format;
+    this.maxErrors = maxErrors;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public ImportFormat getFormat() {
+    return format;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void start() {
+    startedAt = Instant.now();
+    state = State.RUNNING;
+  }
+
+  public void complete() {
+    finishedAt = Instant.now();
+    state = State.COMPLETED;
+  }
+
+  public void abort(String reason) {
+    message = reason;
+    finishedAt = Instant.now();
+    state = State.FAILED;
+  }
+
+  public void rowRead() {
+    rowsRead.incrementAndGet();
+  }
+
+  public void imported(long rows) {
+    imported.addAndGet(rows);
+  }
+
+  public void reject(long line, String field, String error) {
+    failed.incrementAndGet();
+    synchronized (errors) {
+      if (errors.size() < maxErrors) {
+        errors.add(new ImportRowError(line, field, error));
+      } else {
+        errorsTruncated = true;
+      }
+    }
+  }
+
+  public void addParseNanos(long nanos) {
+    parseNanos.addAndGet(nanos);
+  }
+
+  public void addHashNanos(long nanos) {
+    hashNanos.addAndGet(nanos);
+  }
+
+  public void addInsertNanos(long nanos) {
+    insertNanos.addAndGet(nanos);
+  }
+
+  public ImportJobStatus toStatus() {
+    Instant start = startedAt;
+    Instant end = finishedAt != null ? finishedAt : Instant.now();
+    long processed = imported.get() + failed.get();
+    double seconds = start == null ? 0 : Duration.between(start, end).toNanos() / 1_000_000_000.0;
+    List<ImportRowError> snapshot;
+    synchronized (errors) {
+      snapshot = List.copyOf(errors);
+    }
+    return new ImportJobStatus(
+      id,
+      state.name(),
+      format.name(),
+      rowsRead.get(),
+      imported.get(),
+      failed.get(),
+      seconds > 0 ? Math.round(processed / seconds * 10) / 10.0 : 0,
+      parseNanos.get() / 1_000_000,
+      hashNanos.get() / 1_000_000,
+      insertNanos.get() / 1_000_000,
+      start,
+      finishedAt,
+      message,
+      snapshot,
+      errorsTruncated
+    );
+  }
+}
@@ -0,0 +1,143 @@
+package com.project.nelson.msvc_user_auth.usuario.service.importer;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.ImportRowError;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.service.cache.UsuariosChangedEvent;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Inserción por lotes de usuarios importados con JDBC.
+ *
+ * La entidad {@code Usuario} usa {@code GenerationType.IDENTITY}, que impide
+ * a Hibernate agrupar los INSERT. Aquí se envía cada lote como un único
+ * {@code batchUpdate} (reescrito a un INSERT multi-fila por Connector/J con
+ * {@code rewriteBatchedStatements=true}), se recuperan los ids con una sola
+ * consulta por username y las filas de {@code user_roles} van en un segundo
+ * lote: tres sentencias por lote en lugar de dos por usuario.
+ *
+ * Si el lote falla (por ejemplo, un username creado en paralelo) se reintenta
+ * fila a fila para atribuir el error a la fila que lo causa.
+ */
+@Component
+public class UsuarioBatchWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger(UsuarioBatchWriter.class);
+
+  private static final String INSERT_USUARIO =
+    "INSERT INTO usuarios (name, lastname, username, password, email, active, created_at, updated_at) " +
+    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_USUARIO_ROL = "INSERT INTO user_roles (user_id, rol_id) VALUES (?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+
+  /**
+   * Fila lista para insertar: validada y con la contraseña ya hasheada.
+   */
+  public record HashedRow(long line, UsuarioDto usuario, String passwordHash, List<Long> rolIds) {}
+
+  public UsuarioBatchWriter(
+    JdbcTemplate jdbcTemplate,
+    PlatformTransactionManager transactionManager,
+    ApplicationEventPublisher eventPublisher
+  ) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Valores de {@code column} (username o email) que ya existen, en minúsculas.
+   */
+  public Set<String> findExisting(String column, Collection<String> values) {
+    if (values.isEmpty()) {
+      return Set.of();
+    }
+    String sql = "SELECT " + column + " FROM usuarios WHERE " + column + " IN (:values)";
+    Set<String> existing = new HashSet<>();
+    namedJdbcTemplate.query(sql, Map.of("values", values),
+      rs -> { existing.add(rs.getString(1).toLowerCase(Locale.ROOT)); });
+    return existing;
+  }
+
+  /**
+   * Inserta el lote y devuelve los errores de las filas que no se insertaron.
+   */
+  public List<ImportRowError> insert(List<HashedRow> rows) {
+    if (rows.isEmpty()) {
+      return List.of();
+    }
+    try {
+      transactionTemplate.executeWithoutResult(status -> insertAll(rows));
+      return List.of();
+    } catch (DataAccessException ex) {
+      logger.warn("[UsuarioBatchWriter] Lote de {} filas rechazado, reintentando fila a fila: {}",
+        rows.size(), ex.getMostSpecificCause().getMessage());
+    }
+    List<ImportRowError> errors = new ArrayList<>();
+    for (HashedRow row : rows) {
+      try {
+        transactionTemplate.executeWithoutResult(status -> insertAll(List.of(row)));
+      } catch (DataAccessException ex) {
+        errors.add(new ImportRowError(row.line(), null,
+          "No se pudo insertar: " + ex.getMostSpecificCause().getMessage()));
+      }
+    }
+    return errors;
+  }
+
+  private void insertAll(List<HashedRow> rows) {
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+    jdbcTemplate.batchUpdate(INSERT_USUARIO, rows, rows.size(), (ps, row) -> {
+      UsuarioDto usuario = row.usuario();
+      ps.setString(1, usuario.getName());
+      ps.setString(2, usuario.getLastname());
+      ps.setString(3, usuario.getUsername());
+      ps.setString(4, row.passwordHash());
+      ps.setString(5, usuario.getEmail());
+      ps.setBoolean(6, true);
+      ps.setTimestamp(7, now);
+      ps.setTimestamp(8, now);
+    });
+
+    Map<String, Long> ids = new HashMap<>();
+    namedJdbcTemplate.query("SELECT id, username FROM usuarios WHERE username IN (:usernames)",
+      Map.of("usernames", rows.stream().map(row -> row.usuario().getUsername()).toList()),
+      rs -> { ids.put(rs.getString(2).toLowerCase(Locale.ROOT), rs.getLong(1)); });
+
+    List<long[]> userRoles = new ArrayList<>();
+    for (HashedRow row : rows) {
+      Long userId = ids.get(row.usuario().getUsername().toLowerCase(Locale.ROOT));
+      for (Long rolId : row.rolIds()) {
+        userRoles.add(new long[] { userId, rolId });
+      }
+    }
+    jdbcTemplate.batchUpdate(INSERT_USUARIO_ROL, userRoles, userRoles.size(), (ps, pair) -> {
+      ps.setLong(1, pair[0]);
+      ps.setLong(2, pair[1]);
+    });
+    // Hibernate no ve estos INSERT: las consultas cacheadas pueden dar por inexistentes a estos usuarios
+    eventPublisher.publishEvent(UsuariosChangedEvent.all());
+  }
+}
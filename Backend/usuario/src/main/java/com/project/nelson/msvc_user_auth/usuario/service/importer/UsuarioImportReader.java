@@ -0,0 +1,164 @@
+package com.project.nelson.msvc_user_auth.usuario.service.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.RolDto;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lee un archivo de importación fila a fila sin cargarlo completo en memoria.
+ *
+ * Cada llamada a {@link #next()} devuelve la siguiente fila no vacía como
+ * {@link UsuarioDto}, o con {@code error} si no se pudo interpretar.
+ */
+public final class UsuarioImportReader implements Closeable {
+
+  private static final List<String> REQUIRED_COLUMNS =
+    List.of("name", "lastname", "username", "password", "email");
+
+  private final BufferedReader reader;
+  private final ImportFormat format;
+  private final ObjectReader jsonReader;
+  private Map<String, Integer> columns;
+  private long line;
+
+  /**
+   * Fila leída: {@code usuario} es null cuando {@code error} no lo es.
+   */
+  public record Row(long line, UsuarioDto usuario, String error) {}
+
+  public UsuarioImportReader(Path file, ImportFormat format, ObjectReader jsonReader) throws IOException {
+    this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    this.format = format;
+    this.jsonReader = jsonReader.forType(UsuarioDto.class);
+  }
+
+  public Row next() throws IOException {
+    String text;
+    while ((text = reader.readLine()) != null) {
+      line++;
+      if (line == 1 && !text.isEmpty() && text.charAt(0) == '\uFEFF') {
+        text = text.substring(1);
+      }
+      if (text.isBlank()) {
+        continue;
+      }
+      if (format == ImportFormat.CSV && columns == null) {
+        readHeader(text);
+        continue;
+      }
+      return format == ImportFormat.CSV ? parseCsv(text) : parseJson(text);
+    }
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private void readHeader(String text) {
+    List<String> names = splitCsv(text);
+    columns = new HashMap<>();
+    for (int i = 0; i < names.size(); i++) {
+      columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+    }
+    List<String> missing = REQUIRED_COLUMNS.stream().filter(c -> !columns.containsKey(c)).toList();
+    if (!missing.isEmpty()) {
+      throw new IllegalArgumentException("Cabecera CSV sin columnas obligatorias: " + missing);
+    }
+  }
+
+  private Row parseCsv(String text) {
+    List<String> values = splitCsv(text);
+    if (values == null) {
+      return new Row(line, null, "Comillas sin cerrar");
+    }
+    UsuarioDto dto = new UsuarioDto();
+    dto.setName(column(values, "name"));
+    dto.setLastname(column(values, "lastname"));
+    dto.setUsername(column(values, "username"));
+    dto.setPassword(column(values, "password"));
+    dto.setEmail(column(values, "email"));
+    String roles = column(values, "roles");
+    if (roles != null && !roles.isBlank()) {
+      List<RolDto> rolDtos = new ArrayList<>();
+      for (String name : roles.split("\\|")) {
+        if (!name.isBlank()) {
+          RolDto rol = new RolDto();
+          rol.setName(name.trim());
+          rolDtos.add(rol);
+        }
+      }
+      dto.setRoles(rolDtos);
+    }
+    return new Row(line, dto, null);
+  }
+
+  private Row parseJson(String text) {
+    try {
+      return new Row(line, jsonReader.readValue(text), null);
+    } catch (JsonProcessingException ex) {
+      return new Row(line, null, "JSON inválido: " + ex.getOriginalMessage());
+    }
+  }
+
+  private String column(List<String> values, String name) {
+    Integer index = columns.get(name);
+    if (index == null || index >= values.size()) {
+      return null;
+    }
+    String value = values.get(index).trim();
+    return value.isEmpty() ? null : value;
+  }
+
+  /**
+   * Separa una línea CSV (RFC 4180 sin saltos de línea dentro de comillas).
+   * Devuelve null si una comilla queda sin cerrar.
+   */
+  static List<String> splitCsv(String text) {
+    if (text.indexOf('"') < 0) {
+      return Arrays.asList(text.split(",", -1));
+    }
+    List<String> values = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+          current.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          current.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        values.add(current.toString());
+        current.setLength(0);
+      } else {
+        current.append(c);
+      }
+    }
+    if (quoted) {
+      return null;
+    }
+    values.add(current.toString());
+    return values;
+  }
+}
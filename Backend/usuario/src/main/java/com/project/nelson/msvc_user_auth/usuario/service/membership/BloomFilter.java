@@ -0,0 +1,120 @@
+package com.project.nelson.msvc_user_auth.usuario.service.membership;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom concurrente sin bloqueos.
+ *
+ * {@link #mightContain(String)} en falso es definitivo: el valor nunca se
+ * insertó. En verdadero puede ser un falso positivo con probabilidad cercana
+ * a la configurada mientras no se supere la capacidad. Los bits se activan
+ * con CAS sobre un {@link AtomicLongArray}, por lo que {@code put} y
+ * {@code mightContain} pueden ejecutarse en paralelo.
+ */
+public final class BloomFilter {
+
+  private static final double LN2 = Math.log(2);
+
+  private final AtomicLongArray words;
+  private final long numBits;
+  private final int numHashes;
+  private final long capacity;
+  private final LongAdder insertions = new LongAdder();
+
+  private BloomFilter(long numBits, int numHashes, long capacity) {
+    this.words = new AtomicLongArray(Math.toIntExact((numBits + 63) / 64));
+    this.numBits = numBits;
+    this.numHashes = numHashes;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Dimensiona el filtro para {@code expectedInsertions} valores con la tasa
+   * de falsos positivos {@code fpp}.
+   */
+  public static BloomFilter create(long expectedInsertions, double fpp) {
+    long n = Math.max(1, expectedInsertions);
+    long bits = (long) Math.ceil(-n * Math.log(fpp) / (LN2 * LN2));
+    bits = Math.max(64, (bits + 63) / 64 * 64);
+    int hashes = Math.max(1, (int) Math.round((double) bits / n * LN2));
+    return new BloomFilter(bits, hashes, n);
+  }
+
+  public void put(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+    for (int i = 0; i < numHashes; i++) {
+      setBit(index(hash1 + i * hash2));
+    }
+    insertions.increment();
+  }
+
+  public boolean mightContain(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+    for (int i = 0; i < numHashes; i++) {
+      long bit = index(hash1 + i * hash2);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tasa de falsos positivos estimada con las inserciones actuales.
+   */
+  public double expectedFpp() {
+    double fill = 1 - Math.exp(-(double) numHashes * insertions.sum() / numBits);
+    return Math.pow(fill, numHashes);
+  }
+
+  public long insertions() {
+    return insertions.sum();
+  }
+
+  public long capacity() {
+    return capacity;
+  }
+
+  public long sizeInBytes() {
+    return numBits / 8;
+  }
+
+  private long index(long combinedHash) {
+    return (combinedHash & Long.MAX_VALUE) % numBits;
+  }
+
+  private void setBit(long bit) {
+    int word = (int) (bit >>> 6);
+    long mask = 1L << bit;
+    long current;
+    do {
+      current = words.get(word);
+      if ((current & mask) != 0) {
+        return;
+      }
+    } while (!words.compareAndSet(word, current, current | mask));
+  }
+
+  // FNV-1a de 64 bits sobre UTF-8 con el finalizador de MurmurHash3
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
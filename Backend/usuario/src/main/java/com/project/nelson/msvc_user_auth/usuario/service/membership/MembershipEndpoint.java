@@ -0,0 +1,33 @@
+package com.project.nelson.msvc_user_auth.usuario.service.membership;
+
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint de actuator {@code /actuator/membership}: estadísticas del índice
+ * de username/email (GET) y reconstrucción manual (POST).
+ */
+@Component
+@Endpoint(id = "membership")
+public class MembershipEndpoint {
+
+  private final UsuarioMembershipIndex index;
+
+  public MembershipEndpoint(UsuarioMembershipIndex index) {
+    this.index = index;
+  }
+
+  @ReadOperation
+  public Map<String, Object> stats() {
+    return index.stats();
+  }
+
+  @WriteOperation
+  public Map<String, Object> rebuild() {
+    index.rebuild("petición de actuator");
+    return index.stats();
+  }
+}
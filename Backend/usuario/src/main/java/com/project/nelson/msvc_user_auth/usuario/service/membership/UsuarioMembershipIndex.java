@@ -0,0 +1,326 @@
+package com.project.nelson.msvc_user_auth.usuario.service.membership;
+
+import com.project.nelson.msvc_user_auth.usuario.model.projections.UsuarioClaveRow;
+import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Índice de pertenencia en memoria para username y email.
+ *
+ * Un filtro de Bloom por columna responde "seguro que no existe" sin ir a la
+ * base de datos; solo un "puede existir" se confirma con
+ * {@code existsByUsername}/{@code existsByEmail}. La restricción única de la
+ * tabla sigue siendo la autoridad final.
+ *
+ * Las altas se insertan de inmediato (antes del commit: un rollback solo deja
+ * un falso positivo). Un filtro de Bloom no admite borrados, así que las bajas
+ * se cuentan y, cuando superan {@code usuario.membership.rebuild-stale-ratio}
+ * de las inserciones o se alcanza la capacidad, el índice se reconstruye
+ * desde la tabla en segundo plano. {@link #rebuild(String)} también está
+ * expuesto en el endpoint de actuator {@code membership}.
+ *
+ * Las altas de otras instancias llegan por el canal de invalidación de
+ * usuarios en Redis ({@link #applyRemoteChange(Long)}); además el índice se
+ * reconstruye cada {@code usuario.membership.rebuild-interval-ms} por si se
+ * perdió algún mensaje. Un "seguro que no existe" solo se da por bueno con
+ * {@code usuario.membership.trust-misses} (por defecto, cuando esa
+ * propagación está activa); si no, {@link #definitelyAbsent(Key, String)}
+ * siempre deja decidir a la BD.
+ *
+ * Hasta la primera carga el índice responde "puede existir" a todo.
+ */
+@Component
+public class UsuarioMembershipIndex {
+
+  private static final Logger logger = LoggerFactory.getLogger(UsuarioMembershipIndex.class);
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+  public enum Key {
+    USERNAME,
+    EMAIL
+  }
+
+  private final UsuarioRepository usuarioRepository;
+  private final TransactionTemplate readOnlyTx;
+  private final AsyncTaskExecutor executor;
+  private final double fpp;
+  private final double growthFactor;
+  private final long minCapacity;
+  private final double rebuildStaleRatio;
+  private final boolean trustMisses;
+
+  private final ReentrantLock rebuildLock = new ReentrantLock();
+  private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+  // Petición de reconstrucción llegada durante otra: se repite al terminar
+  private final AtomicBoolean rebuildPending = new AtomicBoolean();
+  private final LongAdder deletesSinceRebuild = new LongAdder();
+  private volatile Filters filters;
+  // Filtros en construcción: las altas concurrentes a la reconstrucción también van aquí
+  private volatile Filters building;
+  private volatile long lastRebuildMillis;
+
+  private final Map<Key, Counter> definiteMisses = new LinkedHashMap<>();
+  private final Map<Key, Counter> probableHits = new LinkedHashMap<>();
+  private final Map<Key, Counter> falsePositives = new LinkedHashMap<>();
+
+  public UsuarioMembershipIndex(
+    UsuarioRepository usuarioRepository,
+    PlatformTransactionManager transactionManager,
+    @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+    MeterRegistry meterRegistry,
+    @Value("${usuario.membership.fpp:0.01}") double fpp,
+    @Value("${usuario.membership.growth-factor:2.0}") double growthFactor,
+    @Value("${usuario.membership.min-capacity:10000}") long minCapacity,
+    @Value("${usuario.membership.rebuild-stale-ratio:0.1}") double rebuildStaleRatio,
+    @Value("${usuario.membership.trust-misses:${usuario.cache.redis.enabled:false}}") boolean trustMisses
+  ) {
+    this.usuarioRepository = usuarioRepository;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.executor = executor;
+    this.fpp = fpp;
+    this.growthFactor = growthFactor;
+    this.minCapacity = minCapacity;
+    this.rebuildStaleRatio = rebuildStaleRatio;
+    this.trustMisses = trustMisses;
+
+    for (Key key : Key.values()) {
+      String index = key.name().toLowerCase(Locale.ROOT);
+      definiteMisses.put(key, Counter.builder("usuario.membership.checks")
+        .tag("index", index).tag("result", "definite_miss")
+        .description("Consultas resueltas por el filtro sin ir a la BD")
+        .register(meterRegistry));
+      probableHits.put(key, Counter.builder("usuario.membership.checks")
+        .tag("index", index).tag("result", "probable_hit")
+        .description("Consultas que el filtro deriva a la BD")
+        .register(meterRegistry));
+      falsePositives.put(key, Counter.builder("usuario.membership.false_positives")
+        .tag("index", index)
+        .description("Positivos del filtro que la BD desmiente")
+        .register(meterRegistry));
+      Gauge.builder("usuario.membership.expected_fpp", this, self -> self.expectedFpp(key))
+        .tag("index", index)
+        .description("Tasa de falsos positivos estimada con la ocupación actual")
+        .register(meterRegistry);
+    }
+    Gauge.builder("usuario.membership.stale_entries", deletesSinceRebuild, LongAdder::sum)
+      .description("Bajas desde la última reconstrucción que siguen en el filtro")
+      .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    rebuild("arranque");
+    if (!trustMisses) {
+      logger.info("[UsuarioMembershipIndex] Sin propagación entre instancias: los \"no existe\" se confirman en la BD");
+    }
+  }
+
+  /**
+   * Red de seguridad ante mensajes de alta perdidos (Redis caído o reconectando).
+   */
+  @Scheduled(
+    initialDelayString = "${usuario.membership.rebuild-interval-ms:600000}",
+    fixedDelayString = "${usuario.membership.rebuild-interval-ms:600000}"
+  )
+  public void periodicRebuild() {
+    scheduleRebuild("reconstrucción periódica");
+  }
+
+  /**
+   * Falso significa que el valor seguro que no está en la tabla.
+   */
+  public boolean mightContain(Key key, String value) {
+    Filters current = filters;
+    if (current == null || value == null) {
+      return true;
+    }
+    boolean maybe = current.of(key).mightContain(normalize(value));
+    (maybe ? probableHits : definiteMisses).get(key).increment();
+    return maybe;
+  }
+
+  /**
+   * Verdadero solo si el valor seguro que no está en la tabla y el índice ve
+   * las altas de todas las instancias; en otro caso hay que consultar la BD.
+   */
+  public boolean definitelyAbsent(Key key, String value) {
+    return !mightContain(key, value) && trustMisses;
+  }
+
+  /**
+   * Registra que la BD desmintió un "puede existir" del filtro.
+   */
+  public void recordFalsePositive(Key key) {
+    falsePositives.get(key).increment();
+  }
+
+  public void recordInsert(String username, String email) {
+    Filters current = filters;
+    if (current != null) {
+      current.put(username, email);
+    }
+    Filters next = building;
+    if (next != null) {
+      next.put(username, email);
+    }
+    if (current != null && current.usernames().insertions() > current.usernames().capacity()) {
+      scheduleRebuild("capacidad superada");
+    }
+  }
+
+  /**
+   * Cambio confirmado en otra instancia: añade las claves del usuario o, si
+   * fue un cambio masivo (id nulo, importación), reconstruye el índice.
+   */
+  public void applyRemoteChange(Long usuarioId) {
+    if (usuarioId == null) {
+      scheduleRebuild("cambio masivo en otra instancia");
+      return;
+    }
+    executor.execute(() -> {
+      try {
+        readOnlyTx.execute(status -> usuarioRepository.findClaveById(usuarioId))
+          .ifPresentOrElse(clave -> recordInsert(clave.username(), clave.email()), this::recordDelete);
+      } catch (RuntimeException ex) {
+        logger.warn("[UsuarioMembershipIndex] No se pudo aplicar el alta remota {}: {}", usuarioId, ex.getMessage());
+        scheduleRebuild("alta remota no aplicada");
+      }
+    });
+  }
+
+  public void recordDelete() {
+    deletesSinceRebuild.increment();
+    Filters current = filters;
+    if (current != null && deletesSinceRebuild.sum() > current.usernames().insertions() * rebuildStaleRatio) {
+      scheduleRebuild("compactación de bajas");
+    }
+  }
+
+  /**
+   * Reconstruye ambos filtros desde la tabla y los publica de forma atómica.
+   */
+  public void rebuild(String reason) {
+    rebuildLock.lock();
+    try {
+      long start = System.currentTimeMillis();
+      long rows = usuarioRepository.count();
+      long capacity = Math.max(minCapacity, (long) (rows * growthFactor));
+      Filters next = new Filters(BloomFilter.create(capacity, fpp), BloomFilter.create(capacity, fpp));
+      deletesSinceRebuild.reset();
+      building = next;
+      readOnlyTx.executeWithoutResult(status -> {
+        try (Stream<UsuarioClaveRow> claves = usuarioRepository.streamAllClaves()) {
+          claves.forEach(clave -> next.put(clave.username(), clave.email()));
+        }
+      });
+      filters = next;
+      building = null;
+      lastRebuildMillis = System.currentTimeMillis() - start;
+      logger.info(
+        "[UsuarioMembershipIndex] Índice reconstruido ({}): {} usuarios, capacidad {}, {} KB, {} ms",
+        reason, rows, capacity, next.usernames().sizeInBytes() * 2 / 1024, lastRebuildMillis
+      );
+    } catch (RuntimeException ex) {
+      building = null;
+      logger.error("[UsuarioMembershipIndex] Error al reconstruir el índice: {}", ex.getMessage());
+      throw ex;
+    } finally {
+      rebuildLock.unlock();
+    }
+  }
+
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    Filters current = filters;
+    stats.put("ready", current != null);
+    stats.put("lastRebuildMillis", lastRebuildMillis);
+    stats.put("staleEntries", deletesSinceRebuild.sum());
+    for (Key key : Key.values()) {
+      Map<String, Object> index = new LinkedHashMap<>();
+      if (current != null) {
+        index.put("insertions", current.of(key).insertions());
+        index.put("capacity", current.of(key).capacity());
+        index.put("sizeBytes", current.of(key).sizeInBytes());
+      }
+      index.put("expectedFpp", expectedFpp(key));
+      index.put("definiteMisses", definiteMisses.get(key).count());
+      index.put("probableHits", probableHits.get(key).count());
+      index.put("falsePositives", falsePositives.get(key).count());
+      stats.put(key.name().toLowerCase(Locale.ROOT), index);
+    }
+    return stats;
+  }
+
+  private double expectedFpp(Key key) {
+    Filters current = filters;
+    return current == null ? Double.NaN : current.of(key).expectedFpp();
+  }
+
+  private void scheduleRebuild(String reason) {
+    rebuildPending.set(true);
+    if (!rebuildScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    executor.execute(() -> {
+      try {
+        // Una alta remota confirmada durante la lectura de la tabla pide otra pasada
+        while (rebuildPending.getAndSet(false)) {
+          rebuild(reason);
+        }
+      } finally {
+        rebuildScheduled.set(false);
+        if (rebuildPending.get()) {
+          scheduleRebuild(reason);
+        }
+      }
+    });
+  }
+
+  /**
+   * Misma equivalencia que la colación por defecto de MySQL (sin mayúsculas
+   * ni acentos): dos valores que la BD considera iguales comparten bits.
+   */
+  static String normalize(String value) {
+    String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+    return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+  }
+
+  private record Filters(BloomFilter usernames, BloomFilter emails) {
+    BloomFilter of(Key key) {
+      return key == Key.USERNAME ? usernames : emails;
+    }
+
+    void put(String username, String email) {
+      if (username != null) {
+        usernames.put(normalize(username));
+      }
+      if (email != null) {
+        emails.put(normalize(email));
+      }
+    }
+  }
+}
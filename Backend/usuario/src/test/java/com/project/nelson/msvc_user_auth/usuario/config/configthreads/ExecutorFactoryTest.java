@@ -0,0 +1,55 @@
+package com.project.nelson.msvc_user_auth.usuario.config.configthreads;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+
+class ExecutorFactoryTest {
+
+  @Test
+  void virtualThreadSubmitDoesNotBlockAndRespectsTheLimit() throws Exception {
+    MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+    ExecutorFactory factory = new ExecutorFactory(environment, new SimpleAsyncTaskExecutorBuilder(),
+      new ThreadPoolTaskExecutorBuilder());
+    AsyncTaskExecutor executor = factory.newExecutor("test-", 2);
+
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      // Con concurrencyLimit el tercer submit esperaría a que terminase una tarea
+      assertTimeoutPreemptively(Duration.ofSeconds(1), () -> {
+        for (int i = 0; i < 6; i++) {
+          futures.add(executor.submit(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            release.await();
+            running.decrementAndGet();
+            return null;
+          }));
+        }
+      });
+      Thread.sleep(100);
+      assertEquals(2, running.get());
+    } finally {
+      release.countDown();
+    }
+    for (Future<?> future : futures) {
+      future.get(5, TimeUnit.SECONDS);
+    }
+    assertEquals(2, maxRunning.get());
+    factory.close(executor);
+  }
+}
@@ -0,0 +1,50 @@
+package com.project.nelson.msvc_user_auth.usuario.security;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.project.nelson.msvc_user_auth.usuario.security.service.JwtService;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ActuatorAccessTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private JwtService jwtService;
+
+  @Test
+  void metricsOnTheApiPortRequireAdmin() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/info")).andExpect(status().isForbidden());
+    mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + token("ROLE_USER")))
+      .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void healthDetailsOnlyForAdmin() throws Exception {
+    mockMvc.perform(get("/actuator/health"))
+      .andExpect(jsonPath("$.status").exists())
+      .andExpect(jsonPath("$.components").doesNotExist());
+    mockMvc.perform(get("/actuator/health").header("Authorization", "Bearer " + token("ROLE_ADMIN")))
+      .andExpect(jsonPath("$.components").exists());
+  }
+
+  private String token(String role) {
+    User user = new User("admin", "", List.of(new SimpleGrantedAuthority(role)));
+    return jwtService.generateToken(user, user.getAuthorities(), "admin@correo.com");
+  }
+}
@@ -0,0 +1,92 @@
+package com.project.nelson.msvc_user_auth.usuario.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Base64;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Sentencias SQL de un login correcto: una lectura (usuario y roles) y el alta
+ * del refresh token; con la caché de segundo nivel caliente, solo el alta.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LoginQueryCountTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Test
+  void successfulLoginReadsTheUserOnce() throws Exception {
+    // Primer login: puede re-hashear la contraseña al coste BCrypt de los tests
+    login();
+
+    SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    sessionFactory.getCache().evictAllRegions();
+    Statistics statistics = sessionFactory.getStatistics();
+    statistics.clear();
+    JsonNode body = login();
+
+    assertEquals(1, statistics.getQueryExecutionCount());
+    assertEquals(1, statistics.getEntityInsertCount());
+    assertEquals(2, statistics.getPrepareStatementCount());
+
+    assertEquals("admin", body.get("username").asText());
+    assertFalse(body.get("email").asText().isBlank());
+    assertEquals(body.get("email").asText(), emailClaim(body.get("token").asText()));
+    assertFalse(body.get("roles").isEmpty());
+    assertFalse(body.get("refreshToken").asText().isBlank());
+  }
+
+  @Test
+  void repeatedLoginReadsTheUserFromTheCache() throws Exception {
+    // Primer login: calienta la caché de segundo nivel
+    login();
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    JsonNode body = login();
+
+    // El usuario y sus roles salen de la caché de segundo nivel; solo se inserta el refresh token
+    assertEquals(0, statistics.getQueryExecutionCount());
+    assertEquals(1, statistics.getQueryCacheHitCount());
+    assertEquals(1, statistics.getEntityInsertCount());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals("admin", body.get("username").asText());
+  }
+
+  private JsonNode login() throws Exception {
+    String response = mockMvc.perform(post("/auth/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"username\":\"admin\",\"password\":\"admin123\"}"))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    return objectMapper.readTree(response);
+  }
+
+  private String emailClaim(String token) throws Exception {
+    String payload = token.split("\\.")[1];
+    return objectMapper.readTree(Base64.getUrlDecoder().decode(payload)).get("email").asText();
+  }
+}
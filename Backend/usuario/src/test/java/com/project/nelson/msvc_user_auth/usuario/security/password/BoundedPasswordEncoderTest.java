@@ -0,0 +1,106 @@
+package com.project.nelson.msvc_user_auth.usuario.security.password;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class BoundedPasswordEncoderTest {
+
+  @Test
+  void encodesWithConfiguredStrengthAndMatches() {
+    BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(4, 1, 4, 2000);
+    String hash = encoder.encode("secreto");
+
+    assertTrue(hash.startsWith("$2b$04$"));
+    assertTrue(encoder.matches("secreto", hash));
+    assertFalse(encoder.matches("otro", hash));
+    encoder.shutdown();
+  }
+
+  @Test
+  void upgradeEncodingOnlyWhenStoredCostIsLower() {
+    BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(5, 1, 4, 2000);
+    String legacy = new BCryptPasswordEncoder(4).encode("secreto");
+    String stronger = new BCryptPasswordEncoder(6).encode("secreto");
+
+    assertTrue(encoder.upgradeEncoding(legacy));
+    assertFalse(encoder.upgradeEncoding(stronger));
+    assertFalse(encoder.upgradeEncoding(encoder.encode("secreto")));
+    assertFalse(encoder.upgradeEncoding("texto-plano"));
+    encoder.shutdown();
+  }
+
+  @Test
+  void recognisesAllBcryptVersions() {
+    String legacy = new BCryptPasswordEncoder(4).encode("x");
+
+    assertTrue(BoundedPasswordEncoder.isBcryptHash(legacy));
+    assertTrue(BoundedPasswordEncoder.isBcryptHash(legacy.replaceFirst("^\\$2a\\$", "\\$2b\\$")));
+    assertTrue(BoundedPasswordEncoder.isBcryptHash(legacy.replaceFirst("^\\$2a\\$", "\\$2y\\$")));
+    assertFalse(BoundedPasswordEncoder.isBcryptHash("$2a$plano"));
+    assertFalse(BoundedPasswordEncoder.isBcryptHash(null));
+    assertEquals(4, BoundedPasswordEncoder.strengthOf(legacy));
+  }
+
+  @Test
+  void rejectsImmediatelyWhenQueueIsFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    PasswordEncoder blocking = new BlockingEncoder(release);
+    // Un hilo ocupado y una posición de cola: la tercera petición se rechaza
+    BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 4, 1, 1, 5000);
+
+    CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+    waitUntil(() -> encoder.getActiveCount() == 1);
+    CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+    waitUntil(() -> encoder.getQueueDepth() == 1);
+
+    assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("c"));
+
+    release.countDown();
+    assertEquals("a", running.get(5, TimeUnit.SECONDS));
+    assertEquals("b", queued.get(5, TimeUnit.SECONDS));
+    encoder.shutdown();
+  }
+
+  @Test
+  void calibrationStaysWithinBounds() {
+    int strength = BoundedPasswordEncoder.calibrate(1, 4, 6);
+
+    assertEquals(4, strength);
+  }
+
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+
+  private record BlockingEncoder(CountDownLatch release) implements PasswordEncoder {
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+      try {
+        release.await();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return rawPassword.toString();
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      return rawPassword.toString().equals(encodedPassword);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.JwtSigningKey;
+import com.project.nelson.msvc_user_auth.usuario.repository.JwtSigningKeyRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JwtKeyRotationTest {
+
+  // El mismo que jwt.signing.legacy-hs256-secret en application-test.yml
+  private static final String LEGACY_SECRET = "Bgp+cu9sVKHxc/eDQN62+K76Cb0f4e1q8784EP36Ru4=";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private JwtService jwtService;
+
+  @Autowired
+  private JwtKeyManager keyManager;
+
+  @Autowired
+  private JwtSigningKeyRepository keyRepository;
+
+  private final User user = new User("admin", "", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+  @Test
+  void tokensCarryAPublishedKidAndSurviveRotation() throws Exception {
+    String token = jwtService.generateToken(user, user.getAuthorities(), "admin@correo.com");
+    String kid = kidOf(token);
+    assertTrue(publishedKids().contains(kid));
+    assertEquals("ES256", header(token).get("alg").asText());
+
+    // La nueva clave se publica ya, pero no firma hasta pasar publish-ahead
+    String next = keyManager.rotate();
+    assertNotEquals(kid, next);
+    assertTrue(publishedKids().containsAll(Set.of(kid, next)));
+    String afterRotation = jwtService.generateToken(user, user.getAuthorities(), "admin@correo.com");
+    assertEquals(kid, kidOf(afterRotation));
+    assertEquals("admin", jwtService.verify(token).subject());
+  }
+
+  @Test
+  void legacyHs256TokensWithoutKidStillVerify() {
+    String legacy = Jwts.builder()
+      .setSubject("admin")
+      .claim("roles", List.of("ROLE_ADMIN"))
+      .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+      .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(LEGACY_SECRET)))
+      .compact();
+    assertEquals("admin", jwtService.verify(legacy).subject());
+  }
+
+  @Test
+  void legacyHs256IsRejectedByDefaultAndAfterTheWindow() {
+    JwtKeyManager byDefault = new JwtKeyManager(null, null, 15, 24, 0, "", LEGACY_SECRET, false, 60);
+    assertNull(byDefault.verificationKey(null));
+
+    JwtKeyManager withoutSecret = new JwtKeyManager(null, null, 15, 24, 0, "", "", true, 60);
+    assertNull(withoutSecret.verificationKey(null));
+
+    JwtKeyManager windowOver = new JwtKeyManager(null, null, 15, 24, 0, "", LEGACY_SECRET, true, 0);
+    assertNull(windowOver.verificationKey(null));
+
+    JwtKeyManager withinWindow = new JwtKeyManager(null, null, 15, 24, 0, "", LEGACY_SECRET, true, 60);
+    assertNotNull(withinWindow.verificationKey(null));
+  }
+
+  @Test
+  void concurrentRotationsLeaveExactlyOneSuccessor() throws Exception {
+    int threads = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          keyManager.rotateIfDue();
+          try {
+            return keyManager.rotate();
+          } catch (RuntimeException ex) {
+            // Otra instancia (hilo) rotó desde la misma clave
+            return null;
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    List<JwtSigningKey> published = keyRepository.findPublished(LocalDateTime.now());
+    // Cadena lineal: cada clave tiene como mucho una sucesora y solo la última sigue sin retirar
+    assertEquals(1, published.stream().filter(key -> key.getExpiresAt() == null).count());
+    assertEquals(published.size(), published.stream().map(JwtSigningKey::getPreviousKid).distinct().count());
+    String token = jwtService.generateToken(user, user.getAuthorities(), "admin@correo.com");
+    assertEquals("admin", jwtService.verify(token).subject());
+  }
+
+  private Set<String> publishedKids() throws Exception {
+    String body = mockMvc.perform(get("/.well-known/jwks.json"))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    Set<String> kids = new HashSet<>();
+    for (JsonNode key : objectMapper.readTree(body).get("keys")) {
+      assertEquals("EC", key.get("kty").asText());
+      kids.add(key.get("kid").asText());
+    }
+    return kids;
+  }
+
+  private String kidOf(String token) throws Exception {
+    return header(token).get("kid").asText();
+  }
+
+  private JsonNode header(String token) throws Exception {
+    String header = token.substring(0, token.indexOf('.'));
+    return objectMapper.readTree(new String(Base64.getUrlDecoder().decode(header), StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,128 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LoginAttemptServiceTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void lockedUsernameIsRejectedWithoutAuthenticating() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      mockMvc.perform(login("intruso", "10.20.0.1")).andExpect(status().isUnauthorized());
+    }
+    mockMvc.perform(login("intruso", "10.20.0.2"))
+      .andExpect(status().isTooManyRequests())
+      .andExpect(header().string("Retry-After", "30"));
+    // Otro username desde otra IP no se ve afectado
+    mockMvc.perform(login("otro-intruso", "10.20.0.3")).andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void lockoutDoublesOnRepeatedFailuresAndSlidesWithTheWindow() {
+    AtomicLong now = new AtomicLong(1_000_000);
+    LoginAttemptService service = new LoginAttemptService(
+      now::get, new SimpleMeterRegistry(), 60, 3, 100, 10, 600, 1000, "");
+
+    for (int i = 0; i < 3; i++) {
+      assertDoesNotThrow(() -> service.checkAllowed("ana", "10.0.0.1"));
+      service.recordFailure("ana", "10.0.0.1");
+    }
+    LoginThrottledException first = assertThrows(LoginThrottledException.class,
+      () -> service.checkAllowed("ANA", "10.0.0.9"));
+    assertEquals(10, first.getRetryAfterSeconds());
+
+    // Fallo justo tras el desbloqueo: el bloqueo se dobla
+    now.addAndGet(10_000);
+    service.recordFailure("ana", "10.0.0.1");
+    assertEquals(20, assertThrows(LoginThrottledException.class,
+      () -> service.checkAllowed("ana", "10.0.0.1")).getRetryAfterSeconds());
+
+    // Pasadas dos ventanas los fallos antiguos ya no cuentan
+    now.addAndGet(150_000);
+    service.recordFailure("ana", "10.0.0.1");
+    assertDoesNotThrow(() -> service.checkAllowed("ana", "10.0.0.1"));
+
+    // El éxito limpia el username
+    service.recordFailure("ana", "10.0.0.1");
+    service.recordSuccess("ana");
+    service.recordFailure("ana", "10.0.0.1");
+    assertDoesNotThrow(() -> service.checkAllowed("ana", "10.0.0.1"));
+  }
+
+  @Test
+  void fullMapMakesRoomForNewKeysAndKeepsLockedOnes() {
+    AtomicLong now = new AtomicLong(1_000_000);
+    LoginAttemptService service = new LoginAttemptService(
+      now::get, new SimpleMeterRegistry(), 60, 3, 100, 10, 600, 10, "");
+    for (int i = 0; i < 3; i++) {
+      service.recordFailure("ana", null);
+    }
+
+    // Barrido de usernames: el mapa no pasa del límite
+    for (int i = 0; i < 50; i++) {
+      now.incrementAndGet();
+      service.recordFailure("barrido-" + i, null);
+    }
+    assertTrue(service.size() <= 10);
+    assertThrows(LoginThrottledException.class, () -> service.checkAllowed("ana", null));
+
+    // Una clave nueva con el mapa lleno se sigue contando
+    for (int i = 0; i < 3; i++) {
+      service.recordFailure("luis", null);
+    }
+    assertThrows(LoginThrottledException.class, () -> service.checkAllowed("luis", null));
+  }
+
+  @Test
+  void forwardedForIsOnlyTrustedFromConfiguredProxies() {
+    LoginAttemptService service = new LoginAttemptService(
+      System::currentTimeMillis, new SimpleMeterRegistry(), 60, 3, 100, 10, 600, 10, "10.0.0.5, 192.168.0.0/16");
+    assertEquals("9.9.9.9", service.clientIp(forwarded("10.0.0.5", "1.2.3.4, 9.9.9.9")));
+    assertEquals("9.9.9.9", service.clientIp(forwarded("192.168.3.4", "9.9.9.9")));
+    assertEquals("172.17.0.1", service.clientIp(forwarded("172.17.0.1", "9.9.9.9")));
+
+    LoginAttemptService untrusting = new LoginAttemptService(
+      System::currentTimeMillis, new SimpleMeterRegistry(), 60, 3, 100, 10, 600, 10, "");
+    assertEquals("10.0.0.5", untrusting.clientIp(forwarded("10.0.0.5", "9.9.9.9")));
+  }
+
+  private static MockHttpServletRequest forwarded(String remoteAddr, String forwardedFor) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setRemoteAddr(remoteAddr);
+    request.addHeader("X-Forwarded-For", forwardedFor);
+    return request;
+  }
+
+  private static MockHttpServletRequestBuilder login(String username, String ip) {
+    return post("/auth/login")
+      .contentType(MediaType.APPLICATION_JSON)
+      .content("{\"username\":\"" + username + "\",\"password\":\"incorrecta\"}")
+      .with(request -> {
+        request.setRemoteAddr(ip);
+        return request;
+      });
+  }
+}
@@ -0,0 +1,48 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LoginMetricsTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void loginRecordsEachStageOfThePath() throws Exception {
+    long logins = count("usuario.login", "outcome", "success");
+    long hashes = count("usuario.password.hash", "operation", "matches");
+    long loads = count("usuario.user.load", "result", "found");
+    long signatures = meterRegistry.get("usuario.jwt.sign").timer().count();
+
+    mockMvc.perform(post("/auth/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"username\":\"admin\",\"password\":\"admin123\"}"))
+      .andExpect(status().isOk());
+
+    assertTrue(count("usuario.login", "outcome", "success") > logins);
+    assertTrue(count("usuario.password.hash", "operation", "matches") > hashes);
+    assertTrue(count("usuario.user.load", "result", "found") > loads);
+    assertTrue(meterRegistry.get("usuario.jwt.sign").timer().count() > signatures);
+  }
+
+  private long count(String name, String tag, String value) {
+    return meterRegistry.get(name).tag(tag, value).timer().count();
+  }
+}
@@ -0,0 +1,87 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RefreshTokenRotationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Test
+  void rotationIssuesNewPairAndReuseRevokesFamily() throws Exception {
+    JsonNode login = post("/auth/login", "{\"username\":\"admin\",\"password\":\"admin123\"}", 200);
+    String first = login.get("refreshToken").asText();
+
+    JsonNode rotated = post("/auth/refresh", "{\"refreshToken\":\"" + first + "\"}", 200);
+    String second = rotated.get("refreshToken").asText();
+    String accessToken = rotated.get("token").asText();
+    assertNotEquals(first, second);
+    mockMvc.perform(get("/usuarios/page").header("Authorization", "Bearer " + accessToken))
+      .andExpect(status().isOk());
+
+    // Pasado el margen de gracia, reutilizar el token ya rotado revoca la familia y sus access tokens vivos
+    Thread.sleep(400);
+    post("/auth/refresh", "{\"refreshToken\":\"" + first + "\"}", 401);
+    post("/auth/refresh", "{\"refreshToken\":\"" + second + "\"}", 401);
+    mockMvc.perform(get("/usuarios/page").header("Authorization", "Bearer " + accessToken))
+      .andExpect(status().isForbidden());
+  }
+
+  @Test
+  void secondUseWithinGraceKeepsTheFamilyAlive() throws Exception {
+    JsonNode login = post("/auth/login", "{\"username\":\"admin\",\"password\":\"admin123\"}", 200);
+    String shared = login.get("refreshToken").asText();
+
+    // Dos pestañas refrescan con el mismo token casi a la vez
+    String firstTab = post("/auth/refresh", "{\"refreshToken\":\"" + shared + "\"}", 200)
+      .get("refreshToken").asText();
+    String secondTab = post("/auth/refresh", "{\"refreshToken\":\"" + shared + "\"}", 200)
+      .get("refreshToken").asText();
+
+    assertNotEquals(firstTab, secondTab);
+    post("/auth/refresh", "{\"refreshToken\":\"" + firstTab + "\"}", 200);
+    post("/auth/refresh", "{\"refreshToken\":\"" + secondTab + "\"}", 200);
+  }
+
+  @Test
+  void accessTokenCannotBeRenewed() throws Exception {
+    String accessToken = post("/auth/login", "{\"username\":\"admin\",\"password\":\"admin123\"}", 200)
+      .get("token").asText();
+
+    post("/auth/refresh", "{\"token\":\"" + accessToken + "\"}", 400);
+  }
+
+  @Test
+  void unknownRefreshTokenIsRejected() throws Exception {
+    post("/auth/refresh", "{\"refreshToken\":\"desconocido\"}", 401);
+  }
+
+  private JsonNode post(String path, String json, int expectedStatus) throws Exception {
+    String response = mockMvc.perform(
+        MockMvcRequestBuilders.post(path)
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(json))
+      .andExpect(status().is(expectedStatus))
+      .andReturn().getResponse().getContentAsString();
+    return objectMapper.readTree(response);
+  }
+}
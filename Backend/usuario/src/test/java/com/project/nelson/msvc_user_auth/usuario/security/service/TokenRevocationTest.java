@@ -0,0 +1,119 @@
+package com.project.nelson.msvc_user_auth.usuario.security.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.service.UsuarioService;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TokenRevocationTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private JwtService jwtService;
+
+  @Autowired
+  private UsuarioService usuarioService;
+
+  @Autowired
+  private UserSessionRegistry sessionRegistry;
+
+  @Test
+  void logoutRevokesOnlyThatToken() throws Exception {
+    String first = login();
+    String second = login();
+    assertNotNull(jwtService.verify(first).jwtId());
+
+    mockMvc.perform(get("/usuarios/page").header("Authorization", "Bearer " + first))
+      .andExpect(status().isOk());
+
+    mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + first))
+      .andExpect(status().isOk());
+
+    mockMvc.perform(get("/usuarios/page").header("Authorization", "Bearer " + first))
+      .andExpect(status().isForbidden());
+    mockMvc.perform(get("/usuarios/page").header("Authorization", "Bearer " + second))
+      .andExpect(status().isOk());
+  }
+
+  @Test
+  void reRegisteredUsernameOnlyRejectsTokensOfTheDeletedAccount() throws Exception {
+    Long deleted = usuarioService.saveWithRoleUser(usuario()).getId();
+    Date beforeReRegistration = new Date();
+    usuarioService.deleteById(deleted);
+    // La baja es una revocación por fecha (se purga), no un bloqueo permanente
+    assertTrue(sessionRegistry.isRevoked("reusado", beforeReRegistration));
+
+    Long reRegistered = usuarioService.saveWithRoleUser(usuario()).getId();
+    try {
+      assertTrue(sessionRegistry.isRevoked("reusado", beforeReRegistration));
+      assertFalse(sessionRegistry.isRevoked("reusado", new Date(System.currentTimeMillis() + 1000)));
+    } finally {
+      usuarioService.deleteById(reRegistered);
+    }
+  }
+
+  @Test
+  void tokenIssuedInTheSameSecondAfterARevocationIsAccepted() throws Exception {
+    User user = new User("cambio-roles", "", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    // Empieza al principio de un segundo: los dos tokens comparten 'iat'
+    while (System.currentTimeMillis() % 1000 > 500) {
+      Thread.sleep(10);
+    }
+    String before = jwtService.generateToken(user, user.getAuthorities(), "cambio@correo.com");
+    Thread.sleep(2);
+    sessionRegistry.revokeIssuedUntilNow("cambio-roles");
+    Thread.sleep(2);
+    String after = jwtService.generateToken(user, user.getAuthorities(), "cambio@correo.com");
+
+    mockMvc.perform(get("/usuarios/page").header("Authorization", "Bearer " + before))
+      .andExpect(status().isForbidden());
+    mockMvc.perform(get("/usuarios/page").header("Authorization", "Bearer " + after))
+      .andExpect(status().isOk());
+  }
+
+  private static Usuario usuario() {
+    Usuario usuario = new Usuario();
+    usuario.setName("Reusado");
+    usuario.setLastname("Prueba");
+    usuario.setUsername("reusado");
+    usuario.setPassword("secreto123");
+    usuario.setEmail("reusado@correo.com");
+    return usuario;
+  }
+
+  private String login() throws Exception {
+    String response = mockMvc.perform(post("/auth/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"username\":\"admin\",\"password\":\"admin123\"}"))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getContentAsString();
+    JsonNode body = objectMapper.readTree(response);
+    return body.get("token").asText();
+  }
+}
@@ -0,0 +1,103 @@
+package com.project.nelson.msvc_user_auth.usuario.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioPage;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.repository.RolRepository;
+import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UsuarioListingTest {
+
+  @Autowired
+  private UsuarioService usuarioService;
+
+  @Autowired
+  private UsuarioRepository usuarioRepository;
+
+  @Autowired
+  private RolRepository rolRepository;
+
+  private final List<Long> createdIds = new ArrayList<>();
+
+  @BeforeEach
+  void createUsers() {
+    Rol rol = rolRepository.findByName("ROLE_USER")
+      .orElseGet(() -> rolRepository.save(new Rol("ROLE_USER")));
+    for (int i = 0; i < 7; i++) {
+      Usuario usuario = new Usuario();
+      usuario.setName("Lista");
+      usuario.setLastname("Prueba");
+      usuario.setUsername("listado" + i);
+      usuario.setPassword("$2b$04$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234");
+      usuario.setEmail("listado" + i + "@correo.com");
+      usuario.setRoles(List.of(rol));
+      createdIds.add(usuarioRepository.save(usuario).getId());
+    }
+  }
+
+  @AfterEach
+  void deleteUsers() {
+    usuarioRepository.deleteAllById(createdIds);
+    createdIds.clear();
+  }
+
+  @Test
+  void keysetPagesCoverAllUsersInIdOrder() {
+    List<Long> expected = usuarioRepository.findAll().stream()
+      .map(Usuario::getId)
+      .sorted()
+      .collect(Collectors.toList());
+
+    List<Long> seen = new ArrayList<>();
+    long after = 0;
+    UsuarioPage page;
+    do {
+      page = usuarioService.findPageDto(after, 3);
+      assertTrue(page.items().size() <= 3);
+      page.items().forEach(dto -> {
+        seen.add(dto.getId());
+        assertFalse(dto.getRoles().isEmpty());
+      });
+      if (page.hasMore()) {
+        after = page.nextCursor();
+      }
+    } while (page.hasMore());
+
+    assertNull(page.nextCursor());
+    assertEquals(expected, seen);
+  }
+
+  @Test
+  void streamDeliversEveryUserWithRolesInChunks() {
+    List<Integer> chunkSizes = new ArrayList<>();
+    List<UsuarioDto> streamed = new ArrayList<>();
+
+    usuarioService.streamAllDto(3, chunk -> {
+      chunkSizes.add(chunk.size());
+      streamed.addAll(chunk);
+    });
+
+    assertEquals(usuarioRepository.count(), streamed.size());
+    assertTrue(chunkSizes.stream().allMatch(size -> size <= 3));
+    streamed.stream()
+      .filter(dto -> createdIds.contains(dto.getId()))
+      .forEach(dto -> assertEquals("ROLE_USER", dto.getRoles().get(0).getName()));
+  }
+}
@@ -0,0 +1,124 @@
+package com.project.nelson.msvc_user_auth.usuario.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.msvc_user_auth.usuario.mapper.UsuarioMapper;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.repository.RolRepository;
+import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Número de sentencias SQL por listado, independiente del número de usuarios.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UsuarioQueryCountTest {
+
+  private static final int USERS = 12;
+
+  @Autowired
+  private UsuarioService usuarioService;
+
+  @Autowired
+  private UsuarioRepository usuarioRepository;
+
+  @Autowired
+  private RolRepository rolRepository;
+
+  @Autowired
+  private UsuarioMapper usuarioMapper;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private final List<Long> createdIds = new ArrayList<>();
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    Rol user = rolRepository.findByName("ROLE_USER")
+      .orElseGet(() -> rolRepository.save(new Rol("ROLE_USER")));
+    Rol admin = rolRepository.findByName("ROLE_ADMIN")
+      .orElseGet(() -> rolRepository.save(new Rol("ROLE_ADMIN")));
+    for (int i = 0; i < USERS; i++) {
+      Usuario usuario = new Usuario();
+      usuario.setName("Conteo");
+      usuario.setLastname("Consultas");
+      usuario.setUsername("conteo" + i);
+      usuario.setPassword("$2b$04$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234");
+      usuario.setEmail("conteo" + i + "@correo.com");
+      usuario.setRoles(i % 2 == 0 ? List.of(user) : List.of(user, admin));
+      createdIds.add(usuarioRepository.save(usuario).getId());
+    }
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    usuarioRepository.deleteAllById(createdIds);
+    createdIds.clear();
+  }
+
+  @Test
+  void findAllDtoUsesTwoQueries() {
+    assertTrue(usuarioService.findAllDto().size() >= USERS);
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void findDtoByIdUsesTwoQueries() {
+    assertEquals(2, usuarioService.findDtoById(createdIds.get(1)).orElseThrow().getRoles().size());
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void keysetPageUsesTwoQueries() {
+    assertEquals(5, usuarioService.findPageDto(0, 5).items().size());
+
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void streamUsesOneQueryPerChunkPlusTheCursor() {
+    long total = usuarioRepository.count();
+    statistics.clear();
+    int chunkSize = 5;
+
+    usuarioService.streamAllDto(chunkSize, chunk -> {});
+
+    long chunks = (total + chunkSize - 1) / chunkSize;
+    assertEquals(1 + chunks, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void entityPageBatchesRoleLoading() {
+    // Ruta con entidades: los roles lazy se cargan en lote gracias a @BatchSize
+    transactionTemplate.executeWithoutResult(status ->
+      usuarioService.findAll(PageRequest.of(0, USERS)).forEach(usuarioMapper::toDto)
+    );
+
+    // página + count + un lote de roles
+    assertTrue(statistics.getPrepareStatementCount() <= 3, "sentencias: " + statistics.getPrepareStatementCount());
+  }
+}
@@ -0,0 +1,140 @@
+package com.project.nelson.msvc_user_auth.usuario.service.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.service.RolService;
+import com.project.nelson.msvc_user_auth.usuario.service.UsuarioService;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.UsuarioBatchWriter;
+import com.project.nelson.msvc_user_auth.usuario.service.importer.UsuarioBatchWriter.HashedRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheTest {
+
+  @Autowired
+  private UsuarioService usuarioService;
+
+  @Autowired
+  private RolService rolService;
+
+  @Autowired
+  private UserDetailsService userDetailsService;
+
+  @Autowired
+  private UsuarioBatchWriter batchWriter;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @AfterEach
+  void cleanUp() {
+    for (String username : List.of("cacheuser", "cacheimport")) {
+      usuarioService.findByUsername(username).ifPresent(u -> usuarioService.deleteById(u.getId()));
+    }
+  }
+
+  @Test
+  void repeatedReadsSkipTheDatabase() {
+    Long adminId = usuarioService.findByUsername("admin").orElseThrow().getId();
+    usuarioService.findById(adminId);
+
+    Statistics statistics = statistics();
+    statistics.clear();
+    Usuario byUsername = usuarioService.findByUsername("admin").orElseThrow();
+    Usuario byId = usuarioService.findById(adminId).orElseThrow();
+
+    assertEquals(0, statistics.getPrepareStatementCount());
+    assertFalse(byUsername.getRoles().isEmpty());
+    assertEquals(byUsername.getRoles().size(), byId.getRoles().size());
+    assertTrue(meterRegistry.get("usuario.cache.hit_ratio").tag("region", CacheRegions.USUARIOS).gauge().value() > 0);
+  }
+
+  @Test
+  void updatesAndDeletesLeaveNoStaleReads() {
+    Usuario created = new Usuario();
+    created.setName("Cache");
+    created.setLastname("Antes");
+    created.setUsername("cacheuser");
+    created.setPassword("secreto123");
+    created.setEmail("cache.antes@correo.com");
+    Long id = usuarioService.saveWithRoleUser(created).getId();
+    Rol user = rolService.findByName("ROLE_USER").orElseThrow();
+    Rol admin = rolService.findByName("ROLE_ADMIN").orElseThrow();
+
+    // Calienta todas las regiones: entidad, colección de roles y consultas
+    usuarioService.findByUsername("cacheuser").orElseThrow();
+    usuarioService.findByEmail("cache.antes@correo.com").orElseThrow();
+    usuarioService.findById(id).orElseThrow().getRoles().size();
+    userDetailsService.loadUserByUsername("cacheuser");
+
+    // Como el controlador: entidad nueva con el id existente
+    Usuario updated = new Usuario();
+    updated.setId(id);
+    updated.setName("Cache");
+    updated.setLastname("Después");
+    updated.setUsername("cacheuser");
+    updated.setPassword(usuarioService.findById(id).orElseThrow().getPassword());
+    updated.setEmail("cache.despues@correo.com");
+    updated.setActive(false);
+    updated.setRoles(List.of(user, admin));
+    usuarioService.save(updated);
+
+    Usuario byUsername = usuarioService.findByUsername("cacheuser").orElseThrow();
+    assertEquals("Después", byUsername.getLastname());
+    assertFalse(byUsername.isActive());
+    assertEquals(2, byUsername.getRoles().size());
+    assertEquals(2, usuarioService.findById(id).orElseThrow().getRoles().size());
+    assertTrue(usuarioService.findByEmail("cache.antes@correo.com").isEmpty());
+    assertEquals(id, usuarioService.findByEmail("cache.despues@correo.com").orElseThrow().getId());
+    assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("cacheuser"));
+
+    usuarioService.deleteById(id);
+
+    assertTrue(usuarioService.findById(id).isEmpty());
+    assertTrue(usuarioService.findByUsername("cacheuser").isEmpty());
+    assertTrue(usuarioService.findByEmail("cache.despues@correo.com").isEmpty());
+  }
+
+  @Test
+  void jdbcImportsAreVisibleAfterACachedMiss() {
+    assertTrue(usuarioService.findByUsername("cacheimport").isEmpty());
+    assertTrue(usuarioService.findByUsername("cacheimport").isEmpty());
+
+    UsuarioDto dto = new UsuarioDto();
+    dto.setName("Cache");
+    dto.setLastname("Importado");
+    dto.setUsername("cacheimport");
+    dto.setEmail("cache.import@correo.com");
+    Long rolId = rolService.findByName("ROLE_ADMIN").orElseThrow().getId();
+    assertTrue(batchWriter.insert(List.of(new HashedRow(1, dto, "{noop}x", List.of(rolId)))).isEmpty());
+
+    Usuario imported = usuarioService.findByUsername("cacheimport").orElseThrow();
+    assertEquals(1, imported.getRoles().size());
+    assertTrue(usuarioService.findByEmail("cache.import@correo.com").isPresent());
+  }
+
+  private Statistics statistics() {
+    return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+}
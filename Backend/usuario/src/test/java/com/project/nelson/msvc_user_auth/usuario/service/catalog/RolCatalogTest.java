@@ -0,0 +1,61 @@
+package com.project.nelson.msvc_user_auth.usuario.service.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Rol;
+import com.project.nelson.msvc_user_auth.usuario.service.RolService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RolCatalogTest {
+
+  @Autowired
+  private RolService rolService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Test
+  void lookupsAreServedWithoutQueries() {
+    rolService.findByName("ROLE_ADMIN").orElseThrow();
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    for (int i = 0; i < 10; i++) {
+      assertTrue(rolService.findByName("ROLE_ADMIN").isPresent());
+      assertFalse(rolService.findAllDto().isEmpty());
+    }
+
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void saveAndDeleteSwapTheSnapshot() {
+    Rol saved = rolService.save(new Rol("ROLE_CATALOGO"));
+
+    assertEquals(saved.getId(), rolService.findByName("ROLE_CATALOGO").orElseThrow().getId());
+    assertTrue(rolService.findDtoById(saved.getId()).isPresent());
+
+    rolService.deleteById(saved.getId());
+
+    assertFalse(rolService.findById(saved.getId()).isPresent());
+    assertFalse(rolService.findDtoByName("ROLE_CATALOGO").isPresent());
+  }
+
+  @Test
+  void returnedEntitiesAreIndependentCopies() {
+    Rol first = rolService.findByName("ROLE_ADMIN").orElseThrow();
+    first.setName("modificado");
+
+    assertEquals("ROLE_ADMIN", rolService.findByName("ROLE_ADMIN").orElseThrow().getName());
+  }
+}
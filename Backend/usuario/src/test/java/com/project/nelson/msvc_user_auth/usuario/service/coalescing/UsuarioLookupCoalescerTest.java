@@ -0,0 +1,197 @@
+package com.project.nelson.msvc_user_auth.usuario.service.coalescing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.security.UsuarioPrincipal;
+import com.project.nelson.msvc_user_auth.usuario.service.UsuarioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UsuarioLookupCoalescerTest {
+
+  private static final int CALLERS = 16;
+
+  @Autowired
+  private UserDetailsService userDetailsService;
+
+  @Autowired
+  private UsuarioService usuarioService;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void concurrentCallersShareOneQuery() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SingleFlight<String, String> flight = new SingleFlight<>("prueba", registry);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger executions = new AtomicInteger();
+
+    List<String> results = runConcurrently(() -> flight.execute("admin", () -> {
+      executions.incrementAndGet();
+      await(release);
+      return new String("resultado");
+    }), () -> lookups(registry, "prueba", "coalesced") == CALLERS - 1, release);
+
+    assertEquals(1, executions.get());
+    results.forEach(result -> assertSame(results.get(0), result));
+    assertEquals(1, lookups(registry, "prueba", "issued"));
+    assertEquals(0, flight.inFlight());
+
+    // Terminada la consulta, la siguiente llamada vuelve a la BD
+    flight.execute("admin", () -> "nuevo");
+    assertEquals(2, lookups(registry, "prueba", "issued"));
+  }
+
+  @Test
+  void leaderFailureReachesEveryWaiter() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SingleFlight<String, String> flight = new SingleFlight<>("prueba", registry);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < CALLERS; i++) {
+        futures.add(executor.submit(() -> flight.execute("caida", () -> {
+          await(release);
+          throw new IllegalStateException("BD caída");
+        })));
+      }
+      waitUntil(() -> lookups(registry, "prueba", "coalesced") == CALLERS - 1);
+      release.countDown();
+      for (Future<String> future : futures) {
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertEquals("BD caída", ex.getCause().getMessage());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    // Un error no queda en caché
+    assertEquals("recuperada", flight.execute("caida", () -> "recuperada"));
+  }
+
+  @Test
+  void concurrentLoginsOfTheSameUserGetACompletePrincipal() throws Exception {
+    double before = lookups(meterRegistry, "find_by_username", "issued")
+      + lookups(meterRegistry, "find_by_username", "coalesced");
+
+    List<UsuarioPrincipal> principals = runConcurrently(
+      () -> (UsuarioPrincipal) userDetailsService.loadUserByUsername("admin"), () -> true, null);
+
+    for (UsuarioPrincipal principal : principals) {
+      assertEquals("admin", principal.getUsername());
+      assertTrue(principal.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+    }
+    double after = lookups(meterRegistry, "find_by_username", "issued")
+      + lookups(meterRegistry, "find_by_username", "coalesced");
+    assertEquals(CALLERS, after - before, 0.0);
+  }
+
+  @Test
+  void concurrentReadsByIdGetTheirOwnDetachedCopy() throws Exception {
+    Long adminId = usuarioService.findByUsername("admin").orElseThrow().getId();
+
+    List<Usuario> usuarios = runConcurrently(
+      () -> usuarioService.findById(adminId).orElseThrow(), () -> true, null);
+
+    Set<Usuario> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Usuario usuario : usuarios) {
+      assertTrue(distinct.add(usuario), "dos llamadores recibieron la misma instancia");
+      // Fuera de la transacción: los roles ya vienen cargados y no dependen de ninguna sesión
+      assertFalse(usuario.getRoles() instanceof PersistentCollection);
+      assertTrue(usuario.getRoles().stream().anyMatch(rol -> rol.getName().equals("ROLE_ADMIN")));
+    }
+    assertEquals(adminId, usuarios.get(0).getId());
+  }
+
+  @Test
+  void writeTransactionsReadDirectly() {
+    double issued = lookups(meterRegistry, "find_by_username", "issued");
+    new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+      assertTrue(usuarioService.findByUsername("admin").isPresent()));
+    assertEquals(issued, lookups(meterRegistry, "find_by_username", "issued"), 0.0);
+  }
+
+  /**
+   * Lanza {@link #CALLERS} llamadas a la vez; si hay {@code release}, lo abre
+   * cuando se cumple {@code ready}.
+   */
+  private static <T> List<T> runConcurrently(Callable<T> call, BooleanSupplier ready, CountDownLatch release)
+    throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<T>> futures = new ArrayList<>();
+      for (int i = 0; i < CALLERS; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          return call.call();
+        }));
+      }
+      start.countDown();
+      if (release != null) {
+        waitUntil(ready);
+        release.countDown();
+      }
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : futures) {
+        results.add(future.get(10, TimeUnit.SECONDS));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static double lookups(MeterRegistry registry, String query, String result) {
+    return registry.get("usuario.db.lookups").tag("query", query).tag("result", result).counter().count();
+  }
+
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condición no alcanzada");
+      Thread.sleep(5);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.project.nelson.msvc_user_auth.usuario.service.importer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.ImportJobStatus;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.ImportRowError;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.RolDto;
+import com.project.nelson.msvc_user_auth.usuario.model.dtos.UsuarioDto;
+import com.project.nelson.msvc_user_auth.usuario.security.service.UserSessionRegistry;
+import com.project.nelson.msvc_user_auth.usuario.service.UsuarioImportService;
+import com.project.nelson.msvc_user_auth.usuario.service.UsuarioService;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = "usuario.import.batch-size=2")
+@ActiveProfiles("test")
+class UsuarioImportServiceTest {
+
+  @Autowired
+  private UsuarioImportService importService;
+
+  @Autowired
+  private UsuarioService usuarioService;
+
+  @Autowired
+  private PasswordEncoder passwordEncoder;
+
+  @Autowired
+  private UserSessionRegistry sessionRegistry;
+
+  @AfterEach
+  void cleanUp() {
+    for (String username : List.of("lote1", "lote2", "lote3", "lote4")) {
+      usuarioService.findByUsername(username).ifPresent(u -> usuarioService.deleteById(u.getId()));
+    }
+  }
+
+  @Test
+  void importsValidRowsAndReportsTheRest() throws Exception {
+    String csv = """
+      name,lastname,username,password,email,roles
+      Ana,Lote,lote1,secreto1,lote1@correo.com,
+      Beto,Lote,lote2,secreto2,lote2@correo.com,ROLE_ADMIN
+      Caro,Lote,lote3,secreto3,no-es-email,
+      Dani,Lote,admin,secreto4,otro@correo.com,
+      Eva,Lote,lote1,secreto5,lote5@correo.com,
+      "Fer, hijo",Lote,lote4,secreto6,lote4@correo.com,
+      """;
+
+    ImportJobStatus status = await(importService.start(
+      new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV).jobId());
+
+    assertEquals("COMPLETED", status.state());
+    assertEquals(6, status.rowsRead());
+    assertEquals(3, status.imported());
+    assertEquals(3, status.failed());
+    assertEquals(Set.of(4L, 5L, 6L),
+      status.errors().stream().map(ImportRowError::line).collect(Collectors.toSet()));
+
+    UsuarioDto lote2 = usuarioService.findDtoByUsername("lote2").orElseThrow();
+    assertEquals(List.of("ROLE_ADMIN"), lote2.getRoles().stream().map(RolDto::getName).toList());
+    assertEquals("Fer, hijo", usuarioService.findDtoByUsername("lote4").orElseThrow().getName());
+    assertTrue(passwordEncoder.matches("secreto1",
+      usuarioService.findByUsername("lote1").orElseThrow().getPassword()));
+    assertTrue(usuarioService.existsByUsername("lote1"));
+  }
+
+  @Test
+  void importsNdjson() throws Exception {
+    String ndjson = """
+      {"name":"Ana","lastname":"Lote","username":"lote1","password":"secreto1","email":"lote1@correo.com"}
+      {"name":"Beto","lastname":"Lote","username":"lote2","password":"secreto2","email":"lote2@correo.com"}
+      {no es json
+      """;
+
+    ImportJobStatus status = await(importService.start(
+      new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ImportFormat.NDJSON).jobId());
+
+    assertEquals(2, status.imported());
+    assertEquals(1, status.failed());
+    assertEquals(List.of("ROLE_USER"),
+      usuarioService.findDtoByUsername("lote1").orElseThrow().getRoles().stream().map(RolDto::getName).toList());
+  }
+
+  @Test
+  void importedUsernameDoesNotInheritThePreviousAccountBlock() throws Exception {
+    // Bloqueo de una cuenta anterior (inactiva) con el mismo username
+    sessionRegistry.markInactive("lote1");
+    String ndjson = """
+      {"name":"Ana","lastname":"Lote","username":"lote1","password":"secreto1","email":"lote1@correo.com"}
+      """;
+
+    ImportJobStatus status = await(importService.start(
+      new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ImportFormat.NDJSON).jobId());
+
+    assertEquals(1, status.imported());
+    assertTrue(sessionRegistry.isRevoked("lote1", new Date(status.startedAt().toEpochMilli())));
+    assertFalse(sessionRegistry.isRevoked("lote1", new Date(System.currentTimeMillis() + 1000)));
+  }
+
+  private ImportJobStatus await(String jobId) throws InterruptedException {
+    for (int i = 0; i < 200; i++) {
+      ImportJobStatus status = importService.findStatus(jobId).orElseThrow();
+      if (status.finishedAt() != null) {
+        return status;
+      }
+      Thread.sleep(50);
+    }
+    throw new AssertionError("La importación no terminó a tiempo");
+  }
+}
@@ -0,0 +1,112 @@
+package com.project.nelson.msvc_user_auth.usuario.service.membership;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.project.nelson.msvc_user_auth.usuario.model.entity.Usuario;
+import com.project.nelson.msvc_user_auth.usuario.repository.UsuarioRepository;
+import com.project.nelson.msvc_user_auth.usuario.service.UsuarioService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UsuarioMembershipIndexTest {
+
+  @Autowired
+  private UsuarioService usuarioService;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private UsuarioRepository usuarioRepository;
+
+  @Autowired
+  private UsuarioMembershipIndex membershipIndex;
+
+  @Test
+  void definiteMissesSkipTheDatabase() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    for (int i = 0; i < 50; i++) {
+      assertFalse(usuarioService.existsByUsername("libre" + i));
+    }
+
+    // Con fpp 1% casi todas las consultas se resuelven en memoria
+    assertTrue(statistics.getPrepareStatementCount() < 5);
+  }
+
+  @Test
+  void existingValuesAreConfirmedByTheDatabase() {
+    assertTrue(usuarioService.existsByUsername("admin"));
+    assertTrue(usuarioService.existsByEmail("admin@correo.com"));
+  }
+
+  @Test
+  void insertsAndRebuildsHaveNoFalseNegatives() {
+    Usuario usuario = new Usuario();
+    usuario.setName("Bloom");
+    usuario.setLastname("Filtro");
+    usuario.setUsername("bloomuser");
+    usuario.setPassword("secreto123");
+    usuario.setEmail("bloom@correo.com");
+    usuario.setActive(true);
+    Usuario saved = usuarioService.save(usuario);
+
+    assertTrue(usuarioService.existsByUsername("bloomuser"));
+    assertTrue(usuarioService.existsByEmail("bloom@correo.com"));
+
+    usuarioService.deleteById(saved.getId());
+    assertFalse(usuarioService.existsByUsername("bloomuser"));
+  }
+
+  @Test
+  void insertsFromAnotherInstanceArriveThroughRemoteChanges() throws InterruptedException {
+    // Alta que esta instancia no ve pasar por UsuarioService, como la de otra réplica
+    Usuario usuario = new Usuario();
+    usuario.setName("Remoto");
+    usuario.setLastname("Replica");
+    usuario.setUsername("remotouser");
+    usuario.setPassword("$2b$04$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234");
+    usuario.setEmail("remoto@correo.com");
+    Long id = usuarioRepository.save(usuario).getId();
+    try {
+      membershipIndex.applyRemoteChange(id);
+
+      long deadline = System.nanoTime() + 5_000_000_000L;
+      while (!membershipIndex.mightContain(UsuarioMembershipIndex.Key.USERNAME, "remotouser")
+        && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertTrue(usuarioService.existsByUsername("remotouser"));
+      assertTrue(usuarioService.existsByEmail("remoto@correo.com"));
+    } finally {
+      usuarioRepository.deleteById(id);
+    }
+  }
+
+  @Test
+  void bloomFilterNeverForgetsAndStaysNearTargetRate() {
+    BloomFilter filter = BloomFilter.create(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+      filter.put("usuario" + i);
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("usuario" + i));
+      if (filter.mightContain("otro" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 200, "falsos positivos: " + falsePositives);
+    assertEquals(10_000, filter.insertions());
+  }
+}